@@ -0,0 +1,29 @@
+package picocli.annotation.processing.tests;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.Test;
+import picocli.codegen.annotation.processing.CommandSpecFactoryProcessor;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+public class CommandSpecFactoryProcessorTest {
+
+    @Test
+    public void generate() {
+        CommandSpecFactoryProcessor processor = new CommandSpecFactoryProcessor();
+        Compilation compilation =
+                javac()
+                        .withProcessors(processor)
+                        .compile(JavaFileObjects.forResource(
+                                "picocli/examples/factory/FactoryDemo.java"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation)
+                .generatedSourceFile("picocli.examples.factory.FactoryDemo_CommandSpecFactory")
+                .hasSourceEquivalentTo(JavaFileObjects.forResource("generated/picocli/examples/factory/FactoryDemo_CommandSpecFactory.java"));
+        assertThat(compilation)
+                .generatedSourceFile("picocli.examples.factory.FactoryDemo_Sub_CommandSpecFactory")
+                .hasSourceEquivalentTo(JavaFileObjects.forResource("generated/picocli/examples/factory/FactoryDemo_Sub_CommandSpecFactory.java"));
+    }
+}
@@ -0,0 +1,103 @@
+package picocli.examples.factory;
+
+import picocli.CommandLine;
+import picocli.CommandLine.IFactory;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.IGetter;
+import picocli.CommandLine.Model.ISetter;
+import picocli.CommandLine.Model.OptionSpec;
+import picocli.CommandLine.Model.PositionalParamSpec;
+
+/** Builds the {@code CommandSpec} for {@code picocli.examples.factory.FactoryDemo}. Generated by picocli-codegen, do not edit. */
+public final class FactoryDemo_CommandSpecFactory implements CommandLine.ICommandSpecFactory {
+    public CommandSpec create(Object command, IFactory factory) throws Exception {
+        final picocli.examples.factory.FactoryDemo cmd = (picocli.examples.factory.FactoryDemo) command;
+        CommandSpec spec = CommandSpec.wrapWithoutInspection(cmd);
+        spec.name("demo");
+        spec.version(new String[] {"demo 1.0"});
+        spec.usageMessage().description(new String[] {"Demonstrates a command whose model is built without reflection."});
+        spec.addOption(OptionSpec.builder(new String[] {"-v", "--verbose"})
+                .type(boolean[].class)
+                .auxiliaryTypes(boolean.class)
+                .arity(CommandLine.Range.valueOf("0..0").unspecified(true))
+                .required(false)
+                .paramLabel("<verbose>")
+                .description(new String[] {"Verbose mode. Multiple -v options increase the verbosity."})
+                .withToString("field boolean[] picocli.examples.factory.FactoryDemo.verbose")
+                .initialValue(cmd.verbose)
+                .getter(new IGetter() {
+                    @SuppressWarnings("unchecked") public <T> T get() { return (T) (Object) cmd.verbose; }
+                })
+                .setter(new ISetter() {
+                    @SuppressWarnings("unchecked") public <T> T set(T value) {
+                        T old = (T) (Object) cmd.verbose;
+                        cmd.verbose = (boolean[]) value;
+                        return old;
+                    }
+                })
+                .build());
+        spec.addOption(OptionSpec.builder(new String[] {"-n"})
+                .type(int.class)
+                .arity(CommandLine.Range.valueOf("1..1").unspecified(true))
+                .required(false)
+                .paramLabel("<count>")
+                .description(new String[] {"The count."})
+                .defaultValue("3")
+                .withToString("field int picocli.examples.factory.FactoryDemo.count")
+                .initialValue(cmd.count)
+                .getter(new IGetter() {
+                    @SuppressWarnings("unchecked") public <T> T get() { return (T) (Object) cmd.count; }
+                })
+                .setter(new ISetter() {
+                    @SuppressWarnings("unchecked") public <T> T set(T value) {
+                        T old = (T) (Object) cmd.count;
+                        cmd.count = (java.lang.Integer) value;
+                        return old;
+                    }
+                })
+                .build());
+        spec.addOption(OptionSpec.builder(new String[] {"-D"})
+                .type(java.util.Map.class)
+                .auxiliaryTypes(java.lang.String.class, java.lang.Integer.class)
+                .arity(CommandLine.Range.valueOf("1..1").unspecified(true))
+                .required(false)
+                .paramLabel("<String=Integer>")
+                .description(new String[] {"System properties."})
+                .withToString("field java.util.Map<String, Integer> picocli.examples.factory.FactoryDemo.properties")
+                .initialValue(cmd.properties)
+                .getter(new IGetter() {
+                    @SuppressWarnings("unchecked") public <T> T get() { return (T) (Object) cmd.properties; }
+                })
+                .setter(new ISetter() {
+                    @SuppressWarnings("unchecked") public <T> T set(T value) {
+                        T old = (T) (Object) cmd.properties;
+                        cmd.properties = (java.util.Map) value;
+                        return old;
+                    }
+                })
+                .build());
+        spec.addPositional(PositionalParamSpec.builder()
+                .index("0..*")
+                .type(java.util.List.class)
+                .auxiliaryTypes(java.io.File.class)
+                .arity(CommandLine.Range.valueOf("1..*"))
+                .required(true)
+                .paramLabel("FILE")
+                .description(new String[] {"The files to process."})
+                .withToString("field java.util.List<java.io.File> picocli.examples.factory.FactoryDemo.files")
+                .initialValue(cmd.files)
+                .getter(new IGetter() {
+                    @SuppressWarnings("unchecked") public <T> T get() { return (T) (Object) cmd.files; }
+                })
+                .setter(new ISetter() {
+                    @SuppressWarnings("unchecked") public <T> T set(T value) {
+                        T old = (T) (Object) cmd.files;
+                        cmd.files = (java.util.List) value;
+                        return old;
+                    }
+                })
+                .build());
+        spec.mixinStandardHelpOptions(true);
+        return spec;
+    }
+}
@@ -0,0 +1,38 @@
+package picocli.examples.factory;
+
+import picocli.CommandLine;
+import picocli.CommandLine.IFactory;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.IGetter;
+import picocli.CommandLine.Model.ISetter;
+import picocli.CommandLine.Model.OptionSpec;
+import picocli.CommandLine.Model.PositionalParamSpec;
+
+/** Builds the {@code CommandSpec} for {@code picocli.examples.factory.FactoryDemo.Sub}. Generated by picocli-codegen, do not edit. */
+public final class FactoryDemo_Sub_CommandSpecFactory implements CommandLine.ICommandSpecFactory {
+    public CommandSpec create(Object command, IFactory factory) throws Exception {
+        final picocli.examples.factory.FactoryDemo.Sub cmd = (picocli.examples.factory.FactoryDemo.Sub) command;
+        CommandSpec spec = CommandSpec.wrapWithoutInspection(cmd);
+        spec.name("sub");
+        spec.aliases(new String[] {"s"});
+        spec.addOption(OptionSpec.builder(new String[] {"-x"})
+                .type(java.lang.String.class)
+                .arity(CommandLine.Range.valueOf("1..1").unspecified(true))
+                .required(true)
+                .paramLabel("<x>")
+                .withToString("field String picocli.examples.factory.FactoryDemo$Sub.x")
+                .initialValue(cmd.x)
+                .getter(new IGetter() {
+                    @SuppressWarnings("unchecked") public <T> T get() { return (T) (Object) cmd.x; }
+                })
+                .setter(new ISetter() {
+                    @SuppressWarnings("unchecked") public <T> T set(T value) {
+                        T old = (T) (Object) cmd.x;
+                        cmd.x = (java.lang.String) value;
+                        return old;
+                    }
+                })
+                .build());
+        return spec;
+    }
+}
@@ -0,0 +1,41 @@
+package picocli.examples.factory;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+@Command(name = "demo", mixinStandardHelpOptions = true, version = "demo 1.0",
+        description = "Demonstrates a command whose model is built without reflection.",
+        subcommands = FactoryDemo.Sub.class)
+public class FactoryDemo implements Runnable {
+
+    @Option(names = {"-v", "--verbose"}, description = "Verbose mode. Multiple -v options increase the verbosity.")
+    boolean[] verbose = new boolean[0];
+
+    @Option(names = "-n", defaultValue = "3", description = "The count.")
+    int count;
+
+    @Option(names = "-D", description = "System properties.")
+    Map<String, Integer> properties;
+
+    @Parameters(arity = "1..*", paramLabel = "FILE", description = "The files to process.")
+    List<File> files;
+
+    public void run() {
+    }
+
+    @Command(name = "sub", aliases = "s")
+    static class Sub {
+        @Option(names = "-x", required = true)
+        String x;
+    }
+
+    public static void main(String[] args) {
+        CommandLine.run(new FactoryDemo(), args);
+    }
+}
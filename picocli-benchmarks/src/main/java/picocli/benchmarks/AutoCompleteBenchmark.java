@@ -0,0 +1,59 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.AutoComplete;
+import picocli.CommandLine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generating the bash completion script for the {@link BenchmarkCommands benchmark models},
+ * and computing the completion candidates for a partially typed command line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutoCompleteBenchmark {
+
+    @Param({"small", "large", "deep", "map"})
+    String model;
+
+    private CommandLine commandLine;
+    private String[] partial;
+
+    @Setup
+    public void setup() {
+        commandLine = BenchmarkCommands.create(model);
+        String[] args = BenchmarkCommands.args(model);
+        partial = new String[args.length + 1];
+        System.arraycopy(args, 0, partial, 0, args.length);
+        partial[args.length] = "-"; // complete the names of the options of the last (sub)command
+    }
+
+    @Benchmark
+    public String bashScript() {
+        return AutoComplete.bash(model, commandLine);
+    }
+
+    @Benchmark
+    public List<CharSequence> complete() {
+        List<CharSequence> candidates = new ArrayList<CharSequence>();
+        AutoComplete.complete(commandLine.getCommandSpec(), partial, partial.length - 1, 1, 0, candidates);
+        return candidates;
+    }
+}
@@ -0,0 +1,150 @@
+package picocli.benchmarks;
+
+import picocli.CommandLine;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionSpec;
+import picocli.CommandLine.Model.PositionalParamSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The command models and command lines that are shared by the benchmarks.
+ * <p>
+ * Each model is identified by a name that can be used as a JMH {@code @Param} value:
+ * </p>
+ * <ul>
+ *   <li>{@code small} - a command with a handful of options and positional parameters</li>
+ *   <li>{@code large} - a command with 200 options</li>
+ *   <li>{@code deep} - a tree of subcommands, 5 levels deep and 3 subcommands wide</li>
+ *   <li>{@code clustered} - a command with 26 single-character options, invoked with clustered short options</li>
+ *   <li>{@code map} - a command with {@code Map} options</li>
+ *   <li>{@code groups} - a command with exclusive and co-occurring argument groups</li>
+ * </ul>
+ */
+final class BenchmarkCommands {
+    static final int LARGE_OPTION_COUNT = 200;
+    static final int TREE_DEPTH = 5;
+    static final int TREE_WIDTH = 3;
+
+    private BenchmarkCommands() {}
+
+    /** Returns a new {@code CommandLine} for the specified model. */
+    static CommandLine create(String model) {
+        if ("small".equals(model))     { return new CommandLine(new Small()); }
+        if ("large".equals(model))     { return new CommandLine(withOptions("large", LARGE_OPTION_COUNT)); }
+        if ("deep".equals(model))      { return new CommandLine(tree("deep", TREE_DEPTH, TREE_WIDTH)); }
+        if ("clustered".equals(model)) { return new CommandLine(clustered()); }
+        if ("map".equals(model))       { return new CommandLine(new MapOptions()); }
+        if ("groups".equals(model))    { return new CommandLine(new Groups()); }
+        throw new IllegalArgumentException("Unknown model: " + model);
+    }
+
+    /** Returns a typical valid command line for the specified model. */
+    static String[] args(String model) {
+        if ("small".equals(model)) {
+            return new String[] {"-v", "--count=3", "--output", "out.txt", "in1.txt", "in2.txt"};
+        }
+        if ("large".equals(model)) {
+            List<String> result = new ArrayList<String>();
+            for (int i = 0; i < LARGE_OPTION_COUNT; i += 10) {
+                result.add("--option-" + i);
+                result.add(String.valueOf(i));
+            }
+            result.add("--option-" + (LARGE_OPTION_COUNT - 1) + "=last");
+            return result.toArray(new String[0]);
+        }
+        if ("deep".equals(model)) {
+            List<String> result = new ArrayList<String>();
+            String name = "";
+            for (int level = 1; level <= TREE_DEPTH; level++) {
+                name = name + (TREE_WIDTH - 1);
+                result.add("cmd" + name);
+                result.add("--level" + level + "=" + level);
+            }
+            return result.toArray(new String[0]);
+        }
+        if ("clustered".equals(model)) {
+            return new String[] {"-abcdefgh", "-ijklm", "-nopqrstuvwxy", "-zVALUE"};
+        }
+        if ("map".equals(model)) {
+            return new String[] {"-Dkey1=value1", "-D", "key2=value2,key3=value3", "--timeout=SECONDS=10,MINUTES=2"};
+        }
+        if ("groups".equals(model)) {
+            return new String[] {"--user", "admin", "--password", "secret", "--json", "-v"};
+        }
+        throw new IllegalArgumentException("Unknown model: " + model);
+    }
+
+    /** Returns a command with the specified number of options named {@code --option-<n>}, and a list of files. */
+    static CommandSpec withOptions(String name, int count) {
+        CommandSpec spec = CommandSpec.create().name(name);
+        spec.mixinStandardHelpOptions(true);
+        spec.usageMessage().description("A command with " + count + " options.");
+        for (int i = 0; i < count; i++) {
+            spec.addOption(OptionSpec.builder("--option-" + i)
+                    .type(i % 3 == 0 ? int.class : String.class)
+                    .paramLabel(i % 3 == 0 ? "<number>" : "<value>")
+                    .description("Option number " + i + ". This description is long enough to wrap onto the next line in the usage help message.")
+                    .build());
+        }
+        spec.addPositional(PositionalParamSpec.builder().type(File[].class).paramLabel("FILE").description("The files to process.").build());
+        return spec;
+    }
+
+    /** Returns a command with subcommands {@code <prefix>0 .. <prefix><width-1>}, each of which has subcommands, to the specified depth. */
+    static CommandSpec tree(String name, int depth, int width) { return tree(name, "cmd", 0, depth, width); }
+
+    private static CommandSpec tree(String name, String prefix, int level, int depth, int width) {
+        CommandSpec spec = withOptions(name, 3);
+        spec.addOption(OptionSpec.builder("--level" + level).type(int.class).description("The level.").build());
+        for (int i = 0; level < depth && i < width; i++) {
+            String subcommandName = prefix + i;
+            spec.addSubcommand(subcommandName, tree(subcommandName, subcommandName, level + 1, depth, width));
+        }
+        return spec;
+    }
+
+    /** Returns a command with boolean options {@code -a .. -y} and a String option {@code -z}. */
+    static CommandSpec clustered() {
+        CommandSpec spec = CommandSpec.create().name("clustered");
+        for (char c = 'a'; c < 'z'; c++) {
+            spec.addOption(OptionSpec.builder("-" + c).type(boolean.class).description("Flag " + c + ".").build());
+        }
+        spec.addOption(OptionSpec.builder("-z").type(String.class).description("Value.").build());
+        return spec;
+    }
+
+    @Command(name = "small", mixinStandardHelpOptions = true, description = "A command with a handful of options.")
+    static class Small {
+        @Option(names = {"-v", "--verbose"}, description = "Verbose output.") boolean verbose;
+        @Option(names = {"-c", "--count"}, description = "The count.") int count;
+        @Option(names = {"-o", "--output"}, description = "The output file.") File output;
+        @Parameters(description = "The input files.") List<File> files;
+    }
+
+    @Command(name = "map", mixinStandardHelpOptions = true, description = "A command with map options.")
+    static class MapOptions {
+        @Option(names = "-D", split = ",", description = "System properties.") Map<String, String> properties;
+        @Option(names = "--timeout", split = ",", description = "Timeouts per unit.") Map<java.util.concurrent.TimeUnit, Integer> timeouts;
+    }
+
+    @Command(name = "groups", mixinStandardHelpOptions = true, description = "A command with argument groups.",
+            argGroups = {
+                    @ArgGroup(name = "credentials", exclusive = false, multiplicity = "1", heading = "Credentials%n"),
+                    @ArgGroup(name = "format", exclusive = true, heading = "Output format%n")})
+    static class Groups {
+        @Option(names = "--user", groups = "credentials", required = true, description = "The user.") String user;
+        @Option(names = "--password", groups = "credentials", required = true, description = "The password.") String password;
+        @Option(names = "--json", groups = "format", description = "JSON output.") boolean json;
+        @Option(names = "--xml", groups = "format", description = "XML output.") boolean xml;
+        @Option(names = "--csv", groups = "format", description = "CSV output.") boolean csv;
+        @Option(names = "-v", description = "Verbose output.") boolean verbose;
+    }
+}
@@ -0,0 +1,65 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+import picocli.CommandLine.Help;
+import picocli.CommandLine.Help.TextTable;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures rendering the usage help message for the {@link BenchmarkCommands benchmark models},
+ * and laying out long text in a {@code TextTable}, with ANSI styles on and off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelpBenchmark {
+
+    @Param({"small", "large", "deep", "groups"})
+    String model;
+
+    @Param({"OFF", "ON"})
+    Help.Ansi ansi;
+
+    private CommandLine commandLine;
+    private String[][] rows;
+
+    @Setup
+    public void setup() {
+        commandLine = BenchmarkCommands.create(model);
+        rows = new String[commandLine.getCommandSpec().options().size()][];
+        int i = 0;
+        for (CommandLine.Model.OptionSpec option : commandLine.getCommandSpec().options()) {
+            String description = option.description().length == 0 ? "" : option.description()[0];
+            String shortName = option.names().length > 1 ? option.shortestName() : "";
+            rows[i++] = new String[] {"", shortName, shortName.length() > 0 ? "," : "", option.longestName(),
+                    "@|bold " + description + "|@ " + description + " " + description};
+        }
+    }
+
+    @Benchmark
+    public String usageMessage() {
+        return commandLine.getUsageMessage(ansi);
+    }
+
+    @Benchmark
+    public String textTable() {
+        TextTable table = TextTable.forDefaultColumns(ansi, 80);
+        for (String[] row : rows) { table.addRowValues(row); }
+        return table.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing command lines with a very large number of arguments,
+ * like a long list of files passed as positional parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LargeArgumentListBenchmark {
+
+    @Command(name = "archive")
+    static class Archive {
+        @Option(names = {"-v", "--verbose"}) boolean verbose;
+        @Option(names = {"-l", "--level"}) int level;
+        @Option(names = {"-x", "--exclude"}) List<String> excludes;
+        @Parameters List<File> files;
+    }
+
+    @Param({"10000"})
+    int argCount;
+
+    /** Only positional parameters, or positional parameters interleaved with attached and clustered options. */
+    @Param({"positional", "mixed"})
+    String shape;
+
+    private String[] args;
+    private CommandLine commandLine;
+
+    @Setup
+    public void setup() {
+        List<String> list = new ArrayList<String>();
+        for (int i = 0; list.size() < argCount; i++) {
+            if ("mixed".equals(shape) && i % 10 == 0) {
+                list.add(i % 20 == 0 ? "--exclude=*.tmp" + i : "-vl" + (i % 9));
+            } else {
+                list.add("src/main/resources/file" + i + ".txt");
+            }
+        }
+        args = list.toArray(new String[0]);
+        commandLine = new CommandLine(new Archive()).setOverwrittenOptionsAllowed(true); // -v and -l are repeated
+    }
+
+    @Benchmark
+    public Object parse() {
+        return commandLine.parseArgs(args);
+    }
+}
@@ -0,0 +1,102 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing a typical command line for each of the {@link BenchmarkCommands benchmark models},
+ * with the arguments passed directly or in an {@code @-file}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"small", "large", "deep", "clustered", "map", "groups"})
+    String model;
+
+    @Param({"false", "true"})
+    boolean atFile;
+
+    private String[] args;
+    private File argumentFile;
+
+    @Setup
+    public void setup() throws IOException {
+        args = BenchmarkCommands.args(model);
+        if (atFile) {
+            argumentFile = File.createTempFile("picocli-benchmark", ".args");
+            Writer writer = new FileWriter(argumentFile);
+            try {
+                for (String arg : args) { writer.write(arg + "\n"); }
+            } finally {
+                writer.close();
+            }
+            args = new String[] {"@" + argumentFile.getAbsolutePath()};
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (argumentFile != null && !argumentFile.delete()) { argumentFile.deleteOnExit(); }
+    }
+
+    /** Builds the model and parses the command line, like a command line application does on every invocation. */
+    @Benchmark
+    public Object createAndParse() {
+        return BenchmarkCommands.create(model).parseArgs(args);
+    }
+
+    /** Parses the command line with a model that was built in advance. */
+    @Benchmark
+    public Object parse(Model state) {
+        return state.commandLine.parseArgs(args);
+    }
+
+    /** Parses the command line into a detached copy of a frozen model that is shared by all benchmark threads. Run with {@code -t} to use more threads. */
+    @Benchmark
+    public Object parseDetached(SharedModel state) {
+        return state.commandLine.parseArgsDetached(args);
+    }
+
+    @State(Scope.Thread)
+    public static class Model {
+        CommandLine commandLine;
+
+        @Setup
+        public void setup(ParseBenchmark benchmark) {
+            commandLine = BenchmarkCommands.create(benchmark.model);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedModel {
+        CommandLine commandLine;
+
+        @Setup
+        public void setup(ParseBenchmark benchmark) {
+            commandLine = BenchmarkCommands.create(benchmark.model);
+            commandLine.getCommandSpec().freeze();
+        }
+    }
+}
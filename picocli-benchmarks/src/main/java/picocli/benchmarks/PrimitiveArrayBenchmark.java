@@ -0,0 +1,75 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.Option;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing {@code int[]} and {@code double[]} options with 100,000 values.
+ * <p>
+ * The {@code primitive} strategy uses the built-in converters, which parse values directly into a primitive buffer;
+ * the {@code boxed} strategy registers equivalent custom converters, which makes picocli convert every value
+ * to an {@code Integer} or {@code Double} first. Run with {@code -prof gc} to compare the allocation rates.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrimitiveArrayBenchmark {
+
+    static class Numbers {
+        @Option(names = "--ids", split = ",") int[] ids;
+        @Option(names = "--weights", split = ",") double[] weights;
+    }
+
+    @Param({"100000"})
+    int valueCount;
+
+    @Param({"primitive", "boxed"})
+    String strategy;
+
+    private String[] args;
+    private CommandLine commandLine;
+
+    @Setup
+    public void setup() {
+        StringBuilder ids = new StringBuilder();
+        StringBuilder weights = new StringBuilder();
+        for (int i = 0; i < valueCount; i++) {
+            if (i > 0) { ids.append(','); weights.append(','); }
+            ids.append(i * 31);
+            weights.append(i % 100).append(".25");
+        }
+        args = new String[] {"--ids", ids.toString(), "--weights", weights.toString()};
+        commandLine = new CommandLine(new Numbers());
+        if ("boxed".equals(strategy)) {
+            commandLine.registerConverter(Integer.TYPE, new ITypeConverter<Integer>() {
+                public Integer convert(String value) { return Integer.valueOf(value); }
+            });
+            commandLine.registerConverter(Double.TYPE, new ITypeConverter<Double>() {
+                public Double convert(String value) { return Double.valueOf(value); }
+            });
+        }
+    }
+
+    @Benchmark
+    public Object parse() {
+        return commandLine.parseArgs(args);
+    }
+}
@@ -0,0 +1,91 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionSpec;
+import picocli.CommandLine.TypeConversionException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting the values of a collection option with 100,000 values to a {@code java.time} type.
+ * <p>
+ * The {@code reflective} strategy registers a converter that calls the {@code parse} method with
+ * {@code Method.invoke} for every value; the {@code builtin} strategy uses picocli's built-in converter,
+ * which switches to a converter generated with {@code LambdaMetafactory} after the first values.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionConverterBenchmark {
+
+    @Param({"100000"})
+    int valueCount;
+
+    @Param({"java.time.LocalDate", "java.time.Duration"})
+    String type;
+
+    @Param({"reflective", "builtin"})
+    String strategy;
+
+    private String[] args;
+    private CommandLine commandLine;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        Class<Object> cls = (Class<Object>) Class.forName(type);
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < valueCount; i++) {
+            if (i > 0) { values.append(','); }
+            values.append(cls.getSimpleName().equals("Duration")
+                    ? "PT" + (i % 1000) + "S"
+                    : String.format("20%02d-%02d-%02d", i % 100, 1 + i % 12, 1 + i % 28));
+        }
+        args = new String[] {"--values", values.toString()};
+
+        CommandSpec spec = CommandSpec.create().name("convert");
+        spec.addOption(OptionSpec.builder("--values").type(List.class).auxiliaryTypes(cls).splitRegex(",").build());
+        commandLine = new CommandLine(spec);
+        if ("reflective".equals(strategy)) {
+            commandLine.registerConverter(cls, new MethodInvokeConverter(cls.getMethod("parse", CharSequence.class)));
+        }
+    }
+
+    @Benchmark
+    public Object convert() {
+        return commandLine.parseArgs(args);
+    }
+
+    /** Converts every value by invoking the factory method reflectively. */
+    static class MethodInvokeConverter implements ITypeConverter<Object> {
+        private final Method method;
+        MethodInvokeConverter(Method method) { this.method = method; }
+        public Object convert(String value) throws Exception {
+            try {
+                return method.invoke(null, value);
+            } catch (InvocationTargetException ex) {
+                throw new TypeConversionException(ex.getTargetException().toString());
+            }
+        }
+    }
+}
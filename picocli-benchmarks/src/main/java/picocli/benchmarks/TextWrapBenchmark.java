@@ -0,0 +1,77 @@
+package picocli.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+import picocli.CommandLine.Help;
+import picocli.CommandLine.Help.Column;
+import picocli.CommandLine.Help.TextTable;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionSpec;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures wrapping a description of 10,000 words in a {@code TextTable}, and rendering the usage help
+ * of a command with such a description.
+ * <p>
+ * Every tenth word of the description is styled with markup, so with ANSI {@code ON} the
+ * style runs are split over the wrapped rows as well.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextWrapBenchmark {
+
+    @Param({"10000"})
+    int wordCount;
+
+    @Param({"OFF", "ON"})
+    Help.Ansi ansi;
+
+    @Param({"WRAP", "SPAN"})
+    Column.Overflow overflow;
+
+    private String description;
+    private CommandLine commandLine;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < wordCount; i++) {
+            if (i > 0) { sb.append(' '); }
+            sb.append(i % 10 == 0 ? "@|bold,underline word" + i + "|@" : "word-" + i);
+        }
+        description = sb.toString();
+        CommandSpec spec = CommandSpec.create().name("wrap");
+        spec.addOption(OptionSpec.builder("-d", "--description").description(description).build());
+        commandLine = new CommandLine(spec);
+    }
+
+    @Benchmark
+    public String textTable() {
+        TextTable table = TextTable.forColumns(ansi,
+                new Column(30, 2, Column.Overflow.SPAN),
+                new Column(50, 1, overflow));
+        table.addRowValues("-d, --description", description);
+        return table.toString();
+    }
+
+    @Benchmark
+    public String usageMessage() {
+        return commandLine.getUsageMessage(ansi);
+    }
+}
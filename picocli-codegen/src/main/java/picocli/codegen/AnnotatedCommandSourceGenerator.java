@@ -743,6 +743,7 @@ public class AnnotatedCommandSourceGenerator {
         sep = append(pw, sep, indent, "sortOptions = %s", spec.usageMessage().sortOptions(), true);
         sep = append(pw, sep, indent, "hidden = %s", spec.usageMessage().hidden(), false);
         sep = append(pw, sep, indent, "helpCommand = %s", spec.helpCommand(), false);
+        sep = append(pw, sep, indent, "independent = %s", spec.independent(), false);
         sep = append(pw, sep, indent, "separator = \"%s\"", spec.parser().separator(), "=");
         sep = append(pw, sep, indent, "usageHelpWidth = %s", spec.usageMessage().width(), 80);
 
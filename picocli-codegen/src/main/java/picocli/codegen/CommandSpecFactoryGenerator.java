@@ -0,0 +1,472 @@
+package picocli.codegen;
+
+import picocli.CommandLine;
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Model.ArgSpec;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionSpec;
+import picocli.CommandLine.Model.PositionalParamSpec;
+import picocli.CommandLine.Model.UsageMessageSpec;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+import picocli.CommandLine.Range;
+import picocli.CommandLine.Spec;
+import picocli.CommandLine.Unmatched;
+import picocli.codegen.util.Assert;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the source code of a {@link CommandLine.ICommandSpecFactory} implementation that builds the
+ * {@code CommandSpec} of a {@code @Command}-annotated class without reflection.
+ * <p>
+ * The generated class is placed in the package of the command class, and named after the command class with
+ * a {@code _CommandSpecFactory} suffix, so that picocli can find it at runtime. It accesses the annotated
+ * fields directly, so only commands whose annotated members are non-private, non-final fields are supported;
+ * see {@link #unsupportedReason()}. For other commands picocli falls back to reflection at runtime.
+ * </p>
+ * @since 4.0
+ */
+public class CommandSpecFactoryGenerator {
+    /** Suffix appended to the command class name to derive the name of the generated factory class. */
+    public static final String SUFFIX = "_CommandSpecFactory";
+
+    private static final String INDENT = "    ";
+    @SuppressWarnings("unchecked")
+    private static final List<Class<? extends Annotation>> UNSUPPORTED_MEMBER_ANNOTATIONS = Arrays.asList(
+            Mixin.class, Spec.class, ParentCommand.class, Unmatched.class, ArgGroup.class);
+
+    private final CommandSpec commandSpec;
+    private final TypeElement typeElement;
+
+    public CommandSpecFactoryGenerator(CommandSpec commandSpec) {
+        this.commandSpec = Assert.notNull(commandSpec, "commandSpec");
+        Object userObject = commandSpec.userObject();
+        this.typeElement = userObject instanceof TypeElement ? (TypeElement) userObject : null;
+    }
+
+    /**
+     * Returns {@code null} if a factory can be generated for the command, or a description of why it cannot.
+     * @return the reason why no factory can be generated, or {@code null}
+     */
+    public String unsupportedReason() {
+        if (typeElement == null) {
+            return commandSpec.userObject() + " is not a class";
+        }
+        for (Element e = typeElement; e.getKind() != ElementKind.PACKAGE; e = e.getEnclosingElement()) {
+            if (!e.getKind().isClass() && !e.getKind().isInterface()) {
+                return typeElement + " is a local or anonymous class";
+            }
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                return e + " is private";
+            }
+        }
+        if (typeElement.getKind() != ElementKind.CLASS || typeElement.getModifiers().contains(Modifier.ABSTRACT)) {
+            return typeElement + " is not a concrete class";
+        }
+        TypeMirror superclass = typeElement.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED
+                && !"java.lang.Object".equals(((TypeElement) ((DeclaredType) superclass).asElement()).getQualifiedName().toString())) {
+            return typeElement + " extends " + superclass;
+        }
+        Command command = typeElement.getAnnotation(Command.class);
+        if (command == null) {
+            return typeElement + " has no @Command annotation";
+        }
+        if (command.lazySubcommands()) {
+            return typeElement + " has lazy subcommands";
+        }
+        if (command.argGroups().length > 0) {
+            return typeElement + " has argument groups";
+        }
+        if (command.resourceBundle().length() > 0) {
+            return typeElement + " uses a resource bundle";
+        }
+        if (commandSpec.versionProvider() != null || commandSpec.defaultValueProvider() != null) {
+            return typeElement + " has a version provider or default value provider";
+        }
+        for (String mixinName : commandSpec.mixins().keySet()) {
+            if (!"mixinStandardHelpOptions".equals(mixinName)) {
+                return typeElement + " has mixins";
+            }
+        }
+        for (Element member : typeElement.getEnclosedElements()) {
+            boolean isArg = member.getAnnotation(Option.class) != null || member.getAnnotation(Parameters.class) != null;
+            if (member.getKind() == ElementKind.METHOD && (isArg || member.getAnnotation(Command.class) != null)) {
+                return typeElement + " has annotated method " + member;
+            }
+            for (Class<? extends Annotation> annotation : UNSUPPORTED_MEMBER_ANNOTATIONS) {
+                if (member.getAnnotation(annotation) != null) {
+                    return member + " is annotated with @" + annotation.getSimpleName();
+                }
+            }
+            if (isArg && (member.getModifiers().contains(Modifier.PRIVATE)
+                    || member.getModifiers().contains(Modifier.FINAL)
+                    || member.getModifiers().contains(Modifier.STATIC))) {
+                return "field " + member + " is private, final or static";
+            }
+            if (isArg && (hasAttribute(member, "converter") || hasAttribute(member, "completionCandidates"))) {
+                return "field " + member + " has a custom converter or completion candidates";
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasAttribute(Element element, String attribute) {
+        return annotationValue(element, attribute) != null;
+    }
+
+    /** Returns the explicitly specified value of the specified {@code @Option} or {@code @Parameters} attribute, or {@code null}. */
+    private static AnnotationValue annotationValue(Element element, String attribute) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String annotation = mirror.getAnnotationType().toString();
+            if (!Option.class.getCanonicalName().equals(annotation) && !Parameters.class.getCanonicalName().equals(annotation)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : mirror.getElementValues().entrySet()) {
+                if (attribute.equals(entry.getKey().getSimpleName().toString())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isTrue(AnnotationValue value) {
+        return value != null && Boolean.TRUE.equals(value.getValue());
+    }
+
+    /** Returns the types specified with the {@code type} attribute of the {@code @Option} or {@code @Parameters}
+     * annotation, which picocli uses instead of the types inferred from the field. */
+    private static List<TypeMirror> declaredTypes(VariableElement field) {
+        List<TypeMirror> result = new ArrayList<TypeMirror>();
+        AnnotationValue value = annotationValue(field, "type");
+        if (value != null) {
+            for (Object type : (List<?>) value.getValue()) {
+                result.add((TypeMirror) ((AnnotationValue) type).getValue());
+            }
+        }
+        return result;
+    }
+
+    /** Returns the package of the command class, which is also the package of the generated factory. */
+    public String getOutputPackage() {
+        Element enclosing = typeElement.getEnclosingElement();
+        while (!(enclosing instanceof PackageElement)) {
+            enclosing = enclosing.getEnclosingElement();
+        }
+        PackageElement pkg = (PackageElement) enclosing;
+        return pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    }
+
+    /** Returns the simple name of the generated factory: the binary name of the command class
+     * without its package, with {@code '$'} replaced by {@code '_'}, followed by {@link #SUFFIX}. */
+    public String getOutputClassName() {
+        return nestedName("_") + SUFFIX;
+    }
+
+    private String nestedName(String separator) {
+        StringBuilder result = new StringBuilder();
+        for (Element e = typeElement; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            result.insert(0, result.length() == 0 ? "" : separator).insert(0, e.getSimpleName());
+        }
+        return result.toString();
+    }
+
+    /** Returns the fully qualified name of the generated factory. */
+    public String getOutputQualifiedName() {
+        String pkg = getOutputPackage();
+        return pkg.length() == 0 ? getOutputClassName() : pkg + "." + getOutputClassName();
+    }
+
+    public String generate() {
+        StringWriter result = new StringWriter();
+        writeTo(new PrintWriter(result));
+        return result.toString();
+    }
+
+    public void writeTo(PrintWriter pw) {
+        String commandClass = typeElement.getQualifiedName().toString();
+        String pkg = getOutputPackage();
+        if (pkg.length() > 0) {
+            pw.println("package " + pkg + ";");
+            pw.println();
+        }
+        pw.println("import picocli.CommandLine;");
+        pw.println("import picocli.CommandLine.IFactory;");
+        pw.println("import picocli.CommandLine.Model.CommandSpec;");
+        pw.println("import picocli.CommandLine.Model.IGetter;");
+        pw.println("import picocli.CommandLine.Model.ISetter;");
+        pw.println("import picocli.CommandLine.Model.OptionSpec;");
+        pw.println("import picocli.CommandLine.Model.PositionalParamSpec;");
+        pw.println();
+        pw.println("/** Builds the {@code CommandSpec} for {@code " + commandClass + "}. Generated by picocli-codegen, do not edit. */");
+        pw.println("public final class " + getOutputClassName() + " implements CommandLine.ICommandSpecFactory {");
+        pw.println(INDENT + "public CommandSpec create(Object command, IFactory factory) throws Exception {");
+        String indent = INDENT + INDENT;
+        pw.println(indent + "final " + commandClass + " cmd = (" + commandClass + ") command;");
+        pw.println(indent + "CommandSpec spec = CommandSpec.wrapWithoutInspection(cmd);");
+        printCommandAttributes(pw, indent);
+        for (OptionSpec option : commandSpec.options()) {
+            if (option.userObject() instanceof VariableElement) { // skip options from the built-in help mixin
+                printArg(pw, option, indent);
+            }
+        }
+        for (PositionalParamSpec positional : commandSpec.positionalParameters()) {
+            printArg(pw, positional, indent);
+        }
+        // subcommands are added by picocli, which also injects @ParentCommand fields and honors lazy subcommands
+        if (commandSpec.mixinStandardHelpOptions()) {
+            pw.println(indent + "spec.mixinStandardHelpOptions(true);");
+        }
+        pw.println(indent + "return spec;");
+        pw.println(INDENT + "}");
+        pw.println("}");
+        pw.flush();
+    }
+
+    private void printCommandAttributes(PrintWriter pw, String indent) {
+        CommandSpec defaults = CommandSpec.create();
+        if (!commandSpec.name().equals(defaults.name())) {
+            pw.println(indent + "spec.name(" + literal(commandSpec.name()) + ");");
+        }
+        if (commandSpec.aliases().length > 0) {
+            pw.println(indent + "spec.aliases(" + literals(commandSpec.aliases()) + ");");
+        }
+        if (commandSpec.version().length > 0) {
+            pw.println(indent + "spec.version(" + literals(commandSpec.version()) + ");");
+        }
+        if (commandSpec.helpCommand()) {
+            pw.println(indent + "spec.helpCommand(true);");
+        }
+        if (commandSpec.independent()) {
+            pw.println(indent + "spec.independent(true);");
+        }
+        if (!commandSpec.parser().separator().equals(defaults.parser().separator())) {
+            pw.println(indent + "spec.parser().separator(" + literal(commandSpec.parser().separator()) + ");");
+        }
+        UsageMessageSpec usage = commandSpec.usageMessage();
+        UsageMessageSpec usageDefaults = defaults.usageMessage();
+        String prefix = indent + "spec.usageMessage().";
+        printIfChanged(pw, prefix + "headerHeading", usage.headerHeading(), usageDefaults.headerHeading());
+        printIfChanged(pw, prefix + "header", usage.header(), usageDefaults.header());
+        printIfChanged(pw, prefix + "synopsisHeading", usage.synopsisHeading(), usageDefaults.synopsisHeading());
+        printIfChanged(pw, prefix + "customSynopsis", usage.customSynopsis(), usageDefaults.customSynopsis());
+        printIfChanged(pw, prefix + "descriptionHeading", usage.descriptionHeading(), usageDefaults.descriptionHeading());
+        printIfChanged(pw, prefix + "description", usage.description(), usageDefaults.description());
+        printIfChanged(pw, prefix + "parameterListHeading", usage.parameterListHeading(), usageDefaults.parameterListHeading());
+        printIfChanged(pw, prefix + "optionListHeading", usage.optionListHeading(), usageDefaults.optionListHeading());
+        printIfChanged(pw, prefix + "commandListHeading", usage.commandListHeading(), usageDefaults.commandListHeading());
+        printIfChanged(pw, prefix + "footerHeading", usage.footerHeading(), usageDefaults.footerHeading());
+        printIfChanged(pw, prefix + "footer", usage.footer(), usageDefaults.footer());
+        if (usage.abbreviateSynopsis() != usageDefaults.abbreviateSynopsis()) {
+            pw.println(prefix + "abbreviateSynopsis(" + usage.abbreviateSynopsis() + ");");
+        }
+        if (usage.sortOptions() != usageDefaults.sortOptions()) {
+            pw.println(prefix + "sortOptions(" + usage.sortOptions() + ");");
+        }
+        if (usage.showDefaultValues() != usageDefaults.showDefaultValues()) {
+            pw.println(prefix + "showDefaultValues(" + usage.showDefaultValues() + ");");
+        }
+        if (usage.hidden() != usageDefaults.hidden()) {
+            pw.println(prefix + "hidden(" + usage.hidden() + ");");
+        }
+        if (usage.requiredOptionMarker() != usageDefaults.requiredOptionMarker()) {
+            pw.println(prefix + "requiredOptionMarker(" + charLiteral(usage.requiredOptionMarker()) + ");");
+        }
+        if (usage.width() != usageDefaults.width()) {
+            pw.println(prefix + "width(" + usage.width() + ");");
+        }
+    }
+
+    private static void printIfChanged(PrintWriter pw, String call, String value, String defaultValue) {
+        if (value != null && !value.equals(defaultValue)) {
+            pw.println(call + "(" + literal(value) + ");");
+        }
+    }
+
+    private static void printIfChanged(PrintWriter pw, String call, String[] value, String[] defaultValue) {
+        if (value != null && !Arrays.equals(value, defaultValue)) {
+            pw.println(call + "(" + literals(value) + ");");
+        }
+    }
+
+    private void printArg(PrintWriter pw, ArgSpec arg, String indent) {
+        VariableElement field = (VariableElement) arg.userObject();
+        String name = field.getSimpleName().toString();
+        String indent2 = indent + INDENT + INDENT;
+        if (arg.isOption()) {
+            OptionSpec option = (OptionSpec) arg;
+            pw.println(indent + "spec.addOption(OptionSpec.builder(" + literals(option.names()) + ")");
+            if (isTrue(annotationValue(field, "help"))) { pw.println(indent2 + ".help(true)"); }
+            if (option.usageHelp())   { pw.println(indent2 + ".usageHelp(true)"); }
+            if (option.versionHelp()) { pw.println(indent2 + ".versionHelp(true)"); }
+            if (option.order() != -1) { pw.println(indent2 + ".order(" + option.order() + ")"); }
+        } else {
+            PositionalParamSpec positional = (PositionalParamSpec) arg;
+            pw.println(indent + "spec.addPositional(PositionalParamSpec.builder()");
+            pw.println(indent2 + ".index(" + literal(rangeString(positional.index())) + ")");
+        }
+        TypeMirror type = field.asType();
+        pw.println(indent2 + ".type(" + erasure(type) + ".class)");
+        List<TypeMirror> auxiliaryTypes = declaredTypes(field);
+        if (auxiliaryTypes.isEmpty()) {
+            auxiliaryTypes = auxiliaryTypes(type, arg);
+        }
+        if (!auxiliaryTypes.isEmpty()) {
+            List<String> classLiterals = new ArrayList<String>();
+            for (TypeMirror aux : auxiliaryTypes) {
+                classLiterals.add(erasure(aux) + ".class");
+            }
+            pw.println(indent2 + ".auxiliaryTypes(" + join(classLiterals) + ")");
+        }
+        Range arity = arg.arity();
+        pw.println(indent2 + ".arity(CommandLine.Range.valueOf(" + literal(rangeString(arity)) + ")"
+                + (arity.isUnspecified() ? ".unspecified(true))" : ")"));
+        pw.println(indent2 + ".required(" + arg.required() + ")");
+        pw.println(indent2 + ".paramLabel(" + literal(arg.paramLabel()) + ")");
+        if (arg.hideParamSyntax()) { pw.println(indent2 + ".hideParamSyntax(true)"); }
+        if (arg.hidden())          { pw.println(indent2 + ".hidden(true)"); }
+        if (arg.interactive())     { pw.println(indent2 + ".interactive(true)"); }
+        if (arg.description().length > 0) { pw.println(indent2 + ".description(" + literals(arg.description()) + ")"); }
+        if (arg.descriptionKey() != null && arg.descriptionKey().length() > 0) {
+            pw.println(indent2 + ".descriptionKey(" + literal(arg.descriptionKey()) + ")");
+        }
+        if (arg.splitRegex().length() > 0) { pw.println(indent2 + ".splitRegex(" + literal(arg.splitRegex()) + ")"); }
+        if (arg.defaultValue() != null)    { pw.println(indent2 + ".defaultValue(" + literal(arg.defaultValue()) + ")"); }
+        if (arg.showDefaultValue() != CommandLine.Help.Visibility.ON_DEMAND) {
+            pw.println(indent2 + ".showDefaultValue(CommandLine.Help.Visibility." + arg.showDefaultValue().name() + ")");
+        }
+        pw.println(indent2 + ".withToString(" + literal(describe(field)) + ")");
+        pw.println(indent2 + ".initialValue(cmd." + name + ")");
+        String indent3 = indent2 + INDENT;
+        pw.println(indent2 + ".getter(new IGetter() {");
+        pw.println(indent3 + "@SuppressWarnings(\"unchecked\") public <T> T get() { return (T) (Object) cmd." + name + "; }");
+        pw.println(indent2 + "})");
+        pw.println(indent2 + ".setter(new ISetter() {");
+        pw.println(indent3 + "@SuppressWarnings(\"unchecked\") public <T> T set(T value) {");
+        pw.println(indent3 + INDENT + "T old = (T) (Object) cmd." + name + ";");
+        pw.println(indent3 + INDENT + "cmd." + name + " = (" + boxed(erasure(type)) + ") value;");
+        pw.println(indent3 + INDENT + "return old;");
+        pw.println(indent3 + "}");
+        pw.println(indent2 + "})");
+        pw.println(indent2 + ".build());");
+    }
+
+    /** Mimics the description picocli derives from a reflected {@code Field} for use in error messages. */
+    private String describe(VariableElement field) {
+        String pkg = getOutputPackage();
+        String generic = field.asType().toString().replace(",", ", ") + " " + (pkg.length() == 0 ? "" : pkg + ".") + nestedName("$") + "." + field.getSimpleName();
+        return "field " + generic.replace("java.lang.", "");
+    }
+
+    private static List<TypeMirror> auxiliaryTypes(TypeMirror type, ArgSpec arg) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            return Arrays.asList(((ArrayType) type).getComponentType());
+        }
+        if (!arg.typeInfo().isMultiValue() || type.getKind() != TypeKind.DECLARED) {
+            return new ArrayList<TypeMirror>();
+        }
+        List<TypeMirror> result = new ArrayList<TypeMirror>(((DeclaredType) type).getTypeArguments());
+        return result; // raw collections and maps: picocli defaults to String
+    }
+
+    /** Returns the source representation of the erasure of the specified type. */
+    static String erasure(TypeMirror type) {
+        switch (type.getKind()) {
+            case DECLARED: return ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            case ARRAY:    return erasure(((ArrayType) type).getComponentType()) + "[]";
+            case TYPEVAR:  return erasure(((TypeVariable) type).getUpperBound());
+            case WILDCARD:
+                TypeMirror bound = ((WildcardType) type).getExtendsBound();
+                return bound == null ? "java.lang.Object" : erasure(bound);
+            case INTERSECTION: return "java.lang.Object";
+            default:
+                return type.getKind().isPrimitive() ? type.toString() : "java.lang.Object";
+        }
+    }
+
+    private static String boxed(String type) {
+        if ("boolean".equals(type)) { return "java.lang.Boolean"; }
+        if ("byte".equals(type))    { return "java.lang.Byte"; }
+        if ("char".equals(type))    { return "java.lang.Character"; }
+        if ("short".equals(type))   { return "java.lang.Short"; }
+        if ("int".equals(type))     { return "java.lang.Integer"; }
+        if ("long".equals(type))    { return "java.lang.Long"; }
+        if ("float".equals(type))   { return "java.lang.Float"; }
+        if ("double".equals(type))  { return "java.lang.Double"; }
+        return type;
+    }
+
+    private static String rangeString(Range range) {
+        return range.min + ".." + (range.isVariable ? "*" : String.valueOf(range.max));
+    }
+
+    private static String join(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0) { sb.append(", "); }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    private static String literals(String[] values) {
+        List<String> result = new ArrayList<String>();
+        for (String value : values) {
+            result.add(literal(value));
+        }
+        return "new String[] {" + join(result) + "}";
+    }
+
+    private static String charLiteral(char c) {
+        return c == '\'' ? "'\\''" : c == '\\' ? "'\\\\'" : "'" + escape(String.valueOf(c)) + "'";
+    }
+
+    static String literal(String value) {
+        return "\"" + escape(value).replace("\"", "\\\"") + "\"";
+    }
+
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c > 0x7e) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+}
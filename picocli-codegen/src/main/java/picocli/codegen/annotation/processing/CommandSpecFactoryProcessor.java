@@ -0,0 +1,72 @@
+package picocli.codegen.annotation.processing;
+
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.codegen.CommandSpecFactoryGenerator;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Annotation processor that generates a {@link picocli.CommandLine.ICommandSpecFactory} for each
+ * {@code @Command}-annotated class, so that picocli can build the {@code CommandSpec} for these commands
+ * at runtime without reflection.
+ * <p>
+ * Commands that cannot be supported without reflection (for example, because they have private annotated
+ * fields, annotated methods or mixins) are skipped; picocli will use reflection for these commands at runtime.
+ * </p>
+ * @see CommandSpecFactoryGenerator
+ * @since 4.0
+ */
+public class CommandSpecFactoryProcessor extends AbstractCommandSpecProcessor {
+    private static Logger logger = Logger.getLogger(CommandSpecFactoryProcessor.class.getName());
+
+    private final Set<String> generated = new HashSet<String>();
+
+    @Override
+    protected boolean handleCommands(Map<Element, CommandSpec> commands,
+                                     Set<? extends TypeElement> annotations,
+                                     RoundEnvironment roundEnv) {
+        for (Map.Entry<Element, CommandSpec> entry : commands.entrySet()) {
+            if (!roundEnv.getRootElements().contains(AnnotatedCommandSourceGeneratorProcessor.SourceUnit.topLevel(entry.getKey()))) {
+                continue; // only generate factories for the classes being compiled, not for classes on the classpath
+            }
+            CommandSpecFactoryGenerator generator = new CommandSpecFactoryGenerator(entry.getValue());
+            String reason = generator.unsupportedReason();
+            if (reason != null) {
+                logger.info("Not generating CommandSpec factory for " + entry.getKey() + ": " + reason);
+                continue;
+            }
+            String name = generator.getOutputQualifiedName();
+            if (!generated.add(name)) {
+                continue; // already generated in a previous round
+            }
+            try {
+                generateCode(generator, entry.getKey());
+            } catch (IOException e) {
+                error(entry.getKey(), "Unable to generate CommandSpec factory for %s: %s", entry.getKey(), e);
+            }
+        }
+        return false;
+    }
+
+    private void generateCode(CommandSpecFactoryGenerator generator, Element element) throws IOException {
+        JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(generator.getOutputQualifiedName(), element);
+        PrintWriter writer = null;
+        try {
+            writer = new PrintWriter(sourceFile.openWriter());
+            generator.writeTo(writer);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package picocli.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Sends a command line to a {@link CommandServer} and copies the output of the command to the specified streams.
+ * <p>
+ * Applications can use this class to execute a command in a running server from Java. Shell users can use the
+ * {@code picocli-client} script instead, which does not need to start a JVM.
+ * </p>
+ * @since 4.0
+ */
+public final class CommandClient {
+    private CommandClient() {}
+
+    /**
+     * Sends the specified command line to the server listening on the specified port of the loopback interface,
+     * and returns the exit code of the command.
+     * @param port the port of the server
+     * @param token the {@linkplain CommandServer#getToken() token} of the server
+     * @param args the command line arguments
+     * @param environment the environment variables to send, may be {@code null}
+     * @param workingDirectory the working directory to send, may be {@code null}
+     * @param stdin the standard input to send, or {@code null} to send an empty input. This stream is read in a separate thread.
+     * @param stdout the stream to copy the standard output of the command to
+     * @param stderr the stream to copy the error output of the command to
+     * @return the exit code of the command
+     * @throws IOException if a communication problem occurred
+     */
+    public static int invoke(int port, String token, String[] args, Map<String, String> environment, File workingDirectory,
+                             final InputStream stdin, OutputStream stdout, OutputStream stderr) throws IOException {
+        Socket socket = new Socket(InetAddress.getByName(null), port);
+        try {
+            final OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            line(out, CommandServer.PROTOCOL);
+            if (token != null) { line(out, "token", token); }
+            if (workingDirectory != null) { line(out, "cwd", workingDirectory.getAbsolutePath()); }
+            if (environment != null) {
+                for (Map.Entry<String, String> entry : environment.entrySet()) { line(out, "env", entry.getKey() + "=" + entry.getValue()); }
+            }
+            for (String arg : args) { line(out, "arg", arg); }
+            line(out, "run"); // flushes the request
+            if (stdin == null) {
+                line(out, "eof");
+            } else {
+                Thread feeder = new Thread("picocli-client-stdin") {
+                    public void run() {
+                        try {
+                            byte[] buffer = new byte[8192];
+                            ByteArrayOutputStream frame = new ByteArrayOutputStream(buffer.length + 16);
+                            int count;
+                            while ((count = stdin.read(buffer)) >= 0) {
+                                frame.reset();
+                                frame.write('i'); frame.write('n'); frame.write(' ');
+                                CommandServer.escape(buffer, 0, count, frame);
+                                frame.write('\n');
+                                synchronized (out) {
+                                    frame.writeTo(out);
+                                    out.flush();
+                                }
+                            }
+                            line(out, "eof");
+                        } catch (IOException ignored) { // the command completed without reading all input
+                        }
+                    }
+                };
+                feeder.setDaemon(true);
+                feeder.start();
+            }
+            return readResponse(new BufferedInputStream(socket.getInputStream()), stdout, stderr);
+        } finally {
+            socket.close();
+        }
+    }
+
+    private static int readResponse(InputStream in, OutputStream stdout, OutputStream stderr) throws IOException {
+        byte[] frame;
+        while ((frame = CommandServer.readFrame(in)) != null) {
+            if (startsWith(frame, "out ")) {
+                stdout.write(frame, 4, frame.length - 4);
+                stdout.flush();
+            } else if (startsWith(frame, "err ")) {
+                stderr.write(frame, 4, frame.length - 4);
+                stderr.flush();
+            } else if (startsWith(frame, "exit ")) {
+                return Integer.parseInt(new String(frame, 5, frame.length - 5, "UTF-8").trim());
+            }
+        }
+        throw new IOException("Connection closed before the exit code was received");
+    }
+    private static boolean startsWith(byte[] frame, String prefix) {
+        if (frame.length < prefix.length()) { return false; }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (frame[i] != prefix.charAt(i)) { return false; }
+        }
+        return true;
+    }
+
+    private static void line(OutputStream out, String key, String value) throws IOException {
+        synchronized (out) {
+            out.write(key.getBytes("UTF-8"));
+            out.write(' ');
+            out.write(CommandServer.escape(value));
+            out.write('\n');
+        }
+    }
+    private static void line(OutputStream out, String line) throws IOException {
+        synchronized (out) {
+            out.write(line.getBytes("UTF-8"));
+            out.write('\n');
+            out.flush();
+        }
+    }
+
+    /**
+     * Sends a command line to the server described by a connection file, forwarding the environment, working directory
+     * and standard streams of this process, and exits with the exit code of the command.
+     * <p>Usage: {@code java picocli.server.CommandClient <connection-file> [ARG...]}</p>
+     * @param args the connection file written by {@link CommandServer#writeConnectionFile(File)}, followed by the command line arguments
+     * @see CommandServer#writeConnectionFile(File)
+     */
+    public static void main(String... args) {
+        if (args.length == 0) {
+            System.err.println("Usage: java " + CommandClient.class.getName() + " <connection-file> [ARG...]");
+            System.exit(CommandServer.USAGE);
+        }
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(args[0]), "UTF-8"));
+            int port;
+            String token;
+            try {
+                port = Integer.parseInt(reader.readLine().trim());
+                token = reader.readLine();
+            } finally {
+                reader.close();
+            }
+            String[] commandArgs = Arrays.asList(args).subList(1, args.length).toArray(new String[0]);
+            System.exit(invoke(port, token == null || token.length() == 0 ? null : token, commandArgs, System.getenv(),
+                    new File("."), System.in, System.out, System.err));
+        } catch (Exception ex) {
+            System.err.println("Could not invoke command: " + ex);
+            System.exit(CommandServer.SOFTWARE);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package picocli.server;
+
+import picocli.CommandLine;
+import picocli.CommandLine.DefaultExceptionHandler;
+import picocli.CommandLine.ExecutionException;
+import picocli.CommandLine.Help;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.RunLast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a {@code CommandLine} resident in a long-running JVM, and executes the command lines that clients send to it
+ * over a loopback TCP connection. This avoids the JVM startup time and the cost of building the command model for
+ * every invocation of an application that is run many times in a row, for example from a shell script.
+ * <p>
+ * Clients send the command line arguments, environment variables, working directory and standard input of the invocation.
+ * The server executes the command with {@link CommandLine#parseWithHandlers(CommandLine.IParseResultHandler2, CommandLine.IExceptionHandler2, String...)
+ * parseWithHandlers} and the {@link RunLast} and {@link DefaultExceptionHandler} handlers, and sends the output printed
+ * to {@code System.out} and {@code System.err} back to the client, followed by the exit code.
+ * The {@link CommandClient} class and the {@code picocli-client} shell script are clients for this server.
+ * </p><p>
+ * The server executes one command line at a time; clients that connect while a command is running wait until it completes.
+ * During execution, {@code System.in}, {@code System.out} and {@code System.err} are redirected to the client.
+ * The JVM has only one working directory and environment, so commands that resolve relative paths or read
+ * environment variables should use the {@link #currentInvocation() current invocation}.
+ * </p>
+ * <pre>
+ * CommandServer server = CommandServer.bind(new CommandLine(new MyApp()), 0, null); // generates a token
+ * server.writeConnectionFile(new File(System.getProperty("user.home"), ".myapp-server"));
+ * server.run(); // serves until closed
+ * </pre>
+ * @since 4.0
+ */
+public class CommandServer implements Runnable, Closeable {
+    /** Exit code of a command that completed normally: {@value}. */
+    public static final int OK = 0;
+    /** Exit code of a command that threw an exception: {@value}. */
+    public static final int SOFTWARE = 1;
+    /** Exit code of a command line with invalid user input: {@value}. */
+    public static final int USAGE = 2;
+
+    static final String PROTOCOL = "PICOCLI-SERVER 1";
+    /** The maximum number of bytes in a line of the protocol, after decoding escaped characters. */
+    static final int MAX_FRAME_SIZE = 1024 * 1024;
+    /** The maximum number of bytes in a header line (like an {@code arg} or {@code env} line), after decoding escaped characters. */
+    static final int MAX_HEADER_LINE_SIZE = 128 * 1024;
+    /** The maximum number of header lines in a request. */
+    static final int MAX_HEADER_LINES = 16 * 1024;
+    /** The maximum number of bytes that are read and discarded after the exit code was sent, before the connection is closed. */
+    private static final int MAX_DRAINED_BYTES = MAX_FRAME_SIZE;
+    private static final ThreadLocal<Invocation> CURRENT = new ThreadLocal<Invocation>();
+
+    private final CommandLine commandLine;
+    private final ServerSocket serverSocket;
+    private final byte[] token;
+    private volatile int timeoutMillis = 10000;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a server that executes the command lines received on connections accepted by the specified socket.
+     * @param commandLine the command to execute
+     * @param serverSocket a bound server socket
+     * @param token the secret that clients must send to be allowed to execute commands, or {@code null} to generate a random token
+     */
+    public CommandServer(CommandLine commandLine, ServerSocket serverSocket, String token) {
+        if (commandLine == null) { throw new NullPointerException("commandLine"); }
+        if (serverSocket == null) { throw new NullPointerException("serverSocket"); }
+        if (token != null && token.length() == 0) { throw new IllegalArgumentException("token must not be empty"); }
+        this.commandLine = commandLine;
+        this.serverSocket = serverSocket;
+        this.token = utf8(token == null ? randomToken() : token);
+    }
+    private static String randomToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder result = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) { result.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16)); }
+        return result.toString();
+    }
+
+    /**
+     * Returns a server for the specified command that listens on the specified port of the loopback interface.
+     * @param commandLine the command to execute
+     * @param port the port to listen on, or {@code 0} to use any free port
+     * @param token the secret that clients must send to be allowed to execute commands, or {@code null} to generate a random token
+     * @return a new server; call {@link #run()} to start accepting connections
+     * @throws IOException if the port could not be bound
+     */
+    public static CommandServer bind(CommandLine commandLine, int port, String token) throws IOException {
+        return new CommandServer(commandLine, new ServerSocket(port, 50, InetAddress.getByName(null)), token);
+    }
+
+    /** Returns the port this server is listening on. */
+    public int getPort() { return serverSocket.getLocalPort(); }
+
+    /** Returns the command executed by this server. */
+    public CommandLine getCommandLine() { return commandLine; }
+
+    /** Returns the maximum time in milliseconds that the server waits for data from a client while it reads the request,
+     * and while it waits for the client to close the connection after the exit code was sent. The default is 10 seconds. */
+    public int getTimeout() { return timeoutMillis; }
+
+    /** Sets the maximum time in milliseconds that the server waits for data from a client while it reads the request,
+     * and while it waits for the client to close the connection after the exit code was sent. Clients that send nothing
+     * for this long are disconnected, so that they cannot stop the server from accepting other clients.
+     * The time that a command waits for standard input from the client is not limited.
+     * @param timeoutMillis the timeout in milliseconds, must be positive */
+    public void setTimeout(int timeoutMillis) {
+        if (timeoutMillis <= 0) { throw new IllegalArgumentException("timeout must be positive but was " + timeoutMillis); }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /** Returns the secret that clients must send to be allowed to execute commands. */
+    public String getToken() {
+        try {
+            return new String(token, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Writes the port and token of this server to the specified file, for the {@code picocli-client} launcher script
+     * and {@link CommandClient#main(String...)}. The file contains the port on the first line and the token on the second line.
+     * <p>
+     * Before the token is written, access to the file is restricted to reading and writing by the current user.
+     * This requires Java 7 or later. On file systems without POSIX permissions, such as on Windows, the file keeps
+     * the access rights it inherits from its directory, so write it to a directory that only the current user can read.
+     * </p>
+     * @param file the file to write
+     * @throws IOException if the file could not be written, or if access to the file could not be restricted
+     */
+    public void writeConnectionFile(File file) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            restrictToOwner(file);
+            writer.write(getPort() + "\n" + getToken() + "\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+    /** Sets the POSIX permissions of the specified file to {@code rw-------}, using the Java 7 NIO API if it is available. */
+    private static void restrictToOwner(File file) throws IOException {
+        try {
+            Object path = File.class.getMethod("toPath").invoke(file);
+            Object permissions = Class.forName("java.nio.file.attribute.PosixFilePermissions")
+                    .getMethod("fromString", String.class).invoke(null, "rw-------");
+            Class.forName("java.nio.file.Files").getMethod("setPosixFilePermissions", Class.forName("java.nio.file.Path"), Set.class)
+                    .invoke(null, path, permissions);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof UnsupportedOperationException) { return; } // not a POSIX file system
+            if (ex.getCause() instanceof IOException) { throw (IOException) ex.getCause(); }
+            throw new IOException("Could not restrict access to " + file + ": " + ex.getCause());
+        } catch (Exception ex) {
+            throw new IOException("Could not restrict access to " + file + ": Java 7 or later is required (" + ex + ")");
+        }
+    }
+
+    /** Accepts connections and executes the command line of each client until this server is {@linkplain #close() closed}. */
+    public void run() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException ex) {
+                if (closed) { return; }
+                continue;
+            }
+            try {
+                serve(socket);
+            } catch (IOException ignored) { // the client disconnected, timed out or violated the protocol
+            } catch (Throwable ex) { // keep accepting other clients
+                ex.printStackTrace();
+            } finally {
+                try { socket.close(); } catch (IOException ignored) { }
+            }
+        }
+    }
+
+    /** Stops accepting connections. A command that is currently executing is allowed to complete. */
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+    }
+
+    /**
+     * Returns the invocation that is being executed by the calling thread, or {@code null} if the calling thread is
+     * not executing a command line received by a {@code CommandServer}.
+     * @return the current invocation, or {@code null}
+     */
+    public static Invocation currentInvocation() { return CURRENT.get(); }
+
+    private void serve(Socket socket) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+        FrameOutputStream stdout = new FrameOutputStream(out, "out ");
+        FrameOutputStream stderr = new FrameOutputStream(out, "err ");
+        PrintStream outStream = new PrintStream(stdout, true, "UTF-8");
+        PrintStream errStream = new PrintStream(stderr, true, "UTF-8");
+        int exitCode;
+        if (!PROTOCOL.equals(readLine(in, MAX_HEADER_LINE_SIZE))) {
+            errStream.println("Unsupported protocol; expected " + PROTOCOL);
+            exitCode = USAGE;
+        } else if (!isValidToken(readLine(in, MAX_HEADER_LINE_SIZE))) { // nothing else is read from clients without the token
+            errStream.println("Invalid token");
+            exitCode = USAGE;
+        } else {
+            Invocation invocation = Invocation.read(in);
+            socket.setSoTimeout(0); // the command may wait for standard input as long as it likes
+            try {
+                exitCode = invoke(invocation, new FrameInputStream(in), outStream, errStream);
+            } catch (Throwable ex) { // an Error thrown by the command
+                ex.printStackTrace(errStream);
+                exitCode = SOFTWARE;
+            }
+            socket.setSoTimeout(timeoutMillis);
+        }
+        outStream.flush();
+        errStream.flush();
+        synchronized (out) {
+            out.write(("exit " + exitCode + "\n").getBytes("UTF-8"));
+            out.flush();
+        }
+        // Closing a socket with unread input resets the connection, and the client may then lose the exit code.
+        // Wait for the client to close the connection first, reading and discarding the rest of its standard input.
+        socket.shutdownOutput();
+        for (int i = 0; i < MAX_DRAINED_BYTES && in.read() >= 0; i++) { }
+    }
+
+    /** Returns whether the specified line is a {@code token} line with the token of this server, comparing the tokens in constant time. */
+    private boolean isValidToken(String line) throws IOException {
+        return line != null && line.startsWith("token ") && MessageDigest.isEqual(token, utf8(line.substring("token ".length())));
+    }
+
+    private int invoke(Invocation invocation, InputStream stdin, PrintStream out, PrintStream err) {
+        InputStream oldIn = System.in;
+        PrintStream oldOut = System.out;
+        PrintStream oldErr = System.err;
+        System.setIn(stdin);
+        System.setOut(out);
+        System.setErr(err);
+        CURRENT.set(invocation);
+        try {
+            return execute(commandLine, invocation.args(), out, err, invocation.isTerminal() ? Help.Ansi.ON : Help.Ansi.OFF);
+        } finally {
+            CURRENT.remove();
+            System.setIn(oldIn);
+            System.setOut(oldOut);
+            System.setErr(oldErr);
+        }
+    }
+
+    /**
+     * Executes the specified command line and returns the exit code. This implementation executes the command with
+     * {@link RunLast} and {@link DefaultExceptionHandler}. The exit code is {@link #USAGE} if the user input was invalid,
+     * {@link #SOFTWARE} if the command threw an exception, the value returned by the command if it is a {@code Callable}
+     * that returned an {@code Integer}, and {@link #OK} otherwise.
+     * @param commandLine the command to execute
+     * @param args the command line arguments received from the client
+     * @param out the stream to print command output to
+     * @param err the stream to print error messages to
+     * @param ansi whether the client's standard output stream is a terminal that supports ANSI escape codes
+     * @return the exit code to send to the client
+     */
+    protected int execute(CommandLine commandLine, String[] args, PrintStream out, PrintStream err, Help.Ansi ansi) {
+        final int[] exitCode = {OK};
+        DefaultExceptionHandler<List<Object>> exceptionHandler = new DefaultExceptionHandler<List<Object>>() {
+            @Override public List<Object> handleParseException(ParameterException ex, String[] args) {
+                exitCode[0] = USAGE;
+                return super.handleParseException(ex, args);
+            }
+        };
+        try {
+            List<Object> result = commandLine.parseWithHandlers(
+                    new RunLast().useOut(out).useErr(err).useAnsi(ansi),
+                    exceptionHandler.useErr(err).useAnsi(ansi),
+                    args);
+            Object last = result == null || result.isEmpty() ? null : result.get(result.size() - 1);
+            return exitCode[0] == OK && last instanceof Integer ? (Integer) last : exitCode[0];
+        } catch (ExecutionException ex) {
+            (ex.getCause() == null ? ex : ex.getCause()).printStackTrace(err);
+            return SOFTWARE;
+        } catch (RuntimeException ex) {
+            ex.printStackTrace(err);
+            return SOFTWARE;
+        }
+    }
+
+    /** The command line, environment and working directory received from a client. */
+    public static final class Invocation {
+        private final List<String> args = new ArrayList<String>();
+        private final Map<String, String> environment = new LinkedHashMap<String, String>();
+        private File workingDirectory = new File(".").getAbsoluteFile();
+        private boolean terminal;
+
+        private Invocation() {}
+
+        /** Returns the command line arguments. */
+        public String[] args() { return args.toArray(new String[0]); }
+
+        /** Returns an unmodifiable map with the environment variables of the client. */
+        public Map<String, String> environment() { return Collections.unmodifiableMap(environment); }
+
+        /** Returns the working directory of the client. */
+        public File workingDirectory() { return workingDirectory; }
+
+        /** Returns whether the standard output stream of the client is a terminal. */
+        public boolean isTerminal() { return terminal; }
+
+        /** Resolves the specified file against the {@linkplain #workingDirectory() working directory} of the client if it is a relative path.
+         * @param file the file to resolve
+         * @return the specified file if it is absolute, otherwise the file relative to the client's working directory */
+        public File resolve(File file) { return file.isAbsolute() ? file : new File(workingDirectory, file.getPath()); }
+
+        /** Reads the request header that follows the protocol and token lines, up to and including the {@code run} line.
+         * @throws IOException if the header has more than {@link #MAX_HEADER_LINES} lines, if a line is longer than
+         *          {@link #MAX_HEADER_LINE_SIZE} bytes, or if the header could not be read */
+        static Invocation read(InputStream in) throws IOException {
+            Invocation result = new Invocation();
+            String line;
+            int count = 0;
+            while ((line = readLine(in, MAX_HEADER_LINE_SIZE)) != null && !"run".equals(line)) {
+                if (++count > MAX_HEADER_LINES) { throw new IOException("Request has more than " + MAX_HEADER_LINES + " header lines"); }
+                int space = line.indexOf(' ');
+                String key = space < 0 ? line : line.substring(0, space);
+                String value = space < 0 ? "" : line.substring(space + 1);
+                if ("arg".equals(key)) {
+                    result.args.add(value);
+                } else if ("env".equals(key)) {
+                    int eq = value.indexOf('=');
+                    if (eq > 0) { result.environment.put(value.substring(0, eq), value.substring(eq + 1)); }
+                } else if ("cwd".equals(key)) {
+                    result.workingDirectory = new File(value);
+                } else if ("tty".equals(key)) {
+                    result.terminal = true;
+                } // ignore unknown keys sent by newer clients
+            }
+            if (line == null) { throw new IOException("Connection closed before the request was complete"); }
+            return result;
+        }
+    }
+
+    /** Reads a line and decodes the escaped backslash, newline and carriage return characters. Returns {@code null} at the end of the stream.
+     * @throws IOException if the line is longer than the specified number of bytes, or if the stream could not be read */
+    static String readLine(InputStream in, int maxSize) throws IOException {
+        byte[] line = readFrame(in, maxSize);
+        return line == null ? null : new String(line, "UTF-8");
+    }
+
+    /** Reads a line and decodes the escaped characters without decoding the bytes. Returns {@code null} at the end of the stream.
+     * @throws IOException if the line is longer than {@link #MAX_FRAME_SIZE} bytes, or if the stream could not be read */
+    static byte[] readFrame(InputStream in) throws IOException { return readFrame(in, MAX_FRAME_SIZE); }
+
+    private static byte[] readFrame(InputStream in, int maxSize) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(80);
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) { return result.size() == 0 ? null : result.toByteArray(); }
+            if (result.size() >= maxSize) { throw new IOException("Line is longer than " + maxSize + " bytes"); }
+            if (b == '\\') {
+                b = in.read();
+                if (b == 'n') { b = '\n'; } else if (b == 'r') { b = '\r'; } else if (b < 0) { break; }
+            }
+            result.write(b);
+        }
+        return result.toByteArray();
+    }
+
+    /** Appends the specified bytes to the buffer, escaping backslash, newline and carriage return characters.
+     * These are ASCII characters, so multi-byte UTF-8 sequences are not affected. */
+    static void escape(byte[] bytes, int offset, int length, ByteArrayOutputStream buffer) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            if (b == '\\')      { buffer.write('\\'); buffer.write('\\'); }
+            else if (b == '\n') { buffer.write('\\'); buffer.write('n'); }
+            else if (b == '\r') { buffer.write('\\'); buffer.write('r'); }
+            else                { buffer.write(b); }
+        }
+    }
+    static byte[] escape(String value) {
+        byte[] bytes = utf8(value);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length + 8);
+        escape(bytes, 0, bytes.length, buffer);
+        return buffer.toByteArray();
+    }
+    private static byte[] utf8(String value) {
+        try {
+            return value.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /** Sends the bytes written to it as escaped lines with the specified prefix. */
+    static final class FrameOutputStream extends OutputStream {
+        private static final int MAX_FRAME = 8192;
+        private final OutputStream out;
+        private final byte[] prefix;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+
+        FrameOutputStream(OutputStream out, String prefix) {
+            this.out = out;
+            this.prefix = prefix.getBytes();
+        }
+        @Override public synchronized void write(int b) throws IOException { write(new byte[] {(byte) b}, 0, 1); }
+        @Override public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+            for (int end = offset + length; offset < end; offset += MAX_FRAME) { // keeps frames well below MAX_FRAME_SIZE
+                escape(bytes, offset, Math.min(MAX_FRAME, end - offset), buffer);
+                if (buffer.size() >= MAX_FRAME) { flush(); }
+            }
+        }
+        @Override public synchronized void flush() throws IOException {
+            if (buffer.size() == 0) { return; }
+            synchronized (out) {
+                out.write(prefix);
+                buffer.writeTo(out);
+                out.write('\n');
+                out.flush();
+            }
+            buffer.reset();
+        }
+    }
+
+    /** Reads the standard input sent by the client as {@code in} lines, up to the {@code eof} line. */
+    static final class FrameInputStream extends InputStream {
+        private final InputStream in;
+        private byte[] frame = new byte[0];
+        private int position;
+        private boolean eof;
+
+        FrameInputStream(InputStream in) { this.in = in; }
+
+        @Override public synchronized int read() throws IOException {
+            if (!fill()) { return -1; }
+            return frame[position++] & 0xFF;
+        }
+        @Override public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) { return 0; }
+            if (!fill()) { return -1; }
+            int count = Math.min(length, frame.length - position);
+            System.arraycopy(frame, position, bytes, offset, count);
+            position += count;
+            return count;
+        }
+        @Override public synchronized int available() { return frame.length - position; }
+
+        private boolean fill() throws IOException {
+            while (position == frame.length) {
+                if (eof) { return false; }
+                byte[] line = readFrame(in);
+                if (line == null || (line.length == 3 && line[0] == 'e' && line[1] == 'o' && line[2] == 'f')) {
+                    eof = true;
+                } else if (line.length >= 3 && line[0] == 'i' && line[1] == 'n' && line[2] == ' ') {
+                    frame = line;
+                    position = 3;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package picocli.server;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.*;
+
+public class CommandServerTest {
+
+    @Command(name = "app", mixinStandardHelpOptions = true, version = "app 1.0")
+    static class App implements Callable<Integer> {
+        @Option(names = "-n") int count;
+        @Option(names = "--fail") boolean fail;
+        @Option(names = "--error") boolean error;
+        @Option(names = "--cat") boolean cat;
+        @Parameters List<File> files;
+
+        public Integer call() throws Exception {
+            if (fail) { throw new IllegalStateException("failed on purpose"); }
+            if (error) { throw new AssertionError("error on purpose"); }
+            CommandServer.Invocation invocation = CommandServer.currentInvocation();
+            if (cat) {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+                String line;
+                while ((line = reader.readLine()) != null) { System.out.println("> " + line); }
+            }
+            for (File file : files == null ? Collections.<File>emptyList() : files) { System.out.println(invocation.resolve(file).getPath()); }
+            System.out.println("GREETING=" + invocation.environment().get("GREETING"));
+            System.err.println("count=" + count);
+            return count;
+        }
+    }
+
+    private CommandServer server;
+    private Thread thread;
+
+    @Before
+    public void start() throws IOException {
+        server = CommandServer.bind(new CommandLine(new App()), 0, "s3cret");
+        thread = new Thread(server);
+        thread.start();
+    }
+
+    @After
+    public void stop() throws Exception {
+        server.close();
+        thread.join(5000);
+    }
+
+    private String[] invoke(String token, InputStream stdin, String... args) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode = CommandClient.invoke(server.getPort(), token, args, Collections.singletonMap("GREETING", "hi\nthere"),
+                new File("/work"), stdin, out, err);
+        return new String[] {String.valueOf(exitCode), out.toString("UTF-8"), err.toString("UTF-8")};
+    }
+
+    @Test
+    public void testOutputAndExitCodeAreReturned() throws Exception {
+        String[] result = invoke("s3cret", null, "-n", "3", "a.txt", "/tmp/b.txt");
+        String expected = String.format("%s%n%s%nGREETING=hi%nthere%n", new File("/work", "a.txt").getPath(), new File("/tmp/b.txt").getPath());
+        assertEquals("3", result[0]);
+        assertEquals(expected, result[1]);
+        assertEquals(String.format("count=3%n"), result[2]);
+    }
+
+    @Test
+    public void testCommandIsReusedWithFreshValues() throws Exception {
+        invoke("s3cret", null, "-n", "3", "a.txt");
+        String[] result = invoke("s3cret", null);
+        assertEquals("0", result[0]);
+        assertEquals(String.format("GREETING=hi%nthere%n"), result[1]);
+    }
+
+    @Test
+    public void testInvalidInputExitsWithUsageCode() throws Exception {
+        String[] result = invoke("s3cret", null, "-x");
+        assertEquals("2", result[0]);
+        assertTrue(result[2], result[2].startsWith(String.format("Unknown option: -x%nUsage: app ")));
+    }
+
+    @Test
+    public void testExceptionExitsWithSoftwareCode() throws Exception {
+        String[] result = invoke("s3cret", null, "--fail");
+        assertEquals("1", result[0]);
+        assertTrue(result[2], result[2].startsWith("java.lang.IllegalStateException: failed on purpose"));
+    }
+
+    @Test
+    public void testErrorExitsWithSoftwareCodeAndServerContinues() throws Exception {
+        String[] result = invoke("s3cret", null, "--error");
+        assertEquals("1", result[0]);
+        assertTrue(result[2], result[2].startsWith("java.lang.AssertionError: error on purpose"));
+        assertEquals("3", invoke("s3cret", null, "-n", "3")[0]);
+    }
+
+    @Test
+    public void testHelp() throws Exception {
+        String[] result = invoke("s3cret", null, "--version");
+        assertEquals("0", result[0]);
+        assertEquals(String.format("app 1.0%n"), result[1]);
+    }
+
+    @Test
+    public void testStandardInputIsForwarded() throws Exception {
+        String input = String.format("first line%nsecond \\ line with \u00e9%n");
+        String[] result = invoke("s3cret", new ByteArrayInputStream(input.getBytes("UTF-8")), "--cat");
+        assertEquals("0", result[0]);
+        assertEquals(String.format("> first line%n> second \\ line with \u00e9%nGREETING=hi%nthere%n"), result[1]);
+    }
+
+    @Test
+    public void testInvalidTokenIsRejected() throws Exception {
+        String[] result = invoke("wrong", null, "-n", "3");
+        assertEquals("2", result[0]);
+        assertEquals("", result[1]);
+        assertEquals(String.format("Invalid token%n"), result[2]);
+    }
+
+    @Test
+    public void testMissingTokenIsRejected() throws Exception {
+        String[] result = invoke(null, null, "-n", "3");
+        assertEquals("2", result[0]);
+        assertEquals(String.format("Invalid token%n"), result[2]);
+    }
+
+    @Test
+    public void testTokenMustBeFirstHeaderLine() throws Exception {
+        Socket socket = new Socket(InetAddress.getByName(null), server.getPort());
+        try {
+            OutputStream out = socket.getOutputStream();
+            out.write((CommandServer.PROTOCOL + "\ncwd /work\ntoken s3cret\narg -n\narg 3\nrun\neof\n").getBytes("UTF-8"));
+            out.flush();
+            String escapedNewline = String.format("%n").replace("\r", "\\r").replace("\n", "\\n");
+            assertEquals("err Invalid token" + escapedNewline + "\nexit 2\n", readAll(socket.getInputStream()));
+        } finally {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testTooManyHeaderLinesAreRejected() throws Exception {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i <= CommandServer.MAX_HEADER_LINES; i++) { header.append("arg x\n"); }
+        header.append("run\n");
+        try {
+            CommandServer.Invocation.read(new ByteArrayInputStream(header.toString().getBytes("UTF-8")));
+            fail("Expected exception");
+        } catch (IOException ex) {
+            assertEquals("Request has more than " + CommandServer.MAX_HEADER_LINES + " header lines", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testIdleClientIsDisconnected() throws Exception {
+        server.setTimeout(200);
+        Socket idle = new Socket(InetAddress.getByName(null), server.getPort());
+        try {
+            assertEquals("3", invoke("s3cret", null, "-n", "3")[0]);
+            assertEquals(-1, idle.getInputStream().read());
+        } finally {
+            idle.close();
+        }
+    }
+
+    @Test
+    public void testUnreadStandardInputIsDiscarded() throws Exception {
+        byte[] input = new byte[CommandServer.MAX_FRAME_SIZE];
+        for (int i = 0; i < 20; i++) {
+            String[] result = invoke("s3cret", new ByteArrayInputStream(input), "-n", "3");
+            assertEquals("3", result[0]);
+            assertEquals(String.format("count=3%n"), result[2]);
+        }
+    }
+
+    @Test
+    public void testTokenIsGeneratedWhenNotSpecified() throws Exception {
+        CommandServer generated = CommandServer.bind(new CommandLine(new App()), 0, null);
+        CommandServer other = CommandServer.bind(new CommandLine(new App()), 0, null);
+        try {
+            assertEquals(32, generated.getToken().length());
+            assertFalse(generated.getToken().equals(other.getToken()));
+        } finally {
+            generated.close();
+            other.close();
+        }
+    }
+
+    @Test
+    public void testConnectionFileIsOnlyAccessibleByOwner() throws Exception {
+        File connection = File.createTempFile("picocli-server", ".connection");
+        try {
+            Assume.assumeTrue(Files.getFileStore(connection.toPath()).supportsFileAttributeView("posix"));
+            server.writeConnectionFile(connection);
+            assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(connection.toPath())));
+            assertEquals(server.getPort() + "\ns3cret\n", new String(Files.readAllBytes(connection.toPath()), "UTF-8"));
+        } finally {
+            connection.delete();
+        }
+    }
+
+    @Test
+    public void testLongLineIsRejected() throws Exception {
+        StringBuilder line = new StringBuilder("arg ");
+        for (int i = 0; i < CommandServer.MAX_FRAME_SIZE; i++) { line.append('x'); }
+        line.append('\n');
+        try {
+            CommandServer.readFrame(new ByteArrayInputStream(line.toString().getBytes("UTF-8")));
+            fail("Expected exception");
+        } catch (IOException ex) {
+            assertEquals("Line is longer than " + CommandServer.MAX_FRAME_SIZE + " bytes", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testLargeOutputIsSplitIntoFrames() throws Exception {
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        CommandServer.FrameOutputStream out = new CommandServer.FrameOutputStream(frames, "out ");
+        out.write(new byte[3 * CommandServer.MAX_FRAME_SIZE]);
+        out.flush();
+        InputStream in = new ByteArrayInputStream(frames.toByteArray());
+        int total = 0;
+        byte[] frame;
+        while ((frame = CommandServer.readFrame(in)) != null) { total += frame.length - 4; }
+        assertEquals(3 * CommandServer.MAX_FRAME_SIZE, total);
+    }
+
+    @Test
+    public void testShellLauncher() throws Exception {
+        File script = new File("src/main/dist/bin/picocli-client");
+        if (!script.exists()) { script = new File("picocli-server/src/main/dist/bin/picocli-client"); }
+        Assume.assumeTrue(script.exists() && new File("/bin/bash").exists());
+        File connection = File.createTempFile("picocli-server", ".connection");
+        try {
+            server.writeConnectionFile(connection);
+            ProcessBuilder builder = new ProcessBuilder("/bin/bash", script.getAbsolutePath(), connection.getAbsolutePath(), "-n", "7", "--cat", "with space", "back\\slash");
+            builder.environment().put("GREETING", "hello");
+            builder.directory(connection.getParentFile());
+            Process process = builder.start();
+            process.getOutputStream().write("piped".getBytes("UTF-8"));
+            process.getOutputStream().close();
+            String out = readAll(process.getInputStream());
+            String err = readAll(process.getErrorStream());
+            assertEquals(err, 7, process.waitFor());
+            String dir = connection.getParentFile().getCanonicalPath();
+            assertEquals(String.format("> piped%n%s%n%s%nGREETING=hello%n", new File(dir, "with space").getPath(), new File(dir, "back\\slash").getPath()), out);
+            assertEquals(String.format("count=7%n"), err);
+        } finally {
+            connection.delete();
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) >= 0) { result.write(buffer, 0, count); }
+        return result.toString("UTF-8");
+    }
+}
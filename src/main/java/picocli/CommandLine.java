@@ -30,13 +30,31 @@ import java.net.NetworkInterface;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.text.BreakIterator;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import picocli.CommandLine.Help.Ansi.IStyle;
 import picocli.CommandLine.Help.Ansi.Style;
@@ -146,6 +164,10 @@ public class CommandLine {
     private final CommandSpec commandSpec;
     private final Interpreter interpreter;
     private final IFactory factory;
+    private final long constructionNanos;
+    private boolean constructionReported;
+    private IMetricsListener metricsListener;
+    private final boolean detached;
 
     /**
      * Constructs a new {@code CommandLine} interpreter with the specified object (which may be an annotated user object or a {@link CommandSpec CommandSpec}) and a default subcommand factory.
@@ -179,12 +201,31 @@ public class CommandLine {
      * @throws InitializationException if the specified command object does not have a {@link Command}, {@link Option} or {@link Parameters} annotation
      * @since 2.2 */
     public CommandLine(Object command, IFactory factory) {
+        this(command, factory, false);
+    }
+    private CommandLine(Object command, IFactory factory, boolean lazySubcommands) {
+        long start = System.nanoTime();
         this.factory = Assert.notNull(factory, "factory");
         interpreter = new Interpreter();
-        commandSpec = CommandSpec.forAnnotatedObject(command, factory);
+        commandSpec = CommandLine.Model.CommandReflection.extractCommandSpec(command, factory, true, lazySubcommands);
         commandSpec.commandLine(this);
         commandSpec.validate();
         if (commandSpec.unmatchedArgsBindings().size() > 0) { setUnmatchedArgumentsAllowed(true); }
+        constructionNanos = System.nanoTime() - start;
+        detached = false;
+    }
+    /** Creates a private copy of the specified frozen command that parses a single command line without modifying the original.
+     * @see #parseArgsDetached(String...) */
+    private CommandLine(CommandLine frozen, CommandSpec parent) {
+        factory = frozen.factory;
+        metricsListener = frozen.metricsListener;
+        constructionNanos = 0;
+        constructionReported = true;
+        interpreter = new Interpreter();
+        interpreter.converterRegistry = frozen.interpreter.converterRegistry;
+        commandSpec = frozen.commandSpec.detachedCopy(parent);
+        commandSpec.commandLine = this;
+        detached = true;
     }
 
     /**
@@ -339,11 +380,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.9
      */
-    public CommandLine setHelpFactory(IHelpFactory helpFactory) {
+    public CommandLine setHelpFactory(final IHelpFactory helpFactory) {
         getCommandSpec().usageMessage().helpFactory(helpFactory);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setHelpFactory(helpFactory);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setHelpFactory(helpFactory); }
+        });
         return this;
     }
 
@@ -380,11 +421,11 @@ public class CommandLine {
      * @see #getHelpSectionKeys
      * @since 3.9
      */
-    public CommandLine setHelpSectionKeys(List<String> keys) {
+    public CommandLine setHelpSectionKeys(final List<String> keys) {
         getCommandSpec().usageMessage().sectionKeys(keys);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setHelpSectionKeys(keys);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setHelpSectionKeys(keys); }
+        });
         return this;
     }
 
@@ -411,11 +452,11 @@ public class CommandLine {
      * @see #getHelpSectionMap
      * @since 3.9
      */
-    public CommandLine setHelpSectionMap(Map<String, IHelpSectionRenderer> map) {
+    public CommandLine setHelpSectionMap(final Map<String, IHelpSectionRenderer> map) {
         getCommandSpec().usageMessage().sectionMap(map);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setHelpSectionMap(map);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setHelpSectionMap(map); }
+        });
         return this;
     }
 
@@ -438,11 +479,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.0
      */
-    public CommandLine setToggleBooleanFlags(boolean newValue) {
+    public CommandLine setToggleBooleanFlags(final boolean newValue) {
         getCommandSpec().parser().toggleBooleanFlags(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setToggleBooleanFlags(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setToggleBooleanFlags(newValue); }
+        });
         return this;
     }
 
@@ -466,11 +507,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 0.9.7
      */
-    public CommandLine setOverwrittenOptionsAllowed(boolean newValue) {
+    public CommandLine setOverwrittenOptionsAllowed(final boolean newValue) {
         getCommandSpec().parser().overwrittenOptionsAllowed(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setOverwrittenOptionsAllowed(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setOverwrittenOptionsAllowed(newValue); }
+        });
         return this;
     }
 
@@ -488,11 +529,39 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.0
      */
-    public CommandLine setPosixClusteredShortOptionsAllowed(boolean newValue) {
+    public CommandLine setPosixClusteredShortOptionsAllowed(final boolean newValue) {
         getCommandSpec().parser().posixClusteredShortOptionsAllowed(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setPosixClusteredShortOptionsAllowed(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setPosixClusteredShortOptionsAllowed(newValue); }
+        });
+        return this;
+    }
+
+    /** Returns whether the parser accepts unambiguous abbreviations of option names, like {@code --verb} for {@code --verbose}.
+     * The default is {@code false}.
+     * @return {@code true} if options can be specified with a unique prefix of one of their names, {@code false} otherwise
+     * @since 4.0 */
+    public boolean isAbbreviatedOptionsAllowed() { return getCommandSpec().parser().abbreviatedOptionsAllowed(); }
+
+    /** Sets whether the parser accepts unambiguous abbreviations of option names. The default is {@code false}.
+     * <p>When set to {@code true}, a command line argument that is not an option name, but is the prefix of the names of
+     * exactly one option, is treated as that option. For example, {@code --verb} and {@code --verb=true} are
+     * recognized as {@code --verbose} if no other option name starts with {@code --verb}. Options must be abbreviated
+     * to at least one character after their prefix. A prefix that matches more than one option results in a
+     * {@link ParameterException}. Abbreviations take precedence over clustered short options.</p>
+     * <p>The specified setting will be registered with this {@code CommandLine} and the full hierarchy of its
+     * subcommands and nested sub-subcommands <em>at the moment this method is called</em>. Subcommands added
+     * later will have the default setting. To ensure a setting is applied to all
+     * subcommands, call the setter last, after adding subcommands.</p>
+     * @param newValue the new setting
+     * @return this {@code CommandLine} object, to allow method chaining
+     * @since 4.0
+     */
+    public CommandLine setAbbreviatedOptionsAllowed(final boolean newValue) {
+        getCommandSpec().parser().abbreviatedOptionsAllowed(newValue);
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setAbbreviatedOptionsAllowed(newValue); }
+        });
         return this;
     }
 
@@ -514,11 +583,42 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.4
      */
-    public CommandLine setCaseInsensitiveEnumValuesAllowed(boolean newValue) {
+    public CommandLine setCaseInsensitiveEnumValuesAllowed(final boolean newValue) {
         getCommandSpec().parser().caseInsensitiveEnumValuesAllowed(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setCaseInsensitiveEnumValuesAllowed(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setCaseInsensitiveEnumValuesAllowed(newValue); }
+        });
+        return this;
+    }
+
+    /** Returns the maximum number of converted values the parser remembers for each option or positional parameter
+     * while parsing. The default is {@code 0}: every value is converted by its type converter.
+     * @return the maximum number of converted values remembered per option or positional parameter, or {@code 0} if conversion results are not cached
+     * @see #setConversionCacheSize(int)
+     * @since 4.0 */
+    public int getConversionCacheSize() { return getCommandSpec().parser().conversionCacheSize(); }
+
+    /** Sets the maximum number of converted values the parser remembers for each option or positional parameter
+     * while parsing. When set to a positive number, a String value that was already converted for the same option or
+     * positional parameter in the same parse is not converted again: the previous result is reused. This speeds up
+     * parsing multi-value options that receive many repeated values, like {@code --tags=a,b,a,c,a,b}. When more
+     * distinct values are converted, the least recently used results are forgotten. The default is {@code 0}, which
+     * disables caching.
+     * <p>Only enable this if the type converters of this command return the same (or an equivalent, immutable) result
+     * for the same String value, since the same object may be assigned to multiple elements of a collection, array or map.</p>
+     * <p>The specified setting will be registered with this {@code CommandLine} and the full hierarchy of its
+     * subcommands and nested sub-subcommands <em>at the moment this method is called</em>. Subcommands added
+     * later will have the default setting. To ensure a setting is applied to all
+     * subcommands, call the setter last, after adding subcommands.</p>
+     * @param newValue the maximum number of converted values remembered per option or positional parameter, or {@code 0} to disable caching
+     * @return this {@code CommandLine} object, to allow method chaining
+     * @since 4.0
+     */
+    public CommandLine setConversionCacheSize(final int newValue) {
+        getCommandSpec().parser().conversionCacheSize(newValue);
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setConversionCacheSize(newValue); }
+        });
         return this;
     }
 
@@ -541,11 +641,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.7
      */
-    public CommandLine setTrimQuotes(boolean newValue) {
+    public CommandLine setTrimQuotes(final boolean newValue) {
         getCommandSpec().parser().trimQuotes(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setTrimQuotes(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setTrimQuotes(newValue); }
+        });
         return this;
     }
 
@@ -566,11 +666,11 @@ public class CommandLine {
      * @see ArgSpec#splitRegex()
      * @since 3.7
      */
-    public CommandLine setSplitQuotedStrings(boolean newValue) {
+    public CommandLine setSplitQuotedStrings(final boolean newValue) {
         getCommandSpec().parser().splitQuotedStrings(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setSplitQuotedStrings(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setSplitQuotedStrings(newValue); }
+        });
         return this;
     }
 
@@ -583,11 +683,11 @@ public class CommandLine {
      * @param delimiter the end-of-options delimiter; must not be {@code null}. The default is {@code "--"}.
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.5 */
-    public CommandLine setEndOfOptionsDelimiter(String delimiter) {
+    public CommandLine setEndOfOptionsDelimiter(final String delimiter) {
         getCommandSpec().parser().endOfOptionsDelimiter(delimiter);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setEndOfOptionsDelimiter(delimiter);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setEndOfOptionsDelimiter(delimiter); }
+        });
         return this;
     }
 
@@ -611,11 +711,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.6
      */
-    public CommandLine setDefaultValueProvider(IDefaultValueProvider newValue) {
+    public CommandLine setDefaultValueProvider(final IDefaultValueProvider newValue) {
         getCommandSpec().defaultValueProvider(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setDefaultValueProvider(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setDefaultValueProvider(newValue); }
+        });
         return this;
     }
 
@@ -638,11 +738,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 2.3
      */
-    public CommandLine setStopAtPositional(boolean newValue) {
+    public CommandLine setStopAtPositional(final boolean newValue) {
         getCommandSpec().parser().stopAtPositional(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setStopAtPositional(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setStopAtPositional(newValue); }
+        });
         return this;
     }
 
@@ -673,11 +773,11 @@ public class CommandLine {
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 2.3
      */
-    public CommandLine setStopAtUnmatched(boolean newValue) {
+    public CommandLine setStopAtUnmatched(final boolean newValue) {
         getCommandSpec().parser().stopAtUnmatched(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setStopAtUnmatched(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setStopAtUnmatched(newValue); }
+        });
         if (newValue) { setUnmatchedArgumentsAllowed(true); }
         return this;
     }
@@ -704,11 +804,11 @@ public class CommandLine {
      * @see #getUnmatchedArguments()
      * @see #isUnmatchedArgumentsAllowed
      */
-    public CommandLine setUnmatchedOptionsArePositionalParams(boolean newValue) {
+    public CommandLine setUnmatchedOptionsArePositionalParams(final boolean newValue) {
         getCommandSpec().parser().unmatchedOptionsArePositionalParams(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setUnmatchedOptionsArePositionalParams(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setUnmatchedOptionsArePositionalParams(newValue); }
+        });
         return this;
     }
 
@@ -734,11 +834,11 @@ public class CommandLine {
      * @since 0.9.7
      * @see #getUnmatchedArguments()
      */
-    public CommandLine setUnmatchedArgumentsAllowed(boolean newValue) {
+    public CommandLine setUnmatchedArgumentsAllowed(final boolean newValue) {
         getCommandSpec().parser().unmatchedArgumentsAllowed(newValue);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setUnmatchedArgumentsAllowed(newValue);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setUnmatchedArgumentsAllowed(newValue); }
+        });
         return this;
     }
 
@@ -751,6 +851,31 @@ public class CommandLine {
         return interpreter.parseResult == null ? Collections.<String>emptyList() : UnmatchedArgumentException.stripErrorMessage(interpreter.parseResult.unmatched);
     }
 
+    /** Returns the listener that is notified of the time spent in each phase of constructing, parsing and executing
+     * this command, or {@code null} (the default) if no metrics are collected.
+     * @return the metrics listener, or {@code null}
+     * @see #setMetricsListener(IMetricsListener)
+     * @since 4.0 */
+    public IMetricsListener getMetricsListener() { return metricsListener; }
+
+    /** Sets the listener that is notified of the time spent in each phase of constructing, parsing and executing
+     * this command. When no listener is set (the default), picocli does not measure anything.
+     * <p>The specified setting will be registered with this {@code CommandLine} and the full hierarchy of its
+     * subcommands and nested sub-subcommands <em>at the moment this method is called</em>. Subcommands added
+     * later will not report metrics. To ensure a setting is applied to all
+     * subcommands, call the setter last, after adding subcommands.</p>
+     * @param newValue the listener to notify, or {@code null} to stop collecting metrics
+     * @return this {@code CommandLine} object, to allow method chaining
+     * @see JsonLinesMetricsListener
+     * @since 4.0 */
+    public CommandLine setMetricsListener(final IMetricsListener newValue) {
+        metricsListener = newValue;
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setMetricsListener(newValue); }
+        });
+        return this;
+    }
+
     /**
      * <p>
      * Convenience method that initializes the specified annotated object from the specified command line arguments.
@@ -835,6 +960,32 @@ public class CommandLine {
         interpreter.parse(args);
         return interpreter.parseResult.build();
     }
+    /** Parses the specified command line arguments without modifying this {@code CommandLine}, its {@code CommandSpec} model
+     * or the annotated user objects, and returns a {@code ParseResult} with the options, positional parameters, and
+     * subcommands (if any) that were recognized.
+     * <p>
+     * Unlike {@link #parseArgs(String...)}, this method may be called by many threads at the same time. The first invocation
+     * {@linkplain CommandSpec#freeze() freezes} this command and its subcommands. Every invocation then parses into private
+     * copies of the options, positional parameters and argument groups of the matched commands, so each invocation returns
+     * an independent {@code ParseResult}. Obtain the matched values from the {@code ParseResult}, for example with
+     * {@link ParseResult#matchedOptionValue(String, Object)}: annotated fields and methods of the user objects are not modified,
+     * and neither is the state of the {@code CommandSpec} model returned by {@link #getCommandSpec()}.
+     * </p><p>
+     * Converters, default value providers and factories are shared by all invocations, and must be thread-safe.
+     * Configure this command (register converters, change parser settings) before the first concurrent invocation.
+     * </p>
+     * @param args the command line arguments to parse
+     * @return the result of parsing the specified arguments
+     * @throws ParameterException if the specified command line arguments are invalid; use
+     *      {@link ParameterException#getCommandLine()} to get the (detached copy of the) command or subcommand whose user input was invalid
+     * @see CommandSpec#freeze()
+     * @since 4.0 */
+    public ParseResult parseArgsDetached(String... args) {
+        commandSpec.freeze();
+        CommandLine copy = new CommandLine(this, commandSpec.parent());
+        copy.interpreter.parse(args);
+        return copy.interpreter.parseResult.build();
+    }
     public ParseResult getParseResult() { return interpreter.parseResult == null ? null : interpreter.parseResult.build(); }
     /**
      * Represents a function that can process a List of {@code CommandLine} objects resulting from successfully
@@ -1153,6 +1304,16 @@ public class CommandLine {
         return false;
     }
     private static List<Object> execute(CommandLine parsed, List<Object> executionResult) {
+        IMetricsListener listener = parsed.metricsListener;
+        if (listener == null) { return executeUserObject(parsed, executionResult); }
+        long start = System.nanoTime();
+        try {
+            return executeUserObject(parsed, executionResult);
+        } finally {
+            listener.phaseCompleted(IMetricsListener.Phase.EXECUTION, parsed.getCommandSpec(), System.nanoTime() - start, 1);
+        }
+    }
+    private static List<Object> executeUserObject(CommandLine parsed, List<Object> executionResult) {
         Object command = parsed.getCommand();
         if (command instanceof Runnable) {
             try {
@@ -1419,6 +1580,357 @@ public class CommandLine {
         @Override protected RunAll self() { return this; }
     }
 
+    /**
+     * Command line parse result handler that prints help if requested, and otherwise executes the top-level command and
+     * all subcommands like {@link RunAll}, except that commands marked as {@linkplain Command#independent() independent}
+     * are executed on an {@code ExecutorService}, at the same time as the other commands.
+     * <p>
+     * Commands that are not independent are executed in order in the calling thread. When an independent command is
+     * reached, it is submitted to the executor and the next command is started without waiting for it to complete.
+     * When a command that is not independent fails, no further commands are started. The handler waits until all
+     * commands have completed, and returns their results in the order of the commands on the command line, like {@code RunAll}.
+     * If any command failed, the exception of the first command that failed (in command line order) is thrown.
+     * </p><p>
+     * By default, every independent command is executed in a new virtual thread when running on Java 21 or later, and
+     * in a pooled platform thread otherwise; these threads are shut down when the handler completes.
+     * Applications can provide an executor with {@link #useExecutor(ExecutorService)}; this executor is not shut down by the handler.
+     * </p>
+     * @since 4.0 */
+    public static class RunAllConcurrently extends RunAll {
+        private ExecutorService executor;
+
+        /** Returns the executor that independent commands are submitted to, or {@code null} if the handler creates an executor for every command line. */
+        public ExecutorService executor() { return executor; }
+
+        /** Sets the executor to submit independent commands to. The handler does not shut down this executor.
+         * @param executor the executor to use
+         * @return this handler for method chaining */
+        public RunAllConcurrently useExecutor(ExecutorService executor) { this.executor = Assert.notNull(executor, "executor"); return self(); }
+
+        /** Prints help if requested, and otherwise executes the top-level command and all subcommands, executing
+         * independent commands concurrently with the other commands.
+         * @see #handle(ParseResult) */
+        @Override public List<Object> handleParseResult(List<CommandLine> parsedCommands, PrintStream out, Help.Ansi ansi) {
+            if (printHelpIfRequested(parsedCommands, out, err(), ansi)) { return returnResultOrExit(Collections.emptyList()); }
+            return returnResultOrExit(executeAll(parsedCommands));
+        }
+        /** Executes the top-level command and all subcommands as {@code Runnable} or {@code Callable}, executing commands
+         * marked as {@linkplain Command#independent() independent} on the executor.
+         * @param parseResult the {@code ParseResult} that resulted from successfully parsing the command line arguments
+         * @return the result of executing all commands, in command line order:
+         *      the return values from calling the {@code Callable} commands, {@code null} elements for commands that implement {@code Runnable}
+         * @throws ExecutionException if a problem occurred while executing a command; use
+         *      {@link ExecutionException#getCommandLine()} to get the command or subcommand where processing failed */
+        @Override protected List<Object> handle(ParseResult parseResult) throws ExecutionException {
+            return executeAll(parseResult.asCommandLineList());
+        }
+        private List<Object> executeAll(List<CommandLine> commands) {
+            ExecutorService service = executor;
+            List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>(commands.size());
+            RuntimeException failure = null;
+            int failed = commands.size();
+            try {
+                for (int i = 0; i < commands.size() && failure == null; i++) {
+                    final CommandLine parsed = commands.get(i);
+                    if (parsed.getCommandSpec().independent()) {
+                        if (service == null) { service = newDefaultExecutor(); }
+                        futures.add(service.submit(new Callable<List<Object>>() {
+                            public List<Object> call() { return execute(parsed, new ArrayList<Object>(1)); }
+                        }));
+                    } else {
+                        try {
+                            futures.add(new CompletedFuture(execute(parsed, new ArrayList<Object>(1))));
+                        } catch (RuntimeException ex) {
+                            failure = ex;
+                            failed = i;
+                        }
+                    }
+                }
+                List<Object> result = new ArrayList<Object>(futures.size());
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        result.addAll(futures.get(i).get());
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        for (Future<?> future : futures) { future.cancel(true); }
+                        throw new ExecutionException(commands.get(i), "Interrupted while waiting for command (" + commands.get(i).getCommand() + ")", ex);
+                    } catch (java.util.concurrent.ExecutionException ex) {
+                        if (i < failed) { failure = unwrap(commands.get(i), ex.getCause()); failed = i; }
+                    }
+                }
+                if (failure != null) { throw failure; }
+                return result;
+            } finally {
+                if (service != executor) { service.shutdown(); }
+            }
+        }
+        private static RuntimeException unwrap(CommandLine parsed, Throwable cause) {
+            if (cause instanceof RuntimeException) { return (RuntimeException) cause; }
+            if (cause instanceof Error) { throw (Error) cause; }
+            return new ExecutionException(parsed, "Error while executing command (" + parsed.getCommand() + "): " + cause, cause);
+        }
+        /** Returns a virtual-thread-per-task executor when running on Java 21 or later, or a cached thread pool otherwise. */
+        private static ExecutorService newDefaultExecutor() {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (Exception ex) {
+                return Executors.newCachedThreadPool();
+            }
+        }
+        @Override protected RunAllConcurrently self() { return this; }
+    }
+    /**
+     * Command line parse result handler that prints help if requested, and otherwise executes the most specific
+     * {@code Runnable} or {@code Callable} subcommand like {@link RunLast}, but returns a {@link CommandFuture} that
+     * completes when the command has completed, instead of the result of the command.
+     * <p>
+     * Commands that perform their work asynchronously can return a {@code java.util.concurrent.CompletionStage}
+     * (like a {@code CompletableFuture}), a {@code CommandFuture} or another {@code Future} from their {@code call} method.
+     * The returned {@code CommandFuture} completes with a list containing the result of that future, or fails with an
+     * {@link ExecutionException} wrapping the exception it failed with. No thread is blocked to wait for a
+     * {@code CompletionStage} or a {@code CommandFuture}. A {@code Future} of another type that is not done yet is
+     * waited for by a task that is submitted to the {@linkplain #useExecutor(Executor) executor} of this handler;
+     * if no executor was set, it is waited for in a new daemon thread that is started for each such result.
+     * Results of other types, and {@code Runnable} commands, complete the returned {@code CommandFuture} immediately.
+     * </p><p>
+     * If an exit code {@linkplain #andExit(int) was set}, {@code System.exit} is called when the command completes normally.
+     * Use {@link CommandLine#executeAsync(IParseResultHandler2, IExceptionHandler2, String...) executeAsync} to let an
+     * exception handler handle commands that complete exceptionally.
+     * </p>
+     * @since 4.0 */
+    public static class RunLastAsync extends AbstractParseResultHandler<CommandFuture<List<Object>>> {
+        private Executor executor;
+
+        /** Sets the executor that waits for results of type {@code Future} that are not a {@code CompletionStage} or
+         * {@code CommandFuture} and are not done yet, and completes the returned {@code CommandFuture} with their result.
+         * Each such result occupies a thread of the executor until it is done. If no executor is set, a new daemon
+         * thread is started for each such result.
+         * @return this handler, for method chaining */
+        public RunLastAsync useExecutor(Executor executor) { this.executor = Assert.notNull(executor, "executor"); return self(); }
+        /** Returns the executor that waits for {@code Future} results, or {@code null} if a new thread is started for each of them.
+         * @see #useExecutor(Executor) */
+        public Executor executor() { return executor; }
+
+        /** Prints help if requested, and otherwise executes the most specific command.
+         * @param parseResult the {@code ParseResult} that resulted from successfully parsing the command line arguments
+         * @return a future that completes with the result of the command, or with {@code null} if help was requested
+         * @throws ParameterException if the {@link HelpCommand HelpCommand} was invoked for an unknown subcommand
+         * @throws ExecutionException if the command failed before returning a future */
+        @Override public CommandFuture<List<Object>> handleParseResult(ParseResult parseResult) throws ExecutionException {
+            CommandFuture<List<Object>> result = printHelpIfRequested(parseResult.asCommandLineList(), out(), err(), ansi())
+                    ? CommandFuture.<List<Object>>completed(null)
+                    : handle(parseResult);
+            if (hasExitCode()) {
+                result.whenComplete(new ICompletionListener<List<Object>>() {
+                    public void completed(List<Object> value) { exit(exitCode()); }
+                    public void failed(Throwable failure) { }
+                });
+            }
+            return result;
+        }
+        /** Executes the most specific {@code Runnable} or {@code Callable} subcommand, and returns a future for its result.
+         * @param parseResult the {@code ParseResult} that resulted from successfully parsing the command line arguments
+         * @return a future that completes with a list containing the result of the command
+         * @throws ExecutionException if the command failed before returning a future */
+        protected CommandFuture<List<Object>> handle(ParseResult parseResult) throws ExecutionException {
+            List<CommandLine> parsedCommands = parseResult.asCommandLineList();
+            CommandLine last = parsedCommands.get(parsedCommands.size() - 1);
+            return CommandFuture.forResult(last, execute(last, new ArrayList<Object>(1)).get(0), executor);
+        }
+        @Override protected RunLastAsync self() { return this; }
+    }
+
+    /** Receives the outcome of a {@link CommandFuture}.
+     * @param <T> the result type of the future
+     * @see CommandFuture#whenComplete(ICompletionListener)
+     * @since 4.0 */
+    public interface ICompletionListener<T> {
+        /** Called when the future completed normally.
+         * @param result the result of the future */
+        void completed(T result);
+        /** Called when the future completed exceptionally or was cancelled.
+         * @param failure the exception the future failed with, or a {@code CancellationException} */
+        void failed(Throwable failure);
+    }
+
+    /**
+     * A {@code Future} that notifies {@linkplain ICompletionListener listeners} when it completes, so that the result of an
+     * asynchronous command can be processed without blocking a thread. Returned by {@link RunLastAsync} and
+     * {@link CommandLine#executeAsync(String...) executeAsync}; commands can also return a {@code CommandFuture} that
+     * they complete later from their {@code call} method.
+     * @param <T> the result type
+     * @since 4.0 */
+    public static final class CommandFuture<T> implements Future<T> {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private List<ICompletionListener<? super T>> listeners = new ArrayList<ICompletionListener<? super T>>(2);
+        private T result;
+        private Throwable failure;
+
+        /** Returns a future that has already completed with the specified result. */
+        public static <T> CommandFuture<T> completed(T result) {
+            CommandFuture<T> future = new CommandFuture<T>();
+            future.complete(result);
+            return future;
+        }
+        /** Completes this future with the specified result, if it was not completed yet, and notifies the listeners.
+         * @return {@code true} if this call completed the future, {@code false} if it was already completed */
+        public boolean complete(T result) { return done(result, null); }
+        /** Completes this future with the specified exception, if it was not completed yet, and notifies the listeners.
+         * @return {@code true} if this call completed the future, {@code false} if it was already completed */
+        public boolean fail(Throwable failure) { return done(null, Assert.notNull(failure, "failure")); }
+
+        private boolean done(T value, Throwable exception) {
+            List<ICompletionListener<? super T>> notify;
+            synchronized (this) {
+                if (listeners == null) { return false; }
+                result = value;
+                failure = exception;
+                notify = listeners;
+                listeners = null;
+            }
+            latch.countDown();
+            for (ICompletionListener<? super T> listener : notify) { inform(listener); }
+            return true;
+        }
+        private void inform(ICompletionListener<? super T> listener) {
+            try {
+                if (failure == null) { listener.completed(result); } else { listener.failed(failure); }
+            } catch (RuntimeException ex) {
+                new Tracer().warn("Completion listener %s threw %s%n", listener, ex);
+            }
+        }
+        /** Registers a listener that is notified when this future completes. If this future has already completed,
+         * the listener is notified immediately in the calling thread; otherwise it is notified in the thread that completes this future.
+         * @return this future, for method chaining */
+        public CommandFuture<T> whenComplete(ICompletionListener<? super T> listener) {
+            Assert.notNull(listener, "listener");
+            synchronized (this) {
+                if (listeners != null) { listeners.add(listener); return this; }
+            }
+            inform(listener);
+            return this;
+        }
+        /** Fails this future with a {@code CancellationException} if it was not completed yet.
+         * This does not interrupt the command that would complete this future. */
+        public boolean cancel(boolean mayInterruptIfRunning) { return fail(new CancellationException()); }
+        public synchronized boolean isCancelled() { return failure instanceof CancellationException; }
+        public synchronized boolean isDone() { return listeners == null; }
+        public T get() throws InterruptedException, java.util.concurrent.ExecutionException {
+            latch.await();
+            return outcome();
+        }
+        public T get(long timeout, TimeUnit unit) throws InterruptedException, java.util.concurrent.ExecutionException, TimeoutException {
+            if (!latch.await(timeout, unit)) { throw new TimeoutException(); }
+            return outcome();
+        }
+        private synchronized T outcome() throws java.util.concurrent.ExecutionException {
+            if (failure instanceof CancellationException) { throw (CancellationException) failure; }
+            if (failure != null) { throw new java.util.concurrent.ExecutionException(failure); }
+            return result;
+        }
+
+        /** Returns a future that completes with a list containing the value of the specified result of the specified command.
+         * A {@code Future} result that is not done yet is waited for by the specified executor, or by a new daemon thread if the executor is {@code null}. */
+        static CommandFuture<List<Object>> forResult(final CommandLine parsed, final Object value, Executor executor) {
+            final CommandFuture<List<Object>> future = new CommandFuture<List<Object>>();
+            final ICompletionListener<Object> listener = new ICompletionListener<Object>() {
+                public void completed(Object result) {
+                    List<Object> list = new ArrayList<Object>(1);
+                    list.add(result);
+                    future.complete(list);
+                }
+                public void failed(Throwable failure) {
+                    if (failure instanceof ParameterException || failure instanceof ExecutionException) {
+                        future.fail(failure);
+                    } else {
+                        future.fail(new ExecutionException(parsed, "Error while calling command (" + parsed.getCommand() + "): " + failure, failure));
+                    }
+                }
+            };
+            if (value instanceof CommandFuture) {
+                @SuppressWarnings("unchecked") CommandFuture<Object> commandFuture = (CommandFuture<Object>) value;
+                commandFuture.whenComplete(listener);
+            } else if (!whenStageComplete(value, listener)) {
+                if (value instanceof Future && !((Future<?>) value).isDone()) {
+                    Runnable waiter = new Runnable() {
+                        public void run() { await((Future<?>) value, listener); }
+                    };
+                    if (executor != null) {
+                        executor.execute(waiter);
+                    } else {
+                        Thread thread = new Thread(waiter, "picocli-await-" + parsed.getCommandName());
+                        thread.setDaemon(true);
+                        thread.start();
+                    }
+                } else if (value instanceof Future) {
+                    await((Future<?>) value, listener);
+                } else {
+                    listener.completed(value);
+                }
+            }
+            return future;
+        }
+        private static void await(Future<?> future, ICompletionListener<Object> listener) {
+            Object value;
+            try {
+                value = future.get();
+            } catch (java.util.concurrent.ExecutionException ex) {
+                listener.failed(ex.getCause() == null ? ex : ex.getCause());
+                return;
+            } catch (InterruptedException ex) {
+                listener.failed(ex);
+                return;
+            } catch (RuntimeException ex) { // CancellationException
+                listener.failed(ex);
+                return;
+            }
+            listener.completed(value);
+        }
+        /** If the specified value is a {@code java.util.concurrent.CompletionStage}, registers the specified listener
+         * with its {@code whenComplete} method and returns {@code true}. Uses reflection because this API requires Java 8. */
+        private static boolean whenStageComplete(Object value, final ICompletionListener<Object> listener) {
+            if (value == null) { return false; }
+            try {
+                Class<?> stage = Class.forName("java.util.concurrent.CompletionStage");
+                if (!stage.isInstance(value)) { return false; }
+                Class<?> biConsumer = Class.forName("java.util.function.BiConsumer");
+                Object action = Proxy.newProxyInstance(CommandLine.class.getClassLoader(), new Class<?>[] {biConsumer}, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if ("accept".equals(method.getName())) {
+                            Throwable failure = (Throwable) args[1];
+                            if (failure == null) {
+                                listener.completed(args[0]);
+                            } else {
+                                boolean wrapped = failure.getClass().getName().equals("java.util.concurrent.CompletionException") && failure.getCause() != null;
+                                listener.failed(wrapped ? failure.getCause() : failure);
+                            }
+                            return null;
+                        }
+                        if ("equals".equals(method.getName())) { return proxy == args[0]; }
+                        if ("hashCode".equals(method.getName())) { return System.identityHashCode(proxy); }
+                        return "CompletionListener[" + listener + "]";
+                    }
+                });
+                stage.getMethod("whenComplete", biConsumer).invoke(value, action);
+                return true;
+            } catch (ClassNotFoundException ex) {
+                return false; // Java 7 or older
+            } catch (Exception ex) {
+                throw new IllegalStateException("Could not register completion action with " + value, ex);
+            }
+        }
+    }
+    /** A {@code Future} for a command that was executed in the calling thread. */
+    private static final class CompletedFuture implements Future<List<Object>> {
+        private final List<Object> result;
+        CompletedFuture(List<Object> result) { this.result = result; }
+        public boolean cancel(boolean mayInterruptIfRunning) { return false; }
+        public boolean isCancelled() { return false; }
+        public boolean isDone() { return true; }
+        public List<Object> get() { return result; }
+        public List<Object> get(long timeout, TimeUnit unit) { return result; }
+    }
+
     /** @deprecated use {@link #parseWithHandler(IParseResultHandler2,  String[])} instead
      * @since 2.0 */
     @Deprecated public List<Object> parseWithHandler(IParseResultHandler handler, PrintStream out, String... args) {
@@ -1529,6 +2041,220 @@ public class CommandLine {
             return exceptionHandler.handleExecutionException(ex, parseResult);
         }
     }
+
+    /**
+     * Delegates to {@link #executeAsync(IParseResultHandler2, IExceptionHandler2, String...)} with
+     * a {@link RunLastAsync} handler and a {@link DefaultExceptionHandler}.
+     * @param args the command line arguments
+     * @return a future that completes with the result of the command
+     * @since 4.0 */
+    public CommandFuture<List<Object>> executeAsync(String... args) {
+        return executeAsync(new RunLastAsync(), new DefaultExceptionHandler<List<Object>>(), args);
+    }
+    /**
+     * Parses the specified command line arguments and lets the specified handler start executing the command,
+     * without waiting for commands that return a {@code CompletionStage} or a {@link CommandFuture} to complete.
+     * This is useful for applications that execute commands in threads that must not block, like event loop threads.
+     * <p>
+     * This method is the asynchronous equivalent of {@link #parseWithHandlers(IParseResultHandler2, IExceptionHandler2, String...) parseWithHandlers}:
+     * if the arguments are invalid, or if the command fails before or after returning a future, the exception is passed to
+     * the specified exception handler, and the returned future completes with the value returned by the exception handler,
+     * or fails with the exception thrown by the exception handler. This method does not throw exceptions.
+     * </p>
+     * @param handler the handler that executes the command, usually a {@link RunLastAsync}
+     * @param exceptionHandler the handler for invalid input and for commands that failed
+     * @param args the command line arguments
+     * @return a future that completes with the result of the command, or with the value returned by the exception handler
+     * @see RunLastAsync
+     * @since 4.0 */
+    public CommandFuture<List<Object>> executeAsync(IParseResultHandler2<CommandFuture<List<Object>>> handler,
+                                                    final IExceptionHandler2<List<Object>> exceptionHandler, final String... args) {
+        final CommandFuture<List<Object>> result = new CommandFuture<List<Object>>();
+        final ParseResult parseResult;
+        try {
+            parseResult = parseArgs(args);
+        } catch (ParameterException ex) {
+            handleAsyncFailure(exceptionHandler, ex, null, args, result);
+            return result;
+        }
+        CommandFuture<List<Object>> execution;
+        try {
+            execution = handler.handleParseResult(parseResult);
+        } catch (RuntimeException ex) {
+            handleAsyncFailure(exceptionHandler, ex, parseResult, args, result);
+            return result;
+        }
+        if (execution == null) { execution = CommandFuture.completed(null); }
+        execution.whenComplete(new ICompletionListener<List<Object>>() {
+            public void completed(List<Object> value) { result.complete(value); }
+            public void failed(Throwable failure) { handleAsyncFailure(exceptionHandler, failure, parseResult, args, result); }
+        });
+        return result;
+    }
+    private static void handleAsyncFailure(IExceptionHandler2<List<Object>> exceptionHandler, Throwable failure, ParseResult parseResult,
+                                           String[] args, CommandFuture<List<Object>> result) {
+        try {
+            if (failure instanceof ParameterException) {
+                result.complete(exceptionHandler.handleParseException((ParameterException) failure, args));
+            } else if (failure instanceof ExecutionException) {
+                result.complete(exceptionHandler.handleExecutionException((ExecutionException) failure, parseResult));
+            } else {
+                result.fail(failure);
+            }
+        } catch (RuntimeException ex) {
+            result.fail(ex);
+        }
+    }
+
+    /**
+     * Executes each line of the specified input as a separate command line, and returns the exit code of each line.
+     * This allows many command lines to be executed in a single JVM, without paying the start-up cost for each of them.
+     * <p>
+     * Lines are split into arguments with the same rules as {@linkplain #isExpandAtFiles() @-files}: arguments are
+     * separated by whitespace, may be enclosed in single or double quotes, and text following the
+     * {@linkplain #getAtFileCommentChar() comment character} is ignored. Each command line is executed
+     * with {@link RunLast} and a {@link DefaultExceptionHandler} that print to the specified streams, and a problem on
+     * one line does not prevent the following lines from being executed. The exit code of a line is:
+     * </p><ul>
+     *   <li>the value returned by the command, if the command is a {@code Callable} that returned an {@code Integer}</li>
+     *   <li>{@code 0} if the command completed, if usage help or version help was requested, or if the line has no arguments</li>
+     *   <li>{@code 1} if the command threw an exception; the stack trace is printed to the {@code err} stream</li>
+     *   <li>{@code 2} if the command line arguments were invalid</li>
+     * </ul><p>
+     * When {@code threads} is one, all lines are executed with this {@code CommandLine} in the calling thread, and the
+     * options and positional parameters are reset to their initial values before each line.
+     * When {@code threads} is more than one, up to that many lines are executed concurrently on a fixed thread pool
+     * that is shut down when the batch completes. Each thread executes its lines with its own copy of this command, and
+     * this {@code CommandLine} itself is not used: copies are created from the annotated class of the command with the
+     * {@linkplain IFactory factory} of this {@code CommandLine}, and have the same parser configuration, usage help
+     * configuration, type converters and subcommands. This requires that the factory can instantiate the class of the
+     * command and of each subcommand, and that no options or positional parameters were added programmatically; this is
+     * checked before any line is executed. Only use this when the command objects do not share any state. The output of
+     * lines that are executed concurrently may be interleaved.
+     * </p>
+     * @param input the command lines to execute; this reader is not closed
+     * @param out the stream to print command output and usage help to
+     * @param err the stream to print diagnostic messages to
+     * @param ansi whether the usage help and error messages should use ANSI styles and colors
+     * @param threads the maximum number of lines to execute concurrently; {@code 1} executes all lines with this {@code CommandLine} in the calling thread
+     * @return the exit code of each line of the input, in input order
+     * @throws IOException if the input could not be read, or if the calling thread was interrupted while waiting for the lines to complete
+     * @throws IllegalArgumentException if {@code threads} is less than one
+     * @throws InitializationException if {@code threads} is more than one and this command cannot be copied
+     * @see BatchCommand
+     * @since 4.0 */
+    public List<Integer> executeBatch(Reader input, PrintStream out, PrintStream err, Help.Ansi ansi, int threads) throws IOException {
+        if (threads < 1) { throw new IllegalArgumentException("threads must be at least 1 but was " + threads); }
+        final BatchInput batch = new BatchInput(input, getCommandSpec().parser().atFileCommentChar());
+        if (threads == 1) {
+            executeBatch(this, batch, out, err, ansi);
+        } else {
+            List<Callable<Void>> workers = new ArrayList<Callable<Void>>(threads);
+            for (int i = 0; i < threads; i++) {
+                final CommandLine commandLine = batchCopy(this); // every worker has its own instance; this one is not used
+                final PrintStream stdout = out, stderr = err;
+                final Help.Ansi style = ansi;
+                workers.add(new Callable<Void>() {
+                    public Void call() { executeBatch(commandLine, batch, stdout, stderr, style); return null; }
+                });
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new BatchThreadFactory());
+            try {
+                for (Future<Void> future : executor.invokeAll(workers)) { future.get(); }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while executing batch");
+            } catch (java.util.concurrent.ExecutionException ex) {
+                throw RunAllConcurrently.unwrap(this, ex.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return batch.exitCodes();
+    }
+    /** Names the threads that execute the lines of a batch. */
+    private static final class BatchThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate = Executors.defaultThreadFactory();
+        private final AtomicInteger count = new AtomicInteger();
+        public Thread newThread(Runnable runnable) {
+            Thread result = delegate.newThread(runnable);
+            result.setName("picocli-batch-" + count.getAndIncrement());
+            return result;
+        }
+    }
+    private static void executeBatch(CommandLine commandLine, BatchInput batch, PrintStream out, PrintStream err, Help.Ansi ansi) {
+        List<String> args = new ArrayList<String>();
+        int line;
+        while ((line = batch.next(args)) >= 0) {
+            if (!args.isEmpty()) { batch.exitCode(line, executeBatchLine(commandLine, args.toArray(new String[0]), out, err, ansi)); }
+        }
+    }
+    private static int executeBatchLine(CommandLine commandLine, String[] args, PrintStream out, final PrintStream err, Help.Ansi ansi) {
+        final int[] exitCode = new int[1];
+        DefaultExceptionHandler<List<Object>> exceptionHandler = new DefaultExceptionHandler<List<Object>>() {
+            @Override public List<Object> handleParseException(ParameterException ex, String[] args) {
+                exitCode[0] = 2;
+                return super.handleParseException(ex, args);
+            }
+            @Override public List<Object> handleExecutionException(ExecutionException ex, ParseResult parseResult) {
+                exitCode[0] = 1;
+                (ex.getCause() == null ? ex : ex.getCause()).printStackTrace(err);
+                return null;
+            }
+        };
+        try {
+            List<Object> result = commandLine.parseWithHandlers(new RunLast().useOut(out).useErr(err).useAnsi(ansi),
+                    exceptionHandler.useErr(err).useAnsi(ansi), args);
+            if (exitCode[0] == 0 && result != null && !result.isEmpty() && result.get(result.size() - 1) instanceof Integer) {
+                return (Integer) result.get(result.size() - 1);
+            }
+            return exitCode[0];
+        } catch (RuntimeException ex) {
+            ex.printStackTrace(err);
+            return 1;
+        }
+    }
+    /** Returns a copy of the specified command for executing batch lines in another thread.
+     * @throws InitializationException if the command was not created from an annotated class, if the factory cannot
+     *          instantiate that class, or if options or positional parameters were added programmatically */
+    private static CommandLine batchCopy(CommandLine original) {
+        Object userObject = original.getCommandSpec().userObject();
+        String prefix = "Cannot copy command '" + original.getCommandName() + "' to execute a batch with multiple threads: ";
+        if (userObject == null || userObject instanceof CommandSpec) {
+            throw new InitializationException(prefix + "it was not created from an annotated class");
+        }
+        CommandLine result;
+        try {
+            result = new CommandLine(userObject instanceof Method ? userObject : userObject.getClass(), original.factory);
+        } catch (InitializationException ex) {
+            throw new InitializationException(prefix + ex.getMessage(), ex);
+        }
+        if (result.getCommandSpec().options().size() != original.getCommandSpec().options().size()
+                || result.getCommandSpec().positionalParameters().size() != original.getCommandSpec().positionalParameters().size()) {
+            throw new InitializationException(prefix + "options or positional parameters were added programmatically");
+        }
+        result.metricsListener = original.metricsListener;
+        copyBatchConfiguration(original, result);
+        return result;
+    }
+    private static void copyBatchConfiguration(CommandLine original, CommandLine copy) {
+        copy.getCommandSpec().parser().initFrom(original.getCommandSpec().parser());
+        copy.getCommandSpec().usageMessage().initFrom(original.getCommandSpec().usageMessage(), copy.getCommandSpec());
+        original.interpreter.converterRegistryShared = true; // copy-on-write from now on: the copy reads this map from another thread
+        copy.interpreter.converterRegistry = original.interpreter.converterRegistry;
+        copy.interpreter.converterRegistryShared = true;
+        Map<String, CommandLine> copies = copy.getCommandSpec().subcommands();
+        Map<CommandLine, Boolean> done = new IdentityHashMap<CommandLine, Boolean>(); // subcommands are mapped by name and by alias
+        for (Map.Entry<String, CommandLine> entry : original.getCommandSpec().subcommands().entrySet()) {
+            if (done.put(entry.getValue(), Boolean.TRUE) != null) { continue; }
+            CommandLine sub = copies.get(entry.getKey());
+            if (sub == null) { // added programmatically
+                copy.addSubcommand(entry.getKey(), batchCopy(entry.getValue()), entry.getValue().getCommandSpec().aliases());
+            } else {
+                copyBatchConfiguration(entry.getValue(), sub);
+            }
+        }
+    }
     static String versionString() {
         return String.format("%s, JVM: %s (%s %s %s), OS: %s %s %s", VERSION,
                 System.getProperty("java.version"), System.getProperty("java.vendor"), System.getProperty("java.vm.name"), System.getProperty("java.vm.version"),
@@ -1598,13 +2324,13 @@ public class CommandLine {
      * <pre>
      * Help.ColorScheme colorScheme = Help.defaultColorScheme(Help.Ansi.AUTO);
      * Help help = getHelpFactory().create(getCommandSpec(), colorScheme)
-     * StringBuilder sb = new StringBuilder();
      * for (String key : getHelpSectionKeys()) {
      *     IHelpSectionRenderer renderer = getHelpSectionMap().get(key);
-     *     if (renderer != null) { sb.append(renderer.render(help)); }
+     *     if (renderer != null) { out.print(renderer.render(help)); }
      * }
-     * out.print(sb);
      * </pre>
+     * <p>Sections with an {@linkplain IStreamingHelpSectionRenderer streaming renderer} are written to the stream
+     * while they are being rendered.</p>
      * <p>Annotate your class with {@link Command} to control many aspects of the usage help message, including
      * the program name, text of section headings and section contents, and some aspects of the auto-generated sections
      * of the usage help message.
@@ -1612,40 +2338,125 @@ public class CommandLine {
      * instantiate a {@link Help} object and use a {@link Help.TextTable} with more of fewer columns, a custom
      * {@linkplain Help.Layout layout}, and/or a custom option {@linkplain Help.IOptionRenderer renderer}
      * for ultimate control over which aspects of an Option or Field are displayed where.</p>
+     * <p>Sections rendered by the predefined section renderers are cached per usage help width, color scheme and
+     * default locale, and are rendered again when the command is modified. Commands with a custom help factory or
+     * a default value provider are rendered every time.</p>
      * @param out the {@code PrintStream} to print the usage help message to
      * @param colorScheme the {@code ColorScheme} defining the styles for options, parameters and commands when ANSI is enabled
      * @see UsageMessageSpec
      */
     public void usage(PrintStream out, Help.ColorScheme colorScheme) {
-        out.print(usage(new StringBuilder(), getHelpFactory().create(getCommandSpec(), colorScheme)));
+        printUsage(out, colorScheme);
     }
     /** Similar to {@link #usage(PrintStream, Help.ColorScheme)}, but with the specified {@code PrintWriter} instead of a {@code PrintStream}.
      * @since 3.0 */
     public void usage(PrintWriter writer, Help.ColorScheme colorScheme) {
-        writer.print(usage(new StringBuilder(), getHelpFactory().create(getCommandSpec(), colorScheme)));
+        printUsage(writer, colorScheme);
+    }
+    /** Similar to {@link #usage(PrintStream, Help.ColorScheme)}, but writes the usage help message to the specified {@code Appendable}.
+     * Sections are written as they are rendered: sections with an {@linkplain IStreamingHelpSectionRenderer streaming renderer},
+     * like the option list, are written while they are being laid out, without first building the text of the whole
+     * section or usage help message.
+     * @param out the {@code Appendable} to write the usage help message to
+     * @param colorScheme the {@code ColorScheme} defining the styles for options, parameters and commands when ANSI is enabled
+     * @throws IOException if an I/O error occurs while writing
+     * @since 4.0 */
+    public void usage(Appendable out, Help.ColorScheme colorScheme) throws IOException {
+        Map<IHelpSectionRenderer, String> renderedSections = renderedSections(colorScheme);
+        Help help = null;
+        for (String key : getHelpSectionKeys()) {
+            IHelpSectionRenderer renderer = getHelpSectionMap().get(key);
+            if (renderer == null) { continue; }
+            String section = renderedSections == null ? null : renderedSections.get(renderer);
+            if (section != null) { out.append(section); continue; }
+
+            if (help == null) { help = getHelpFactory().create(getCommandSpec(), colorScheme); }
+            boolean cacheable = renderedSections != null && UsageMessageSpec.isDefaultSectionRenderer(renderer);
+            // the predefined renderers only stream the sections of Help; subclasses may override the methods that render them
+            boolean streaming = renderer instanceof IStreamingHelpSectionRenderer
+                    && (help.getClass() == Help.class || !UsageMessageSpec.isDefaultSectionRenderer(renderer));
+            if (streaming) {
+                StringBuilder copy = cacheable ? new StringBuilder() : null;
+                ((IStreamingHelpSectionRenderer) renderer).render(help, cacheable ? new TeeAppendable(out, copy) : out);
+                if (cacheable) { renderedSections.put(renderer, copy.toString()); }
+            } else {
+                section = renderer.render(help);
+                if (cacheable && section != null) { renderedSections.put(renderer, section); }
+                out.append(section);
+            }
+        }
+    }
+    private String usageMessage(Help.ColorScheme colorScheme) {
+        StringBuilder sb = new StringBuilder();
+        printUsage(sb, colorScheme);
+        return sb.toString();
+    }
+    private void printUsage(Appendable out, Help.ColorScheme colorScheme) {
+        try {
+            usage(out, colorScheme);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex); // PrintStream, PrintWriter and StringBuilder do not throw IOException
+        }
+    }
+    /** Writes everything that is appended to both the specified destination and a copy. */
+    private static class TeeAppendable implements Appendable {
+        private final Appendable out;
+        private final StringBuilder copy;
+        TeeAppendable(Appendable out, StringBuilder copy) { this.out = out; this.copy = copy; }
+        public Appendable append(CharSequence csq) throws IOException { copy.append(csq); out.append(csq); return this; }
+        public Appendable append(CharSequence csq, int start, int end) throws IOException { copy.append(csq, start, end); out.append(csq, start, end); return this; }
+        public Appendable append(char c) throws IOException { copy.append(c); out.append(c); return this; }
     }
     /** Similar to {@link #usage(PrintStream)}, but returns the usage help message as a String instead of printing it to the {@code PrintStream}.
      * @since 3.2 */
     public String getUsageMessage() {
-        return usage(new StringBuilder(), getHelpFactory().create(getCommandSpec(), Help.defaultColorScheme(Help.Ansi.AUTO))).toString();
+        return usageMessage(Help.defaultColorScheme(Help.Ansi.AUTO));
     }
     /** Similar to {@link #usage(PrintStream, Help.Ansi)}, but returns the usage help message as a String instead of printing it to the {@code PrintStream}.
      * @since 3.2 */
     public String getUsageMessage(Help.Ansi ansi) {
-        return usage(new StringBuilder(), getHelpFactory().create(getCommandSpec(), Help.defaultColorScheme(ansi))).toString();
+        return usageMessage(Help.defaultColorScheme(ansi));
     }
     /** Similar to {@link #usage(PrintStream, Help.ColorScheme)}, but returns the usage help message as a String instead of printing it to the {@code PrintStream}.
      * @since 3.2 */
     public String getUsageMessage(Help.ColorScheme colorScheme) {
-        return usage(new StringBuilder(), getHelpFactory().create(getCommandSpec(), colorScheme)).toString();
+        return usageMessage(colorScheme);
     }
 
-    private StringBuilder usage(StringBuilder sb, Help help) {
-        for (String key : getHelpSectionKeys()) {
-            IHelpSectionRenderer renderer = getHelpSectionMap().get(key);
-            if (renderer != null) { sb.append(renderer.render(help)); }
+    /** Returns the cached usage help sections of this command for the specified color scheme, the usage help width,
+     * the default locale and the completion candidates shown in descriptions, or {@code null} if sections cannot be cached
+     * because a custom help factory or a default value provider may render a different message each time. */
+    private Map<IHelpSectionRenderer, String> renderedSections(Help.ColorScheme colorScheme) {
+        CommandSpec spec = getCommandSpec();
+        UsageMessageSpec usageMessage = spec.usageMessage();
+        if (usageMessage.helpFactory().getClass() != DefaultHelpFactory.class || spec.defaultValueProvider() != null) { return null; }
+        StringBuilder variant = new StringBuilder().append(usageMessage.width()).append('/').append(Locale.getDefault());
+        if (colorScheme.ansi().enabled()) {
+            colorScheme.applySystemProperties();
+            appendStyles(variant.append("/commands="), colorScheme.commandStyles);
+            appendStyles(variant.append("/options="), colorScheme.optionStyles);
+            appendStyles(variant.append("/parameters="), colorScheme.parameterStyles);
+            appendStyles(variant.append("/optionParams="), colorScheme.optionParamStyles);
+        }
+        appendCompletionCandidates(variant, spec);
+        return usageMessage.renderedSections(variant.toString(), spec.usageHelpRevision());
+    }
+    private static void appendStyles(StringBuilder sb, List<IStyle> styles) {
+        for (IStyle style : styles) { sb.append(style.on()); }
+    }
+    /** Appends the completion candidates that replace {@code ${COMPLETION-CANDIDATES}} in descriptions:
+     * a {@code completionCandidates} Iterable may return different candidates each time it is iterated. */
+    private static void appendCompletionCandidates(StringBuilder sb, CommandSpec spec) {
+        for (ArgSpec arg : spec.args()) {
+            if (arg.completionCandidates() == null) { continue; }
+            for (String line : arg.description()) {
+                if (line.contains(ArgSpec.DESCRIPTION_VARIABLE_COMPLETION_CANDIDATES)) {
+                    sb.append("/candidates=");
+                    for (String candidate : arg.completionCandidates()) { sb.append(candidate.length()).append(':').append(candidate); }
+                    break;
+                }
+            }
         }
-        return sb;
     }
 
     /**
@@ -2228,11 +3039,11 @@ public class CommandLine {
      * @return this CommandLine object, to allow method chaining
      * @see #addSubcommand(String, Object)
      */
-    public <K> CommandLine registerConverter(Class<K> cls, ITypeConverter<K> converter) {
-        interpreter.converterRegistry.put(Assert.notNull(cls, "class"), Assert.notNull(converter, "converter"));
-        for (CommandLine command : getCommandSpec().commands.values()) {
-            command.registerConverter(cls, converter);
-        }
+    public <K> CommandLine registerConverter(final Class<K> cls, final ITypeConverter<K> converter) {
+        interpreter.registerConverter(Assert.notNull(cls, "class"), Assert.notNull(converter, "converter"));
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.registerConverter(cls, converter); }
+        });
         return this;
     }
 
@@ -2250,11 +3061,11 @@ public class CommandLine {
      * @param separator the String that separates option names from option values
      * @see ParserSpec#separator(String)
      * @return this {@code CommandLine} object, to allow method chaining */
-    public CommandLine setSeparator(String separator) {
+    public CommandLine setSeparator(final String separator) {
         getCommandSpec().parser().separator(Assert.notNull(separator, "separator"));
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setSeparator(separator);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setSeparator(separator); }
+        });
         return this;
     }
 
@@ -2274,11 +3085,11 @@ public class CommandLine {
      * @see Command#resourceBundle()
      * @see CommandSpec#resourceBundle(ResourceBundle)
      * @since 3.6 */
-    public CommandLine setResourceBundle(ResourceBundle bundle) {
+    public CommandLine setResourceBundle(final ResourceBundle bundle) {
         getCommandSpec().resourceBundle(bundle);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.getCommandSpec().resourceBundle(bundle);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.getCommandSpec().resourceBundle(bundle); }
+        });
         return this;
     }
 
@@ -2294,11 +3105,11 @@ public class CommandLine {
      * @param width the maximum width of the usage help message
      * @see UsageMessageSpec#width(int)
      * @return this {@code CommandLine} object, to allow method chaining */
-    public CommandLine setUsageHelpWidth(int width) {
+    public CommandLine setUsageHelpWidth(final int width) {
         getCommandSpec().usageMessage().width(width);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setUsageHelpWidth(width);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setUsageHelpWidth(width); }
+        });
         return this;
     }
 
@@ -2350,11 +3161,32 @@ public class CommandLine {
      * @param atFileCommentChar the character that starts a single-line comment or {@code null}. The default is {@code '#'}.
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.5 */
-    public CommandLine setAtFileCommentChar(Character atFileCommentChar) {
+    public CommandLine setAtFileCommentChar(final Character atFileCommentChar) {
         getCommandSpec().parser().atFileCommentChar(atFileCommentChar);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setAtFileCommentChar(atFileCommentChar);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setAtFileCommentChar(atFileCommentChar); }
+        });
+        return this;
+    }
+
+    /** Returns the character encoding of argument files. The default is the {@linkplain Charset#defaultCharset() platform default} charset.
+     * @return the charset used to decode argument files
+     * @since 4.0 */
+    public Charset getAtFileCharset() { return getCommandSpec().parser().atFileCharset(); }
+
+    /** Sets the character encoding of argument files.
+     * <p>The specified setting will be registered with this {@code CommandLine} and the full hierarchy of its
+     * subcommands and nested sub-subcommands <em>at the moment this method is called</em>. Subcommands added
+     * later will have the default setting. To ensure a setting is applied to all
+     * subcommands, call the setter last, after adding subcommands.</p>
+     * @param atFileCharset the charset used to decode argument files, or {@code null} to use the platform default charset
+     * @return this {@code CommandLine} object, to allow method chaining
+     * @since 4.0 */
+    public CommandLine setAtFileCharset(final Charset atFileCharset) {
+        getCommandSpec().parser().atFileCharset(atFileCharset);
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setAtFileCharset(atFileCharset); }
+        });
         return this;
     }
 
@@ -2373,11 +3205,11 @@ public class CommandLine {
      * @param simplifiedAtFiles whether to use a simplified argument file format. The default is {@code false}.
      * @return this {@code CommandLine} object, to allow method chaining
      * @since 3.9 */
-    public CommandLine setUseSimplifiedAtFiles(boolean simplifiedAtFiles) {
+    public CommandLine setUseSimplifiedAtFiles(final boolean simplifiedAtFiles) {
         getCommandSpec().parser().useSimplifiedAtFiles(simplifiedAtFiles);
-        for (CommandLine command : getCommandSpec().subcommands().values()) {
-            command.setUseSimplifiedAtFiles(simplifiedAtFiles);
-        }
+        getCommandSpec().commands.configure(new ISubcommandConfigurer() {
+            public void configure(CommandLine command) { command.setUseSimplifiedAtFiles(simplifiedAtFiles); }
+        });
         return this;
     }
     private static boolean empty(String str) { return str == null || str.trim().length() == 0; }
@@ -2385,7 +3217,12 @@ public class CommandLine {
     private static String str(String[] arr, int i) { return (arr == null || arr.length <= i) ? "" : arr[i]; }
     private static boolean isBoolean(Class<?> type) { return type == Boolean.class || type == Boolean.TYPE; }
     private static CommandLine toCommandLine(Object obj, IFactory factory) { return obj instanceof CommandLine ? (CommandLine) obj : new CommandLine(obj, factory);}
-    private static boolean isMultiValue(Class<?> cls) { return cls.isArray() || Collection.class.isAssignableFrom(cls) || Map.class.isAssignableFrom(cls); }
+    private static CommandLine toCommandLine(Object obj, IFactory factory, boolean lazySubcommands) { return obj instanceof CommandLine ? (CommandLine) obj : new CommandLine(obj, factory, lazySubcommands);}
+    /** Applies a setting to a subcommand. Used to apply settings to lazily instantiated subcommands when they are instantiated. */
+    private interface ISubcommandConfigurer { void configure(CommandLine subcommand); }
+    private static boolean isMultiValue(Class<?> cls) { return cls.isArray() || Collection.class.isAssignableFrom(cls) || Map.class.isAssignableFrom(cls) || isLazy(cls); }
+    /** Returns whether values are bound lazily to an option or positional parameter of the specified type. */
+    private static boolean isLazy(Class<?> cls) { return cls == Iterator.class || cls == Iterable.class || "java.util.stream.Stream".equals(cls.getName()); }
     private static String format(String formatString, Object... params) {
         try {
             return formatString == null ? "" : String.format(formatString, params);
@@ -3141,6 +3978,21 @@ public class CommandLine {
          * @since 3.6.0 */
         boolean addMethodSubcommands() default true;
 
+        /** Specify whether the classes listed in {@link #subcommands()} should be instantiated lazily.
+         * The default is {@code false}: all subcommands in the hierarchy are instantiated when the top-level
+         * {@code CommandLine} is constructed.
+         * <p>When {@code true}, a placeholder is registered for each subcommand class, using the {@code name} and {@code aliases}
+         * from the subcommand's {@code @Command} annotation. The subcommand class is instantiated and inspected only when the parser
+         * matches its name on the command line, or when its {@code CommandLine} is obtained from the subcommand map by
+         * other means (for example, when the usage help message or a completion script is generated).
+         * Subcommands of a lazily instantiated subcommand are also instantiated lazily.</p>
+         * <p>Settings applied with the {@code CommandLine} setters (like {@link CommandLine#setSeparator(String)}) are
+         * recorded and applied to lazily instantiated subcommands when they are instantiated.</p>
+         * @return whether subcommands declared with the {@code subcommands} attribute should be instantiated on demand
+         * @see CommandSpec#isLazySubcommands()
+         * @since 4.0 */
+        boolean lazySubcommands() default false;
+
         /** String that separates options from option parameters. Default is {@code "="}. Spaces are also accepted.
          * @return the string that separates options from option parameters, used both when parsing and when generating usage help
          * @see CommandLine#setSeparator(String) */
@@ -3185,6 +4037,15 @@ public class CommandLine {
          * @since 3.0 */
         boolean helpCommand() default false;
 
+        /** Set this attribute to {@code true} if this command does not depend on the effects of its parent command or its
+         * subcommands, and the other commands do not depend on the effects of this command. The {@link RunAllConcurrently}
+         * handler executes independent commands on an {@code ExecutorService}, at the same time as the other commands
+         * on the command line. Other handlers ignore this attribute.
+         * @return whether this command can be executed at the same time as its parent command and subcommands
+         * @see CommandSpec#independent()
+         * @since 4.0 */
+        boolean independent() default false;
+
         /** Set the heading preceding the header section.
          * <p>May contain embedded {@linkplain java.util.Formatter format specifiers} like {@code %n} line separators. Literal percent {@code '%'} characters must be escaped with another {@code %}.</p>
          * @return the heading preceding the header section
@@ -3530,6 +4391,115 @@ public class CommandLine {
          */
         <K> K create(Class<K> cls) throws Exception;
     }
+    /**
+     * Builds the {@link Model.CommandSpec CommandSpec} for a command object without inspecting its annotations at runtime.
+     * <p>
+     * Implementations are normally generated at compile time by the annotation processor in the {@code picocli-codegen}
+     * module. When a {@code CommandLine} is constructed for an instance of class {@code com.example.App} (or
+     * {@code com.example.Outer$App}), picocli first looks for a class named {@code com.example.App_CommandSpecFactory}
+     * (or {@code com.example.Outer_App_CommandSpecFactory}) implementing this interface. If such a class is found,
+     * it is used to build the model; otherwise picocli falls back to reflection.
+     * </p><p>
+     * Generated factories set and get the annotated fields directly, so no {@code setAccessible} calls are needed,
+     * and GraalVM native images only need the factory classes to be registered for instantiation, instead of
+     * all annotated fields of the command classes.
+     * </p>
+     * @see Model.CommandSpec#wrapWithoutInspection(Object)
+     * @since 4.0 */
+    public interface ICommandSpecFactory {
+        /**
+         * Returns a new {@code CommandSpec} for the specified command object.
+         * @param command the user object annotated with {@code @Command}
+         * @param factory the factory to use for instantiating subcommands and other declared classes
+         * @return the {@code CommandSpec} for the specified command
+         * @throws Exception an exception detailing what went wrong when building the model
+         */
+        Model.CommandSpec create(Object command, IFactory factory) throws Exception;
+    }
+    /**
+     * Listener that is notified of the time picocli spends in each phase of constructing, parsing and executing a command.
+     * Register a listener with {@link CommandLine#setMetricsListener(IMetricsListener)}.
+     * <p>
+     * Parse phases are reported once per command or subcommand that was matched on the command line,
+     * after the phase completed. The reported times are exclusive: for example, the time spent converting option
+     * parameters is reported in the {@link Phase#TYPE_CONVERSION TYPE_CONVERSION} phase and is not included in the
+     * {@link Phase#ARGUMENT_PROCESSING ARGUMENT_PROCESSING} or {@link Phase#DEFAULT_VALUES DEFAULT_VALUES} phases,
+     * and the time spent parsing a subcommand is not included in the phases of its parent command.
+     * </p>
+     * @see JsonLinesMetricsListener
+     * @since 4.0 */
+    public interface IMetricsListener {
+        /** The phases for which picocli reports metrics. */
+        enum Phase {
+            /** Building the {@code CommandSpec} model for the command and its subcommands, including annotation scanning.
+             * Reported once, when a {@code CommandLine} instance parses its first command line.
+             * The count is the number of options and positional parameters of the top-level command. */
+            SPEC_CONSTRUCTION,
+            /** Expanding {@code @}-files. The count is the number of arguments after expansion. */
+            AT_FILE_EXPANSION,
+            /** Applying default values. The count is the number of options and positional parameters that received a default value. */
+            DEFAULT_VALUES,
+            /** Matching command line arguments to options, positional parameters and subcommands.
+             * The count is the number of arguments consumed by the command. */
+            ARGUMENT_PROCESSING,
+            /** Converting String values to the type of the option or positional parameter, including default values.
+             * The count is the number of values converted. */
+            TYPE_CONVERSION,
+            /** Verifying that required options and positional parameters were matched, and validating argument groups.
+             * The count is the number of required arguments and argument groups that were checked. */
+            VALIDATION,
+            /** Running the user object of a command with one of the built-in {@linkplain IParseResultHandler2 handlers}.
+             * The count is always 1. */
+            EXECUTION
+        }
+
+        /** Called when picocli completed the specified phase for the specified command.
+         * @param phase the completed phase
+         * @param command the command or subcommand the phase applied to
+         * @param elapsedNanos the time spent in this phase, in nanoseconds
+         * @param count the number of items processed in this phase; see the {@link Phase} constants for details */
+        void phaseCompleted(Phase phase, CommandSpec command, long elapsedNanos, int count);
+    }
+
+    /**
+     * Metrics listener that prints one JSON object per completed phase to the specified stream, in
+     * <a href="http://jsonlines.org/">JSON Lines</a> format. For example:
+     * <pre>
+     * {"command":"git commit","phase":"ARGUMENT_PROCESSING","nanos":84213,"count":3}
+     * </pre>
+     * @since 4.0 */
+    public static class JsonLinesMetricsListener implements IMetricsListener {
+        private final PrintStream out;
+
+        /** Constructs a {@code JsonLinesMetricsListener} that prints to {@code System.err}. */
+        public JsonLinesMetricsListener() { this(System.err); }
+
+        /** Constructs a {@code JsonLinesMetricsListener} that prints to the specified stream.
+         * @param out the stream to print the metrics to */
+        public JsonLinesMetricsListener(PrintStream out) { this.out = Assert.notNull(out, "out"); }
+
+        public void phaseCompleted(Phase phase, CommandSpec command, long elapsedNanos, int count) {
+            StringBuilder sb = new StringBuilder(96).append("{\"command\":\"");
+            appendEscaped(sb, command.qualifiedName());
+            sb.append("\",\"phase\":\"").append(phase.name());
+            sb.append("\",\"nanos\":").append(elapsedNanos);
+            sb.append(",\"count\":").append(count).append('}');
+            out.println(sb);
+        }
+        private static void appendEscaped(StringBuilder sb, String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    sb.append('\\').append(c);
+                } else if (c < ' ') {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+    }
+
     /** Returns a default {@link IFactory} implementation. Package-protected for testing purposes. */
     static IFactory defaultFactory() { return new DefaultFactory(); }
     private static class DefaultFactory implements IFactory {
@@ -3760,7 +4730,321 @@ public class CommandLine {
             min = min == Integer.MAX_VALUE ? min : min + 1;
         }
     }
-    @SuppressWarnings("unchecked") private static Stack<String> copy(Stack<String> stack) { return (Stack<String>) stack.clone(); }
+    /** Index-based cursor over the command line arguments that remain to be processed. Values pushed back onto the
+     * cursor (like the option parameter of {@code --option=value}) are stored in the slot of the argument that was
+     * consumed last, so parsing does not copy or reverse the argument array. */
+    private static final class ArgumentCursor {
+        private String[] args;
+        private int position;
+        private int end;
+        private int shared; // slots at or above this index are shared with another cursor and must not be overwritten
+        ArgumentCursor(String... args) { this(args, 0, args.length, Integer.MAX_VALUE); }
+        private ArgumentCursor(String[] args, int position, int end, int shared) {
+            this.args = args;
+            this.position = position;
+            this.end = end;
+            this.shared = shared;
+        }
+        boolean isEmpty() { return position >= end; }
+        int size()        { return end - position; }
+        String peek() {
+            if (isEmpty()) { throw new NoSuchElementException(); }
+            return args[position];
+        }
+        String pop() {
+            String result = peek();
+            position++;
+            return result;
+        }
+        void push(String value) {
+            if (position > 0 && value.equals(args[position - 1])) { position--; return; } // pushing back what was popped
+            if (position == 0 || position - 1 >= shared) {
+                int headroom = Math.max(4, position);
+                String[] copy = new String[args.length + headroom];
+                System.arraycopy(args, 0, copy, headroom, args.length);
+                args = copy;
+                position += headroom;
+                end += headroom;
+                shared = Integer.MAX_VALUE;
+            }
+            args[--position] = value;
+        }
+        /** Returns a cursor over the same remaining arguments that can be consumed without affecting this cursor. */
+        ArgumentCursor copy() { return new ArgumentCursor(args, position, end, position); }
+        /** Hides all but the next {@code count} arguments; returns the number of hidden arguments for {@link #unlimit(int)}. */
+        int limit(int count) {
+            int hidden = Math.max(0, size() - count);
+            end -= hidden;
+            return hidden;
+        }
+        void unlimit(int hidden) { end += hidden; }
+        /** Returns the last {@code count} arguments that were popped; the caller must not have pushed anything since. */
+        void popped(int count, String[] target, int offset) { System.arraycopy(args, position - count, target, offset, count); }
+        public String toString() { return Arrays.asList(args).subList(position, end).toString(); }
+    }
+    /** Accumulates the values of an {@code int[]}, {@code long[]} or {@code double[]} option or positional parameter
+     * in a growable primitive array, so that numeric values are parsed without boxing. The typed values that are
+     * recorded in the {@code ParseResult} for each position are list views on this buffer that box on access. */
+    private static final class PrimitiveArrayBuilder {
+        private final Class<?> type;
+        private int[] ints;
+        private long[] longs;
+        private double[] doubles;
+        private int size;
+        private Slice open;
+
+        /** Returns whether values of the specified type can be accumulated without boxing. */
+        static boolean supports(Class<?> type) { return type == Integer.TYPE || type == Long.TYPE || type == Double.TYPE; }
+
+        /** Creates a builder that starts with the elements of the specified array, which may be {@code null}. */
+        PrimitiveArrayBuilder(Class<?> type, Object existing) {
+            this.type = type;
+            int length = existing == null ? 0 : Array.getLength(existing);
+            int capacity = Math.max(16, length * 2);
+            if (type == Integer.TYPE)   { ints = new int[capacity]; }
+            else if (type == Long.TYPE) { longs = new long[capacity]; }
+            else                        { doubles = new double[capacity]; }
+            if (length > 0) { System.arraycopy(existing, 0, array(), 0, length); }
+            size = length;
+        }
+        private Object array() { return ints != null ? ints : longs != null ? longs : doubles; }
+        int size() { return size; }
+
+        /** Parses the specified value and appends it to this buffer.
+         * @throws NumberFormatException if the value is not a valid number of the element type */
+        void add(String value) {
+            if (size == Array.getLength(array())) { grow(); }
+            if (ints != null)       { ints[size] = Integer.parseInt(value); }
+            else if (longs != null) { longs[size] = Long.parseLong(value); }
+            else                    { doubles[size] = Double.parseDouble(value); }
+            size++;
+            if (open != null) { open.end = size; }
+        }
+        /** Parses the specified value without appending it.
+         * @throws NumberFormatException if the value is not a valid number of the element type */
+        void check(String value) {
+            if (ints != null)       { Integer.parseInt(value); }
+            else if (longs != null) { Long.parseLong(value); }
+            else                    { Double.parseDouble(value); }
+        }
+        private void grow() {
+            int capacity = size * 2;
+            if (ints != null)       { int[] grown = new int[capacity];       System.arraycopy(ints, 0, grown, 0, size);    ints = grown; }
+            else if (longs != null) { long[] grown = new long[capacity];     System.arraycopy(longs, 0, grown, 0, size);   longs = grown; }
+            else                    { double[] grown = new double[capacity]; System.arraycopy(doubles, 0, grown, 0, size); doubles = grown; }
+        }
+        /** Returns the boxed value at the specified index. */
+        Object get(int index) {
+            if (ints != null)       { return ints[index]; }
+            else if (longs != null) { return longs[index]; }
+            else                    { return doubles[index]; }
+        }
+        /** Returns a view of the values that will be added until the next call to this method. */
+        List<Object> nextSlice() { return open = new Slice(size); }
+
+        /** Returns a new array of the element type with the values in this buffer. */
+        Object toArray() {
+            Object result = Array.newInstance(type, size);
+            System.arraycopy(array(), 0, result, 0, size);
+            return result;
+        }
+        private final class Slice extends AbstractList<Object> {
+            private final int start;
+            private int end;
+            Slice(int start) { this.start = this.end = start; }
+            public Object get(int index) {
+                if (index < 0 || index >= size()) { throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size()); }
+                return PrimitiveArrayBuilder.this.get(start + index);
+            }
+            public int size() { return end - start; }
+        }
+    }
+    /** A map that keeps at most the specified number of entries, and removes the least recently used entry when it is full. */
+    private static final class LruCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = -5960685343612223824L;
+        private final int maxSize;
+        LruCache(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+        @Override protected boolean removeEldestEntry(Map.Entry<K, V> eldest) { return size() > maxSize; }
+    }
+    /** Reads the arguments in an argument file. The file contents are decoded in small chunks with an explicit charset,
+     * and files of {@value #MAP_THRESHOLD} bytes or more are memory-mapped, so the file is never held in memory as a
+     * single String. Tokens are split with the same rules as a {@code StreamTokenizer} that has whitespace characters
+     * {@code 0 - ' '}, quote characters {@code '"'} and {@code '\''}, and the configured comment character. */
+    private static final class ArgumentFileReader {
+        static final int MAP_THRESHOLD = 1024 * 1024;
+        private static final int NONE = -2;
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder;
+        private final CharBuffer chars;
+        private final StringBuilder token = new StringBuilder();
+        private final int commentChar;
+        private boolean endOfInput;
+        private int peek = NONE;
+
+        ArgumentFileReader(File file, Charset charset, Character commentChar) throws IOException {
+            chars = CharBuffer.allocate(8192);
+            FileInputStream in = new FileInputStream(file);
+            try {
+                FileChannel channel = in.getChannel();
+                long size = channel.size();
+                if (size >= MAP_THRESHOLD) {
+                    bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size); // remains valid after the channel is closed
+                } else {
+                    bytes = ByteBuffer.allocate((int) size);
+                    while (bytes.hasRemaining() && channel.read(bytes) >= 0) { }
+                    bytes.flip();
+                }
+            } finally {
+                in.close();
+            }
+            decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+            chars.flip();
+            this.commentChar = commentChar == null ? -1 : commentChar.charValue();
+        }
+        /** Reads the arguments in the specified text, for example a single line of a {@linkplain CommandLine#executeBatch(Reader, PrintStream, PrintStream, Help.Ansi, int) batch}. */
+        ArgumentFileReader(CharSequence text, Character commentChar) {
+            bytes = null;
+            decoder = null;
+            chars = CharBuffer.wrap(text);
+            endOfInput = true;
+            this.commentChar = commentChar == null ? -1 : commentChar.charValue();
+        }
+        private int read() throws IOException {
+            if (peek != NONE) {
+                int result = peek;
+                peek = NONE;
+                return result;
+            }
+            while (!chars.hasRemaining()) {
+                if (endOfInput) { return -1; }
+                chars.clear();
+                CoderResult result = decoder.decode(bytes, chars, true);
+                if (result.isUnderflow()) {
+                    decoder.flush(chars);
+                    endOfInput = true;
+                } else if (result.isError()) {
+                    result.throwException();
+                }
+                chars.flip();
+            }
+            return chars.get();
+        }
+        private boolean isWhitespace(int c) { return c >= 0 && c <= ' ' && c != commentChar; }
+
+        /** Returns the next line without line terminator, or {@code null} at the end of the file. */
+        String nextLine() throws IOException {
+            int c = read();
+            if (c < 0) { return null; }
+            token.setLength(0);
+            for (; c >= 0 && c != '\n' && c != '\r'; c = read()) { token.append((char) c); }
+            if (c == '\r') {
+                int next = read();
+                if (next != '\n') { peek = next; }
+            }
+            return token.toString();
+        }
+
+        /** Returns the next word or quoted string, or {@code null} at the end of the file. */
+        String nextToken() throws IOException {
+            int c = read();
+            while (true) {
+                while (isWhitespace(c)) { c = read(); }
+                if (c < 0) { return null; }
+                if (c != commentChar) { break; }
+                while ((c = read()) != '\n' && c != '\r' && c >= 0) { } // skip comment
+            }
+            token.setLength(0);
+            if (c == '"' || c == '\'') {
+                int quote = c;
+                int d = read();
+                while (d >= 0 && d != quote && d != '\n' && d != '\r') {
+                    if (d == '\\') {
+                        c = read();
+                        int first = c; // allow \377, but not \477
+                        if (c >= '0' && c <= '7') {
+                            c = c - '0';
+                            int c2 = read();
+                            if ('0' <= c2 && c2 <= '7') {
+                                c = (c << 3) + (c2 - '0');
+                                c2 = read();
+                                if ('0' <= c2 && c2 <= '7' && first <= '3') {
+                                    c = (c << 3) + (c2 - '0');
+                                    d = read();
+                                } else {
+                                    d = c2;
+                                }
+                            } else {
+                                d = c2;
+                            }
+                        } else {
+                            switch (c) {
+                                case 'a': c = 0x7; break;
+                                case 'b': c = '\b'; break;
+                                case 'f': c = 0xC; break;
+                                case 'n': c = '\n'; break;
+                                case 'r': c = '\r'; break;
+                                case 't': c = '\t'; break;
+                                case 'v': c = 0xB; break;
+                                default: break;
+                            }
+                            d = read();
+                        }
+                    } else {
+                        c = d;
+                        d = read();
+                    }
+                    token.append((char) c);
+                }
+                if (d != quote) { peek = d; }
+                return token.toString();
+            }
+            do {
+                token.append((char) c);
+                c = read();
+            } while (c >= 0 && c != commentChar && c != '"' && c != '\'' && !isWhitespace(c));
+            peek = c;
+            return token.toString();
+        }
+    }
+    /** Reads the command lines of a {@linkplain CommandLine#executeBatch(Reader, PrintStream, PrintStream, Help.Ansi, int) batch}
+     * and collects their exit codes. Worker threads share a single instance. */
+    private static final class BatchInput {
+        private final BufferedReader reader;
+        private final Character commentChar;
+        private final List<Integer> exitCodes = new ArrayList<Integer>();
+        private IOException failure;
+
+        BatchInput(Reader input, Character commentChar) {
+            this.reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+            this.commentChar = commentChar;
+        }
+        /** Replaces the contents of the specified list with the arguments on the next line, and returns the index of
+         * that line, or {@code -1} if there are no more lines or the input could not be read. */
+        synchronized int next(List<String> args) {
+            if (failure != null) { return -1; }
+            try {
+                String line = reader.readLine();
+                if (line == null) { return -1; }
+                args.clear();
+                ArgumentFileReader tokenizer = new ArgumentFileReader(line, commentChar);
+                String token;
+                while ((token = tokenizer.nextToken()) != null) { args.add(token); }
+                exitCodes.add(0);
+                return exitCodes.size() - 1;
+            } catch (IOException ex) {
+                failure = ex;
+                return -1;
+            }
+        }
+        synchronized void exitCode(int line, int exitCode) { exitCodes.set(line, exitCode); }
+        synchronized List<Integer> exitCodes() throws IOException {
+            if (failure != null) { throw failure; }
+            return new ArrayList<Integer>(exitCodes);
+        }
+    }
     private static <T> Stack<T> reverse(Stack<T> stack) {
         Collections.reverse(stack);
         return stack;
@@ -3824,12 +5108,19 @@ public class CommandLine {
             /** Constant Boolean holding the default setting for whether this is a help command: <code>{@value}</code>.*/
             static final Boolean DEFAULT_IS_HELP_COMMAND = Boolean.FALSE;
 
+            /** Constant Boolean holding the default setting for whether this command is independent of its parent command and subcommands: <code>{@value}</code>.*/
+            static final Boolean DEFAULT_IS_INDEPENDENT = Boolean.FALSE;
+
             /** Constant Boolean holding the default setting for whether method commands should be added as subcommands: <code>{@value}</code>.*/
             static final Boolean DEFAULT_IS_ADD_METHOD_SUBCOMMANDS = Boolean.TRUE;
 
-            private final Map<String, CommandLine> commands = new LinkedHashMap<String, CommandLine>();
+            /** Constant Boolean holding the default setting for whether declared subcommands should be instantiated lazily: <code>{@value}</code>.*/
+            static final Boolean DEFAULT_IS_LAZY_SUBCOMMANDS = Boolean.FALSE;
+
+            private final SubcommandMap commands = new SubcommandMap();
             private final Map<String, OptionSpec> optionsByNameMap = new LinkedHashMap<String, OptionSpec>();
             private final Map<Character, OptionSpec> posixOptionsByKeyMap = new LinkedHashMap<Character, OptionSpec>();
+            private volatile OptionNameTrie optionNameTrie;
             private final Map<String, CommandSpec> mixins = new LinkedHashMap<String, CommandSpec>();
             private final List<ArgSpec> requiredArgs = new ArrayList<ArgSpec>();
             private final List<ArgSpec> args = new ArrayList<ArgSpec>();
@@ -3844,14 +5135,18 @@ public class CommandLine {
             private CommandLine commandLine;
             private CommandSpec parent;
             private Boolean isAddMethodSubcommands;
+            private Boolean isLazySubcommands;
 
             private String name;
             private Set<String> aliases = new LinkedHashSet<String>();
             private Boolean isHelpCommand;
+            private Boolean isIndependent;
             private IVersionProvider versionProvider;
             private IDefaultValueProvider defaultValueProvider;
             private String[] version;
             private String toString;
+            private volatile boolean frozen;
+            private volatile long revision;
 
             private CommandSpec(Object userObject) { this.userObject = userObject; }
     
@@ -3923,6 +5218,104 @@ public class CommandLine {
                 if (usageHelpAttr.size() > 1)   { new Tracer().warn(multiple, usageHelpAttr, "usageHelp", "--help", "usage help message"); }
                 if (versionHelpAttr.size() > 1) { new Tracer().warn(multiple, versionHelpAttr, "versionHelp", "--version", "version information"); }
             }
+
+            /** Freezes this command and its subcommands, so that many threads can parse command lines with
+             * {@link CommandLine#parseArgsDetached(String...)} at the same time. Freezing instantiates
+             * {@linkplain #isLazySubcommands() lazy subcommands} and initializes the state that is otherwise initialized on demand.
+             * Once frozen, options, positional parameters, groups, mixins and subcommands can no longer be added:
+             * attempting to do so throws an {@link InitializationException}. Freezing a frozen command has no effect.
+             * @return this CommandSpec for method chaining
+             * @see CommandLine#parseArgsDetached(String...)
+             * @since 4.0 */
+            public CommandSpec freeze() {
+                if (frozen) { return this; }
+                synchronized (this) {
+                    if (!frozen) {
+                        for (ArgSpec arg : args) { arg.initialValue(); arg.initSplitPattern(); }
+                        optionNameTrie();
+                        for (CommandLine sub : commands.values()) { sub.getCommandSpec().freeze(); }
+                        frozen = true;
+                    }
+                }
+                return this;
+            }
+            /** Returns whether this command has been {@linkplain #freeze() frozen}.
+             * @since 4.0 */
+            public boolean isFrozen() { return frozen; }
+            private void assertNotFrozen() {
+                if (frozen) { throw new InitializationException("Command '" + qualifiedName() + "' is frozen and cannot be modified"); }
+            }
+            private void modified() { revision = UsageMessageSpec.nextRevision(); }
+            /** Returns the most recent revision of this command and the commands whose attributes are shown in its usage help message:
+             * its usage message and parser specifications, its parent commands (whose names are part of the synopsis) and the
+             * subcommands shown in its command list. The usage help cache of this command is discarded when this value changes. */
+            long usageHelpRevision() {
+                long result = Math.max(revision, Math.max(usageMessage.revision, parser.revision));
+                for (CommandSpec spec = parent; spec != null; spec = spec.parent) { result = Math.max(result, spec.revision); }
+                for (CommandLine sub : commands.loaded()) {
+                    CommandSpec subSpec = sub.getCommandSpec();
+                    result = Math.max(result, Math.max(subSpec.revision, subSpec.usageMessage.revision));
+                }
+                return result;
+            }
+
+            /** Returns a copy of this frozen command with private copies of its options, positional parameters and groups,
+             * that a single command line can be parsed into without modifying this command or its user object.
+             * The subcommands and mixins of the copy are those of this command. */
+            CommandSpec detachedCopy(CommandSpec parentCopy) {
+                CommandSpec result = new CommandSpec(userObject);
+                result.parent = parentCopy;
+                result.name = name;
+                result.aliases = new LinkedHashSet<String>(aliases);
+                result.isHelpCommand = isHelpCommand;
+                result.isIndependent = isIndependent;
+                result.isAddMethodSubcommands = isAddMethodSubcommands;
+                result.isLazySubcommands = isLazySubcommands;
+                result.versionProvider = versionProvider;
+                result.defaultValueProvider = defaultValueProvider;
+                result.version = version;
+                result.toString = toString;
+                result.parser.initFrom(parser);
+                result.usageMessage.initFrom(usageMessage, result);
+                result.usageMessage.helpFactory = usageMessage.helpFactory;
+                result.usageMessage.sectionKeys = usageMessage.sectionKeys;
+                result.usageMessage.helpSectionRendererMap = usageMessage.helpSectionRendererMap;
+                result.commands.map.putAll(commands.map);
+                result.mixins.putAll(mixins);
+
+                Map<ArgSpec, ArgSpec> copies = new IdentityHashMap<ArgSpec, ArgSpec>();
+                for (ArgSpec arg : args) {
+                    ArgSpec copy = arg.detachedCopy();
+                    copy.messages(result.usageMessage.messages());
+                    copy.commandSpec = result;
+                    copies.put(arg, copy);
+                    result.args.add(copy);
+                }
+                for (OptionSpec option : options) { result.options.add((OptionSpec) copies.get(option)); }
+                for (PositionalParamSpec positional : positionalParameters) { result.positionalParameters.add((PositionalParamSpec) copies.get(positional)); }
+                for (ArgSpec required : requiredArgs) { result.requiredArgs.add(copies.get(required)); }
+                for (Map.Entry<String, OptionSpec> entry : optionsByNameMap.entrySet()) {
+                    result.optionsByNameMap.put(entry.getKey(), (OptionSpec) copies.get(entry.getValue()));
+                }
+                for (Map.Entry<Character, OptionSpec> entry : posixOptionsByKeyMap.entrySet()) {
+                    result.posixOptionsByKeyMap.put(entry.getKey(), (OptionSpec) copies.get(entry.getValue()));
+                }
+                result.optionNameTrie = optionNameTrie(); // immutable, and the copy has the same option names
+                for (ArgGroupSpec group : groups.values()) { // topological order: subgroups are copied before their composites
+                    ArgGroupSpec.Builder builder = ArgGroupSpec.builder(group.name())
+                            .heading(group.heading())
+                            .headingKey(group.headingKey())
+                            .exclusive(group.exclusive())
+                            .multiplicity(group.multiplicity())
+                            .validate(group.validate())
+                            .order(group.order())
+                            .subgroupNames(new ArrayList<String>(group.subgroupNames()));
+                    for (ArgSpec arg : group.args()) { builder.addArg(copies.get(arg)); }
+                    for (String subgroup : group.subgroups().keySet()) { builder.addSubgroup(result.groups.get(subgroup)); }
+                    result.groups.put(group.name(), builder.build());
+                }
+                return result;
+            }
     
             /** Returns the user object associated with this command.
              * @see CommandLine#getCommand() */
@@ -3937,7 +5330,7 @@ public class CommandLine {
                 for (CommandSpec mixedInSpec : mixins.values()) {
                     mixedInSpec.commandLine(commandLine);
                 }
-                for (CommandLine sub : commands.values()) {
+                for (CommandLine sub : commands.loaded()) {
                     sub.getCommandSpec().parent(this);
                 }
                 return this;
@@ -3946,12 +5339,12 @@ public class CommandLine {
             /** Returns the parser specification for this command. */
             public ParserSpec parser() { return parser; }
             /** Initializes the parser specification for this command from the specified settings and returns this commandSpec.*/
-            public CommandSpec parser(ParserSpec settings) { parser.initFrom(settings); return this; }
+            public CommandSpec parser(ParserSpec settings) { parser.initFrom(settings); parser.modified(); return this; }
 
             /** Returns the usage help message specification for this command. */
             public UsageMessageSpec usageMessage() { return usageMessage; }
             /** Initializes the usageMessage specification for this command from the specified settings and returns this commandSpec.*/
-            public CommandSpec usageMessage(UsageMessageSpec settings) { usageMessage.initFrom(settings, this); return this; }
+            public CommandSpec usageMessage(UsageMessageSpec settings) { usageMessage.initFrom(settings, this); usageMessage.modified(); return this; }
 
             /** Returns the resource bundle base name for this command.
              * @return the resource bundle base name from the {@linkplain UsageMessageSpec#messages()}
@@ -3990,6 +5383,7 @@ public class CommandLine {
             private void setBundle(String bundleBaseName, ResourceBundle bundle) {
                 usageMessage().messages(new Messages(this, bundleBaseName, bundle));
                 updateArgSpecMessages();
+                modified();
             }
             private void updateArgSpecMessages() {
                 for (OptionSpec opt : options()) { opt.messages(usageMessage().messages()); }
@@ -4014,6 +5408,8 @@ public class CommandLine {
              * @param subCommandLine the subcommand to envoke when the name is encountered on the command line
              * @return this {@code CommandSpec} object for method chaining */
             public CommandSpec addSubcommand(String name, CommandLine subCommandLine) {
+                assertNotFrozen();
+                modified();
                 Tracer t = new Tracer();
                 if (t.isDebug()) {t.debug("Adding subcommand '%s' to '%s'%n", name, this.qualifiedName());}
                 CommandLine previous = commands.put(name, subCommandLine);
@@ -4033,11 +5429,33 @@ public class CommandLine {
                 if (resourceBundle() == null) {
                     setBundle(bundleBaseName, rb);
                 }
-                for (CommandLine sub : commands.values()) { // percolate down the hierarchy
+                for (CommandLine sub : commands.loaded()) { // percolate down the hierarchy; lazy subcommands are initialized when instantiated
                     sub.getCommandSpec().initCommandHierarchyWithResourceBundle(bundleBaseName, rb);
                 }
             }
 
+            /** Registers a placeholder for the specified subcommand class under the name and aliases of its {@code @Command} annotation.
+             * The class is instantiated with the specified factory when the subcommand is first requested from the {@linkplain #subcommands() subcommand map}.
+             * @param name subcommand name - when this String is encountered in the command line arguments the subcommand is invoked
+             * @param aliases alternative names for the subcommand
+             * @param subcommandClass the class of the subcommand to instantiate on demand
+             * @param factory the factory used to instantiate the subcommand class
+             * @return this {@code CommandSpec} object for method chaining */
+            CommandSpec addLazySubcommand(String name, String[] aliases, Class<?> subcommandClass, IFactory factory) {
+                assertNotFrozen();
+                modified();
+                Tracer t = new Tracer();
+                if (t.isDebug()) {t.debug("Adding lazy subcommand '%s' (%s) to '%s'%n", name, subcommandClass.getName(), this.qualifiedName());}
+                LazySubcommand lazy = new LazySubcommand(this, name, subcommandClass, factory);
+                if (commands.containsKey(name)) { throw new InitializationException("Another subcommand named '" + name + "' already exists for command '" + this.name() + "'"); }
+                commands.putLazy(name, lazy);
+                for (String alias : aliases) {
+                    if (commands.containsKey(alias)) { throw new InitializationException("Alias '" + alias + "' for subcommand '" + name + "' is already used by another subcommand of '" + this.name() + "'"); }
+                    commands.putLazy(alias, lazy);
+                }
+                return this;
+            }
+
             /** Returns whether method commands should be added as subcommands. Used by the annotation processor.
              * @since 4.0 */
             public boolean isAddMethodSubcommands() { return (isAddMethodSubcommands == null) ? DEFAULT_IS_ADD_METHOD_SUBCOMMANDS : isAddMethodSubcommands; }
@@ -4045,6 +5463,16 @@ public class CommandLine {
              * @since 4.0 */
             public CommandSpec setAddMethodSubcommands(Boolean addMethodSubcommands) { isAddMethodSubcommands = addMethodSubcommands; return this; }
 
+            /** Returns whether the subcommands declared with the {@link Command#subcommands()} annotation attribute are instantiated lazily.
+             * @see Command#lazySubcommands()
+             * @since 4.0 */
+            public boolean isLazySubcommands() { return (isLazySubcommands == null) ? DEFAULT_IS_LAZY_SUBCOMMANDS : isLazySubcommands; }
+            /** Sets whether the subcommands declared with the {@link Command#subcommands()} annotation attribute are instantiated lazily.
+             * This setting only has effect if it is set before the declared subcommands are registered.
+             * @see Command#lazySubcommands()
+             * @since 4.0 */
+            public CommandSpec setLazySubcommands(Boolean lazySubcommands) { isLazySubcommands = lazySubcommands; return this; }
+
             /** Reflects on the class of the {@linkplain #userObject() user object} and registers any command methods
              * (class methods annotated with {@code @Command}) as subcommands.
              *
@@ -4085,7 +5513,7 @@ public class CommandLine {
     
             /** Sets the parent command of this subcommand.
              * @return this CommandSpec for method chaining */
-            public CommandSpec parent(CommandSpec parent) { this.parent = parent; return this; }
+            public CommandSpec parent(CommandSpec parent) { this.parent = parent; modified(); return this; }
     
             /** Adds the specified option spec or positional parameter spec to the list of configured arguments to expect.
              * @param arg the option spec or positional parameter spec to add
@@ -4101,6 +5529,8 @@ public class CommandLine {
              * @return this CommandSpec for method chaining
              * @throws DuplicateOptionAnnotationsException if any of the names of the specified option is the same as the name of another option */
             public CommandSpec addOption(OptionSpec option) {
+                assertNotFrozen();
+                modified();
                 args.add(option);
                 options.add(option);
                 for (String name : option.names()) { // cannot be null or empty
@@ -4110,6 +5540,7 @@ public class CommandLine {
                     }
                     if (name.length() == 2 && name.startsWith("-")) { posixOptionsByKeyMap.put(name.charAt(1), option); }
                 }
+                optionNameTrie = null;
                 if (option.required()) { requiredArgs.add(option); }
                 option.messages(usageMessage().messages());
                 option.commandSpec = this;
@@ -4123,6 +5554,8 @@ public class CommandLine {
              * @param positional the positional parameter spec to add
              * @return this CommandSpec for method chaining */
             public CommandSpec addPositional(PositionalParamSpec positional) {
+                assertNotFrozen();
+                modified();
                 args.add(positional);
                 positionalParameters.add(positional);
                 if (positional.required()) { requiredArgs.add(positional); }
@@ -4139,6 +5572,8 @@ public class CommandLine {
              * @see ArgGroupSpec#topologicalSort(Map)
              * @since 4.0 */
             public CommandSpec addArgGroup(ArgGroupSpec group) {
+                assertNotFrozen();
+                modified();
                 for (ArgGroupSpec subgroup : group.subgroups().values()) {
                     if (!groups.containsKey(subgroup.name())) {
                         throw new InitializationException("Groups must be added in topological order: subgroups should be added before the composite that references them.");
@@ -4153,12 +5588,15 @@ public class CommandLine {
              * @param mixin the mixin whose options and positional parameters and other attributes to add to this command
              * @return this CommandSpec for method chaining */
             public CommandSpec addMixin(String name, CommandSpec mixin) {
+                assertNotFrozen();
+                modified();
                 mixins.put(name, mixin);
     
                 parser.initSeparator(mixin.parser.separator());
                 initName(mixin.name());
                 initVersion(mixin.version());
                 initHelpCommand(mixin.helpCommand());
+                initIndependent(mixin.independent());
                 initVersionProvider(mixin.versionProvider());
                 initDefaultValueProvider(mixin.defaultValueProvider());
                 usageMessage.initFromMixin(mixin.usageMessage, this);
@@ -4174,7 +5612,7 @@ public class CommandLine {
             /** Adds the specified {@code UnmatchedArgsBinding} to the list of model objects to capture unmatched arguments for this command.
              * @param spec the unmatched arguments binding to capture unmatched arguments
              * @return this CommandSpec for method chaining */
-            public CommandSpec addUnmatchedArgsBinding(UnmatchedArgsBinding spec) { unmatchedArgs.add(spec); parser().unmatchedArgumentsAllowed(true); return this; }
+            public CommandSpec addUnmatchedArgsBinding(UnmatchedArgsBinding spec) { assertNotFrozen(); modified(); unmatchedArgs.add(spec); parser().unmatchedArgumentsAllowed(true); return this; }
     
             /** Returns a map of the mixin names to mixin {@code CommandSpec} objects configured for this command.
              * @return an immutable map of mixins added to this command. */
@@ -4201,6 +5639,13 @@ public class CommandLine {
              * @return an immutable map of options that this command recognizes. */
             public Map<Character, OptionSpec> posixOptionsMap() { return Collections.unmodifiableMap(posixOptionsByKeyMap); }
 
+            /** Returns the prefix tree of the option names of this command, building it if options were added since it was last built. */
+            OptionNameTrie optionNameTrie() { // the trie is immutable once built, and safely published by the volatile field
+                OptionNameTrie result = optionNameTrie;
+                if (result == null) { optionNameTrie = result = new OptionNameTrie(optionsByNameMap); }
+                return result;
+            }
+
             /** Returns the list of required options and positional parameters configured for this command.
              * @return an immutable list of the required options and positional parameters for this command. */
             public List<ArgSpec> requiredArgs() { return Collections.unmodifiableList(requiredArgs); }
@@ -4310,6 +5755,12 @@ public class CommandLine {
              * @see Command#helpCommand() */
             public boolean helpCommand() { return (isHelpCommand == null) ? DEFAULT_IS_HELP_COMMAND : isHelpCommand; }
 
+            /** Returns whether this command does not depend on the effects of its parent command or subcommands,
+             * and can be executed at the same time as these commands by the {@link RunAllConcurrently} handler.
+             * @see Command#independent()
+             * @since 4.0 */
+            public boolean independent() { return (isIndependent == null) ? DEFAULT_IS_INDEPENDENT : isIndependent; }
+
             /** Returns {@code true} if the standard help options have been mixed in with this command, {@code false} otherwise. */
             public boolean mixinStandardHelpOptions() { return mixins.containsKey(AutoHelpMixin.KEY); }
 
@@ -4318,13 +5769,14 @@ public class CommandLine {
 
             /** Sets the String to use as the program name in the synopsis line of the help message.
              * @return this CommandSpec for method chaining */
-            public CommandSpec name(String name) { this.name = name; return this; }
+            public CommandSpec name(String name) { this.name = name; modified(); return this; }
 
             /** Sets the alternative names by which this subcommand is recognized on the command line.
              * @return this CommandSpec for method chaining
              * @since 3.1 */
             public CommandSpec aliases(String... aliases) {
                 this.aliases = new LinkedHashSet<String>(Arrays.asList(aliases == null ? new String[0] : aliases));
+                modified();
                 return this;
             }
 
@@ -4337,7 +5789,7 @@ public class CommandLine {
              * @param defaultValueProvider the default value provider to use, or {@code null}.
              * @return this CommandSpec for method chaining
              * @since 3.6 */
-            public CommandSpec defaultValueProvider(IDefaultValueProvider  defaultValueProvider) { this.defaultValueProvider = defaultValueProvider; return this; }
+            public CommandSpec defaultValueProvider(IDefaultValueProvider  defaultValueProvider) { this.defaultValueProvider = defaultValueProvider; modified(); return this; }
 
             /** Sets version information literals for this command, to print to the console when the user specifies an
              * {@linkplain OptionSpec#versionHelp() option} to request version help. Only used if no {@link #versionProvider() versionProvider} is set.
@@ -4354,6 +5806,12 @@ public class CommandLine {
              * @see Command#helpCommand() */
             public CommandSpec helpCommand(boolean newValue) {isHelpCommand = newValue; return this;}
 
+            /** Sets whether this command is independent of its parent command and subcommands.
+             * @return this CommandSpec for method chaining
+             * @see Command#independent()
+             * @since 4.0 */
+            public CommandSpec independent(boolean newValue) {isIndependent = newValue; return this;}
+
             /** Sets whether the standard help options should be mixed in with this command.
              * @return this CommandSpec for method chaining
              * @see Command#mixinStandardHelpOptions() */
@@ -4371,6 +5829,8 @@ public class CommandLine {
                                 if (name.length() == 2 && name.startsWith("-")) { posixOptionsByKeyMap.remove(name.charAt(1)); }
                             }
                         }
+                        optionNameTrie = null;
+                        modified();
                     }
                 }
                 return this;
@@ -4383,7 +5843,7 @@ public class CommandLine {
 
             /**
              * Updates the following attributes from the specified {@code @Command} annotation:
-             * aliases, {@link ParserSpec#separator() parser separator}, command name, version, help command,
+             * aliases, {@link ParserSpec#separator() parser separator}, command name, version, help command, independent,
              * version provider, default provider and {@link UsageMessageSpec usage message spec}.
              * @param cmd the {@code @Command} annotation to get attribute values from
              * @param factory factory used to instantiate classes
@@ -4395,7 +5855,9 @@ public class CommandLine {
                 updateName(cmd.name());
                 updateVersion(cmd.version());
                 updateHelpCommand(cmd.helpCommand());
+                updateIndependent(cmd.independent());
                 updateAddMethodSubcommands(cmd.addMethodSubcommands());
+                updateLazySubcommands(cmd.lazySubcommands());
                 usageMessage().updateFromCommand(cmd, this);
 
                 if (factory != null) {
@@ -4406,6 +5868,7 @@ public class CommandLine {
 
             void initName(String value)                 { if (initializable(name, value, DEFAULT_COMMAND_NAME))                           {name = value;} }
             void initHelpCommand(boolean value)         { if (initializable(isHelpCommand, value, DEFAULT_IS_HELP_COMMAND))               {isHelpCommand = value;} }
+            void initIndependent(boolean value)         { if (initializable(isIndependent, value, DEFAULT_IS_INDEPENDENT))                {isIndependent = value;} }
             void initVersion(String[] value)            { if (initializable(version, value, UsageMessageSpec.DEFAULT_MULTI_LINE))         {version = value.clone();} }
             void initVersionProvider(IVersionProvider value) { if (versionProvider == null) { versionProvider = value; } }
             void initDefaultValueProvider(IDefaultValueProvider value) { if (defaultValueProvider == null) { defaultValueProvider = value; } }
@@ -4414,7 +5877,9 @@ public class CommandLine {
             }
             void updateName(String value)               { if (isNonDefault(value, DEFAULT_COMMAND_NAME))                 {name = value;} }
             void updateHelpCommand(boolean value)       { if (isNonDefault(value, DEFAULT_IS_HELP_COMMAND))              {isHelpCommand = value;} }
+            void updateIndependent(boolean value)       { if (isNonDefault(value, DEFAULT_IS_INDEPENDENT))               {isIndependent = value;} }
             void updateAddMethodSubcommands(boolean value) { if (isNonDefault(value, DEFAULT_IS_ADD_METHOD_SUBCOMMANDS)) {isAddMethodSubcommands = value;} }
+            void updateLazySubcommands(boolean value)   { if (isNonDefault(value, DEFAULT_IS_LAZY_SUBCOMMANDS))        {isLazySubcommands = value;} }
             void updateVersion(String[] value)          { if (isNonDefault(value, UsageMessageSpec.DEFAULT_MULTI_LINE))  {version = value.clone();} }
             void updateVersionProvider(Class<? extends IVersionProvider> value, IFactory factory) {
                 if (isNonDefault(value, NoVersionProvider.class)) { versionProvider = (DefaultFactory.createVersionProvider(factory, value)); }
@@ -4473,16 +5938,100 @@ public class CommandLine {
                     if (tracer != null && tracer.isDebug()) {tracer.debug("'%s' %s an option%n", arg, (result ? "resembles" : "doesn't resemble"));}
                     return result;
                 }
-                int count = 0;
-                for (String optionName : optionsMap().keySet()) {
-                    for (int i = 0; i < arg.length(); i++) {
-                        if (optionName.length() > i && arg.charAt(i) == optionName.charAt(i)) { count++; } else { break; }
-                    }
-                }
+                int count = optionNameTrie().commonPrefixLength(arg);
                 boolean result = count > 0 && count * 10 >= optionsMap().size() * 9; // at least one prefix char in common with 9 out of 10 options
                 if (tracer != null && tracer.isDebug()) {tracer.debug("'%s' %s an option: %d matching prefix chars out of %d option names%n", arg, (result ? "resembles" : "doesn't resemble"), count, optionsMap().size());}
                 return result;
             }
+
+            /** Map of subcommands that may contain placeholders for lazily instantiated subcommands.
+             * Placeholders are instantiated when their value is requested; {@code containsKey}, {@code keySet} and {@code size} don't instantiate anything. */
+            private static class SubcommandMap extends AbstractMap<String, CommandLine> {
+                private final Map<String, Object> map = new LinkedHashMap<String, Object>();
+
+                @Override public int size() { return map.size(); }
+                @Override public boolean containsKey(Object key) { return map.containsKey(key); }
+                @Override public CommandLine get(Object key) { return resolve(map.get(key)); }
+                @Override public CommandLine put(String key, CommandLine value) { return resolve(map.put(key, value)); }
+                @Override public Set<String> keySet() { return map.keySet(); }
+                @Override public Set<Entry<String, CommandLine>> entrySet() {
+                    return new AbstractSet<Entry<String, CommandLine>>() {
+                        public int size() { return map.size(); }
+                        public Iterator<Entry<String, CommandLine>> iterator() {
+                            final Iterator<Entry<String, Object>> iterator = map.entrySet().iterator();
+                            return new Iterator<Entry<String, CommandLine>>() {
+                                public boolean hasNext() { return iterator.hasNext(); }
+                                public void remove() { iterator.remove(); }
+                                public Entry<String, CommandLine> next() {
+                                    final Entry<String, Object> entry = iterator.next();
+                                    return new Entry<String, CommandLine>() {
+                                        public String getKey() { return entry.getKey(); }
+                                        public CommandLine getValue() { return resolve(entry.getValue()); }
+                                        public CommandLine setValue(CommandLine value) { throw new UnsupportedOperationException(); }
+                                    };
+                                }
+                            };
+                        }
+                    };
+                }
+                void putLazy(String key, LazySubcommand value) { map.put(key, value); }
+
+                /** Returns the subcommands that have been instantiated so far. */
+                List<CommandLine> loaded() {
+                    List<CommandLine> result = new ArrayList<CommandLine>();
+                    for (Object value : map.values()) {
+                        if (value instanceof CommandLine) { result.add((CommandLine) value); }
+                        else if (((LazySubcommand) value).commandLine != null) { result.add(((LazySubcommand) value).commandLine); }
+                    }
+                    return result;
+                }
+                /** Applies the specified configurer to all instantiated subcommands, and records it for the subcommands that are not instantiated yet. */
+                void configure(ISubcommandConfigurer configurer) {
+                    for (Object value : new ArrayList<Object>(map.values())) {
+                        if (value instanceof CommandLine) { configurer.configure((CommandLine) value); }
+                        else { ((LazySubcommand) value).configure(configurer); }
+                    }
+                }
+                private static CommandLine resolve(Object value) {
+                    return value instanceof LazySubcommand ? ((LazySubcommand) value).commandLine() : (CommandLine) value;
+                }
+            }
+
+            /** Placeholder for a declared subcommand that is instantiated on demand. */
+            private static class LazySubcommand {
+                private final CommandSpec parent;
+                private final String name;
+                private final Class<?> cls;
+                private final IFactory factory;
+                private List<ISubcommandConfigurer> pending = new ArrayList<ISubcommandConfigurer>();
+                private CommandLine commandLine;
+
+                LazySubcommand(CommandSpec parent, String name, Class<?> cls, IFactory factory) {
+                    this.parent = parent;
+                    this.name = name;
+                    this.cls = cls;
+                    this.factory = factory;
+                }
+                CommandLine commandLine() {
+                    if (commandLine == null) {
+                        Tracer t = new Tracer();
+                        if (t.isDebug()) {t.debug("Instantiating lazy subcommand '%s' (%s) of '%s'%n", name, cls.getName(), parent.qualifiedName());}
+                        CommandLine result = CommandReflection.createSubcommand(cls, factory, true);
+                        CommandSpec subSpec = result.getCommandSpec();
+                        if (subSpec.name == null) { subSpec.name(name); }
+                        subSpec.parent(parent);
+                        subSpec.initCommandHierarchyWithResourceBundle(parent.resourceBundleBaseName(), parent.resourceBundle());
+                        CommandReflection.initParentCommand(subSpec.userObject(), parent.userObject());
+                        commandLine = result;
+                        for (ISubcommandConfigurer configurer : pending) { configurer.configure(result); }
+                        pending = null;
+                    }
+                    return commandLine;
+                }
+                void configure(ISubcommandConfigurer configurer) {
+                    if (commandLine != null) { configurer.configure(commandLine); } else { pending.add(configurer); }
+                }
+            }
         }
         private static boolean initializable(Object current, Object candidate, Object defaultValue) {
             return current == null && isNonDefault(candidate, defaultValue);
@@ -4689,6 +6238,33 @@ public class CommandLine {
 
             private Messages messages;
 
+            private static final AtomicLong REVISIONS = new AtomicLong();
+            private static final int MAX_RENDERED_VARIANTS = 8;
+            private volatile long revision;
+            private long renderedRevision;
+            private final Map<String, Map<IHelpSectionRenderer, String>> renderedSections = new LruCache<String, Map<IHelpSectionRenderer, String>>(MAX_RENDERED_VARIANTS);
+
+            static long nextRevision() { return REVISIONS.incrementAndGet(); }
+            private void modified() { revision = nextRevision(); }
+
+            /** Returns the cache of usage help sections rendered for the specified width, Ansi mode, color scheme and locale.
+             * All cached sections are discarded when the specified {@linkplain CommandSpec#usageHelpRevision() revision}
+             * differs from the revision of the command when the sections were rendered. */
+            Map<IHelpSectionRenderer, String> renderedSections(String variant, long revision) {
+                synchronized (renderedSections) {
+                    if (revision != renderedRevision) {
+                        renderedSections.clear();
+                        renderedRevision = revision;
+                    }
+                    Map<IHelpSectionRenderer, String> result = renderedSections.get(variant);
+                    if (result == null) {
+                        result = Collections.synchronizedMap(new HashMap<IHelpSectionRenderer, String>());
+                        renderedSections.put(variant, result);
+                    }
+                    return result;
+                }
+            }
+
             /**
              * Sets the maximum usage help message width to the specified value. Longer values are wrapped.
              * @param newValue the new maximum usage help message width. Must be 55 or greater.
@@ -4699,7 +6275,7 @@ public class CommandLine {
                 if (newValue < MINIMUM_USAGE_WIDTH) {
                     throw new InitializationException("Invalid usage message width " + newValue + ". Minimum value is " + MINIMUM_USAGE_WIDTH);
                 }
-                width = newValue; return this;
+                width = newValue; modified(); return this;
             }
 
             private static int getSysPropertyWidthOrDefault(int defaultWidth) {
@@ -4723,8 +6299,19 @@ public class CommandLine {
              * @return the maximum usage help message width. Never returns less than 55. */
             public int width() { return getSysPropertyWidthOrDefault(width); }
 
+            /** The renderers of the predefined section keys. Their output only depends on the command and the {@code Help} it
+             * is rendered with, so sections rendered by these renderers can be cached. */
+            private static final Map<String, IHelpSectionRenderer> DEFAULT_SECTION_RENDERERS = createDefaultSectionRenderers();
+
             /** Returns the help section renderers for the predefined section keys. see: {@link #sectionKeys()} */
             private Map<String, IHelpSectionRenderer> createHelpSectionRendererMap() {
+                return new HashMap<String, IHelpSectionRenderer>(DEFAULT_SECTION_RENDERERS);
+            }
+
+            /** Returns whether the specified renderer is the renderer of one of the predefined section keys. */
+            static boolean isDefaultSectionRenderer(IHelpSectionRenderer renderer) { return DEFAULT_SECTION_RENDERERS.containsValue(renderer); }
+
+            private static Map<String, IHelpSectionRenderer> createDefaultSectionRenderers() {
                 Map<String, IHelpSectionRenderer> result = new HashMap<String, IHelpSectionRenderer>();
 
                 result.put(SECTION_KEY_HEADER_HEADING,         new IHelpSectionRenderer() { public String render(Help help) { return help.headerHeading(); } });
@@ -4740,18 +6327,27 @@ public class CommandLine {
                 //e.g. %nPositional parameters:%n%n
                 result.put(SECTION_KEY_PARAMETER_LIST_HEADING, new IHelpSectionRenderer() { public String render(Help help) { return help.parameterListHeading(); } });
                 //e.g. [FILE...] the files to convert
-                result.put(SECTION_KEY_PARAMETER_LIST,         new IHelpSectionRenderer() { public String render(Help help) { return help.parameterList(); } });
+                result.put(SECTION_KEY_PARAMETER_LIST,         new IStreamingHelpSectionRenderer() {
+                    public String render(Help help) { return help.parameterList(); }
+                    public void render(Help help, Appendable out) throws IOException { help.writeParameterList(out); }
+                });
                 //e.g. %nOptions:%n%n
                 result.put(SECTION_KEY_OPTION_LIST_HEADING,    new IHelpSectionRenderer() { public String render(Help help) { return help.optionListHeading(); } });
                 //e.g. -h, --help   displays this help and exits
-                result.put(SECTION_KEY_OPTION_LIST,            new IHelpSectionRenderer() { public String render(Help help) { return help.optionList(); } });
+                result.put(SECTION_KEY_OPTION_LIST,            new IStreamingHelpSectionRenderer() {
+                    public String render(Help help) { return help.optionList(); }
+                    public void render(Help help, Appendable out) throws IOException { help.writeOptionList(out); }
+                });
                 //e.g. %nCommands:%n%n
                 result.put(SECTION_KEY_COMMAND_LIST_HEADING,   new IHelpSectionRenderer() { public String render(Help help) { return help.commandListHeading(); } });
                 //e.g.    add       adds the frup to the frooble
-                result.put(SECTION_KEY_COMMAND_LIST,           new IHelpSectionRenderer() { public String render(Help help) { return help.commandList(); } });
+                result.put(SECTION_KEY_COMMAND_LIST,           new IStreamingHelpSectionRenderer() {
+                    public String render(Help help) { return help.commandList(); }
+                    public void render(Help help, Appendable out) throws IOException { help.writeCommandList(out); }
+                });
                 result.put(SECTION_KEY_FOOTER_HEADING,         new IHelpSectionRenderer() { public String render(Help help) { return help.footerHeading(); } });
                 result.put(SECTION_KEY_FOOTER,                 new IHelpSectionRenderer() { public String render(Help help) { return help.footer(); } });
-                return result;
+                return Collections.unmodifiableMap(result);
             }
 
             /**
@@ -4782,7 +6378,7 @@ public class CommandLine {
              * @see #sectionKeys
              * @since 3.9
              */
-            public UsageMessageSpec sectionKeys(List<String> keys) { sectionKeys = Collections.unmodifiableList(new ArrayList<String>(keys)); return this; }
+            public UsageMessageSpec sectionKeys(List<String> keys) { sectionKeys = Collections.unmodifiableList(new ArrayList<String>(keys)); modified(); return this; }
 
             /**
              * Returns the map of section keys and renderers used to construct the usage help message.
@@ -4802,7 +6398,7 @@ public class CommandLine {
              * @see #setHelpSectionMap(Map)
              * @since 3.9
              */
-            public UsageMessageSpec sectionMap(Map<String, IHelpSectionRenderer> map) { this.helpSectionRendererMap = new HashMap<String, IHelpSectionRenderer>(map); return this; }
+            public UsageMessageSpec sectionMap(Map<String, IHelpSectionRenderer> map) { this.helpSectionRendererMap = new HashMap<String, IHelpSectionRenderer>(map); modified(); return this; }
 
             /** Returns the {@code IHelpFactory} that is used to construct the usage help message.
              * @see #setHelpFactory(IHelpFactory)
@@ -4821,6 +6417,7 @@ public class CommandLine {
              */
             public UsageMessageSpec helpFactory(IHelpFactory helpFactory) {
                 this.helpFactory = Assert.notNull(helpFactory, "helpFactory");
+                modified();
                 return this;
             }
 
@@ -4898,72 +6495,72 @@ public class CommandLine {
 
             /** Sets the heading preceding the header section. Initialized from {@link Command#headerHeading()}, or null.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec headerHeading(String headerHeading) { this.headerHeading = headerHeading; return this; }
+            public UsageMessageSpec headerHeading(String headerHeading) { this.headerHeading = headerHeading; modified(); return this; }
 
             /** Sets the optional header lines displayed at the top of the help message. For subcommands, the first header line is
              * displayed in the list of commands.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec header(String... header) { this.header = header; return this; }
+            public UsageMessageSpec header(String... header) { this.header = header; modified(); return this; }
 
             /** Sets the optional heading preceding the synopsis.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec synopsisHeading(String newValue) {synopsisHeading = newValue; return this;}
+            public UsageMessageSpec synopsisHeading(String newValue) {synopsisHeading = newValue; modified(); return this;}
 
             /** Sets whether the synopsis line(s) should show an abbreviated synopsis without detailed option names.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec abbreviateSynopsis(boolean newValue) {abbreviateSynopsis = newValue; return this;}
+            public UsageMessageSpec abbreviateSynopsis(boolean newValue) {abbreviateSynopsis = newValue; modified(); return this;}
 
             /** Sets the optional custom synopsis lines to use instead of the auto-generated synopsis.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec customSynopsis(String... customSynopsis) { this.customSynopsis = customSynopsis; return this; }
+            public UsageMessageSpec customSynopsis(String... customSynopsis) { this.customSynopsis = customSynopsis; modified(); return this; }
 
             /** Sets the heading preceding the description section.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec descriptionHeading(String newValue) {descriptionHeading = newValue; return this;}
+            public UsageMessageSpec descriptionHeading(String newValue) {descriptionHeading = newValue; modified(); return this;}
 
             /** Sets the optional text lines to use as the description of the help message, displayed between the synopsis and the
              * options list.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec description(String... description) { this.description = description; return this; }
+            public UsageMessageSpec description(String... description) { this.description = description; modified(); return this; }
 
             /** Sets the optional heading preceding the parameter list.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec parameterListHeading(String newValue) {parameterListHeading = newValue; return this;}
+            public UsageMessageSpec parameterListHeading(String newValue) {parameterListHeading = newValue; modified(); return this;}
 
             /** Sets the heading preceding the options list.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec optionListHeading(String newValue) {optionListHeading = newValue; return this;}
+            public UsageMessageSpec optionListHeading(String newValue) {optionListHeading = newValue; modified(); return this;}
 
             /** Sets whether the options list in the usage help message should be sorted alphabetically.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec sortOptions(boolean newValue) {sortOptions = newValue; return this;}
+            public UsageMessageSpec sortOptions(boolean newValue) {sortOptions = newValue; modified(); return this;}
 
             /** Sets the character used to prefix required options in the options list.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec requiredOptionMarker(char newValue) {requiredOptionMarker = newValue; return this;}
+            public UsageMessageSpec requiredOptionMarker(char newValue) {requiredOptionMarker = newValue; modified(); return this;}
 
             /** Sets whether the options list in the usage help message should show default values for all non-boolean options.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec showDefaultValues(boolean newValue) {showDefaultValues = newValue; return this;}
+            public UsageMessageSpec showDefaultValues(boolean newValue) {showDefaultValues = newValue; modified(); return this;}
 
             /**
              * Set the hidden flag on this command to control whether to show or hide it in the help usage text of the parent command.
              * @param value enable or disable the hidden flag
              * @return this UsageMessageSpec for method chaining
              * @see Command#hidden() */
-            public UsageMessageSpec hidden(boolean value) { hidden = value; return this; }
+            public UsageMessageSpec hidden(boolean value) { hidden = value; modified(); return this; }
 
             /** Sets the optional heading preceding the subcommand list.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec commandListHeading(String newValue) {commandListHeading = newValue; return this;}
+            public UsageMessageSpec commandListHeading(String newValue) {commandListHeading = newValue; modified(); return this;}
 
             /** Sets the optional heading preceding the footer section.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec footerHeading(String newValue) {footerHeading = newValue; return this;}
+            public UsageMessageSpec footerHeading(String newValue) {footerHeading = newValue; modified(); return this;}
 
             /** Sets the optional footer text lines displayed at the bottom of the help message.
              * @return this UsageMessageSpec for method chaining */
-            public UsageMessageSpec footer(String... footer) { this.footer = footer; return this; }
+            public UsageMessageSpec footer(String... footer) { this.footer = footer; modified(); return this; }
             /** Returns the Messages for this usage help message specification, or {@code null}.
              * @return the Messages object that encapsulates this {@linkplain CommandSpec#resourceBundle() command's resource bundle}
              * @since 3.6 */
@@ -4971,7 +6568,7 @@ public class CommandLine {
             /** Sets the Messages for this usageMessage specification, and returns this UsageMessageSpec.
              * @param msgs the new Messages value that encapsulates this {@linkplain CommandSpec#resourceBundle() command's resource bundle}, may be {@code null}
              * @since 3.6 */
-            public UsageMessageSpec messages(Messages msgs) { messages = msgs; return this; }
+            public UsageMessageSpec messages(Messages msgs) { messages = msgs; modified(); return this; }
             void updateFromCommand(Command cmd, CommandSpec commandSpec) {
                 if (isNonDefault(cmd.synopsisHeading(), DEFAULT_SYNOPSIS_HEADING))            {synopsisHeading = cmd.synopsisHeading();}
                 if (isNonDefault(cmd.commandListHeading(), DEFAULT_COMMAND_LIST_HEADING))     {commandListHeading = cmd.commandListHeading();}
@@ -5051,7 +6648,9 @@ public class CommandLine {
             private boolean expandAtFiles = true;
             private boolean useSimplifiedAtFiles = false;
             private Character atFileCommentChar = '#';
+            private Charset atFileCharset;
             private boolean posixClusteredShortOptionsAllowed = true;
+            private boolean abbreviatedOptionsAllowed = false;
             private boolean unmatchedOptionsArePositionalParams = false;
             private boolean limitSplit = false;
             private boolean aritySatisfiedByAttachedOptionParam = false;
@@ -5059,6 +6658,10 @@ public class CommandLine {
             private boolean caseInsensitiveEnumValuesAllowed = false;
             private boolean trimQuotes = shouldTrimQuotes();
             private boolean splitQuotedStrings = false;
+            private int conversionCacheSize = 0;
+            private volatile long revision;
+
+            private void modified() { revision = UsageMessageSpec.nextRevision(); }
 
             /** Returns the String to use as the separator between options and option parameters. {@code "="} by default,
              * initialized from {@link Command#separator()} if defined.*/
@@ -5082,6 +6685,9 @@ public class CommandLine {
             /** @see CommandLine#getAtFileCommentChar()
              * @since 3.5 */
             public Character atFileCommentChar()               { return atFileCommentChar; }
+            /** @see CommandLine#getAtFileCharset()
+             * @since 4.0 */
+            public Charset atFileCharset()                     { return atFileCharset == null ? Charset.defaultCharset() : atFileCharset; }
             /** @see CommandLine#isUseSimplifiedAtFiles()
              * @since 3.9 */
             public boolean useSimplifiedAtFiles()              {
@@ -5093,6 +6699,9 @@ public class CommandLine {
             }
             /** @see CommandLine#isPosixClusteredShortOptionsAllowed() */
             public boolean posixClusteredShortOptionsAllowed() { return posixClusteredShortOptionsAllowed; }
+            /** @see CommandLine#isAbbreviatedOptionsAllowed()
+             * @since 4.0 */
+            public boolean abbreviatedOptionsAllowed()         { return abbreviatedOptionsAllowed; }
             /** @see CommandLine#isCaseInsensitiveEnumValuesAllowed()
              * @since 3.4 */
             public boolean caseInsensitiveEnumValuesAllowed()  { return caseInsensitiveEnumValuesAllowed; }
@@ -5102,6 +6711,9 @@ public class CommandLine {
             /** @see CommandLine#isSplitQuotedStrings()
              * @since 3.7 */
             public boolean splitQuotedStrings()  { return splitQuotedStrings; }
+            /** @see CommandLine#getConversionCacheSize()
+             * @since 4.0 */
+            public int conversionCacheSize()  { return conversionCacheSize; }
             /** @see CommandLine#isUnmatchedOptionsArePositionalParams() */
             public boolean unmatchedOptionsArePositionalParams() { return unmatchedOptionsArePositionalParams; }
             private boolean splitFirst()                       { return limitSplit(); }
@@ -5117,7 +6729,7 @@ public class CommandLine {
 
             /** Sets the String to use as the separator between options and option parameters.
              * @return this ParserSpec for method chaining */
-            public ParserSpec separator(String separator)                                  { this.separator = separator; return this; }
+            public ParserSpec separator(String separator)                                  { this.separator = separator; modified(); return this; }
             /** @see CommandLine#setStopAtUnmatched(boolean) */
             public ParserSpec stopAtUnmatched(boolean stopAtUnmatched)                     { this.stopAtUnmatched = stopAtUnmatched; return this; }
             /** @see CommandLine#setStopAtPositional(boolean) */
@@ -5136,11 +6748,17 @@ public class CommandLine {
             /** @see CommandLine#setAtFileCommentChar(Character)
              * @since 3.5 */
             public ParserSpec atFileCommentChar(Character atFileCommentChar)               { this.atFileCommentChar = atFileCommentChar; return this; }
+            /** @see CommandLine#setAtFileCharset(Charset)
+             * @since 4.0 */
+            public ParserSpec atFileCharset(Charset atFileCharset)                         { this.atFileCharset = atFileCharset; return this; }
             /** @see CommandLine#setUseSimplifiedAtFiles(boolean)
              * @since 3.9 */
             public ParserSpec useSimplifiedAtFiles(boolean useSimplifiedAtFiles)           { this.useSimplifiedAtFiles = useSimplifiedAtFiles; return this; }
             /** @see CommandLine#setPosixClusteredShortOptionsAllowed(boolean) */
             public ParserSpec posixClusteredShortOptionsAllowed(boolean posixClusteredShortOptionsAllowed) { this.posixClusteredShortOptionsAllowed = posixClusteredShortOptionsAllowed; return this; }
+            /** @see CommandLine#setAbbreviatedOptionsAllowed(boolean)
+             * @since 4.0 */
+            public ParserSpec abbreviatedOptionsAllowed(boolean abbreviatedOptionsAllowed) { this.abbreviatedOptionsAllowed = abbreviatedOptionsAllowed; return this; }
             /** @see CommandLine#setCaseInsensitiveEnumValuesAllowed(boolean)
              * @since 3.4 */
             public ParserSpec caseInsensitiveEnumValuesAllowed(boolean caseInsensitiveEnumValuesAllowed) { this.caseInsensitiveEnumValuesAllowed = caseInsensitiveEnumValuesAllowed; return this; }
@@ -5150,6 +6768,9 @@ public class CommandLine {
             /** @see CommandLine#setSplitQuotedStrings(boolean)
              * @since 3.7 */
             public ParserSpec splitQuotedStrings(boolean splitQuotedStrings)  { this.splitQuotedStrings = splitQuotedStrings; return this; }
+            /** @see CommandLine#setConversionCacheSize(int)
+             * @since 4.0 */
+            public ParserSpec conversionCacheSize(int conversionCacheSize)  { this.conversionCacheSize = conversionCacheSize; return this; }
             /** @see CommandLine#setUnmatchedOptionsArePositionalParams(boolean) */
             public ParserSpec unmatchedOptionsArePositionalParams(boolean unmatchedOptionsArePositionalParams) { this.unmatchedOptionsArePositionalParams = unmatchedOptionsArePositionalParams; return this; }
             /** Sets whether exceptions during parsing should be collected instead of thrown.
@@ -5162,7 +6783,7 @@ public class CommandLine {
 
             /** Sets whether arguments should be {@linkplain ArgSpec#splitRegex() split} first before any further processing.
              * If true, the original argument will only be split into as many parts as allowed by max arity. */
-            public ParserSpec limitSplit(boolean limitSplit)                               { this.limitSplit = limitSplit; return this; }
+            public ParserSpec limitSplit(boolean limitSplit)                               { this.limitSplit = limitSplit; modified(); return this; }
 
             private boolean shouldTrimQuotes() {
                 String value = System.getProperty("picocli.trimQuotes");
@@ -5177,12 +6798,12 @@ public class CommandLine {
                                 "separator=%s, overwrittenOptionsAllowed=%s, unmatchedArgumentsAllowed=%s, expandAtFiles=%s, " +
                                 "atFileCommentChar=%s, useSimplifiedAtFiles=%s, endOfOptionsDelimiter=%s, limitSplit=%s, aritySatisfiedByAttachedOptionParam=%s, " +
                                 "toggleBooleanFlags=%s, unmatchedOptionsArePositionalParams=%s, collectErrors=%s," +
-                                "caseInsensitiveEnumValuesAllowed=%s, trimQuotes=%s, splitQuotedStrings=%s",
+                                "caseInsensitiveEnumValuesAllowed=%s, trimQuotes=%s, splitQuotedStrings=%s, abbreviatedOptionsAllowed=%s, conversionCacheSize=%s",
                         posixClusteredShortOptionsAllowed, stopAtPositional, stopAtUnmatched,
                         separator, overwrittenOptionsAllowed, unmatchedArgumentsAllowed, expandAtFiles,
                         atFileCommentChar, useSimplifiedAtFiles, endOfOptionsDelimiter, limitSplit, aritySatisfiedByAttachedOptionParam,
                         toggleBooleanFlags, unmatchedOptionsArePositionalParams, collectErrors,
-                        caseInsensitiveEnumValuesAllowed, trimQuotes, splitQuotedStrings);
+                        caseInsensitiveEnumValuesAllowed, trimQuotes, splitQuotedStrings, abbreviatedOptionsAllowed, conversionCacheSize);
             }
 
             void initFrom(ParserSpec settings) {
@@ -5195,7 +6816,9 @@ public class CommandLine {
                 unmatchedArgumentsAllowed = settings.unmatchedArgumentsAllowed;
                 expandAtFiles = settings.expandAtFiles;
                 atFileCommentChar = settings.atFileCommentChar;
+                atFileCharset = settings.atFileCharset;
                 posixClusteredShortOptionsAllowed = settings.posixClusteredShortOptionsAllowed;
+                abbreviatedOptionsAllowed = settings.abbreviatedOptionsAllowed;
                 unmatchedOptionsArePositionalParams = settings.unmatchedOptionsArePositionalParams;
                 limitSplit = settings.limitSplit;
                 aritySatisfiedByAttachedOptionParam = settings.aritySatisfiedByAttachedOptionParam;
@@ -5203,6 +6826,7 @@ public class CommandLine {
                 caseInsensitiveEnumValuesAllowed = settings.caseInsensitiveEnumValuesAllowed;
                 trimQuotes = settings.trimQuotes;
                 splitQuotedStrings = settings.splitQuotedStrings;
+                conversionCacheSize = settings.conversionCacheSize;
             }
         }
         /** Models the shared attributes of {@link OptionSpec} and {@link PositionalParamSpec}.
@@ -5228,11 +6852,14 @@ public class CommandLine {
             private final boolean interactive;
             private final boolean required;
             private final String splitRegex;
+            private final int splitChar; // the separator if splitRegex matches a single literal character, -1 otherwise
+            private volatile Pattern splitPattern;
             private final ITypeInfo typeInfo;
             private final ITypeConverter<?>[] converters;
             private final Iterable<String> completionCandidates;
             private final String defaultValue;
-            private final Object initialValue;
+            private Object initialValue;
+            private boolean initialValueDeferred;
             private final boolean hasInitialValue;
             private final IGetter getter;
             private final ISetter setter;
@@ -5250,6 +6877,7 @@ public class CommandLine {
                 description = builder.description == null ? new String[0] : builder.description;
                 descriptionKey = builder.descriptionKey;
                 splitRegex = builder.splitRegex == null ? "" : builder.splitRegex;
+                splitChar = literalSeparator(splitRegex);
                 paramLabel = empty(builder.paramLabel) ? "PARAM" : builder.paramLabel;
                 hideParamSyntax = builder.hideParamSyntax;
                 converters = builder.converters == null ? new ITypeConverter<?>[0] : builder.converters;
@@ -5257,6 +6885,7 @@ public class CommandLine {
                 hidden = builder.hidden;
                 interactive = builder.interactive;
                 initialValue = builder.initialValue;
+                initialValueDeferred = builder.getter instanceof LazyFieldBinding && builder.initialValue == null; // read from snapshot
                 hasInitialValue = builder.hasInitialValue;
                 defaultValue = NO_DEFAULT_VALUE.equals(builder.defaultValue) ? null : builder.defaultValue;
                 required = builder.required && defaultValue == null; //#261 not required if it has a default
@@ -5392,7 +7021,13 @@ public class CommandLine {
             /** Returns the initial value this option or positional parameter. If {@link #hasInitialValue()} is true,
              * the option will be reset to the initial value before parsing (regardless of whether a default value exists),
              * to clear values that would otherwise remain from parsing previous input. */
-            public Object initialValue()     { return initialValue; }
+            public Object initialValue()     {
+                if (initialValueDeferred) {
+                    initialValueDeferred = false;
+                    try { initialValue = getter.get(); } catch (Exception ex) { initialValue = null; }
+                }
+                return initialValue;
+            }
             /** Determines whether the option or positional parameter will be reset to the {@link #initialValue()}
              * before parsing new input.*/
             public boolean hasInitialValue() { return hasInitialValue; }
@@ -5512,7 +7147,7 @@ public class CommandLine {
             protected boolean internalShowDefaultValue(boolean usageHelpShowDefaults) {
                 if (showDefaultValue() == Help.Visibility.ALWAYS)   { return true; }  // override global usage help setting
                 if (showDefaultValue() == Help.Visibility.NEVER)    { return false; } // override global usage help setting
-                if (initialValue == null && defaultValue() == null && defaultValueFromProvider() == null) { return false; } // no default value to show
+                if (initialValue() == null && defaultValue() == null && defaultValueFromProvider() == null) { return false; } // no default value to show
                 return usageHelpShowDefaults && !isBoolean(type());
             }
             /** Returns the Messages for this arg specification, or {@code null}.
@@ -5529,21 +7164,145 @@ public class CommandLine {
             /** Returns a string respresentation of this option or positional parameter. */
             public String toString() { return toString; }
     
-            String[] splitValue(String value, ParserSpec parser, Range arity, int consumed) {
+            String[] splitValue(String value, ParserSpec parser, Range arity, int consumed) { return splitValue(value, parser, arity, consumed, new Tracer()); }
+            String[] splitValue(String value, ParserSpec parser, Range arity, int consumed, Tracer tracer) {
                 if (splitRegex().length() == 0) { return new String[] {value}; }
                 int limit = parser.limitSplit() ? Math.max(arity.max - consumed, 0) : 0;
                 if (parser.splitQuotedStrings()) {
-                    return debug(value.split(splitRegex(), limit), "Split (ignoring quotes)", value);
+                    return debug(tracer, split(value, limit), "Split (ignoring quotes)");
+                }
+                if (value.indexOf('\"') < 0) {
+                    return debug(tracer, split(value, limit), "Split");
                 }
-                return debug(splitRespectingQuotedStrings(value, limit, parser, this, splitRegex()), "Split", value);
+                if (splitChar >= 0) {
+                    return debug(tracer, splitRespectingQuotedStrings(value, limit, parser, this, (char) splitChar, tracer), "Split");
+                }
+                return debug(tracer, splitRespectingQuotedStrings(value, limit, parser, this, splitPattern(), tracer), "Split");
             }
-            private String[] debug(String[] result, String msg, String value) {
-                Tracer t = new Tracer();
-                if (t.isDebug()) {t.debug("%s with regex '%s' resulted in %s parts: %s%n", msg, splitRegex(), result.length, Arrays.asList(result));}
+            private String[] debug(Tracer tracer, String[] result, String msg) {
+                if (tracer.isDebug()) {tracer.debug("%s with regex '%s' resulted in %s parts: %s%n", msg, splitRegex(), result.length, Arrays.asList(result));}
+                return result;
+            }
+            /** Splits the specified value around matches of the split regex, without regard for quotes. */
+            private String[] split(String value, int limit) {
+                return splitChar >= 0 ? split(value, (char) splitChar, limit) : splitPattern().split(value, limit);
+            }
+            private Pattern splitPattern() {
+                Pattern result = splitPattern;
+                if (result == null) { splitPattern = result = Pattern.compile(splitRegex); } // may compile more than once, but publishes safely
+                return result;
+            }
+            /** Compiles the split regex up front if it is not a single literal character. */
+            void initSplitPattern() {
+                if (splitChar < 0 && splitRegex.length() > 0) { splitPattern(); }
+            }
+            /** Returns a copy of this option or positional parameter that holds its value in a private binding instead of the
+             * user object. Empty collections and maps are not shared with the copy, since the parser would add values to them. */
+            ArgSpec detachedCopy() {
+                Object initial = initialValue();
+                if ((initial instanceof Collection && ((Collection<?>) initial).isEmpty()) || (initial instanceof Map && ((Map<?, ?>) initial).isEmpty())) {
+                    try { initial = initial.getClass().newInstance(); } catch (Exception ex) { initial = null; } // the parser creates a new instance
+                }
+                ObjectBinding binding = new ObjectBinding();
+                Builder<?> builder = isOption() ? ((OptionSpec) this).toBuilder() : ((PositionalParamSpec) this).toBuilder();
+                builder.getter(binding).setter(binding).initialValue(initial).hasInitialValue(hasInitialValue);
+                ArgSpec result = builder.build();
+                result.splitPattern = splitPattern;
                 return result;
             }
+            /** Returns the character matched by the specified regular expression if it matches only that single
+             * character (like {@code ","} or {@code "\\|"}), or {@code -1} if the regex must be compiled.
+             * Quotes and backslashes are never returned, since these have a special meaning when splitting quoted values. */
+            static int literalSeparator(String regex) {
+                char ch;
+                if (regex.length() == 1 && ".$|()[{^?*+\\".indexOf(ch = regex.charAt(0)) < 0) {
+                    // a single character that is not a regex metacharacter
+                } else if (regex.length() == 2 && regex.charAt(0) == '\\' && !Character.isLetterOrDigit(ch = regex.charAt(1)) && ch < 128) {
+                    // an escaped ASCII character like \| or \.
+                } else {
+                    return -1;
+                }
+                return ch == '"' || ch == '\\' || (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) ? -1 : ch;
+            }
+            /** Splits around a literal separator character, with the same semantics as {@link String#split(String, int)}. */
+            private static String[] split(String value, char separator, int limit) {
+                int next = value.indexOf(separator);
+                if (next < 0) { return new String[] {value}; }
+                List<String> result = new ArrayList<String>();
+                int start = 0;
+                for (; next >= 0 && (limit <= 0 || result.size() < limit - 1); next = value.indexOf(separator, start)) {
+                    result.add(value.substring(start, next));
+                    start = next + 1;
+                }
+                result.add(value.substring(start));
+                return toArray(result, limit);
+            }
+            /** Removes trailing empty strings if the limit is zero, like {@link String#split(String, int)} does. */
+            private static String[] toArray(List<String> parts, int limit) {
+                int size = parts.size();
+                if (limit == 0) {
+                    while (size > 0 && parts.get(size - 1).length() == 0) { size--; }
+                }
+                return parts.subList(0, size).toArray(new String[size]);
+            }
+            /** Splits the specified value around the specified separator character, except where the separator
+             * occurs in a quoted section, in a single pass over the value. The parts are substrings of the value:
+             * only when quotes must be {@linkplain ParserSpec#trimQuotes() trimmed} is a part with quotes copied.
+             * @since 4.0 */
+            static String[] splitRespectingQuotedStrings(String value, int limit, ParserSpec parser, ArgSpec argSpec, char separator, Tracer tracer) {
+                List<String> result = new ArrayList<String>();
+                boolean escaping = false, inQuote = false, quoted = false;
+                int start = 0, quoteStart = -1, lastNonEmpty = 0;
+                for (int i = 0; i < value.length(); i++) {
+                    char ch = value.charAt(i);
+                    if (ch == '\\') {
+                        escaping = !escaping;
+                    } else if (ch == '\"') {
+                        if (!escaping) {
+                            inQuote = !inQuote;
+                            quoted = true;
+                            quoteStart = i;
+                        }
+                    } else {
+                        escaping = false;
+                        if (ch == separator && !inQuote && (limit <= 0 || result.size() < limit - 1)) {
+                            result.add(part(value, start, i, quoted, parser));
+                            if (i > start) { lastNonEmpty = result.size(); }
+                            start = i + 1;
+                            quoted = false;
+                        }
+                    }
+                }
+                if (inQuote && quoteStart < value.length() - 1) {
+                    String remainder = value.substring(quoteStart + 1);
+                    tracer.warn("Unbalanced quotes in [%s] for %s (value=%s)%n", remainder, argSpec, value);
+                    tracer.warn("Unable to respect quotes while splitting value %s for %s (unprocessed remainder: %s)%n", value, argSpec, Arrays.asList(remainder));
+                    return split(value, separator, limit);
+                }
+                result.add(part(value, start, value.length(), quoted, parser));
+                if (start < value.length() || result.size() == 1) { lastNonEmpty = result.size(); }
+                return limit == 0 ? result.subList(0, lastNonEmpty).toArray(new String[lastNonEmpty]) : result.toArray(new String[0]);
+            }
+            /** Returns the specified part of the value, without its (unescaped) quotes if quotes should be trimmed. */
+            private static String part(String value, int start, int end, boolean quoted, ParserSpec parser) {
+                if (!quoted || !parser.trimQuotes()) { return value.substring(start, end); }
+                StringBuilder result = new StringBuilder(end - start);
+                boolean escaping = false;
+                for (int i = start; i < end; i++) {
+                    char ch = value.charAt(i);
+                    if (ch == '\\') {
+                        escaping = !escaping;
+                    } else if (ch == '\"') {
+                        if (!escaping) { continue; }
+                    } else {
+                        escaping = false;
+                    }
+                    result.append(ch);
+                }
+                return result.toString();
+            }
             // @since 3.7
-            private static String[] splitRespectingQuotedStrings(String value, int limit, ParserSpec parser, ArgSpec argSpec, String splitRegex) {
+            private static String[] splitRespectingQuotedStrings(String value, int limit, ParserSpec parser, ArgSpec argSpec, Pattern splitPattern, Tracer tracer) {
                 StringBuilder splittable = new StringBuilder();
                 StringBuilder temp = new StringBuilder();
                 StringBuilder current = splittable;
@@ -5571,17 +7330,17 @@ public class CommandLine {
                     current.appendCodePoint(ch);
                 }
                 if (temp.length() > 0) {
-                    new Tracer().warn("Unbalanced quotes in [%s] for %s (value=%s)%n", temp, argSpec, value);
+                    tracer.warn("Unbalanced quotes in [%s] for %s (value=%s)%n", temp, argSpec, value);
                     quotedValues.add(temp.toString());
                     temp.setLength(0);
                 }
-                String[] result = splittable.toString().split(splitRegex, limit);
+                String[] result = splitPattern.split(splittable, limit);
                 for (int i = 0; i < result.length; i++) {
                     result[i] = restoreQuotedValues(result[i], quotedValues, parser);
                 }
                 if (!quotedValues.isEmpty()) {
-                    new Tracer().warn("Unable to respect quotes while splitting value %s for %s (unprocessed remainder: %s)%n", value, argSpec, quotedValues);
-                    return value.split(splitRegex, limit);
+                    tracer.warn("Unable to respect quotes while splitting value %s for %s (unprocessed remainder: %s)%n", value, argSpec, quotedValues);
+                    return splitPattern.split(value, limit);
                 }
                 return result;
             }
@@ -7458,8 +9217,673 @@ public class CommandLine {
             /** Returns the CommandSpec of this object, never {@code null}. */
             public CommandSpec commandSpec() { return spec; }
         }
+        /** Prefix tree of the option names of a command. The parser uses it to find exact matches, options with an attached
+         * parameter, short options in a cluster and abbreviated options in a single pass over the characters of an argument,
+         * and to decide whether an unmatched argument resembles an option. */
+        static final class OptionNameTrie {
+            private final Node root = new Node();
+
+            OptionNameTrie(Map<String, OptionSpec> optionsByName) {
+                for (Map.Entry<String, OptionSpec> entry : optionsByName.entrySet()) {
+                    String name = entry.getKey();
+                    Node node = root;
+                    node.add(name, entry.getValue());
+                    for (int i = 0; i < name.length(); i++) {
+                        node = node.child(name.charAt(i), true);
+                        node.add(name, entry.getValue());
+                    }
+                    node.name = name;
+                }
+            }
+
+            /** Returns the node for the specified characters of the specified string, starting from the specified node,
+             * or {@code null} if no option name starts with these characters. */
+            Node find(Node from, String s, int start, int end) {
+                Node node = from;
+                for (int i = start; i < end && node != null; i++) { node = node.child(s.charAt(i), false); }
+                return node;
+            }
+            /** Returns the node for the first {@code end} characters of the specified string, or {@code null}. */
+            Node find(String s, int end) { return find(root, s, 0, end); }
+
+            /** Returns the option name that ends at the specified node, or {@code null} if the node is {@code null} or no option name ends there. */
+            static String name(Node node) { return node == null ? null : node.name; }
+
+            /** Returns whether the first {@code end} characters of the specified string contain more than just option prefix characters,
+             * so that they can be an abbreviated option name. */
+            static boolean isAbbreviation(String s, int end) {
+                for (int i = 0; i < end; i++) {
+                    if (Character.isLetterOrDigit(s.charAt(i))) { return true; }
+                }
+                return false;
+            }
+
+            /** Returns the number of option names in this trie. */
+            int size() { return root.names; }
+
+            /** Returns the sum of the lengths of the common prefixes of the specified string and each option name. */
+            int commonPrefixLength(String s) {
+                int result = 0;
+                Node node = root;
+                for (int i = 0; i < s.length() && (node = node.child(s.charAt(i), false)) != null; i++) { result += node.names; }
+                return result;
+            }
+
+            /** Returns the option names that start with the characters of the specified node. */
+            List<String> names(Node node) {
+                List<String> result = new ArrayList<String>();
+                if (node != null) { node.collectNames(result); }
+                return result;
+            }
+
+            static final class Node {
+                private char[] keys;
+                private Node[] children;
+                private int size;
+                private int names;
+                /** The option name that ends at this node, or {@code null}. */
+                private String name;
+                /** The single option that all names starting with the characters of this node belong to, or {@code null} if there are several. */
+                OptionSpec only;
+                /** A name of {@link #only} that starts with the characters of this node. */
+                String onlyName;
+
+                private void add(String name, OptionSpec spec) {
+                    if (names++ == 0) {
+                        only = spec;
+                        onlyName = name;
+                    } else if (only != spec) {
+                        only = null;
+                        onlyName = null;
+                    }
+                }
+                private void collectNames(List<String> result) {
+                    if (name != null) { result.add(name); }
+                    for (int i = 0; i < size; i++) { children[i].collectNames(result); }
+                }
+                private Node child(char c, boolean create) {
+                    for (int i = 0; i < size; i++) { if (keys[i] == c) { return children[i]; } }
+                    if (!create) { return null; }
+                    if (keys == null) {
+                        keys = new char[2];
+                        children = new Node[2];
+                    } else if (size == keys.length) {
+                        char[] newKeys = new char[size * 2];
+                        System.arraycopy(keys, 0, newKeys, 0, size);
+                        keys = newKeys;
+                        Node[] newChildren = new Node[size * 2];
+                        System.arraycopy(children, 0, newChildren, 0, size);
+                        children = newChildren;
+                    }
+                    keys[size] = c;
+                    return children[size++] = new Node();
+                }
+                /** Returns the number of option names that start with the characters of this node. */
+                int names() { return names; }
+            }
+        }
+        /** Writes fully built {@code CommandSpec} trees to a compact binary snapshot, and rebuilds them from such a
+         * snapshot without scanning the annotations of the command classes.
+         * <p>
+         * Applications that are launched very frequently can use {@link #load(File, Object)} to avoid the cost
+         * of reflection on every launch:
+         * </p><pre>
+         * File cache = new File(System.getProperty("user.home"), ".myapp.spec");
+         * CommandLine cmd = new CommandLine(CommandSpecSnapshot.load(cache, new MyApp()));
+         * </pre><p>
+         * The snapshot contains the options, positional parameters, argument groups, usage help message text and subcommands,
+         * together with a hash of the class files of the command classes. A snapshot that was written by another picocli
+         * version, or for different command classes, is ignored and replaced. Options and positional parameters are bound to
+         * the fields of the command objects by name; the fields are resolved when they are first accessed.
+         * </p><p>
+         * Only commands whose options, positional parameters and {@code @Unmatched} members are fields of the command object
+         * itself can be stored in a snapshot. Commands with mixins (other than the standard help options), annotated methods,
+         * or command methods are built with reflection on every launch.
+         * </p>
+         * @since 4.0 */
+        public static final class CommandSpecSnapshot {
+            private static final int MAGIC = 0x50435353; // "PCSS"
+            private static final int FORMAT = 2;
+            private CommandSpecSnapshot() {}
+
+            /** Returns the {@code CommandSpec} for the specified command from the specified snapshot file if the snapshot is
+             * up to date, otherwise builds the {@code CommandSpec} with reflection and (re)writes the snapshot file.
+             * Subcommands, converters and other declared classes are instantiated with the default factory.
+             * @param snapshot the snapshot file to read and (re)write
+             * @param command the command object or class
+             * @return the {@code CommandSpec} for the specified command, never {@code null}
+             * @see #load(File, Object, IFactory) */
+            public static CommandSpec load(File snapshot, Object command) { return load(snapshot, command, new DefaultFactory()); }
+
+            /** Returns the {@code CommandSpec} for the specified command from the specified snapshot file if the snapshot is
+             * up to date, otherwise builds the {@code CommandSpec} with reflection and (re)writes the snapshot file.
+             * Problems reading or writing the snapshot file are not fatal: these are traced and the specification is built
+             * with reflection.
+             * @param snapshot the snapshot file to read and (re)write
+             * @param command the command object or class
+             * @param factory the factory used to instantiate subcommands, converters and other declared classes
+             * @return the {@code CommandSpec} for the specified command, never {@code null} */
+            public static CommandSpec load(File snapshot, Object command, IFactory factory) {
+                Tracer t = new Tracer();
+                Object instance = command;
+                if (command instanceof Class) { instance = DefaultFactory.create(factory, (Class<?>) command); }
+                if (snapshot.isFile()) {
+                    InputStream in = null;
+                    try {
+                        in = new BufferedInputStream(new FileInputStream(snapshot));
+                        CommandSpec result = read(in, instance, factory);
+                        if (result != null) {
+                            t.debug("Loaded CommandSpec for %s from snapshot %s%n", instance.getClass().getName(), snapshot);
+                            return result;
+                        }
+                        t.debug("Snapshot %s is out of date%n", snapshot);
+                    } catch (Exception ex) {
+                        t.warn("Could not read CommandSpec snapshot %s: %s%n", snapshot, ex);
+                    } finally {
+                        close(in);
+                    }
+                }
+                CommandSpec result = CommandSpec.forAnnotatedObject(instance, factory);
+                String unsupported = unsupportedReason(result);
+                if (unsupported != null) {
+                    t.debug("Not writing snapshot %s: %s%n", snapshot, unsupported);
+                    return result;
+                }
+                File temp = new File(snapshot.getPath() + "." + Long.toHexString(System.nanoTime()) + ".tmp");
+                OutputStream out = null;
+                try {
+                    out = new BufferedOutputStream(new FileOutputStream(temp));
+                    write(result, out);
+                    out.close();
+                    out = null;
+                    if (!temp.renameTo(snapshot) && !(snapshot.delete() && temp.renameTo(snapshot))) {
+                        throw new IOException("Could not rename " + temp + " to " + snapshot);
+                    }
+                    t.debug("Wrote CommandSpec snapshot %s%n", snapshot);
+                } catch (Exception ex) {
+                    t.warn("Could not write CommandSpec snapshot %s: %s%n", snapshot, ex);
+                } finally {
+                    close(out);
+                    if (temp.exists() && !temp.delete()) { t.debug("Could not delete %s%n", temp); }
+                }
+                return result;
+            }
+
+            /** Writes the specified {@code CommandSpec} and its subcommands to the specified stream.
+             * @param spec the command specification to write
+             * @param out the stream to write to; this method does not close the stream
+             * @throws IOException if a problem occurred writing to the stream
+             * @throws InitializationException if the specified command cannot be stored in a snapshot */
+            public static void write(CommandSpec spec, OutputStream out) throws IOException {
+                String unsupported = unsupportedReason(spec);
+                if (unsupported != null) { throw new InitializationException("Cannot write snapshot: " + unsupported); }
+                DataOutputStream data = new DataOutputStream(out);
+                data.writeInt(MAGIC);
+                data.writeInt(FORMAT);
+                data.writeUTF(VERSION);
+                List<Class<?>> classes = new ArrayList<Class<?>>(commandClasses(spec, new LinkedHashSet<Class<?>>()));
+                data.writeInt(classes.size());
+                for (Class<?> cls : classes) { data.writeUTF(cls.getName()); }
+                data.writeLong(hash(classes));
+                writeCommand(data, spec);
+                data.flush();
+            }
+
+            /** Reads a {@code CommandSpec} tree from the specified stream, and binds it to the specified command object.
+             * Subcommand objects are created with the specified factory.
+             * @param in the stream to read from; this method does not close the stream
+             * @param command the command object to bind the options and positional parameters of the top-level command to
+             * @param factory the factory used to instantiate subcommands, converters and other declared classes
+             * @return the {@code CommandSpec}, or {@code null} if the snapshot is out of date or was written for another command
+             * @throws IOException if a problem occurred reading from the stream, or the stream does not contain a snapshot
+             * @throws InitializationException if a class in the snapshot could not be loaded or instantiated */
+            public static CommandSpec read(InputStream in, Object command, IFactory factory) throws IOException {
+                DataInputStream data = new DataInputStream(in);
+                if (data.readInt() != MAGIC) { throw new IOException("Not a CommandSpec snapshot"); }
+                if (data.readInt() != FORMAT || !VERSION.equals(data.readUTF())) { return null; }
+                ClassLoader loader = command.getClass().getClassLoader();
+                List<String> classNames = new ArrayList<String>();
+                for (int i = data.readInt(); i > 0; i--) { classNames.add(data.readUTF()); }
+                if (classNames.isEmpty() || !classNames.get(0).equals(command.getClass().getName())) { return null; }
+                long hash = data.readLong();
+                List<byte[]> classFiles = new ArrayList<byte[]>();
+                for (String name : classNames) {
+                    byte[] bytes = classFile(loader, name);
+                    if (bytes == null) { return null; }
+                    classFiles.add(bytes);
+                }
+                if (hash != hash(classNames, classFiles)) { return null; }
+                return readCommand(data, command, null, factory, loader);
+            }
+
+            /** Returns {@code null} if the specified command and its subcommands can be stored in a snapshot, or the reason why not. */
+            static String unsupportedReason(CommandSpec spec) {
+                Object userObject = spec.userObject();
+                if (userObject == null || userObject instanceof Method || Proxy.isProxyClass(userObject.getClass())) {
+                    return spec + " is not a command object";
+                }
+                if (!instantiable(userObject.getClass())) { return userObject.getClass() + " cannot be instantiated by name"; }
+                for (String mixin : spec.mixins().keySet()) {
+                    if (!AutoHelpMixin.KEY.equals(mixin)) { return spec + " has mixin " + mixin; }
+                }
+                for (ArgSpec arg : serializedArgs(spec)) {
+                    if (fieldRef(arg.getter(), userObject) == null) { return arg + " is not bound to a field of " + spec; }
+                    for (ITypeConverter<?> converter : arg.converters()) {
+                        if (!instantiable(converter.getClass())) { return arg + " has converter " + converter.getClass() + " that cannot be instantiated by name"; }
+                    }
+                }
+                for (UnmatchedArgsBinding binding : spec.unmatchedArgsBindings()) {
+                    if (fieldRef(unmatchedBinding(binding), userObject) == null) {
+                        return "@Unmatched binding of " + spec + " is not a field";
+                    }
+                }
+                if (spec.versionProvider() != null && !instantiable(spec.versionProvider().getClass())) { return spec + " has a version provider that cannot be instantiated by name"; }
+                if (spec.defaultValueProvider() != null && !instantiable(spec.defaultValueProvider().getClass())) { return spec + " has a default value provider that cannot be instantiated by name"; }
+                for (CommandLine sub : new LinkedHashSet<CommandLine>(spec.subcommands().values())) {
+                    String reason = unsupportedReason(sub.getCommandSpec());
+                    if (reason != null) { return reason; }
+                }
+                return null;
+            }
+            private static boolean instantiable(Class<?> cls) {
+                return !cls.isAnonymousClass() && !cls.isLocalClass() && (cls.getEnclosingClass() == null || Modifier.isStatic(cls.getModifiers()));
+            }
+            private static List<ArgSpec> serializedArgs(CommandSpec spec) {
+                List<ArgSpec> result = new ArrayList<ArgSpec>(spec.args());
+                CommandSpec autoHelp = spec.mixins().get(AutoHelpMixin.KEY);
+                if (autoHelp != null) { result.removeAll(autoHelp.args()); } // these are added again by mixinStandardHelpOptions(true)
+                return result;
+            }
+            private static String[] fieldRef(Object binding, Object scope) {
+                if (binding instanceof FieldBinding && ((FieldBinding) binding).scope == scope) {
+                    Field field = ((FieldBinding) binding).field;
+                    return new String[] {field.getDeclaringClass().getName(), field.getName()};
+                }
+                if (binding instanceof LazyFieldBinding && ((LazyFieldBinding) binding).scope == scope) {
+                    return new String[] {((LazyFieldBinding) binding).declaringClass, ((LazyFieldBinding) binding).name};
+                }
+                return null;
+            }
+            private static Object unmatchedBinding(UnmatchedArgsBinding binding) {
+                if (binding.getter() == null) { return binding.setter(); }
+                return binding.getter() instanceof StringListSupplier ? ((StringListSupplier) binding.getter()).getter : binding.getter();
+            }
+            private static Set<Class<?>> commandClasses(CommandSpec spec, Set<Class<?>> result) {
+                for (Class<?> cls = spec.userObject().getClass(); cls != null && cls.getClassLoader() != null; cls = cls.getSuperclass()) {
+                    result.add(cls);
+                }
+                for (CommandLine sub : spec.subcommands().values()) { commandClasses(sub.getCommandSpec(), result); }
+                return result;
+            }
+            private static long hash(List<Class<?>> classes) throws IOException {
+                List<String> names = new ArrayList<String>();
+                List<byte[]> classFiles = new ArrayList<byte[]>();
+                for (Class<?> cls : classes) {
+                    byte[] bytes = classFile(cls.getClassLoader(), cls.getName());
+                    if (bytes == null) { throw new IOException("Cannot find class file for " + cls.getName()); }
+                    names.add(cls.getName());
+                    classFiles.add(bytes);
+                }
+                return hash(names, classFiles);
+            }
+            private static long hash(List<String> names, List<byte[]> classFiles) {
+                java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+                for (int i = 0; i < names.size(); i++) {
+                    crc.update(names.get(i).getBytes());
+                    crc.update(classFiles.get(i));
+                }
+                return crc.getValue();
+            }
+            private static byte[] classFile(ClassLoader loader, String className) throws IOException {
+                InputStream in = loader == null ? null : loader.getResourceAsStream(className.replace('.', '/') + ".class");
+                if (in == null) { return null; }
+                try {
+                    ByteArrayOutputStream result = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) { result.write(buffer, 0, count); }
+                    return result.toByteArray();
+                } finally {
+                    close(in);
+                }
+            }
+
+            private static void writeCommand(DataOutputStream out, CommandSpec spec) throws IOException {
+                Object userObject = spec.userObject();
+                writeString(out, spec.name);
+                writeStrings(out, spec.aliases());
+                writeStrings(out, spec.version);
+                writeBoolean(out, spec.isHelpCommand);
+                writeBoolean(out, spec.isIndependent);
+                writeString(out, spec.parser().separator);
+                writeString(out, spec.versionProvider() == null ? null : spec.versionProvider().getClass().getName());
+                writeString(out, spec.defaultValueProvider() == null ? null : spec.defaultValueProvider().getClass().getName());
+                Messages messages = spec.usageMessage().messages();
+                writeString(out, messages != null && messages.commandSpec() == spec ? messages.resourceBundleBaseName() : null);
+
+                UsageMessageSpec usage = spec.usageMessage();
+                writeStrings(out, usage.description);
+                writeStrings(out, usage.customSynopsis);
+                writeStrings(out, usage.header);
+                writeStrings(out, usage.footer);
+                writeBoolean(out, usage.abbreviateSynopsis);
+                writeBoolean(out, usage.sortOptions);
+                writeBoolean(out, usage.showDefaultValues);
+                writeBoolean(out, usage.hidden);
+                writeString(out, usage.requiredOptionMarker == null ? null : String.valueOf(usage.requiredOptionMarker));
+                writeString(out, usage.headerHeading);
+                writeString(out, usage.synopsisHeading);
+                writeString(out, usage.descriptionHeading);
+                writeString(out, usage.parameterListHeading);
+                writeString(out, usage.optionListHeading);
+                writeString(out, usage.commandListHeading);
+                writeString(out, usage.footerHeading);
+                out.writeInt(usage.width);
+
+                List<ArgSpec> args = serializedArgs(spec);
+                out.writeInt(args.size());
+                for (ArgSpec arg : args) { writeArg(out, arg, userObject); }
+                out.writeInt(spec.unmatchedArgsBindings().size());
+                for (UnmatchedArgsBinding binding : spec.unmatchedArgsBindings()) {
+                    out.writeBoolean(binding.getter() != null);
+                    writeStrings(out, fieldRef(unmatchedBinding(binding), userObject));
+                }
+                out.writeInt(spec.argGroups().size());
+                for (ArgGroupSpec group : spec.argGroups().values()) {
+                    out.writeUTF(group.name());
+                    writeString(out, group.heading());
+                    writeString(out, group.headingKey());
+                    out.writeBoolean(group.exclusive());
+                    writeRange(out, group.multiplicity());
+                    out.writeBoolean(group.validate());
+                    out.writeInt(group.order());
+                    writeStrings(out, group.subgroupNames().toArray(new String[0]));
+                }
+                out.writeBoolean(spec.mixinStandardHelpOptions());
+                writeAnnotatedFields(out, userObject.getClass(), Spec.class);
+                writeAnnotatedFields(out, userObject.getClass(), ParentCommand.class);
+
+                Set<CommandLine> subcommands = new LinkedHashSet<CommandLine>(spec.subcommands().values());
+                out.writeInt(subcommands.size());
+                for (CommandLine sub : subcommands) {
+                    out.writeUTF(sub.getCommandName());
+                    out.writeUTF(sub.getCommandSpec().userObject().getClass().getName());
+                    writeCommand(out, sub.getCommandSpec());
+                }
+            }
+            private static void writeAnnotatedFields(DataOutputStream out, Class<?> cls, Class<? extends Annotation> annotation) throws IOException {
+                List<String> result = new ArrayList<String>();
+                for (; cls != null; cls = cls.getSuperclass()) {
+                    for (Field field : cls.getDeclaredFields()) {
+                        if (field.isAnnotationPresent(annotation)) { result.add(cls.getName()); result.add(field.getName()); }
+                    }
+                }
+                writeStrings(out, result.toArray(new String[0]));
+            }
+            private static void writeArg(DataOutputStream out, ArgSpec arg, Object scope) throws IOException {
+                out.writeBoolean(arg.isOption());
+                if (arg.isOption()) {
+                    OptionSpec option = (OptionSpec) arg;
+                    writeStrings(out, option.names());
+                    out.writeBoolean(option.help());
+                    out.writeBoolean(option.usageHelp());
+                    out.writeBoolean(option.versionHelp());
+                    out.writeInt(option.order());
+                } else {
+                    PositionalParamSpec positional = (PositionalParamSpec) arg;
+                    writeRange(out, positional.index());
+                    writeRange(out, positional.capacity());
+                }
+                writeStrings(out, fieldRef(arg.getter(), scope));
+                out.writeUTF(arg.type().getName());
+                Class<?>[] auxiliaryTypes = arg.auxiliaryTypes();
+                out.writeInt(auxiliaryTypes.length);
+                for (Class<?> aux : auxiliaryTypes) { out.writeUTF(aux.getName()); }
+                writeRange(out, arg.arity());
+                out.writeBoolean(arg.required());
+                out.writeUTF(arg.paramLabel());
+                out.writeBoolean(arg.hideParamSyntax());
+                out.writeBoolean(arg.hidden());
+                out.writeBoolean(arg.interactive());
+                writeStrings(out, arg.description);
+                writeString(out, arg.descriptionKey());
+                out.writeUTF(arg.splitRegex());
+                writeString(out, arg.defaultValue());
+                out.writeUTF(arg.showDefaultValue().name());
+                out.writeBoolean(arg.hasInitialValue());
+                writeString(out, arg.toString());
+                writeStrings(out, arg.groupNames().toArray(new String[0]));
+                ITypeConverter<?>[] converters = arg.converters();
+                out.writeInt(converters.length);
+                for (ITypeConverter<?> converter : converters) { out.writeUTF(converter.getClass().getName()); }
+                List<String> candidates = null;
+                if (arg.completionCandidates() != null) {
+                    candidates = new ArrayList<String>();
+                    for (String candidate : arg.completionCandidates()) { candidates.add(candidate); }
+                }
+                writeStrings(out, candidates == null ? null : candidates.toArray(new String[0]));
+            }
+
+            private static CommandSpec readCommand(DataInputStream in, Object userObject, Object parent, IFactory factory, ClassLoader loader) throws IOException {
+                CommandSpec spec = CommandSpec.wrapWithoutInspection(userObject);
+                spec.name = readString(in);
+                spec.aliases(readStrings(in));
+                spec.version = readStrings(in);
+                spec.isHelpCommand = readBoolean(in);
+                spec.isIndependent = readBoolean(in);
+                spec.parser().separator = readString(in);
+                String versionProvider = readString(in);
+                if (versionProvider != null) { spec.versionProvider((IVersionProvider) create(factory, loader, versionProvider)); }
+                String defaultValueProvider = readString(in);
+                if (defaultValueProvider != null) { spec.defaultValueProvider((IDefaultValueProvider) create(factory, loader, defaultValueProvider)); }
+                String bundleBaseName = readString(in);
+
+                UsageMessageSpec usage = spec.usageMessage();
+                usage.description = readStrings(in);
+                usage.customSynopsis = readStrings(in);
+                usage.header = readStrings(in);
+                usage.footer = readStrings(in);
+                usage.abbreviateSynopsis = readBoolean(in);
+                usage.sortOptions = readBoolean(in);
+                usage.showDefaultValues = readBoolean(in);
+                usage.hidden = readBoolean(in);
+                String marker = readString(in);
+                usage.requiredOptionMarker = marker == null ? null : marker.charAt(0);
+                usage.headerHeading = readString(in);
+                usage.synopsisHeading = readString(in);
+                usage.descriptionHeading = readString(in);
+                usage.parameterListHeading = readString(in);
+                usage.optionListHeading = readString(in);
+                usage.commandListHeading = readString(in);
+                usage.footerHeading = readString(in);
+                usage.width = in.readInt();
+
+                List<ArgSpec> args = new ArrayList<ArgSpec>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    ArgSpec arg = readArg(in, userObject, factory, loader);
+                    args.add(arg);
+                    spec.add(arg);
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    boolean isCollection = in.readBoolean();
+                    String[] ref = readStrings(in);
+                    LazyFieldBinding binding = new LazyFieldBinding(userObject, ref[0], ref[1]);
+                    spec.addUnmatchedArgsBinding(isCollection
+                            ? UnmatchedArgsBinding.forStringCollectionSupplier(new StringListSupplier(binding, binding))
+                            : UnmatchedArgsBinding.forStringArrayConsumer(binding));
+                }
+                Map<String, ArgGroupSpec.Builder> groupBuilders = new LinkedHashMap<String, ArgGroupSpec.Builder>();
+                for (int i = in.readInt(); i > 0; i--) {
+                    ArgGroupSpec.Builder group = ArgGroupSpec.builder(in.readUTF())
+                            .heading(readString(in))
+                            .headingKey(readString(in))
+                            .exclusive(in.readBoolean())
+                            .multiplicity(readRange(in))
+                            .validate(in.readBoolean())
+                            .order(in.readInt())
+                            .subgroupNames(readStrings(in));
+                    groupBuilders.put(group.name(), group);
+                }
+                for (ArgSpec arg : args) {
+                    for (String groupName : arg.groupNames()) { groupBuilders.get(groupName).addArg(arg); }
+                }
+                CommandReflection.addArgGroups(spec, groupBuilders);
+                spec.mixinStandardHelpOptions(in.readBoolean());
+                if (bundleBaseName != null) {
+                    spec.resourceBundleBaseName(bundleBaseName);
+                } else {
+                    spec.updateArgSpecMessages();
+                }
+                String[] specFields = readStrings(in);
+                for (int i = 0; i < specFields.length; i += 2) {
+                    new LazyFieldBinding(userObject, specFields[i], specFields[i + 1]).set(spec);
+                }
+                String[] parentFields = readStrings(in);
+                for (int i = 0; parent != null && i < parentFields.length; i += 2) {
+                    new LazyFieldBinding(userObject, parentFields[i], parentFields[i + 1]).set(parent);
+                }
+
+                for (int i = in.readInt(); i > 0; i--) {
+                    String name = in.readUTF();
+                    Object subcommand = create(factory, loader, in.readUTF());
+                    spec.addSubcommand(name, new CommandLine(readCommand(in, subcommand, userObject, factory, loader), factory));
+                }
+                return spec.withToString(userObject.getClass().getName());
+            }
+            private static ArgSpec readArg(DataInputStream in, Object scope, IFactory factory, ClassLoader loader) throws IOException {
+                ArgSpec.Builder<?> builder;
+                if (in.readBoolean()) {
+                    OptionSpec.Builder option = OptionSpec.builder(readStrings(in));
+                    option.help(in.readBoolean()).usageHelp(in.readBoolean()).versionHelp(in.readBoolean()).order(in.readInt());
+                    builder = option;
+                } else {
+                    PositionalParamSpec.Builder positional = PositionalParamSpec.builder();
+                    positional.index(readRange(in)).capacity(readRange(in));
+                    builder = positional;
+                }
+                String[] ref = readStrings(in);
+                LazyFieldBinding binding = new LazyFieldBinding(scope, ref[0], ref[1]);
+                builder.getter(binding).setter(binding);
+                builder.type(loadClass(in.readUTF(), loader));
+                Class<?>[] auxiliaryTypes = new Class<?>[in.readInt()];
+                for (int i = 0; i < auxiliaryTypes.length; i++) { auxiliaryTypes[i] = loadClass(in.readUTF(), loader); }
+                builder.auxiliaryTypes(auxiliaryTypes);
+                builder.arity(readRange(in))
+                        .required(in.readBoolean())
+                        .paramLabel(in.readUTF())
+                        .hideParamSyntax(in.readBoolean())
+                        .hidden(in.readBoolean())
+                        .interactive(in.readBoolean())
+                        .description(readStrings(in))
+                        .descriptionKey(readString(in))
+                        .splitRegex(in.readUTF())
+                        .defaultValue(readString(in))
+                        .showDefaultValue(Help.Visibility.valueOf(in.readUTF()))
+                        .hasInitialValue(in.readBoolean())
+                        .withToString(readString(in))
+                        .groupNames(readStrings(in));
+                ITypeConverter<?>[] converters = new ITypeConverter<?>[in.readInt()];
+                for (int i = 0; i < converters.length; i++) { converters[i] = (ITypeConverter<?>) create(factory, loader, in.readUTF()); }
+                builder.converters(converters);
+                String[] candidates = readStrings(in);
+                if (candidates != null) { builder.completionCandidates(Arrays.asList(candidates)); }
+                return builder.build();
+            }
+            private static Object create(IFactory factory, ClassLoader loader, String className) throws IOException {
+                return DefaultFactory.create(factory, loadClass(className, loader));
+            }
+            private static Class<?> loadClass(String className, ClassLoader loader) throws IOException {
+                Class<?> primitive = PRIMITIVES.get(className);
+                if (primitive != null) { return primitive; }
+                try {
+                    return Class.forName(className, false, loader);
+                } catch (ClassNotFoundException ex) {
+                    IOException io = new IOException("Cannot load class " + className + ": " + ex);
+                    io.initCause(ex);
+                    throw io;
+                }
+            }
+            private static final Map<String, Class<?>> PRIMITIVES = new HashMap<String, Class<?>>();
+            static {
+                for (Class<?> cls : new Class<?>[] {boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class}) {
+                    PRIMITIVES.put(cls.getName(), cls);
+                }
+            }
+
+            private static void writeRange(DataOutputStream out, Range range) throws IOException {
+                out.writeInt(range.min);
+                out.writeInt(range.max);
+                out.writeBoolean(range.isVariable);
+                out.writeBoolean(range.isUnspecified);
+                writeString(out, range.originalValue);
+            }
+            private static Range readRange(DataInputStream in) throws IOException {
+                return new Range(in.readInt(), in.readInt(), in.readBoolean(), in.readBoolean(), readString(in));
+            }
+            private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+                out.writeByte(value == null ? -1 : value ? 1 : 0);
+            }
+            private static Boolean readBoolean(DataInputStream in) throws IOException {
+                byte value = in.readByte();
+                return value < 0 ? null : Boolean.valueOf(value == 1);
+            }
+            private static void writeString(DataOutputStream out, String value) throws IOException {
+                out.writeBoolean(value != null);
+                if (value != null) { out.writeUTF(value); }
+            }
+            private static String readString(DataInputStream in) throws IOException {
+                return in.readBoolean() ? in.readUTF() : null;
+            }
+            private static void writeStrings(DataOutputStream out, String[] values) throws IOException {
+                out.writeInt(values == null ? -1 : values.length);
+                if (values != null) { for (String value : values) { out.writeUTF(value); } }
+            }
+            private static String[] readStrings(DataInputStream in) throws IOException {
+                int length = in.readInt();
+                if (length < 0) { return null; }
+                String[] result = new String[length];
+                for (int i = 0; i < length; i++) { result[i] = in.readUTF(); }
+                return result;
+            }
+            private static void close(Closeable closeable) {
+                if (closeable != null) { try { closeable.close(); } catch (IOException ignored) { /* ignored */ } }
+            }
+        }
+        /** Binds an option, positional parameter or other annotated field that was read from a {@link CommandSpecSnapshot}
+         * by name. The {@code Field} is looked up when the value is first accessed. */
+        static class LazyFieldBinding implements IGetter, ISetter {
+            private final Object scope;
+            private final String declaringClass;
+            private final String name;
+            private FieldBinding delegate;
+            LazyFieldBinding(Object scope, String declaringClass, String name) {
+                this.scope = Assert.notNull(scope, "scope");
+                this.declaringClass = Assert.notNull(declaringClass, "declaringClass");
+                this.name = Assert.notNull(name, "name");
+            }
+            private FieldBinding delegate() {
+                if (delegate == null) {
+                    Class<?> cls = scope.getClass();
+                    while (cls != null && !cls.getName().equals(declaringClass)) { cls = cls.getSuperclass(); }
+                    if (cls == null) { throw new PicocliException(declaringClass + " is not a superclass of " + scope.getClass().getName()); }
+                    try {
+                        Field field = cls.getDeclaredField(name);
+                        field.setAccessible(true);
+                        delegate = new FieldBinding(scope, field);
+                    } catch (NoSuchFieldException ex) {
+                        throw new PicocliException("Could not find field " + name + " in " + declaringClass, ex);
+                    }
+                }
+                return delegate;
+            }
+            public <T> T get() throws PicocliException { return delegate().<T>get(); }
+            public <T> T set(T value) throws PicocliException { return delegate().set(value); }
+            public String toString() { return String.format("%s(%s.%s)", getClass().getSimpleName(), declaringClass, name); }
+        }
         private static class CommandReflection {
             static CommandSpec extractCommandSpec(Object command, IFactory factory, boolean annotationsAreMandatory) {
+                return extractCommandSpec(command, factory, annotationsAreMandatory, false);
+            }
+            static CommandSpec extractCommandSpec(Object command, IFactory factory, boolean annotationsAreMandatory, boolean lazySubcommands) {
                 Class<?> cls = command.getClass();
                 Tracer t = new Tracer();
                 t.debug("Creating CommandSpec for object of class %s with factory %s%n", cls.getName(), factory.getClass().getName());
@@ -7487,7 +9911,20 @@ public class CommandLine {
                     cls = null; // don't mix in options/positional params from outer class @Command
                 }
 
+                if (!(command instanceof Method)) {
+                    CommandSpec generated = createFromGeneratedFactory(Assert.notNull(instance, "command"), factory, t);
+                    if (generated != null) {
+                        if (lazySubcommands) { generated.setLazySubcommands(true); }
+                        // generated factories are only created for classes without annotated superclass or @Command methods
+                        Command cmd = instance.getClass().getAnnotation(Command.class);
+                        if (cmd != null) { initSubcommands(cmd, null, generated, factory); }
+                        generated.updateArgSpecMessages();
+                        generated.withToString(commandClassName).validate();
+                        return generated;
+                    }
+                }
                 CommandSpec result = CommandSpec.wrapWithoutInspection(Assert.notNull(instance, "command"));
+                if (lazySubcommands) { result.setLazySubcommands(true); }
 
                 Map<String, ArgGroupSpec.Builder> groupBuilders = new LinkedHashMap<String, ArgGroupSpec.Builder>();
                 Stack<Class<?>> hierarchy = new Stack<Class<?>>();
@@ -7525,7 +9962,14 @@ public class CommandLine {
                     result.initName(((Method)command).getName());
                 }
                 result.updateArgSpecMessages();
+                addArgGroups(result, groupBuilders);
+
+                if (annotationsAreMandatory) {validateCommandSpec(result, hasCommandAnnotation, commandClassName); }
+                result.withToString(commandClassName).validate();
+                return result;
+            }
 
+            static void addArgGroups(CommandSpec result, Map<String, ArgGroupSpec.Builder> groupBuilders) {
                 // ArgGroup initialization:
                 // by now all options and parameters have been added to the correct group builder.
                 // Next, add the groups themselves: first build the simple groups that have no subgroups,
@@ -7540,33 +9984,53 @@ public class CommandLine {
                     }
                     result.addArgGroup(builder.build());
                 }
-
-                if (annotationsAreMandatory) {validateCommandSpec(result, hasCommandAnnotation, commandClassName); }
-                result.withToString(commandClassName).validate();
-                return result;
             }
-
             private static void addGroups(Command cmd, Map<String, ArgGroupSpec.Builder> groups) {
                 for (ArgGroup group : cmd.argGroups()) {
                     groups.put(group.name(), ArgGroupSpec.builder(group));
                 }
             }
 
+            static String generatedFactoryName(Class<?> cls) {
+                return cls.getName().replace('$', '_') + "_CommandSpecFactory";
+            }
+            /** Classes for which no generated factory exists, so that the lookup is only attempted once per class. */
+            private static final Map<Class<?>, Boolean> WITHOUT_GENERATED_FACTORY = new WeakHashMap<Class<?>, Boolean>();
+
+            private static CommandSpec createFromGeneratedFactory(Object instance, IFactory factory, Tracer t) {
+                Class<?> cls = instance.getClass();
+                if (cls.getClassLoader() == null || Proxy.isProxyClass(cls)) { return null; }
+                synchronized (WITHOUT_GENERATED_FACTORY) {
+                    if (WITHOUT_GENERATED_FACTORY.containsKey(cls)) { return null; }
+                }
+                Class<?> factoryClass = null;
+                try {
+                    factoryClass = Class.forName(generatedFactoryName(cls), true, cls.getClassLoader());
+                } catch (ClassNotFoundException ignored) {
+                }
+                if (factoryClass == null || !ICommandSpecFactory.class.isAssignableFrom(factoryClass)) {
+                    synchronized (WITHOUT_GENERATED_FACTORY) { WITHOUT_GENERATED_FACTORY.put(cls, Boolean.TRUE); }
+                    return null;
+                }
+                t.debug("Using generated %s to create CommandSpec for %s%n", factoryClass.getName(), cls.getName());
+                try {
+                    return ((ICommandSpecFactory) factoryClass.newInstance()).create(instance, factory);
+                } catch (InitializationException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new InitializationException("Could not create CommandSpec for " + cls.getName() + " with " + factoryClass.getName() + ": " + ex, ex);
+                }
+            }
             private static void initSubcommands(Command cmd, Class<?> cls, CommandSpec parent, IFactory factory) {
                 for (Class<?> sub : cmd.subcommands()) {
-                    try {
-                        if (Help.class == sub) { throw new InitializationException(Help.class.getName() + " is not a valid subcommand. Did you mean " + HelpCommand.class.getName() + "?"); }
-                        CommandLine subcommandLine = toCommandLine(factory.create(sub), factory);
+                    if (Help.class == sub) { throw new InitializationException(Help.class.getName() + " is not a valid subcommand. Did you mean " + HelpCommand.class.getName() + "?"); }
+                    if (parent.isLazySubcommands()) {
+                        parent.addLazySubcommand(subcommandName(sub), sub.getAnnotation(Command.class).aliases(), sub, factory);
+                    } else {
+                        CommandLine subcommandLine = createSubcommand(sub, factory, false);
                         parent.addSubcommand(subcommandName(sub), subcommandLine);
                         initParentCommand(subcommandLine.getCommandSpec().userObject(), parent.userObject());
                     }
-                    catch (InitializationException ex) { throw ex; }
-                    catch (NoSuchMethodException ex) { throw new InitializationException("Cannot instantiate subcommand " +
-                            sub.getName() + ": the class has no constructor", ex); }
-                    catch (Exception ex) {
-                        throw new InitializationException("Could not instantiate and add subcommand " +
-                                sub.getName() + ": " + ex, ex);
-                    }
                 }
                 if (cmd.addMethodSubcommands() && cls != null) {
                     for (CommandLine sub : CommandSpec.createMethodSubcommands(cls, factory)) {
@@ -7574,6 +10038,18 @@ public class CommandLine {
                     }
                 }
             }
+            static CommandLine createSubcommand(Class<?> sub, IFactory factory, boolean lazySubcommands) {
+                try {
+                    return toCommandLine(factory.create(sub), factory, lazySubcommands);
+                }
+                catch (InitializationException ex) { throw ex; }
+                catch (NoSuchMethodException ex) { throw new InitializationException("Cannot instantiate subcommand " +
+                        sub.getName() + ": the class has no constructor", ex); }
+                catch (Exception ex) {
+                    throw new InitializationException("Could not instantiate and add subcommand " +
+                            sub.getName() + ": " + ex, ex);
+                }
+            }
             static void initParentCommand(Object subcommand, Object parent) {
                 if (subcommand == null) { return; }
                 try {
@@ -7731,17 +10207,22 @@ public class CommandLine {
                 if (info.getClassName().equals(String[].class.getName())) {
                     return UnmatchedArgsBinding.forStringArrayConsumer(member.setter());
                 } else {
-                    return UnmatchedArgsBinding.forStringCollectionSupplier(new IGetter() {
-                        @SuppressWarnings("unchecked") public <T> T get() throws Exception {
-                            List<String> result = (List<String>) member.getter().get();
-                            if (result == null) {
-                                result = new ArrayList<String>();
-                                member.setter().set(result);
-                            }
-                            return (T) result;
-                        }
-                    });
+                    return UnmatchedArgsBinding.forStringCollectionSupplier(new StringListSupplier(member.getter(), member.setter()));
+                }
+            }
+        }
+        /** Returns the list of strings in an {@code @Unmatched} field, and initializes the field if it is {@code null}. */
+        static class StringListSupplier implements IGetter {
+            private final IGetter getter;
+            private final ISetter setter;
+            StringListSupplier(IGetter getter, ISetter setter) { this.getter = getter; this.setter = setter; }
+            @SuppressWarnings("unchecked") public <T> T get() throws Exception {
+                List<String> result = (List<String>) getter.get();
+                if (result == null) {
+                    result = new ArrayList<String>();
+                    setter.set(result);
                 }
+                return (T) result;
             }
         }
 
@@ -8050,73 +10531,34 @@ public class CommandLine {
      * Helper class responsible for processing command line arguments.
      */
     private class Interpreter {
-        private final Map<Class<?>, ITypeConverter<?>> converterRegistry = new HashMap<Class<?>, ITypeConverter<?>>();
+        private Map<Class<?>, ITypeConverter<?>> converterRegistry;
+        private boolean converterRegistryShared;
         private boolean isHelpRequested;
         private int position;
         private boolean endOfOptions;
         private ParseResult.Builder parseResult;
+        private final long[] phaseNanos = new long[IMetricsListener.Phase.values().length];
+        private final int[] phaseCounts = new int[IMetricsListener.Phase.values().length];
+        private long excludedNanos; // time spent in type conversion and subcommands, not attributed to the enclosing phase
+        private final Map<ArgSpec, LazyValues> lazyValues = new HashMap<ArgSpec, LazyValues>(2);
+        private final Map<ArgSpec, Map<ITypeConverter<?>, Map<String, Object>>> conversionCaches = new HashMap<ArgSpec, Map<ITypeConverter<?>, Map<String, Object>>>(2);
+        private final Map<Class<?>, EnumConverter> enumConverters = new HashMap<Class<?>, EnumConverter>(2);
+        private int subcommandArgs;
+
+        Interpreter() {
+            converterRegistry = BuiltIn.converters(tracer);
+            converterRegistryShared = true;
+        }
 
-        Interpreter() { registerBuiltInConverters(); }
-
-        private void registerBuiltInConverters() {
-            converterRegistry.put(Object.class,        new BuiltIn.StringConverter());
-            converterRegistry.put(String.class,        new BuiltIn.StringConverter());
-            converterRegistry.put(StringBuilder.class, new BuiltIn.StringBuilderConverter());
-            converterRegistry.put(CharSequence.class,  new BuiltIn.CharSequenceConverter());
-            converterRegistry.put(Byte.class,          new BuiltIn.ByteConverter());
-            converterRegistry.put(Byte.TYPE,           new BuiltIn.ByteConverter());
-            converterRegistry.put(Boolean.class,       new BuiltIn.BooleanConverter());
-            converterRegistry.put(Boolean.TYPE,        new BuiltIn.BooleanConverter());
-            converterRegistry.put(Character.class,     new BuiltIn.CharacterConverter());
-            converterRegistry.put(Character.TYPE,      new BuiltIn.CharacterConverter());
-            converterRegistry.put(Short.class,         new BuiltIn.ShortConverter());
-            converterRegistry.put(Short.TYPE,          new BuiltIn.ShortConverter());
-            converterRegistry.put(Integer.class,       new BuiltIn.IntegerConverter());
-            converterRegistry.put(Integer.TYPE,        new BuiltIn.IntegerConverter());
-            converterRegistry.put(Long.class,          new BuiltIn.LongConverter());
-            converterRegistry.put(Long.TYPE,           new BuiltIn.LongConverter());
-            converterRegistry.put(Float.class,         new BuiltIn.FloatConverter());
-            converterRegistry.put(Float.TYPE,          new BuiltIn.FloatConverter());
-            converterRegistry.put(Double.class,        new BuiltIn.DoubleConverter());
-            converterRegistry.put(Double.TYPE,         new BuiltIn.DoubleConverter());
-            converterRegistry.put(File.class,          new BuiltIn.FileConverter());
-            converterRegistry.put(URI.class,           new BuiltIn.URIConverter());
-            converterRegistry.put(URL.class,           new BuiltIn.URLConverter());
-            converterRegistry.put(Date.class,          new BuiltIn.ISO8601DateConverter());
-            converterRegistry.put(BigDecimal.class,    new BuiltIn.BigDecimalConverter());
-            converterRegistry.put(BigInteger.class,    new BuiltIn.BigIntegerConverter());
-            converterRegistry.put(Charset.class,       new BuiltIn.CharsetConverter());
-            converterRegistry.put(InetAddress.class,   new BuiltIn.InetAddressConverter());
-            converterRegistry.put(Pattern.class,       new BuiltIn.PatternConverter());
-            converterRegistry.put(UUID.class,          new BuiltIn.UUIDConverter());
-            converterRegistry.put(Currency.class,      new BuiltIn.CurrencyConverter());
-            converterRegistry.put(TimeZone.class,      new BuiltIn.TimeZoneConverter());
-            converterRegistry.put(ByteOrder.class,     new BuiltIn.ByteOrderConverter());
-            converterRegistry.put(Class.class,         new BuiltIn.ClassConverter());
-            converterRegistry.put(NetworkInterface.class, new BuiltIn.NetworkInterfaceConverter());
-
-            BuiltIn.ISO8601TimeConverter.registerIfAvailable(converterRegistry, tracer);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.sql.Connection", "java.sql.DriverManager","getConnection", String.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.sql.Driver", "java.sql.DriverManager","getDriver", String.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.sql.Timestamp", "java.sql.Timestamp","valueOf", String.class);
-
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.Duration", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.Instant", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.LocalDate", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.LocalDateTime", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.LocalTime", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.MonthDay", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.OffsetDateTime", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.OffsetTime", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.Period", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.Year", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.YearMonth", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.ZonedDateTime", "parse", CharSequence.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.ZoneId", "of", String.class);
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.time.ZoneOffset", "of", String.class);
-
-            BuiltIn.registerIfAvailable(converterRegistry, tracer, "java.nio.file.Path", "java.nio.file.Paths", "get", String.class, String[].class);
+        /** Registers the specified converter, copying the shared built-in converter table on the first registration. */
+        private void registerConverter(Class<?> cls, ITypeConverter<?> converter) {
+            if (converterRegistryShared) {
+                converterRegistry = new HashMap<Class<?>, ITypeConverter<?>>(converterRegistry);
+                converterRegistryShared = false;
+            }
+            converterRegistry.put(cls, converter);
         }
+
         private ParserSpec config() { return commandSpec.parser(); }
         /**
          * Entry point into parsing command line arguments.
@@ -8131,12 +10573,19 @@ public class CommandLine {
             if (tracer.isDebug()){tracer.debug("Parser configuration: %s%n", config());}
             if (tracer.isDebug()){tracer.debug("(ANSI is %s by default: isatty=%s, XTERM=%s, OSTYPE=%s, isWindows=%s, JansiConsoleInstalled=%s, ANSICON=%s, ConEmuANSI=%s, NO_COLOR=%s, CLICOLOR=%s, CLICOLOR_FORCE=%s)%n",
                     Help.Ansi.ansiPossible() ? "enabled" : "disabled", Help.Ansi.isTTY(), System.getenv("XTERM"), System.getenv("OSTYPE"), Help.Ansi.isWindows(), Help.Ansi.isJansiConsoleInstalled(), System.getenv("ANSICON"), System.getenv("ConEmuANSI"), System.getenv("NO_COLOR"), System.getenv("CLICOLOR"), System.getenv("CLICOLOR_FORCE"));}
+            IMetricsListener listener = metricsListener;
+            if (listener != null && !constructionReported) {
+                constructionReported = true;
+                listener.phaseCompleted(IMetricsListener.Phase.SPEC_CONSTRUCTION, commandSpec, constructionNanos, commandSpec.args().size());
+            }
+            long start = listener == null ? 0 : System.nanoTime();
             List<String> expanded = new ArrayList<String>();
             for (String arg : args) { addOrExpand(arg, expanded, new LinkedHashSet<String>()); }
-            Stack<String> arguments = new Stack<String>();
-            arguments.addAll(reverseList(expanded));
+            if (listener != null) {
+                listener.phaseCompleted(IMetricsListener.Phase.AT_FILE_EXPANSION, commandSpec, System.nanoTime() - start, expanded.size());
+            }
             List<CommandLine> result = new ArrayList<CommandLine>();
-            parse(result, arguments, args, new ArrayList<Object>());
+            parse(result, new ArgumentCursor(expanded.toArray(new String[0])), args, new ArrayList<Object>());
             return result;
         }
 
@@ -8165,44 +10614,38 @@ public class CommandLine {
             }
         }
         private void expandValidArgumentFile(String fileName, File file, List<String> arguments, Set<String> visited) {
-            List<String> result = new ArrayList<String>();
-            LineNumberReader reader = null;
+            int start = arguments.size();
             try {
                 visited.add(file.getAbsolutePath());
-                reader = new LineNumberReader(new FileReader(file));
-                if (commandSpec.parser().useSimplifiedAtFiles()) {
+                ArgumentFileReader reader = new ArgumentFileReader(file, config().atFileCharset(), config().atFileCommentChar());
+                if (config().useSimplifiedAtFiles()) {
+                    String comment = String.valueOf(config().atFileCommentChar());
                     String token;
-                    while ((token = reader.readLine()) != null) {
-                        if (token.length() > 0 && !token.trim().startsWith(String.valueOf(commandSpec.parser().atFileCommentChar()))) {
-                            addOrExpand(token, result, visited);
+                    while ((token = reader.nextLine()) != null) {
+                        if (token.length() > 0 && !token.trim().startsWith(comment)) {
+                            addOrExpand(token, arguments, visited);
                         }
                     }
                 } else {
-                    StreamTokenizer tok = new StreamTokenizer(reader);
-                    tok.resetSyntax();
-                    tok.wordChars(' ', 255);
-                    tok.whitespaceChars(0, ' ');
-                    tok.quoteChar('"');
-                    tok.quoteChar('\'');
-                    if (commandSpec.parser().atFileCommentChar() != null) {
-                        tok.commentChar(commandSpec.parser().atFileCommentChar());
-                    }
-                    while (tok.nextToken() != StreamTokenizer.TT_EOF) {
-                        addOrExpand(tok.sval, result, visited);
+                    String token;
+                    while ((token = reader.nextToken()) != null) {
+                        addOrExpand(token, arguments, visited);
                     }
                 }
             } catch (Exception ex) {
                 throw new InitializationException("Could not read argument file @" + fileName, ex);
-            } finally {
-                if (reader != null) { try {reader.close();} catch (Exception ignored) {} }
             }
-            if (tracer.isInfo()) {tracer.info("Expanded file @%s to arguments %s%n", fileName, result);}
-            arguments.addAll(result);
+            if (tracer.isInfo()) {tracer.info("Expanded file @%s to arguments %s%n", fileName, arguments.subList(start, arguments.size()));}
         }
         private void clear() {
             position = 0;
             endOfOptions = false;
             isHelpRequested = false;
+            Arrays.fill(phaseNanos, 0);
+            Arrays.fill(phaseCounts, 0);
+            excludedNanos = 0;
+            lazyValues.clear();
+            conversionCaches.clear();
             parseResult = ParseResult.builder(getCommandSpec());
             for (OptionSpec option : getCommandSpec().options())                           { clear(option); }
             for (PositionalParamSpec positional : getCommandSpec().positionalParameters()) { clear(positional); }
@@ -8215,12 +10658,12 @@ public class CommandLine {
             if (argSpec.hasInitialValue()) {
                 try {
                     argSpec.setter().set(argSpec.initialValue());
-                    tracer.debug("Set initial value for %s of type %s to %s.%n", argSpec, argSpec.type(), String.valueOf(argSpec.initialValue()));
+                    if (tracer.isDebug()) {tracer.debug("Set initial value for %s of type %s to %s.%n", argSpec, argSpec.type(), String.valueOf(argSpec.initialValue()));}
                 } catch (Exception ex) {
                     tracer.warn("Could not set initial value for %s of type %s to %s: %s%n", argSpec, argSpec.type(), String.valueOf(argSpec.initialValue()), ex);
                 }
             } else {
-                tracer.debug("Initial value not available for %s%n", argSpec);
+                if (tracer.isDebug()) {tracer.debug("Initial value not available for %s%n", argSpec);}
             }
         }
         private void maybeThrow(PicocliException ex) throws PicocliException {
@@ -8231,7 +10674,7 @@ public class CommandLine {
             }
         }
 
-        private void parse(List<CommandLine> parsedCommands, Stack<String> argumentStack, String[] originalArgs, List<Object> nowProcessing) {
+        private void parse(List<CommandLine> parsedCommands, ArgumentCursor arguments, String[] originalArgs, List<Object> nowProcessing) {
             clear(); // first reset any state in case this CommandLine instance is being reused
             if (tracer.isDebug()) {tracer.debug("Initializing %s: %d options, %d positional parameters, %d required, %d subcommands.%n",
                     commandSpec.toString(), new HashSet<ArgSpec>(commandSpec.optionsMap().values()).size(),
@@ -8242,34 +10685,74 @@ public class CommandLine {
             Set<ArgSpec> initialized = new LinkedHashSet<ArgSpec>();
             Collections.sort(required, new PositionalParametersSorter());
             boolean continueOnError = commandSpec.parser().collectErrors();
-            do {
-                int stackSize = argumentStack.size();
-                try {
-                    applyDefaultValues(required);
-                    processArguments(parsedCommands, argumentStack, required, initialized, originalArgs, nowProcessing);
-                } catch (ParameterException ex) {
-                    maybeThrow(ex);
-                } catch (Exception ex) {
-                    int offendingArgIndex = originalArgs.length - argumentStack.size() - 1;
-                    String arg = offendingArgIndex >= 0 && offendingArgIndex < originalArgs.length ? originalArgs[offendingArgIndex] : "?";
-                    maybeThrow(ParameterException.create(CommandLine.this, ex, arg, offendingArgIndex, originalArgs));
-                }
-                if (continueOnError && stackSize == argumentStack.size() && stackSize > 0) {
-                    parseResult.unmatched.add(argumentStack.pop());
+            boolean measure = metricsListener != null;
+            try {
+                do {
+                    int remaining = arguments.size();
+                    try {
+                        long start = measure ? System.nanoTime() : 0;
+                        long excluded = excludedNanos;
+                        int defaults = applyDefaultValues(required);
+                        if (measure) {
+                            start = addPhase(IMetricsListener.Phase.DEFAULT_VALUES, start, excluded, defaults);
+                            excluded = excludedNanos;
+                        }
+                        subcommandArgs = -1;
+                        processArguments(parsedCommands, arguments, required, initialized, originalArgs, nowProcessing);
+                        if (measure) {
+                            int consumed = remaining - (subcommandArgs < 0 ? arguments.size() : subcommandArgs);
+                            addPhase(IMetricsListener.Phase.ARGUMENT_PROCESSING, start, excluded, consumed);
+                        }
+                    } catch (ParameterException ex) {
+                        maybeThrow(ex);
+                    } catch (Exception ex) {
+                        int offendingArgIndex = originalArgs.length - arguments.size() - 1;
+                        String arg = offendingArgIndex >= 0 && offendingArgIndex < originalArgs.length ? originalArgs[offendingArgIndex] : "?";
+                        maybeThrow(ParameterException.create(CommandLine.this, ex, arg, offendingArgIndex, originalArgs));
+                    }
+                    if (continueOnError && remaining == arguments.size() && remaining > 0) {
+                        parseResult.unmatched.add(arguments.pop());
+                    }
+                } while (!arguments.isEmpty() && continueOnError);
+            } finally {
+                if (measure) {
+                    reportPhase(IMetricsListener.Phase.DEFAULT_VALUES);
+                    reportPhase(IMetricsListener.Phase.ARGUMENT_PROCESSING);
+                    reportPhase(IMetricsListener.Phase.TYPE_CONVERSION);
                 }
-            } while (!argumentStack.isEmpty() && continueOnError);
+            }
 
-            validateConstraints(argumentStack, required, initialized);
+            long start = measure ? System.nanoTime() : 0;
+            long excluded = excludedNanos;
+            validateConstraints(arguments, required, initialized);
+            if (measure) {
+                addPhase(IMetricsListener.Phase.VALIDATION, start, excluded, commandSpec.requiredArgs().size() + commandSpec.argGroups().size());
+                reportPhase(IMetricsListener.Phase.VALIDATION);
+            }
+        }
+
+        /** Adds the time since {@code start}, minus the time spent in nested measurements, to the specified phase. */
+        private long addPhase(IMetricsListener.Phase phase, long start, long excludedAtStart, int count) {
+            long now = System.nanoTime();
+            phaseNanos[phase.ordinal()] += now - start - (excludedNanos - excludedAtStart);
+            phaseCounts[phase.ordinal()] += count;
+            return now;
+        }
+        private void reportPhase(IMetricsListener.Phase phase) {
+            IMetricsListener listener = metricsListener;
+            if (listener != null) {
+                listener.phaseCompleted(phase, commandSpec, phaseNanos[phase.ordinal()], phaseCounts[phase.ordinal()]);
+            }
         }
 
-        private void validateConstraints(Stack<String> argumentStack, List<ArgSpec> required, Set<ArgSpec> matched) {
+        private void validateConstraints(ArgumentCursor arguments, List<ArgSpec> required, Set<ArgSpec> matched) {
             if (!isAnyHelpRequested() && !required.isEmpty()) {
                 for (ArgSpec missing : required) {
                     if (missing.groups().isEmpty()) { // otherwise let the group do the validation
                         if (missing.isOption()) {
                             maybeThrow(MissingParameterException.create(CommandLine.this, required, config().separator()));
                         } else {
-                            assertNoMissingParameters(missing, missing.arity(), argumentStack);
+                            assertNoMissingParameters(missing, missing.arity(), arguments);
                         }
                     }
                 }
@@ -8291,14 +10774,16 @@ public class CommandLine {
             }
         }
 
-        private void applyDefaultValues(List<ArgSpec> required) throws Exception {
+        private int applyDefaultValues(List<ArgSpec> required) throws Exception {
             parseResult.isInitializingDefaultValues = true;
-            for (OptionSpec option              : commandSpec.options())              { applyDefault(commandSpec.defaultValueProvider(), option,     required); }
-            for (PositionalParamSpec positional : commandSpec.positionalParameters()) { applyDefault(commandSpec.defaultValueProvider(), positional, required); }
+            int applied = 0;
+            for (OptionSpec option              : commandSpec.options())              { if (applyDefault(commandSpec.defaultValueProvider(), option,     required)) { applied++; } }
+            for (PositionalParamSpec positional : commandSpec.positionalParameters()) { if (applyDefault(commandSpec.defaultValueProvider(), positional, required)) { applied++; } }
             parseResult.isInitializingDefaultValues = false;
+            return applied;
         }
 
-        private void applyDefault(IDefaultValueProvider defaultValueProvider,
+        private boolean applyDefault(IDefaultValueProvider defaultValueProvider,
             ArgSpec arg, List<ArgSpec> required) throws Exception {
 
             // Default value provider return value is only used if provider exists and if value
@@ -8306,18 +10791,17 @@ public class CommandLine {
             String fromProvider = defaultValueProvider == null ? null : defaultValueProvider.defaultValue(arg);
             String defaultValue = fromProvider == null ? arg.defaultValue() : fromProvider;
 
-            if (defaultValue == null) { return; }
+            if (defaultValue == null) { return false; }
             if (tracer.isDebug()) {tracer.debug("Applying defaultValue (%s) to %s%n", defaultValue, arg);}
             Range arity = arg.arity().min(Math.max(1, arg.arity().min));
 
-            applyOption(arg, LookBehind.SEPARATE, arity, stack(defaultValue), new HashSet<ArgSpec>(), arg.toString);
+            applyOption(arg, LookBehind.SEPARATE, arity, new ArgumentCursor(defaultValue), new HashSet<ArgSpec>(), arg.toString);
             required.remove(arg);
+            return true;
         }
 
-        private Stack<String> stack(String value) {Stack<String> result = new Stack<String>(); result.push(value); return result;}
-
         private void processArguments(List<CommandLine> parsedCommands,
-                                      Stack<String> args,
+                                      ArgumentCursor args,
                                       Collection<ArgSpec> required,
                                       Set<ArgSpec> initialized,
                                       String[] originalArgs,
@@ -8340,12 +10824,12 @@ public class CommandLine {
                     return;
                 }
                 String arg = args.pop();
-                if (tracer.isDebug()) {tracer.debug("Processing argument '%s'. Remainder=%s%n", arg, reverse(copy(args)));}
+                if (tracer.isDebug()) {tracer.debug("Processing argument '%s'. Remainder=%s%n", arg, args);}
 
                 // Double-dash separates options from positional arguments.
                 // If found, then interpret the remaining args as positional parameters.
                 if (commandSpec.parser.endOfOptionsDelimiter().equals(arg)) {
-                    tracer.info("Found end-of-options delimiter '--'. Treating remainder as positional parameters.%n");
+                    if (tracer.isInfo()) {tracer.info("Found end-of-options delimiter '--'. Treating remainder as positional parameters.%n");}
                     endOfOptions = true;
                     processRemainderAsPositionalParameters(required, initialized, args);
                     return; // we are done
@@ -8354,13 +10838,20 @@ public class CommandLine {
                 // if we find another command, we are done with the current command
                 if (commandSpec.subcommands().containsKey(arg)) {
                     CommandLine subcommand = commandSpec.subcommands().get(arg);
+                    if (detached) { subcommand = new CommandLine(subcommand, commandSpec); }
                     nowProcessing.add(subcommand.commandSpec);
                     updateHelpRequested(subcommand.commandSpec);
                     if (!isAnyHelpRequested() && !required.isEmpty()) { // ensure current command portion is valid
                         throw MissingParameterException.create(CommandLine.this, required, separator);
                     }
                     if (tracer.isDebug()) {tracer.debug("Found subcommand '%s' (%s)%n", arg, subcommand.commandSpec.toString());}
-                    subcommand.interpreter.parse(parsedCommands, args, originalArgs, nowProcessing);
+                    subcommandArgs = args.size();
+                    long start = metricsListener == null ? 0 : System.nanoTime();
+                    try {
+                        subcommand.interpreter.parse(parsedCommands, args, originalArgs, nowProcessing);
+                    } finally {
+                        if (metricsListener != null) { excludedNanos += System.nanoTime() - start; }
+                    }
                     parseResult.subcommand(subcommand.interpreter.parseResult.build());
                     return; // remainder done by the command
                 }
@@ -8370,26 +10861,35 @@ public class CommandLine {
                 // or an option may have one or more option parameters.
                 // A parameter may be attached to the option.
                 boolean paramAttachedToOption = false;
+                OptionNameTrie trie = commandSpec.optionNameTrie();
+                if (config().abbreviatedOptionsAllowed()) { arg = expandAbbreviatedOption(arg, separator, trie); }
                 int separatorIndex = arg.indexOf(separator);
+                OptionSpec option;
                 if (separatorIndex > 0) {
-                    String key = arg.substring(0, separatorIndex);
+                    // walk the trie once: the node for the key is on the path to the node for the whole arg
+                    OptionNameTrie.Node keyNode = trie.find(arg, separatorIndex);
+                    OptionSpec keyOption = option(keyNode);
+                    option = option(trie.find(keyNode, arg, separatorIndex, arg.length()));
                     // be greedy. Consume the whole arg as an option if possible.
-                    if (commandSpec.optionsMap().containsKey(key) && commandSpec.optionsMap().containsKey(arg)) {
-                        tracer.warn("Both '%s' and '%s' are valid option names in %s. Using '%s'...%n", arg, key, getCommandName(), arg);
-                    } else if (commandSpec.optionsMap().containsKey(key)) {
+                    if (keyOption != null && option != null) {
+                        tracer.warn("Both '%s' and '%s' are valid option names in %s. Using '%s'...%n", arg, arg.substring(0, separatorIndex), getCommandName(), arg);
+                    } else if (keyOption != null) {
                         paramAttachedToOption = true;
+                        String key = arg.substring(0, separatorIndex);
                         String optionParam = arg.substring(separatorIndex + separator.length());
                         args.push(optionParam);
                         arg = key;
+                        option = keyOption;
                         if (tracer.isDebug()) {tracer.debug("Separated '%s' option from '%s' option parameter%n", key, optionParam);}
                     } else {
-                        if (tracer.isDebug()) {tracer.debug("'%s' contains separator '%s' but '%s' is not a known option%n", arg, separator, key);}
+                        if (tracer.isDebug()) {tracer.debug("'%s' contains separator '%s' but '%s' is not a known option%n", arg, separator, arg.substring(0, separatorIndex));}
                     }
                 } else {
                     if (tracer.isDebug()) {tracer.debug("'%s' cannot be separated into <option>%s<option-parameter>%n", arg, separator);}
+                    option = option(trie.find(arg, arg.length()));
                 }
-                if (isStandaloneOption(arg)) {
-                    processStandaloneOption(required, initialized, arg, args, paramAttachedToOption);
+                if (option != null) {
+                    processStandaloneOption(required, initialized, arg, option, args, paramAttachedToOption);
                 }
                 // Compact (single-letter) options can be grouped with other options or with an argument.
                 // only single-letter options can be combined with other options or with an argument
@@ -8408,10 +10908,32 @@ public class CommandLine {
             }
         }
 
-        private boolean isStandaloneOption(String arg) {
-            return commandSpec.optionsMap().containsKey(arg);
+        /** Returns the option of this command whose name ends at the specified node of its option name trie, or {@code null}.
+         * The trie is shared with detached copies of the command, so the option is looked up by name. */
+        private OptionSpec option(OptionNameTrie.Node node) {
+            String name = OptionNameTrie.name(node);
+            return name == null ? null : commandSpec.optionsByNameMap.get(name);
+        }
+        /** Returns the specified argument with the abbreviated option name replaced by the full option name,
+         * or the specified argument if it does not start with an abbreviated option name. */
+        private String expandAbbreviatedOption(String arg, String separator, OptionNameTrie trie) {
+            int separatorIndex = arg.indexOf(separator);
+            int end = separatorIndex > 0 ? separatorIndex : arg.length();
+            OptionNameTrie.Node node = trie.find(arg, end);
+            if (node == null || node.name != null || !OptionNameTrie.isAbbreviation(arg, end)
+                    || OptionNameTrie.name(trie.find(node, arg, end, arg.length())) != null) {
+                return arg;
+            }
+            if (node.only == null) {
+                StringBuilder names = new StringBuilder();
+                for (String name : trie.names(node)) { names.append(names.length() == 0 ? "'" : ", '").append(name).append("'"); }
+                throw new ParameterException(CommandLine.this, "Error: '" + arg.substring(0, end) + "' is not unique: it matches " + names);
+            }
+            String result = node.onlyName + arg.substring(end);
+            if (tracer.isDebug()) {tracer.debug("Expanded abbreviated option '%s' to '%s'%n", arg.substring(0, end), node.onlyName);}
+            return result;
         }
-        private void handleUnmatchedArgument(Stack<String> args) throws Exception {
+        private void handleUnmatchedArgument(ArgumentCursor args) throws Exception {
             if (!args.isEmpty()) { handleUnmatchedArgument(args.pop()); }
             if (config().stopAtUnmatched()) {
                 // addAll would give args in reverse order
@@ -8422,13 +10944,13 @@ public class CommandLine {
             parseResult.unmatched.add(arg);
         }
 
-        private void processRemainderAsPositionalParameters(Collection<ArgSpec> required, Set<ArgSpec> initialized, Stack<String> args) throws Exception {
-            while (!args.empty()) {
+        private void processRemainderAsPositionalParameters(Collection<ArgSpec> required, Set<ArgSpec> initialized, ArgumentCursor args) throws Exception {
+            while (!args.isEmpty()) {
                 processPositionalParameter(required, initialized, args);
             }
         }
-        private void processPositionalParameter(Collection<ArgSpec> required, Set<ArgSpec> initialized, Stack<String> args) throws Exception {
-            if (tracer.isDebug()) {tracer.debug("Processing next arg as a positional parameter at index=%d. Remainder=%s%n", position, reverse(copy(args)));}
+        private void processPositionalParameter(Collection<ArgSpec> required, Set<ArgSpec> initialized, ArgumentCursor args) throws Exception {
+            if (tracer.isDebug()) {tracer.debug("Processing next arg as a positional parameter at index=%d. Remainder=%s%n", position, args);}
             if (config().stopAtPositional()) {
                 if (!endOfOptions && tracer.isDebug()) {tracer.debug("Parser was configured with stopAtPositional=true, treating remaining arguments as positional parameters.%n");}
                 endOfOptions = true;
@@ -8441,12 +10963,13 @@ public class CommandLine {
                 if (!indexRange.contains(position) || positionalParam.typedValueAtPosition.get(position) != null) {
                     continue;
                 }
-                Stack<String> argsCopy = copy(args);
+                ArgumentCursor argsCopy = args.copy();
                 Range arity = positionalParam.arity();
                 if (tracer.isDebug()) {tracer.debug("Position %d is in index range %s. Trying to assign args to %s, arity=%s%n", position, indexRange, positionalParam, arity);}
                 if (!assertNoMissingParameters(positionalParam, arity, argsCopy)) { break; } // #389 collectErrors parsing
                 int originalSize = argsCopy.size();
-                int actuallyConsumed = applyOption(positionalParam, LookBehind.SEPARATE, arity, argsCopy, initialized, "args[" + indexRange + "] at position " + position);
+                String argDescription = tracer.isInfo() ? "args[" + indexRange + "] at position " + position : null; // only used for tracing
+                int actuallyConsumed = applyOption(positionalParam, LookBehind.SEPARATE, arity, argsCopy, initialized, argDescription);
                 int count = originalSize - argsCopy.size();
                 if (count > 0 || actuallyConsumed > 0) {
                     required.remove(positionalParam);
@@ -8469,9 +10992,9 @@ public class CommandLine {
         private void processStandaloneOption(Collection<ArgSpec> required,
                                              Set<ArgSpec> initialized,
                                              String arg,
-                                             Stack<String> args,
+                                             ArgSpec argSpec,
+                                             ArgumentCursor args,
                                              boolean paramAttachedToKey) throws Exception {
-            ArgSpec argSpec = commandSpec.optionsMap().get(arg);
             required.remove(argSpec);
             Range arity = argSpec.arity();
             if (paramAttachedToKey) {
@@ -8480,22 +11003,22 @@ public class CommandLine {
             LookBehind lookBehind = paramAttachedToKey ? LookBehind.ATTACHED_WITH_SEPARATOR : LookBehind.SEPARATE;
             if (tracer.isDebug()) {tracer.debug("Found option named '%s': %s, arity=%s%n", arg, argSpec, arity);}
             parseResult.nowProcessing.add(argSpec);
-            applyOption(argSpec, lookBehind, arity, args, initialized, "option " + arg);
+            applyOption(argSpec, lookBehind, arity, args, initialized, tracer.isInfo() ? "option " + arg : null); // description is only used for tracing
         }
 
         private void processClusteredShortOptions(Collection<ArgSpec> required,
                                                   Set<ArgSpec> initialized,
                                                   String arg,
-                                                  Stack<String> args) throws Exception {
+                                                  ArgumentCursor args) throws Exception {
             String prefix = arg.substring(0, 1);
             String cluster = arg.substring(1);
             boolean paramAttachedToOption = true;
             boolean first = true;
             do {
-                if (cluster.length() > 0 && commandSpec.posixOptionsMap().containsKey(cluster.charAt(0))) {
-                    ArgSpec argSpec = commandSpec.posixOptionsMap().get(cluster.charAt(0));
+                ArgSpec argSpec = cluster.length() > 0 ? commandSpec.posixOptionsByKeyMap.get(cluster.charAt(0)) : null;
+                if (argSpec != null) {
                     Range arity = argSpec.arity();
-                    String argDescription = "option " + prefix + cluster.charAt(0);
+                    String argDescription = tracer.isInfo() ? "option " + prefix + cluster.charAt(0) : null; // only used for tracing
                     if (tracer.isDebug()) {tracer.debug("Found option '%s%s' in %s: %s, arity=%s%n", prefix, cluster.charAt(0), arg,
                             argSpec, arity);}
                     required.remove(argSpec);
@@ -8562,14 +11085,14 @@ public class CommandLine {
         private int applyOption(ArgSpec argSpec,
                                 LookBehind lookBehind,
                                 Range arity,
-                                Stack<String> args,
+                                ArgumentCursor args,
                                 Set<ArgSpec> initialized,
                                 String argDescription) throws Exception {
             updateHelpRequested(argSpec);
             boolean consumeOnlyOne = commandSpec.parser().aritySatisfiedByAttachedOptionParam() && lookBehind.isAttached();
-            Stack<String> workingStack = args;
+            int hidden = 0;
             if (consumeOnlyOne) {
-                workingStack = args.isEmpty() ? args : stack(args.pop());
+                hidden = args.limit(1); // only the attached value is visible
             } else {
                 if (!assertNoMissingParameters(argSpec, arity, args)) { return 0; } // #389 collectErrors parsing
             }
@@ -8580,22 +11103,24 @@ public class CommandLine {
                 if (tracer.isDebug()) {tracer.debug("Reading value for %s from console...%n", name);}
                 char[] value = readPassword(prompt);
                 if (tracer.isDebug()) {tracer.debug("User entered '%s' for %s.%n", value, name);}
-                workingStack.push(new String(value));
+                args.push(new String(value));
             }
 
             int result;
-            if (argSpec.type().isArray()) {
-                result = applyValuesToArrayField(argSpec, lookBehind, arity, workingStack, initialized, argDescription);
+            if (isLazy(argSpec.type())) {
+                result = applyValuesToLazyField(argSpec, arity, args, initialized);
+            } else if (argSpec.type().isArray()) {
+                result = applyValuesToArrayField(argSpec, lookBehind, arity, args, initialized, argDescription);
             } else if (Collection.class.isAssignableFrom(argSpec.type())) {
-                result = applyValuesToCollectionField(argSpec, lookBehind, arity, workingStack, initialized, argDescription);
+                result = applyValuesToCollectionField(argSpec, lookBehind, arity, args, initialized, argDescription);
             } else if (Map.class.isAssignableFrom(argSpec.type())) {
-                result = applyValuesToMapField(argSpec, lookBehind, arity, workingStack, initialized, argDescription);
+                result = applyValuesToMapField(argSpec, lookBehind, arity, args, initialized, argDescription);
             } else {
-                result = applyValueToSingleValuedField(argSpec, lookBehind, arity, workingStack, initialized, argDescription);
+                result = applyValueToSingleValuedField(argSpec, lookBehind, arity, args, initialized, argDescription);
             }
-            if (workingStack != args && !workingStack.isEmpty()) {
-                args.push(workingStack.pop());
-                Assert.assertTrue(workingStack.isEmpty(), "Working stack should be empty but was " + new ArrayList<String>(workingStack));
+            if (consumeOnlyOne) {
+                Assert.assertTrue(args.size() <= 1, "At most the attached value should remain but was " + args);
+                args.unlimit(hidden);
             }
             return result;
         }
@@ -8603,7 +11128,7 @@ public class CommandLine {
         private int applyValueToSingleValuedField(ArgSpec argSpec,
                                                   LookBehind lookBehind,
                                                   Range derivedArity,
-                                                  Stack<String> args,
+                                                  ArgumentCursor args,
                                                   Set<ArgSpec> initialized,
                                                   String argDescription) throws Exception {
             boolean noMoreValues = args.isEmpty();
@@ -8655,7 +11180,6 @@ public class CommandLine {
             }
             ITypeConverter<?> converter = getTypeConverter(cls, argSpec, 0);
             Object newValue = tryConvert(argSpec, -1, converter, value, cls);
-            Object oldValue = argSpec.getValue();
             String traceMessage = "Setting %s to '%3$s' (was '%2$s') for %4$s%n";
             if (initialized.contains(argSpec)) {
                 if (!isOverwrittenOptionsAllowed()) {
@@ -8665,7 +11189,10 @@ public class CommandLine {
             }
             initialized.add(argSpec);
 
-            if (tracer.isInfo()) { tracer.info(traceMessage, argSpec.toString(), String.valueOf(oldValue), String.valueOf(newValue), argDescription); }
+            if (tracer.isInfo()) {
+                Object oldValue = argSpec.getValue();
+                tracer.info(traceMessage, argSpec.toString(), String.valueOf(oldValue), String.valueOf(newValue), argDescription);
+            }
             argSpec.setValue(newValue);
             parseResult.addOriginalStringValue(argSpec, value);// #279 track empty string value if no command line argument was consumed
             parseResult.addStringValue(argSpec, value);
@@ -8676,7 +11203,7 @@ public class CommandLine {
         private int applyValuesToMapField(ArgSpec argSpec,
                                           LookBehind lookBehind,
                                           Range arity,
-                                          Stack<String> args,
+                                          ArgumentCursor args,
                                           Set<ArgSpec> initialized,
                                           String argDescription) throws Exception {
             Class<?>[] classes = argSpec.auxiliaryTypes();
@@ -8685,7 +11212,7 @@ public class CommandLine {
             ITypeConverter<?> valueConverter = getTypeConverter(classes[1], argSpec, 1);
             @SuppressWarnings("unchecked") Map<Object, Object> map = (Map<Object, Object>) argSpec.getValue();
             if (map == null || (!map.isEmpty() && !initialized.contains(argSpec))) {
-                tracer.debug("Initializing binding for %s with empty %s%n", optionDescription("", argSpec, 0), argSpec.type().getSimpleName());
+                if (tracer.isDebug()) {tracer.debug("Initializing binding for %s with empty %s%n", optionDescription("", argSpec, 0), argSpec.type().getSimpleName());}
                 map = createMap(argSpec.type()); // map class
                 argSpec.setValue(map);
             }
@@ -8700,7 +11227,7 @@ public class CommandLine {
         private void consumeMapArguments(ArgSpec argSpec,
                                          LookBehind lookBehind,
                                          Range arity,
-                                         Stack<String> args,
+                                         ArgumentCursor args,
                                          Class<?>[] classes,
                                          ITypeConverter<?> keyConverter,
                                          ITypeConverter<?> valueConverter,
@@ -8749,7 +11276,7 @@ public class CommandLine {
                                            String argDescription) {
             if (!lookBehind.isAttached()) { parseResult.nowProcessing(argSpec, arg); }
             String raw = trim(arg);
-            String[] values = argSpec.splitValue(raw, commandSpec.parser(), arity, consumed);
+            String[] values = argSpec.splitValue(raw, commandSpec.parser(), arity, consumed, tracer);
             for (String value : values) {
                 String[] keyValue = splitKeyValue(argSpec, value);
                 Object mapKey =   tryConvert(argSpec, index, keyConverter,   keyValue[0], classes[0]);
@@ -8767,7 +11294,7 @@ public class CommandLine {
                                                  String raw, Class<?>[] classes,
                                                  ITypeConverter<?> keyConverter, ITypeConverter<?> valueConverter,
                                                  String argDescription) {
-            String[] values = argSpec.splitValue(raw, commandSpec.parser(), arity, consumed);
+            String[] values = argSpec.splitValue(raw, commandSpec.parser(), arity, consumed, tracer);
             try {
                 for (String value : values) {
                     String[] keyValue = splitKeyValue(argSpec, value);
@@ -8776,13 +11303,13 @@ public class CommandLine {
                 }
                 return true;
             } catch (PicocliException ex) {
-                tracer.debug("$s cannot be assigned to %s: type conversion fails: %s.%n", raw, argDescription, ex.getMessage());
+                if (tracer.isDebug()) {tracer.debug("$s cannot be assigned to %s: type conversion fails: %s.%n", raw, argDescription, ex.getMessage());}
                 return false;
             }
         }
 
         private String[] splitKeyValue(ArgSpec argSpec, String value) {
-            String[] keyValue = ArgSpec.splitRespectingQuotedStrings(value, 2, config(), argSpec, "=");
+            String[] keyValue = ArgSpec.splitRespectingQuotedStrings(value, 2, config(), argSpec, '=', tracer);
 
                 if (keyValue.length < 2) {
                 String splitRegex = argSpec.splitRegex();
@@ -8797,7 +11324,7 @@ public class CommandLine {
             return keyValue;
         }
 
-        private void assertNoMissingMandatoryParameter(ArgSpec argSpec, Stack<String> args, int i, Range arity) {
+        private void assertNoMissingMandatoryParameter(ArgSpec argSpec, ArgumentCursor args, int i, Range arity) {
             if (!varargCanConsumeNextValue(argSpec, args.peek())) {
                 String desc = arity.min > 1 ? (i + 1) + " (of " + arity.min + " mandatory parameters) " : "";
                 throw new MissingParameterException(CommandLine.this, argSpec, "Expected parameter " + desc + "for " + optionDescription("", argSpec, -1) + " but found '" + args.peek() + "'");
@@ -8806,12 +11333,21 @@ public class CommandLine {
         private int applyValuesToArrayField(ArgSpec argSpec,
                                             LookBehind lookBehind,
                                             Range arity,
-                                            Stack<String> args,
+                                            ArgumentCursor args,
                                             Set<ArgSpec> initialized,
                                             String argDescription) throws Exception {
             Object existing = argSpec.getValue();
             int length = existing == null ? 0 : Array.getLength(existing);
             Class<?> type = argSpec.auxiliaryTypes()[0];
+            if (PrimitiveArrayBuilder.supports(type) && argSpec.converters().length == 0 && isBuiltInNumberConverter(converterRegistry.get(type))) {
+                PrimitiveArrayBuilder primitives = new PrimitiveArrayBuilder(type, initialized.contains(argSpec) ? existing : null);
+                int initialSize = primitives.size();
+                consumeArguments(argSpec, lookBehind, arity, args, type, primitives, argDescription);
+                initialized.add(argSpec);
+                argSpec.setValue(primitives.toArray());
+                parseResult.add(argSpec, position);
+                return primitives.size() - initialSize; // return how many args were consumed
+            }
             List<Object> converted = consumeArguments(argSpec, lookBehind, arity, args, type, argDescription);
             List<Object> newValues = new ArrayList<Object>();
             if (initialized.contains(argSpec)) { // existing values are default values if initialized does NOT contain argsSpec
@@ -8840,14 +11376,14 @@ public class CommandLine {
         private int applyValuesToCollectionField(ArgSpec argSpec,
                                                  LookBehind lookBehind,
                                                  Range arity,
-                                                 Stack<String> args,
+                                                 ArgumentCursor args,
                                                  Set<ArgSpec> initialized,
                                                  String argDescription) throws Exception {
             Collection<Object> collection = (Collection<Object>) argSpec.getValue();
             Class<?> type = argSpec.auxiliaryTypes()[0];
             List<Object> converted = consumeArguments(argSpec, lookBehind, arity, args, type, argDescription);
             if (collection == null || (!collection.isEmpty() && !initialized.contains(argSpec))) {
-                tracer.debug("Initializing binding for %s with empty %s%n", optionDescription("", argSpec, 0), argSpec.type().getSimpleName());
+                if (tracer.isDebug()) {tracer.debug("Initializing binding for %s with empty %s%n", optionDescription("", argSpec, 0), argSpec.type().getSimpleName());}
                 collection = createCollection(argSpec.type(), type); // collection type, element type
                 argSpec.setValue(collection);
             }
@@ -8864,11 +11400,111 @@ public class CommandLine {
             return converted.size();
         }
 
+        private int applyValuesToLazyField(ArgSpec argSpec, Range arity, ArgumentCursor args, Set<ArgSpec> initialized) throws Exception {
+            long max = arity.max;
+            if (argSpec.isPositional() && max < Integer.MAX_VALUE) { // take the values for all remaining positions in the index range at once
+                Range index = ((PositionalParamSpec) argSpec).index();
+                max = index.max == Integer.MAX_VALUE ? Integer.MAX_VALUE : Math.min(Integer.MAX_VALUE, max * (index.max - position + 1));
+            }
+            int count = 0;
+            for (; count < arity.min && !args.isEmpty(); count++) { // the mandatory values may not be options or subcommands either
+                assertNoMissingMandatoryParameter(argSpec, args, count, arity);
+                args.pop();
+            }
+            while (count < max && !args.isEmpty() && varargCanConsumeNextValue(argSpec, args.peek())) {
+                args.pop();
+                count++;
+            }
+            LazyValues values = lazyValues.get(argSpec);
+            if (values == null || !initialized.contains(argSpec)) {
+                values = new LazyValues(argSpec, arity);
+                lazyValues.put(argSpec, values);
+                argSpec.setValue(values.bind());
+            }
+            values.add(args, count);
+            if (tracer.isDebug()) {tracer.debug("Added %d values to %s, to be converted when iterated%n", count, argSpec);}
+            initialized.add(argSpec);
+            parseResult.add(argSpec, position);
+            return count;
+        }
+
+        /** The values of an option or positional parameter of type {@code Iterable}, {@code Iterator} or {@code Stream}.
+         * The command line arguments are kept as Strings, and are only split and converted to the element type
+         * when the command iterates over them, so no collection of converted values is built during parsing. */
+        private final class LazyValues implements Iterable<Object> {
+            private final ArgSpec argSpec;
+            private final Range arity;
+            private final Class<?> type;
+            private final ITypeConverter<?> converter;
+            private String[] values = new String[4];
+            private int size;
+
+            LazyValues(ArgSpec argSpec, Range arity) {
+                this.argSpec = argSpec;
+                this.arity = arity;
+                this.type = argSpec.auxiliaryTypes()[0];
+                this.converter = getTypeConverter(type, argSpec, 0);
+            }
+            void add(ArgumentCursor args, int count) {
+                if (size + count > values.length) {
+                    String[] larger = new String[Math.max(size + count, values.length * 2)];
+                    System.arraycopy(values, 0, larger, 0, size);
+                    values = larger;
+                }
+                args.popped(count, values, size);
+                size += count;
+            }
+            Object bind() throws Exception {
+                if (argSpec.type() == Iterable.class) { return this; }
+                if (argSpec.type() == Iterator.class) { return iterator(); }
+                Object spliterator = Class.forName("java.util.Spliterators").getMethod("spliteratorUnknownSize", Iterator.class, int.class)
+                        .invoke(null, iterator(), 0x00000010); // Spliterator.ORDERED
+                return Class.forName("java.util.stream.StreamSupport").getMethod("stream", Class.forName("java.util.Spliterator"), boolean.class)
+                        .invoke(null, spliterator, false);
+            }
+            public Iterator<Object> iterator() {
+                return new Iterator<Object>() {
+                    private int next;
+                    private String[] split = new String[0];
+                    private int splitIndex;
+                    public boolean hasNext() {
+                        while (splitIndex >= split.length) {
+                            if (next >= size) { return false; }
+                            split = argSpec.splitValue(trim(values[next++]), commandSpec.parser(), arity, 0, tracer);
+                            splitIndex = 0;
+                        }
+                        return true;
+                    }
+                    public Object next() {
+                        if (!hasNext()) { throw new NoSuchElementException(); }
+                        return convert(argSpec, -1, converter, split[splitIndex++], type);
+                    }
+                    public void remove() { throw new UnsupportedOperationException("remove"); }
+                };
+            }
+        }
+
+        private boolean isBuiltInNumberConverter(ITypeConverter<?> converter) {
+            return converter instanceof BuiltIn.IntegerConverter || converter instanceof BuiltIn.LongConverter || converter instanceof BuiltIn.DoubleConverter;
+        }
+
+        private List<Object> consumeArguments(ArgSpec argSpec,
+                                              LookBehind lookBehind,
+                                              Range arity,
+                                              ArgumentCursor args,
+                                              Class<?> type,
+                                              String argDescription) throws Exception {
+            return consumeArguments(argSpec, lookBehind, arity, args, type, null, argDescription);
+        }
+
+        /** Consumes and converts the arguments for the specified option or positional parameter. If {@code primitives}
+         * is not {@code null}, values are added to it instead of to the returned list, which is then empty. */
         private List<Object> consumeArguments(ArgSpec argSpec,
                                               LookBehind lookBehind,
                                               Range arity,
-                                              Stack<String> args,
+                                              ArgumentCursor args,
                                               Class<?> type,
+                                              PrimitiveArrayBuilder primitives,
                                               String argDescription) throws Exception {
             List<Object> result = new ArrayList<Object>();
 
@@ -8879,11 +11515,11 @@ public class CommandLine {
             int initialSize = argSpec.stringValues().size();
             int consumed = consumedCount(0, initialSize, argSpec);
             for (int i = 0; consumed < arity.min && !args.isEmpty(); i++) {
-                List<Object> typedValuesAtPosition = new ArrayList<Object>();
+                List<Object> typedValuesAtPosition = primitives == null ? new ArrayList<Object>() : primitives.nextSlice();
                 parseResult.addTypedValues(argSpec, currentPosition++, typedValuesAtPosition);
                 assertNoMissingMandatoryParameter(argSpec, args, i, arity);
-                consumeOneArgument(argSpec, lookBehind, arity, consumed, args.pop(), type, typedValuesAtPosition, i, argDescription);
-                result.addAll(typedValuesAtPosition);
+                consumeOneArgument(argSpec, lookBehind, arity, consumed, args.pop(), type, typedValuesAtPosition, primitives, i, argDescription);
+                if (primitives == null) { result.addAll(typedValuesAtPosition); }
                 consumed = consumedCount(i + 1, initialSize, argSpec);
                 lookBehind = LookBehind.SEPARATE;
             }
@@ -8891,13 +11527,13 @@ public class CommandLine {
             for (int i = consumed; consumed < arity.max && !args.isEmpty(); i++) {
                 if (!varargCanConsumeNextValue(argSpec, args.peek())) { break; }
 
-                List<Object> typedValuesAtPosition = new ArrayList<Object>();
+                List<Object> typedValuesAtPosition = primitives == null ? new ArrayList<Object>() : primitives.nextSlice();
                 parseResult.addTypedValues(argSpec, currentPosition++, typedValuesAtPosition);
-                if (!canConsumeOneArgument(argSpec, arity, consumed, args.peek(), type, argDescription)) {
+                if (!canConsumeOneArgument(argSpec, arity, consumed, args.peek(), type, primitives, argDescription)) {
                     break; // leave empty list at argSpec.typedValueAtPosition[currentPosition] so we won't try to consume that position again
                 }
-                consumeOneArgument(argSpec, lookBehind, arity, consumed, args.pop(), type, typedValuesAtPosition, i, argDescription);
-                result.addAll(typedValuesAtPosition);
+                consumeOneArgument(argSpec, lookBehind, arity, consumed, args.pop(), type, typedValuesAtPosition, primitives, i, argDescription);
+                if (primitives == null) { result.addAll(typedValuesAtPosition); }
                 consumed = consumedCount(i + 1, initialSize, argSpec);
                 lookBehind = LookBehind.SEPARATE;
             }
@@ -8922,36 +11558,43 @@ public class CommandLine {
                                        String arg,
                                        Class<?> type,
                                        List<Object> result,
+                                       PrimitiveArrayBuilder primitives,
                                        int index,
                                        String argDescription) {
             if (!lookBehind.isAttached()) { parseResult.nowProcessing(argSpec, arg); }
             String raw = trim(arg);
-            String[] values = argSpec.splitValue(raw, commandSpec.parser(), arity, consumed);
+            String[] values = argSpec.splitValue(raw, commandSpec.parser(), arity, consumed, tracer);
             ITypeConverter<?> converter = getTypeConverter(type, argSpec, 0);
             for (int j = 0; j < values.length; j++) {
-                result.add(tryConvert(argSpec, index, converter, values[j], type));
-                if (tracer.isInfo()) {
-                    tracer.info("Adding [%s] to %s for %s%n", String.valueOf(result.get(result.size() - 1)), argSpec.toString(), argDescription);
+                if (primitives == null) {
+                    result.add(tryConvert(argSpec, index, converter, values[j], type));
+                } else {
+                    tryConvert(argSpec, index, converter, values[j], type, primitives, true);
                 }
+                if (tracer.isInfo()) {tracer.info("Adding [%s] to %s for %s%n", String.valueOf(result.get(result.size() - 1)), argSpec.toString(), argDescription);}
                 parseResult.addStringValue(argSpec, values[j]);
             }
             parseResult.addOriginalStringValue(argSpec, raw);
             return ++index;
         }
-        private boolean canConsumeOneArgument(ArgSpec argSpec, Range arity, int consumed, String arg, Class<?> type, String argDescription) {
+        private boolean canConsumeOneArgument(ArgSpec argSpec, Range arity, int consumed, String arg, Class<?> type, PrimitiveArrayBuilder primitives, String argDescription) {
             ITypeConverter<?> converter = getTypeConverter(type, argSpec, 0);
             try {
-                String[] values = argSpec.splitValue(trim(arg), commandSpec.parser(), arity, consumed);
+                String[] values = argSpec.splitValue(trim(arg), commandSpec.parser(), arity, consumed, tracer);
 //                if (!argSpec.acceptsValues(values.length, commandSpec.parser())) {
 //                    tracer.debug("$s would split into %s values but %s cannot accept that many values.%n", arg, values.length, argDescription);
 //                    return false;
 //                }
                 for (String value : values) {
-                    tryConvert(argSpec, -1, converter, value, type);
+                    if (primitives == null) {
+                        tryConvert(argSpec, -1, converter, value, type);
+                    } else {
+                        tryConvert(argSpec, -1, converter, value, type, primitives, false);
+                    }
                 }
                 return true;
             } catch (PicocliException ex) {
-                tracer.debug("$s cannot be assigned to %s: type conversion fails: %s.%n", arg, argDescription, ex.getMessage());
+                if (tracer.isDebug()) {tracer.debug("$s cannot be assigned to %s: type conversion fails: %s.%n", arg, argDescription, ex.getMessage());}
                 return false;
             }
         }
@@ -8977,19 +11620,80 @@ public class CommandLine {
             if ("--".equals(arg)) { return true; }
 
             // not just arg prefix: we may be in the middle of parsing -xrvfFILE
-            if (commandSpec.optionsMap().containsKey(arg)) { // -v or -f or --file (not attached to param or other option)
-                return true;
-            }
+            OptionNameTrie trie = commandSpec.optionNameTrie();
             int separatorIndex = arg.indexOf(config().separator());
-            if (separatorIndex > 0) { // -f=FILE or --file==FILE (attached to param via separator)
-                if (commandSpec.optionsMap().containsKey(arg.substring(0, separatorIndex))) {
+            int end = separatorIndex > 0 ? separatorIndex : arg.length();
+            OptionNameTrie.Node node = trie.find(arg, end);
+            if (node != null) {
+                if (node.name != null) { // -v or -f or --file, or -f=FILE or --file==FILE (attached to param via separator)
+                    return true;
+                }
+                if (OptionNameTrie.name(trie.find(node, arg, end, arg.length())) != null) { // option name containing the separator
+                    return true;
+                }
+                if (config().abbreviatedOptionsAllowed() && OptionNameTrie.isAbbreviation(arg, end)) { // --verb for --verbose
                     return true;
                 }
             }
-            return (arg.length() > 2 && arg.startsWith("-") && commandSpec.posixOptionsMap().containsKey(arg.charAt(1)));
+            return (arg.length() > 2 && arg.startsWith("-") && commandSpec.posixOptionsByKeyMap.containsKey(arg.charAt(1)));
         }
         private Object tryConvert(ArgSpec argSpec, int index, ITypeConverter<?> converter, String value, Class<?> type)
                 throws ParameterException {
+            if (metricsListener == null) { return convertCached(argSpec, index, converter, value, type); }
+            long start = System.nanoTime();
+            try {
+                return convertCached(argSpec, index, converter, value, type);
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                phaseNanos[IMetricsListener.Phase.TYPE_CONVERSION.ordinal()] += elapsed;
+                phaseCounts[IMetricsListener.Phase.TYPE_CONVERSION.ordinal()]++;
+                excludedNanos += elapsed;
+            }
+        }
+        /** Parses the specified value into the specified primitive buffer (if {@code add} is {@code true}), or only checks
+         * that it can be parsed. Invalid values are passed to the converter to get the same error message as for boxed values. */
+        private void tryConvert(ArgSpec argSpec, int index, ITypeConverter<?> converter, String value, Class<?> type,
+                                PrimitiveArrayBuilder primitives, boolean add) throws ParameterException {
+            long start = metricsListener == null ? 0 : System.nanoTime();
+            try {
+                if (add) { primitives.add(value); } else { primitives.check(value); }
+            } catch (NumberFormatException ex) {
+                convert(argSpec, index, converter, value, type); // throws ParameterException
+                throw new IllegalStateException("Converter accepted invalid value '" + value + "' for " + type);
+            } finally {
+                if (metricsListener != null) {
+                    long elapsed = System.nanoTime() - start;
+                    phaseNanos[IMetricsListener.Phase.TYPE_CONVERSION.ordinal()] += elapsed;
+                    phaseCounts[IMetricsListener.Phase.TYPE_CONVERSION.ordinal()]++;
+                    excludedNanos += elapsed;
+                }
+            }
+        }
+        /** Returns the previously converted value if the same converter already converted the same String for the
+         * specified option or positional parameter during this parse, otherwise converts the value and remembers the result. */
+        private Object convertCached(ArgSpec argSpec, int index, ITypeConverter<?> converter, String value, Class<?> type)
+                throws ParameterException {
+            int maxSize = config().conversionCacheSize();
+            if (maxSize <= 0) { return convert(argSpec, index, converter, value, type); }
+            Map<ITypeConverter<?>, Map<String, Object>> caches = conversionCaches.get(argSpec);
+            if (caches == null) {
+                caches = new IdentityHashMap<ITypeConverter<?>, Map<String, Object>>(2);
+                conversionCaches.put(argSpec, caches);
+            }
+            Map<String, Object> cache = caches.get(converter);
+            if (cache == null) {
+                cache = new LruCache<String, Object>(maxSize);
+                caches.put(converter, cache);
+            }
+            Object result = cache.get(value);
+            if (result == null && !cache.containsKey(value)) {
+                result = convert(argSpec, index, converter, value, type);
+                cache.put(value, result);
+            }
+            return result;
+        }
+        private Object convert(ArgSpec argSpec, int index, ITypeConverter<?> converter, String value, Class<?> type)
+                throws ParameterException {
             try {
                 return converter.convert(value);
             } catch (TypeConversionException ex) {
@@ -9066,35 +11770,52 @@ public class CommandLine {
             if (argSpec.converters().length > index) { return argSpec.converters()[index]; }
             if (converterRegistry.containsKey(type)) { return converterRegistry.get(type); }
             if (type.isEnum()) {
-                return new ITypeConverter<Object>() {
-                    @SuppressWarnings("unchecked")
-                    public Object convert(String value) throws Exception {
-                        String sensitivity = "case-sensitive";
-                        if (commandSpec.parser().caseInsensitiveEnumValuesAllowed()) {
-                            String upper = value.toUpperCase();
-                            for (Object enumConstant : type.getEnumConstants()) {
-                                if (upper.equals(String.valueOf(enumConstant).toUpperCase())) { return enumConstant; }
-                            }
-                            sensitivity = "case-insensitive";
-                        }
-                        try { return Enum.valueOf((Class<Enum>) type, value); }
-                        catch (Exception ex) {
-                            Enum<?>[] constants = ((Class<Enum<?>>) type).getEnumConstants();
-                            String[] names = new String[constants.length];
-                            for (int i = 0; i < names.length; i++) { names[i] = constants[i].name(); }
-                            throw new TypeConversionException(
-                                String.format("expected one of %s (%s) but was '%s'", Arrays.asList(names), sensitivity, value)); }
-                    }
-                };
+                EnumConverter result = enumConverters.get(type);
+                if (result == null) {
+                    result = new EnumConverter(type);
+                    enumConverters.put(type, result);
+                }
+                return result;
             }
             throw new MissingTypeConverterException(CommandLine.this, "No TypeConverter registered for " + type.getName() + " of " + argSpec);
         }
 
-        private boolean assertNoMissingParameters(ArgSpec argSpec, Range arity, Stack<String> args) {
+        /** Converts Strings to the constants of an enum type with a lookup table that is built once per enum type.
+         * Constants are looked up by {@code name()}, or, if {@link ParserSpec#caseInsensitiveEnumValuesAllowed()}, by
+         * the upper case {@code toString()} value. */
+        private class EnumConverter implements ITypeConverter<Object> {
+            private final Map<String, Object> byName = new HashMap<String, Object>();
+            private final Map<String, Object> byUpperCaseValue = new HashMap<String, Object>();
+            private final List<String> names = new ArrayList<String>();
+
+            EnumConverter(Class<?> type) {
+                for (Object enumConstant : type.getEnumConstants()) {
+                    String name = ((Enum<?>) enumConstant).name();
+                    names.add(name);
+                    byName.put(name, enumConstant);
+                    String upper = String.valueOf(enumConstant).toUpperCase();
+                    if (!byUpperCaseValue.containsKey(upper)) { byUpperCaseValue.put(upper, enumConstant); }
+                }
+            }
+            public Object convert(String value) {
+                String sensitivity = "case-sensitive";
+                if (commandSpec.parser().caseInsensitiveEnumValuesAllowed()) {
+                    Object result = byUpperCaseValue.get(value.toUpperCase());
+                    if (result != null) { return result; }
+                    sensitivity = "case-insensitive";
+                }
+                Object result = byName.get(value);
+                if (result != null) { return result; }
+                throw new TypeConversionException(
+                        String.format("expected one of %s (%s) but was '%s'", names, sensitivity, value));
+            }
+        }
+
+        private boolean assertNoMissingParameters(ArgSpec argSpec, Range arity, ArgumentCursor args) {
             if (argSpec.interactive()) { return true; }
             int available = args.size();
             if (available > 0 && commandSpec.parser().splitFirst() && argSpec.splitRegex().length() > 0) {
-                available += argSpec.splitValue(args.peek(), commandSpec.parser(), arity, 0).length - 1;
+                available += argSpec.splitValue(args.peek(), commandSpec.parser(), arity, 0, tracer).length - 1;
             }
             if (arity.min > available) {
                 if (arity.min == 1) {
@@ -9126,7 +11847,7 @@ public class CommandLine {
                             " requires at least " + arity.min + " values, but none were specified."));
                 } else {
                     maybeThrow(new MissingParameterException(CommandLine.this, argSpec, optionDescription("", argSpec, 0) +
-                            " requires at least " + arity.min + " values, but only " + available + " were specified: " + reverse(args)));
+                            " requires at least " + arity.min + " values, but only " + available + " were specified: " + args));
                 }
                 return false;
             }
@@ -9357,6 +12078,95 @@ public class CommandLine {
                 traced.add(fqcn);
             }
         }
+
+        private static volatile SharedRegistry shared;
+
+        /** Returns the process-wide table of built-in converters, creating it on first use. The table is rebuilt only
+         * when the value of the {@code picocli.converters.excludes} system property changed since it was last built.
+         * The returned map is unmodifiable; callers that need to add converters must make a copy first. */
+        static Map<Class<?>, ITypeConverter<?>> converters(Tracer tracer) {
+            String excludes = System.getProperty("picocli.converters.excludes", "");
+            SharedRegistry current = shared;
+            if (current == null || !current.excludes.equals(excludes)) {
+                synchronized (BuiltIn.class) {
+                    current = shared;
+                    if (current == null || !current.excludes.equals(excludes)) {
+                        current = new SharedRegistry(excludes, Collections.unmodifiableMap(createRegistry(tracer)));
+                        shared = current;
+                    }
+                }
+            }
+            return current.converters;
+        }
+        private static class SharedRegistry {
+            final String excludes;
+            final Map<Class<?>, ITypeConverter<?>> converters;
+            SharedRegistry(String excludes, Map<Class<?>, ITypeConverter<?>> converters) {
+                this.excludes = excludes;
+                this.converters = converters;
+            }
+        }
+        private static Map<Class<?>, ITypeConverter<?>> createRegistry(Tracer tracer) {
+            Map<Class<?>, ITypeConverter<?>> result = new HashMap<Class<?>, ITypeConverter<?>>();
+            result.put(Object.class,        new StringConverter());
+            result.put(String.class,        new StringConverter());
+            result.put(StringBuilder.class, new StringBuilderConverter());
+            result.put(CharSequence.class,  new CharSequenceConverter());
+            result.put(Byte.class,          new ByteConverter());
+            result.put(Byte.TYPE,           new ByteConverter());
+            result.put(Boolean.class,       new BooleanConverter());
+            result.put(Boolean.TYPE,        new BooleanConverter());
+            result.put(Character.class,     new CharacterConverter());
+            result.put(Character.TYPE,      new CharacterConverter());
+            result.put(Short.class,         new ShortConverter());
+            result.put(Short.TYPE,          new ShortConverter());
+            result.put(Integer.class,       new IntegerConverter());
+            result.put(Integer.TYPE,        new IntegerConverter());
+            result.put(Long.class,          new LongConverter());
+            result.put(Long.TYPE,           new LongConverter());
+            result.put(Float.class,         new FloatConverter());
+            result.put(Float.TYPE,          new FloatConverter());
+            result.put(Double.class,        new DoubleConverter());
+            result.put(Double.TYPE,         new DoubleConverter());
+            result.put(File.class,          new FileConverter());
+            result.put(URI.class,           new URIConverter());
+            result.put(URL.class,           new URLConverter());
+            result.put(Date.class,          new ISO8601DateConverter());
+            result.put(BigDecimal.class,    new BigDecimalConverter());
+            result.put(BigInteger.class,    new BigIntegerConverter());
+            result.put(Charset.class,       new CharsetConverter());
+            result.put(InetAddress.class,   new InetAddressConverter());
+            result.put(Pattern.class,       new PatternConverter());
+            result.put(UUID.class,          new UUIDConverter());
+            result.put(Currency.class,      new CurrencyConverter());
+            result.put(TimeZone.class,      new TimeZoneConverter());
+            result.put(ByteOrder.class,     new ByteOrderConverter());
+            result.put(Class.class,         new ClassConverter());
+            result.put(NetworkInterface.class, new NetworkInterfaceConverter());
+
+            ISO8601TimeConverter.registerIfAvailable(result, tracer);
+            registerIfAvailable(result, tracer, "java.sql.Connection", "java.sql.DriverManager","getConnection", String.class);
+            registerIfAvailable(result, tracer, "java.sql.Driver", "java.sql.DriverManager","getDriver", String.class);
+            registerIfAvailable(result, tracer, "java.sql.Timestamp", "java.sql.Timestamp","valueOf", String.class);
+
+            registerIfAvailable(result, tracer, "java.time.Duration", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.Instant", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.LocalDate", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.LocalDateTime", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.LocalTime", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.MonthDay", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.OffsetDateTime", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.OffsetTime", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.Period", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.Year", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.YearMonth", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.ZonedDateTime", "parse", CharSequence.class);
+            registerIfAvailable(result, tracer, "java.time.ZoneId", "of", String.class);
+            registerIfAvailable(result, tracer, "java.time.ZoneOffset", "of", String.class);
+
+            registerIfAvailable(result, tracer, "java.nio.file.Path", "java.nio.file.Paths", "get", String.class, String[].class);
+            return result;
+        }
         static boolean excluded(String fqcn, Tracer tracer) {
             String[] excludes = System.getProperty("picocli.converters.excludes", "").split(",");
             for (String regex : excludes) {
@@ -9368,9 +12178,19 @@ public class CommandLine {
             return false;
         }
         static Set<String> traced = new HashSet<String>();
+        /** Converts Strings by invoking a static factory method like {@code java.time.LocalDate.parse(CharSequence)}.
+         * The method is invoked reflectively at first. After {@link #INFLATION_THRESHOLD} conversions, when running on
+         * Java 8 or later, a converter that invokes the factory method directly is generated with
+         * {@code java.lang.invoke.LambdaMetafactory}, so that options with many values avoid the overhead of
+         * {@code Method.invoke}. Generating this converter has a one-time cost, which is why it is not done up front. */
         static class ReflectionConverter implements ITypeConverter<Object> {
+            static final int INFLATION_THRESHOLD = 1000;
+            private static final String[] NO_MORE = new String[0];
             private final Method method;
             private Class<?>[] paramTypes;
+            private final AtomicInteger invocations = new AtomicInteger();
+            private final AtomicBoolean inflated = new AtomicBoolean();
+            private volatile ITypeConverter<?> generated;
 
             public ReflectionConverter(Method method, Class<?>... paramTypes) {
                 this.method = Assert.notNull(method, "method");
@@ -9378,18 +12198,61 @@ public class CommandLine {
             }
 
             public Object convert(String s) {
+                ITypeConverter<?> direct = generated;
+                // converters are shared and may be called concurrently: only one thread generates the direct converter
+                if (direct == null && paramTypes.length == 1 && !inflated.get()
+                        && invocations.incrementAndGet() >= INFLATION_THRESHOLD && inflated.compareAndSet(false, true)) {
+                    direct = generated = generate(method);
+                }
                 try {
-                    if (paramTypes.length > 1) {
-                        return method.invoke(null, s, new String[0]);
+                    if (direct != null) {
+                        return direct.convert(s);
+                    } else if (paramTypes.length > 1) {
+                        return method.invoke(null, s, NO_MORE);
                     } else {
                         return method.invoke(null, s);
                     }
                 } catch (InvocationTargetException e) {
                     throw new TypeConversionException(String.format("cannot convert '%s' to %s (%s)", s, method.getReturnType(), e.getTargetException()));
                 } catch (Exception e) {
+                    if (direct != null) {
+                        throw new TypeConversionException(String.format("cannot convert '%s' to %s (%s)", s, method.getReturnType(), e));
+                    }
                     throw new TypeConversionException(String.format("Internal error converting '%s' to %s (%s)", s, method.getReturnType(), e));
                 }
             }
+
+            /** Returns an {@code ITypeConverter} that invokes the specified static one-argument method directly,
+             * or {@code null} if the runtime does not support this (Java 7 and earlier). The {@code java.lang.invoke}
+             * API is accessed reflectively so that picocli can still be used on Java 5. */
+            static ITypeConverter<?> generate(Method method) {
+                if (!Modifier.isStatic(method.getModifiers()) || method.getParameterTypes().length != 1) { return null; }
+                try {
+                    Class<?> methodHandles = Class.forName("java.lang.invoke.MethodHandles");
+                    Class<?> lookupClass = Class.forName("java.lang.invoke.MethodHandles$Lookup");
+                    Class<?> methodTypeClass = Class.forName("java.lang.invoke.MethodType");
+                    Class<?> methodHandleClass = Class.forName("java.lang.invoke.MethodHandle");
+                    Class<?> metafactory = Class.forName("java.lang.invoke.LambdaMetafactory");
+
+                    Object lookup = methodHandles.getMethod("lookup").invoke(null);
+                    Object implementation = lookupClass.getMethod("unreflect", Method.class).invoke(lookup, method);
+                    Method methodType = methodTypeClass.getMethod("methodType", Class.class, Class[].class);
+                    Object factoryType = methodType.invoke(null, ITypeConverter.class, new Class<?>[0]);
+                    Object erasedType = methodType.invoke(null, Object.class, new Class<?>[] {String.class});
+                    Object instantiatedType = methodType.invoke(null, method.getReturnType(), new Class<?>[] {String.class});
+
+                    Object callSite = metafactory.getMethod("metafactory", lookupClass, String.class, methodTypeClass,
+                            methodTypeClass, methodHandleClass, methodTypeClass)
+                            .invoke(null, lookup, "convert", factoryType, erasedType, implementation, instantiatedType);
+                    Object factory = callSite.getClass().getMethod("getTarget").invoke(callSite);
+                    return (ITypeConverter<?>) methodHandleClass.getMethod("invokeWithArguments", Object[].class)
+                            .invoke(factory, (Object) new Object[0]);
+                } catch (Exception java7OrOlder) {
+                    return null;
+                } catch (LinkageError unsupported) {
+                    return null;
+                }
+            }
         }
         private BuiltIn() {} // private constructor: never instantiate
     }
@@ -9446,7 +12309,7 @@ public class CommandLine {
             CommandLine parent = self == null ? null : self.getParent();
             if (parent == null) { return; }
             if (commands.length > 0) {
-                CommandLine subcommand = parent.getSubcommands().get(commands[0]);
+                CommandLine subcommand = parent.getCommandSpec().subcommands().get(commands[0]);
                 if (subcommand != null) {
                     subcommand.usage(out, ansi);
                 } else {
@@ -9465,6 +12328,90 @@ public class CommandLine {
         }
     }
 
+    /** Command that executes each line of a file as a separate command line of its parent command. For example:<pre>
+     *
+     * // execute the command lines in commands.txt
+     * command batch commands.txt
+     *
+     * // execute the command lines read from standard input, up to four at a time
+     * generate-commands | command batch --threads=4 -
+     * </pre><p>
+     * This command delegates to {@link CommandLine#executeBatch(Reader, PrintStream, PrintStream, Help.Ansi, int) executeBatch}
+     * of the parent command. The lines print to {@code System.out} and {@code System.err}, and use {@link Help.Ansi#AUTO}.
+     * By default, the lines are executed one at a time with the parent {@code CommandLine} itself, which is parsed again for each line.
+     * With {@code --threads} more than one, each thread executes its lines with a copy of the parent command. Copies are
+     * created from the annotated class of the parent command with its {@linkplain IFactory factory}, so this requires
+     * that the factory can instantiate the parent command and its subcommands, and that no options or positional
+     * parameters were added to them programmatically; otherwise this command fails before any line is executed.
+     * </p><p>
+     * When the batch completes, the line number and exit code of each line that did not complete normally are printed to
+     * {@code System.err}, and this command returns {@code 0} if all lines completed normally, or otherwise the exit code
+     * of the first line that did not. Applications can get the exit codes of all lines with {@link #getExitCodes()}.
+     * </p>
+     * For {@linkplain Messages internationalization}: this command has a {@code --help} option with {@code descriptionKey = "batchCommand.help"},
+     * a {@code --threads} option with {@code descriptionKey = "batchCommand.threads"},
+     * and a {@code FILE} positional parameter with {@code descriptionKey = "batchCommand.file"}.
+     * @since 4.0
+     */
+    @Command(name = "batch", header = "Executes the command lines in a file",
+            synopsisHeading = "%nUsage: ",
+            description = {"%nEach line of FILE is executed as a separate command line.",
+                    "Arguments are separated by whitespace and can be quoted like in @-files.%n"})
+    public static final class BatchCommand implements Callable<Integer> {
+
+        @Option(names = {"-h", "--help"}, usageHelp = true, descriptionKey = "batchCommand.help",
+                description = "Show usage help for the batch command and exit.")
+        private boolean helpRequested;
+
+        @Option(names = {"-t", "--threads"}, paramLabel = "N", descriptionKey = "batchCommand.threads",
+                description = "Execute up to N command lines at the same time, each with a copy of the command. Only use this when the commands do not share state. The default is 1.")
+        private int threads = 1;
+
+        @Parameters(paramLabel = "FILE", descriptionKey = "batchCommand.file",
+                    description = "The file with the command lines to execute, or - to read them from standard input.")
+        private File file;
+
+        @Spec
+        private CommandSpec spec;
+
+        private List<Integer> exitCodes = Collections.emptyList();
+
+        /** Executes the command lines in the file with the parent command.
+         * @return {@code 0} if all lines completed normally, otherwise the exit code of the first line that did not */
+        public Integer call() {
+            CommandSpec parent = spec.parent();
+            if (parent == null) { return 0; }
+            if (threads < 1) { throw new ParameterException(spec.commandLine(), "Invalid value for option '--threads': " + threads + " is less than 1"); }
+            File file = this.file; // executing the lines may parse this command again
+            Charset charset = parent.parser().atFileCharset();
+            boolean stdin = "-".equals(file.getPath());
+            Reader reader;
+            try {
+                reader = new InputStreamReader(stdin ? System.in : new FileInputStream(file), charset);
+            } catch (FileNotFoundException ex) {
+                throw new ParameterException(spec.commandLine(), "Could not read batch file " + file + ": " + ex.getMessage());
+            }
+            try {
+                exitCodes = parent.commandLine().executeBatch(reader, System.out, System.err, Help.Ansi.AUTO, threads);
+            } catch (IOException ex) {
+                throw new ExecutionException(spec.commandLine(), "Could not read batch file " + file + ": " + ex, ex);
+            } finally {
+                if (!stdin) { try { reader.close(); } catch (IOException ignored) {} }
+            }
+            int result = 0;
+            for (int i = 0; i < exitCodes.size(); i++) {
+                if (exitCodes.get(i) != 0) {
+                    System.err.printf("Line %d: exit code %d%n", i + 1, exitCodes.get(i));
+                    if (result == 0) { result = exitCodes.get(i); }
+                }
+            }
+            return result;
+        }
+        /** Returns the exit code of each line executed by the most recent invocation of this command.
+         * @see CommandLine#executeBatch(Reader, PrintStream, PrintStream, Help.Ansi, int) */
+        public List<Integer> getExitCodes() { return exitCodes; }
+    }
+
     /** Help commands that provide usage help for other commands can implement this interface to be initialized with the information they need.
      * <p>The {@link #printHelpIfRequested(List, PrintStream, PrintStream, Help.Ansi) CommandLine::printHelpIfRequested} method calls the
      * {@link #init(CommandLine, picocli.CommandLine.Help.Ansi, PrintStream, PrintStream) init} method on commands marked as {@link Command#helpCommand() helpCommand}
@@ -9509,6 +12456,29 @@ public class CommandLine {
         String render(Help help);
     }
 
+    /**
+     * A section renderer that can write its section directly to an {@code Appendable}, instead of returning it as a String.
+     * When the usage help message is printed, picocli calls {@link #render(Help, Appendable)} with the destination stream,
+     * so large sections are written while they are being rendered, without first building the text of the whole section.
+     * The {@link #render(Help)} method is used when the section is needed as a String.
+     * <p>
+     * The predefined renderers of the parameter list, option list and command list sections implement this interface.
+     * </p>
+     * @see IHelpSectionRenderer
+     * @since 4.0
+     */
+    public interface IStreamingHelpSectionRenderer extends IHelpSectionRenderer {
+        /**
+         * Writes a section of the usage help to the specified {@code Appendable}. The text written must be the same
+         * as the text returned by {@link #render(Help)}.
+         * @param help the {@code Help} instance for which to render a section
+         * @param out the destination to write the section to
+         * @throws IOException if an I/O error occurs while writing
+         * @since 4.0
+         */
+        void render(Help help, Appendable out) throws IOException;
+    }
+
     /**
      * A collection of methods and inner classes that provide fine-grained control over the contents and layout of
      * the usage help message to display to end users when help is requested or invalid input values were specified.
@@ -9965,6 +12935,30 @@ public class CommandLine {
          * @return the fully formatted option list
          * @since 3.0 */
         public String optionList(Layout layout, Comparator<OptionSpec> optionSort, IParamLabelRenderer valueLabelRenderer) {
+            StringBuilder sb = new StringBuilder();
+            try {
+                writeOptionList(layout, optionSort, valueLabelRenderer, sb, false);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex); // StringBuilder does not throw IOException
+            }
+            return sb.toString();
+        }
+
+        /** Writes the same text as {@link #optionList()} to the specified {@code Appendable}. Each option is written as soon
+         * as it is laid out, so the full option list is never held in memory.
+         * <p>Subclasses that override {@link #optionList()} should also override this method.</p>
+         * @param out the {@code Appendable} to write the option list to
+         * @throws IOException if an I/O error occurs while writing
+         * @since 4.0 */
+        public void writeOptionList(Appendable out) throws IOException {
+            Comparator<OptionSpec> sortOrder = commandSpec.usageMessage().sortOptions()
+                    ? createShortOptionNameComparator()
+                    : createOrderComparatorIfNecessary(commandSpec.options());
+
+            writeOptionList(createLayout(calcLongOptionColumnWidth()), sortOrder, parameterLabelRenderer(), out, true);
+        }
+
+        private void writeOptionList(Layout layout, Comparator<OptionSpec> optionSort, IParamLabelRenderer valueLabelRenderer, Appendable out, boolean streaming) throws IOException {
             List<OptionSpec> options = new ArrayList<OptionSpec>(commandSpec.options()); // options are stored in order of declaration
             if (optionSort != null) {
                 Collections.sort(options, optionSort); // default: sort options ABC
@@ -9972,25 +12966,44 @@ public class CommandLine {
             List<ArgGroupSpec> groups = optionListGroups();
             for (ArgGroupSpec group : groups) { options.removeAll(group.options()); }
 
-            StringBuilder sb = new StringBuilder();
-            layout.addOptions(options, valueLabelRenderer);
-            sb.append(layout.toString());
+            writeArgs(layout, Collections.<PositionalParamSpec>emptyList(), options, valueLabelRenderer, out, streaming);
 
             int longOptionColumnWidth = calcLongOptionColumnWidth();
             Collections.sort(groups, new SortByOrder<ArgGroupSpec>());
             for (ArgGroupSpec group : groups) {
-                sb.append(heading(ansi(), width(), group.heading()));
+                out.append(heading(ansi(), width(), group.heading()));
 
-                Layout groupLayout = createLayout(longOptionColumnWidth);
-                groupLayout.addPositionalParameters(group.positionalParameters(), valueLabelRenderer);
                 List<OptionSpec> groupOptions = new ArrayList<OptionSpec>(group.options());
                 if (optionSort != null) {
                     Collections.sort(groupOptions, optionSort);
                 }
-                groupLayout.addOptions(groupOptions, valueLabelRenderer);
-                sb.append(groupLayout);
+                writeArgs(createLayout(longOptionColumnWidth), group.positionalParameters(), groupOptions, valueLabelRenderer, out, streaming);
+            }
+        }
+
+        /** Adds the specified positional parameters and options to the layout and writes the resulting rows.
+         * When streaming with a layout that is not customized, rows are written as each argument is added. */
+        private static void writeArgs(Layout layout, List<PositionalParamSpec> positionals, List<OptionSpec> options,
+                                      IParamLabelRenderer paramLabelRenderer, Appendable out, boolean streaming) throws IOException {
+            if (!streaming || layout.getClass() != Layout.class || layout.table.getClass() != TextTable.class) {
+                layout.addPositionalParameters(positionals, paramLabelRenderer);
+                layout.addOptions(options, paramLabelRenderer);
+                out.append(layout.toString());
+                return;
+            }
+            layout.table.flushTo(out);
+            for (PositionalParamSpec positional : positionals) {
+                if (!positional.hidden()) {
+                    layout.addPositionalParameter(positional, paramLabelRenderer);
+                    layout.table.flushTo(out);
+                }
+            }
+            for (OptionSpec option : options) {
+                if (!option.hidden()) {
+                    layout.addOption(option, paramLabelRenderer);
+                    layout.table.flushTo(out);
+                }
             }
-            return sb.toString();
         }
 
         /** Returns the list of {@code ArgGroupSpec}s with a non-{@code null} heading. */
@@ -10024,6 +13037,19 @@ public class CommandLine {
             return layout.toString();
         }
 
+        /** Writes the same text as {@link #parameterList()} to the specified {@code Appendable}. Each positional parameter
+         * is written as soon as it is laid out.
+         * <p>Subclasses that override {@link #parameterList()} should also override this method.</p>
+         * @param out the {@code Appendable} to write the parameter list to
+         * @throws IOException if an I/O error occurs while writing
+         * @since 4.0 */
+        public void writeParameterList(Appendable out) throws IOException {
+            List<PositionalParamSpec> positionals = new ArrayList<PositionalParamSpec>(commandSpec.positionalParameters());
+            for (ArgGroupSpec group : optionListGroups()) { positionals.removeAll(group.positionalParameters()); }
+
+            writeArgs(createLayout(calcLongOptionColumnWidth()), positionals, Collections.<OptionSpec>emptyList(), parameterLabelRenderer(), out, true);
+        }
+
         private static String heading(Ansi ansi, int usageWidth, String values, Object... params) {
             StringBuilder sb = join(ansi, usageWidth, new String[] {values}, new StringBuilder(), params);
             return trimLineSeparator(sb.toString()) + new String(spaces(countTrailingSpaces(values)));
@@ -10153,7 +13179,22 @@ public class CommandLine {
         /** Returns a 2-column list with command names and the first line of their header or (if absent) description.
          * @return a usage help section describing the added commands */
         public String commandList() {
-            if (subcommands().isEmpty()) { return ""; }
+            StringBuilder sb = new StringBuilder();
+            try {
+                writeCommandList(sb);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex); // StringBuilder does not throw IOException
+            }
+            return sb.toString();
+        }
+
+        /** Writes the same text as {@link #commandList()} to the specified {@code Appendable}, one command at a time.
+         * <p>Subclasses that override {@link #commandList()} should also override this method.</p>
+         * @param out the {@code Appendable} to write the command list to
+         * @throws IOException if an I/O error occurs while writing
+         * @since 4.0 */
+        public void writeCommandList(Appendable out) throws IOException {
+            if (subcommands().isEmpty()) { return; }
             int commandLength = maxLength(subcommands().keySet());
             Help.TextTable textTable = Help.TextTable.forColumns(ansi(),
                     new Help.Column(commandLength + 2, 2, Help.Column.Overflow.SPAN),
@@ -10169,8 +13210,8 @@ public class CommandLine {
                 for (int i = 0; i < lines.length; i++) {
                     textTable.addRowValues(i == 0 ? help.commandNamesText(", ") : Ansi.EMPTY_TEXT, lines[i]);
                 }
+                textTable.flushTo(out);
             }
-            return textTable.toString();
         }
         private static int maxLength(Collection<String> any) {
             List<String> strings = new ArrayList<String>(any);
@@ -10481,7 +13522,7 @@ public class CommandLine {
 
         private static Text[] createDescriptionFirstLines(ColorScheme scheme, ArgSpec arg, String[] description, boolean[] showDefault) {
             Text[] result = scheme.ansi().new Text(str(description, 0)).splitLines();
-            if (result.length == 0 || (result.length == 1 && result[0].plain.length() == 0)) {
+            if (result.length == 0 || (result.length == 1 && result[0].count == 0)) {
                 if (showDefault[0]) {
                     result = new Text[]{scheme.ansi().new Text("  Default: " + arg.defaultValueString())};
                     showDefault[0] = false; // don't show the default value twice
@@ -10915,44 +13956,45 @@ public class CommandLine {
                 if (row > rowCount() - 1) {
                     throw new IllegalArgumentException("Cannot write to row " + row + ": rowCount=" + rowCount());
                 }
-                if (value == null || value.plain.length() == 0) { return new Cell(col, row); }
+                if (value == null || value.count == 0) { return new Cell(col, row); }
                 Column column = columns[col];
                 int indent = column.indent;
+                int start = 0; // the first character of the value that was not written yet
                 switch (column.overflow) {
                     case TRUNCATE:
                         copy(value, textAt(row, col), indent);
                         return new Cell(col, row);
                     case SPAN:
                         int startColumn = col;
+                        BreakIterator spanBreakIterator = null;
                         do {
                             boolean lastColumn = col == columns.length - 1;
-                            int charsWritten = lastColumn
-                                    ? copy(BreakIterator.getLineInstance(), value, textAt(row, col), indent)
-                                    : copy(value, textAt(row, col), indent);
-                            value = value.substring(charsWritten);
+                            if (lastColumn && spanBreakIterator == null) { spanBreakIterator = lineBreakIterator(value); }
+                            start += lastColumn
+                                    ? copy(spanBreakIterator, value, start, textAt(row, col), indent)
+                                    : copy(value, start, value.length - start, textAt(row, col), indent);
                             indent = 0;
-                            if (value.length > 0) { // value did not fit in column
-                                ++col;                // write remainder of value in next column
+                            if (start < value.length) { // value did not fit in column
+                                ++col;                  // write remainder of value in next column
                             }
-                            if (value.length > 0 && col >= columns.length) { // we filled up all columns on this row
+                            if (start < value.length && col >= columns.length) { // we filled up all columns on this row
                                 addEmptyRow();
                                 row++;
                                 col = startColumn;
                                 indent = column.indent + indentWrappedLines;
                             }
-                        } while (value.length > 0);
+                        } while (start < value.length);
                         return new Cell(col, row);
                     case WRAP:
-                        BreakIterator lineBreakIterator = BreakIterator.getLineInstance();
+                        BreakIterator lineBreakIterator = lineBreakIterator(value);
                         do {
-                            int charsWritten = copy(lineBreakIterator, value, textAt(row, col), indent);
-                            value = value.substring(charsWritten);
+                            start += copy(lineBreakIterator, value, start, textAt(row, col), indent);
                             indent = column.indent + indentWrappedLines;
-                            if (value.length > 0) {  // value did not fit in column
-                                ++row;                 // write remainder of value in next row
+                            if (start < value.length) { // value did not fit in column
+                                ++row;                  // write remainder of value in next row
                                 addEmptyRow();
                             }
-                        } while (value.length > 0);
+                        } while (start < value.length);
                         return new Cell(col, row);
                 }
                 throw new IllegalStateException(column.overflow.toString());
@@ -10961,27 +14003,36 @@ public class CommandLine {
                 return str.length; // TODO count some characters as double length
             }
 
-            private int copy(BreakIterator line, Text text, Text columnValue, int offset) {
+            /** Returns a line BreakIterator over the whole value, so that wrapping a value over many rows scans it only once. */
+            private static BreakIterator lineBreakIterator(Text text) {
+                BreakIterator result = BreakIterator.getLineInstance();
                 // Deceive the BreakIterator to ensure no line breaks after '-' character
-                line.setText(text.plainString().replace("-", "\u00ff"));
+                result.setText(text.plainString().replace("-", "\u00ff"));
+                return result;
+            }
+            /** Writes as many words of the text, starting at the specified index, as fit in the column value and returns
+             * the number of characters written. The BreakIterator must have been created for the whole text. */
+            private static int copy(BreakIterator line, Text text, int start, Text columnValue, int offset) {
                 int done = 0;
-                for (int start = line.first(), end = line.next(); end != BreakIterator.DONE; start = end, end = line.next()) {
-                    Text word = text.substring(start, end); //.replace("\u00ff", "-"); // not needed
-                    if (columnValue.maxLength >= offset + done + length(word)) {
-                        done += copy(word, columnValue, offset + done); // TODO messages length
+                for (int end = line.following(start); end != BreakIterator.DONE; end = line.next()) {
+                    if (columnValue.maxLength >= offset + end - start) { // TODO messages length
+                        done = end - start;
                     } else {
                         break;
                     }
                 }
-                if (done == 0 && length(text) + offset > columnValue.maxLength) {
+                if (done == 0 && length(text) - start + offset > columnValue.maxLength) {
                     // The value is a single word that is too big to be written to the column. Write as much as we can.
-                    done = copy(text, columnValue, offset);
+                    return copy(text, start, length(text) - start, columnValue, offset);
                 }
-                return done;
+                return done == 0 ? 0 : copy(text, start, done, columnValue, offset);
             }
             private static int copy(Text value, Text destination, int offset) {
-                int length = Math.min(value.length, destination.maxLength - offset);
-                value.getStyledChars(value.from, length, destination, offset);
+                return copy(value, 0, value.length, destination, offset);
+            }
+            private static int copy(Text value, int start, int length, Text destination, int offset) {
+                length = Math.min(length, destination.maxLength - offset);
+                value.getStyledChars(value.from + start, length, destination, offset);
                 return length;
             }
 
@@ -10989,21 +14040,43 @@ public class CommandLine {
              * @param text the StringBuilder to write into
              * @return the specified StringBuilder object (to allow method chaining and a more fluid API) */
             public StringBuilder toString(StringBuilder text) {
+                try {
+                    writeTo(text);
+                } catch (IOException ex) {
+                    throw new IllegalStateException(ex); // StringBuilder does not throw IOException
+                }
+                return text;
+            }
+            /** Writes the text representation of this table to the specified {@code Appendable}, one row at a time,
+             * without first building the text of the whole table.
+             * @param out the {@code Appendable} to write the rows of this table to
+             * @throws IOException if an I/O error occurs while writing
+             * @since 4.0 */
+            public void writeTo(Appendable out) throws IOException {
                 int columnCount = this.columns.length;
                 StringBuilder row = new StringBuilder(tableWidth);
                 for (int i = 0; i < columnValues.size(); i++) {
                     Text column = columnValues.get(i);
                     row.append(column.toString());
-                    row.append(new String(spaces(columns[i % columnCount].width - column.length)));
+                    row.append(spaces(columns[i % columnCount].width - column.length));
                     if (i % columnCount == columnCount - 1) {
                         int lastChar = row.length() - 1;
                         while (lastChar >= 0 && row.charAt(lastChar) == ' ') {lastChar--;} // rtrim
                         row.setLength(lastChar + 1);
-                        text.append(row.toString()).append(System.getProperty("line.separator"));
+                        out.append(row).append(System.getProperty("line.separator"));
                         row.setLength(0);
                     }
                 }
-                return text;
+            }
+            /** Writes the rows of this table to the specified {@code Appendable} and removes them from this table.
+             * Rows added afterwards are written by the next call to this method. This allows large tables to be written
+             * while they are being filled, without keeping all rows in memory.
+             * @param out the {@code Appendable} to write the rows of this table to
+             * @throws IOException if an I/O error occurs while writing
+             * @since 4.0 */
+            public void flushTo(Appendable out) throws IOException {
+                writeTo(out);
+                columnValues.clear();
             }
             public String toString() { return toString(new StringBuilder()).toString(); }
         }
@@ -11345,14 +14418,34 @@ public class CommandLine {
                 public String on() { return String.format(CSI + "%d;5;%dm", fgbg, color); }
                 public String off() { return CSI + (fgbg + 1) + "m"; }
             }
-            private static class StyledSection {
-                int startIndex, length;
-                String startStyles, endStyles;
-                StyledSection(int start, int len, String style1, String style2) {
-                    startIndex = start; length = len; startStyles = style1; endStyles = style2;
-                }
-                StyledSection withStartIndex(int newStart) {
-                    return new StyledSection(newStart, length, startStyles, endStyles);
+            /** The plain text and style runs parsed from a string with markup like {@code @|bold text|@}.
+             * Each unique string is parsed once; Text objects created for the same string share these buffers. */
+            private static final class Markup {
+                private static final int MAX_CACHED_MARKUP = 1000;
+                private static final Map<String, Markup> CACHE = new LruCache<String, Markup>(MAX_CACHED_MARKUP);
+                private final char[] plain;
+                private final int length;
+                private final int[] runs;
+                private final String[] styles;
+                private final int runCount;
+
+                private Markup(Text parsed) {
+                    plain = parsed.plain;
+                    length = parsed.count;
+                    runs = parsed.runs;
+                    styles = parsed.styles;
+                    runCount = parsed.runCount;
+                }
+                static Markup compile(String input) {
+                    Markup result;
+                    synchronized (CACHE) { result = CACHE.get(input); }
+                    if (result == null) {
+                        Text parsed = OFF.new Text(input.length());
+                        parsed.parseMarkup(input);
+                        result = new Markup(parsed);
+                        synchronized (CACHE) { CACHE.put(input, result); }
+                    }
+                    return result;
                 }
             }
 
@@ -11367,10 +14460,8 @@ public class CommandLine {
                 if (plainText.length() == 0) { return new Text(0); }
                 Text result = new Text(plainText.length());
                 IStyle[] all = styles.toArray(new IStyle[styles.size()]);
-                result.sections.add(new StyledSection(
-                        0, plainText.length(), Style.on(all), Style.off(reverse(all)) + Style.reset.off()));
-                result.plain.append(plainText);
-                result.length = result.plain.length();
+                result.appendRun(0, plainText.length(), Style.on(all), Style.off(reverse(all)) + Style.reset.off());
+                result.appendChars(plainText, 0, plainText.length());
                 return result;
             }
 
@@ -11387,17 +14478,31 @@ public class CommandLine {
              * escape codes.
              * <p>
              * Internally keeps both an enriched and a plain text representation to allow layout components to calculate
-             * text width while remaining unaware of the embedded ANSI escape codes.</p> */
+             * text width while remaining unaware of the embedded ANSI escape codes.</p>
+             * <p>
+             * The plain text is kept in a {@code char[]} buffer and the styles are kept as runs of start index and length
+             * in an {@code int[]}. Substrings and copies share these buffers with the original Text; the buffers are only
+             * copied when a Text that shares them is used as the destination of {@link #getStyledChars(int, int, Text, int)}.</p> */
             public class Text implements Cloneable {
                 private final int maxLength;
                 private int from;
                 private int length;
-                private StringBuilder plain = new StringBuilder();
-                private List<StyledSection> sections = new ArrayList<StyledSection>();
+                private char[] plain;     // backing buffer, may be shared with other Text instances
+                private int count;        // number of characters in the backing buffer that belong to this Text
+                private int[] runs;       // start index and length of each styled run
+                private String[] styles;  // start styles and end styles of each styled run
+                private int runCount;
+                private boolean ordered = true; // true if the runs are sorted by start index and do not overlap
+                private boolean shared;   // true if the buffers must be copied before appending to them
 
                 /** Constructs a Text with the specified max length (for use in a TextTable Column).
                  * @param maxLength max length of this text */
-                public Text(int maxLength) { this.maxLength = maxLength; }
+                public Text(int maxLength) {
+                    this.maxLength = maxLength;
+                    plain = new char[Math.max(0, maxLength)];
+                    runs = new int[0];
+                    styles = new String[0];
+                }
 
                 /** Copy constructor.
                  * @since 3.9 */
@@ -11405,36 +14510,50 @@ public class CommandLine {
                     this.maxLength = other.maxLength;
                     this.from = other.from;
                     this.length = other.length;
-                    this.plain = new StringBuilder(other.plain);
-                    this.sections = new ArrayList<StyledSection>(other.sections);
+                    this.plain = other.plain;
+                    this.count = other.count;
+                    this.runs = other.runs;
+                    this.styles = other.styles;
+                    this.runCount = other.runCount;
+                    this.ordered = other.ordered;
+                    this.shared = true;
                 }
                 /**
                  * Constructs a Text with the specified String, which may contain markup like
                  * {@code @|bg(red),white,underline some text|@}.
+                 * Each unique string with markup is parsed only once: Text objects created for the same string
+                 * share the parsed plain text and styles.
                  * @param input the string with markup to parse
                  */
                 public Text(String input) {
                     maxLength = -1;
-                    plain.setLength(0);
+                    if (input.indexOf("@|") < 0) {
+                        plain = input.toCharArray();
+                        count = length = plain.length;
+                        runs = new int[0];
+                        styles = new String[0];
+                        return;
+                    }
+                    Markup markup = Markup.compile(input);
+                    plain = markup.plain;
+                    count = length = markup.length;
+                    runs = markup.runs;
+                    styles = markup.styles;
+                    runCount = markup.runCount;
+                    shared = true;
+                }
+                private void parseMarkup(String input) {
                     int i = 0;
-
                     while (true) {
                         int j = input.indexOf("@|", i);
                         if (j == -1) {
-                            if (i == 0) {
-                                plain.append(input);
-                                length = plain.length();
-                                return;
-                            }
-                            plain.append(input.substring(i, input.length()));
-                            length = plain.length();
+                            appendChars(input, i, input.length());
                             return;
                         }
-                        plain.append(input.substring(i, j));
+                        appendChars(input, i, j);
                         int k = input.indexOf("|@", j);
                         if (k == -1) {
-                            plain.append(input);
-                            length = plain.length();
+                            appendChars(input, 0, input.length());
                             return;
                         }
 
@@ -11442,30 +14561,89 @@ public class CommandLine {
                         String spec = input.substring(j, k);
                         String[] items = spec.split(" ", 2);
                         if (items.length == 1) {
-                            plain.append(input);
-                            length = plain.length();
+                            appendChars(input, 0, input.length());
                             return;
                         }
 
                         IStyle[] styles = Style.parse(items[0]);
-                        addStyledSection(plain.length(), items[1].length(),
-                                Style.on(styles), Style.off(reverse(styles)) + Style.reset.off());
-                        plain.append(items[1]);
+                        appendRun(count, items[1].length(), Style.on(styles), Style.off(reverse(styles)) + Style.reset.off());
+                        appendChars(items[1], 0, items[1].length());
                         i = k + 2;
                     }
                 }
-                private void addStyledSection(int start, int length, String startStyle, String endStyle) {
-                    sections.add(new StyledSection(start, length, startStyle, endStyle));
+                private void ensureCapacity(int extraChars, int extraRuns) {
+                    if (shared || count + extraChars > plain.length) {
+                        char[] chars = new char[Math.max(count + extraChars, shared ? count : plain.length * 2)];
+                        System.arraycopy(plain, 0, chars, 0, count);
+                        plain = chars;
+                    }
+                    if (shared || 2 * (runCount + extraRuns) > runs.length) {
+                        int capacity = 2 * Math.max(runCount + extraRuns, shared ? runCount : runs.length);
+                        int[] newRuns = new int[capacity];
+                        String[] newStyles = new String[capacity];
+                        System.arraycopy(runs, 0, newRuns, 0, 2 * runCount);
+                        System.arraycopy(styles, 0, newStyles, 0, 2 * runCount);
+                        runs = newRuns;
+                        styles = newStyles;
+                    }
+                    shared = false;
+                }
+                private void appendChars(String source, int start, int end) {
+                    ensureCapacity(end - start, 0);
+                    source.getChars(start, end, plain, count);
+                    count += end - start;
+                    length = count;
+                }
+                private void appendChars(char[] source, int start, int len) {
+                    ensureCapacity(len, 0);
+                    System.arraycopy(source, start, plain, count, len);
+                    count += len;
+                    length = count;
+                }
+                private void appendRun(int start, int len, String startStyles, String endStyles) {
+                    if (len <= 0) { return; }
+                    if (runCount > 0 && start < runs[2 * runCount - 2] + runs[2 * runCount - 1]) { ordered = false; }
+                    ensureCapacity(0, 1);
+                    runs[2 * runCount] = start;
+                    runs[2 * runCount + 1] = len;
+                    styles[2 * runCount] = startStyles;
+                    styles[2 * runCount + 1] = endStyles;
+                    runCount++;
+                }
+                /** Appends all styled runs of the source Text, shifted so that the specified start index maps to the specified
+                 * position. As with the styled sections of earlier versions, runs are not clipped to the copied characters,
+                 * only to the indices that can hold characters of this Text: from zero up to the specified limit. */
+                private void appendRuns(Text source, int start, int position, int limit) {
+                    for (int r = source.ordered ? source.firstRunEndingAfter(start - position) : 0; r < source.runCount; r++) {
+                        int runStart = position + source.runs[2 * r] - start;
+                        if (runStart >= limit && source.ordered) { break; }
+                        int runEnd = Math.min(runStart + source.runs[2 * r + 1], limit);
+                        runStart = Math.max(runStart, 0);
+                        appendRun(runStart, runEnd - runStart, source.styles[2 * r], source.styles[2 * r + 1]);
+                    }
+                }
+                /** Returns the index of the first styled run that ends after the specified index. Requires ordered runs. */
+                private int firstRunEndingAfter(int index) {
+                    int low = 0, high = runCount;
+                    while (low < high) {
+                        int mid = (low + high) >>> 1;
+                        if (runs[2 * mid] + runs[2 * mid + 1] <= index) { low = mid + 1; } else { high = mid; }
+                    }
+                    return low;
+                }
+                /** Returns the highest index that styled runs of this Text can usefully cover after it grows to the specified size. */
+                private int runLimit(int size) {
+                    return maxLength < 0 ? Integer.MAX_VALUE : Math.max(maxLength, size);
                 }
                 public Object clone() { return new Text(this); }
 
                 public Text[] splitLines() {
                     List<Text> result = new ArrayList<Text>();
                     int start = 0, end = 0;
-                    for (int i = 0; i < plain.length(); i++, end = i) {
-                        char c = plain.charAt(i);
+                    for (int i = 0; i < count; i++, end = i) {
+                        char c = plain[i];
                         boolean eol = c == '\n';
-                        if (c == '\r' && i + 1 < plain.length() && plain.charAt(i + 1) == '\n') { eol = true; i++; } // \r\n
+                        if (c == '\r' && i + 1 < count && plain[i + 1] == '\n') { eol = true; i++; } // \r\n
                         eol |= c == '\r';
                         if (eol) {
                             result.add(this.substring(start, end));
@@ -11473,11 +14651,12 @@ public class CommandLine {
                         }
                     }
                     // add remainder (may be empty string)
-                    result.add(this.substring(start, plain.length()));
+                    result.add(this.substring(start, count));
                     return result.toArray(new Text[result.size()]);
                 }
 
                 /** Returns a new {@code Text} instance that is a substring of this Text. Does not modify this instance!
+                 * The returned Text shares the character buffer of this Text.
                  * @param start index in the plain text where to start the substring
                  * @return a new Text instance that is a substring of this Text */
                 public Text substring(int start) {
@@ -11485,6 +14664,7 @@ public class CommandLine {
                 }
 
                 /** Returns a new {@code Text} instance that is a substring of this Text. Does not modify this instance!
+                 * The returned Text shares the character buffer of this Text.
                  * @param start index in the plain text where to start the substring
                  * @param end index in the plain text where to end the substring
                  * @return a new Text instance that is a substring of this Text */
@@ -11510,21 +14690,20 @@ public class CommandLine {
                  * @return a new Text instance
                  * @since 3.0 */
                 public Text concat(Text other) {
-                    Text result = (Text) clone();
-                    result.plain = new StringBuilder(plain.toString().substring(from, from + length));
-                    result.from = 0;
-                    result.sections = new ArrayList<StyledSection>();
-                    for (StyledSection section : sections) {
-                        result.sections.add(section.withStartIndex(section.startIndex - from));
-                    }
-                    result.plain.append(other.plain.toString().substring(other.from, other.from + other.length));
-                    for (StyledSection section : other.sections) {
-                        int index = result.length + section.startIndex - other.from;
-                        result.sections.add(section.withStartIndex(index));
-                    }
-                    result.length = result.plain.length();
+                    Text result = new Text(maxLength, length + other.length, runCount + other.runCount);
+                    int limit = result.runLimit(length + other.length);
+                    result.appendRuns(this, from, 0, limit);
+                    result.appendChars(plain, from, length);
+                    result.appendRuns(other, other.from, length, limit);
+                    result.appendChars(other.plain, other.from, other.length);
                     return result;
                 }
+                private Text(int maxLength, int capacity, int runCapacity) {
+                    this.maxLength = maxLength;
+                    plain = new char[capacity];
+                    runs = new int[2 * runCapacity];
+                    styles = new String[2 * runCapacity];
+                }
 
                 /**
                  * Copies the specified substring of this Text into the specified destination, preserving the markup.
@@ -11535,20 +14714,18 @@ public class CommandLine {
                  */
                 public void getStyledChars(int from, int length, Text destination, int offset) {
                     if (destination.length < offset) {
+                        destination.ensureCapacity(offset - destination.length + length, 0);
                         for (int i = destination.length; i < offset; i++) {
-                            destination.plain.append(' ');
+                            destination.plain[destination.count++] = ' ';
                         }
                         destination.length = offset;
                     }
-                    for (StyledSection section : sections) {
-                        destination.sections.add(section.withStartIndex(section.startIndex - from + destination.length));
-                    }
-                    destination.plain.append(plain.toString().substring(from, from + length));
-                    destination.length = destination.plain.length();
+                    destination.appendRuns(this, from, destination.length, destination.runLimit(destination.count + length));
+                    destination.appendChars(plain, from, length);
                 }
                 /** Returns the plain text without any formatting.
                  * @return the plain text without any formatting */
-                public String plainString() {  return plain.toString().substring(from, from + length); }
+                public String plainString() { return new String(plain, from, length); }
 
                 public boolean equals(Object obj) { return toString().equals(String.valueOf(obj)); }
                 public int hashCode() { return toString().hashCode(); }
@@ -11558,32 +14735,46 @@ public class CommandLine {
                  * @return a String representation of the text with ANSI escape codes embedded (if enabled) */
                 public String toString() {
                     if (!Ansi.this.enabled()) {
-                        return plain.toString().substring(from, from + length);
+                        return plainString();
                     }
                     if (length == 0) { return ""; }
-                    StringBuilder sb = new StringBuilder(plain.length() + 20 * sections.size());
-                    StyledSection current = null;
-                    int end = Math.min(from + length, plain.length());
-                    for (int i = from; i < end; i++) {
-                        StyledSection section = findSectionContaining(i);
-                        if (section != current) {
-                            if (current != null) { sb.append(current.endStyles); }
-                            if (section != null) { sb.append(section.startStyles); }
-                            current = section;
+                    int end = Math.min(from + length, count);
+                    if (ordered) {
+                        StringBuilder sb = new StringBuilder(length + 20 * runCount);
+                        int pos = from;
+                        for (int r = firstRunEndingAfter(from); r < runCount && runs[2 * r] < end; r++) {
+                            int runStart = Math.max(runs[2 * r], from);
+                            int runEnd = Math.min(runs[2 * r] + runs[2 * r + 1], end);
+                            sb.append(plain, pos, runStart - pos);
+                            sb.append(styles[2 * r]).append(plain, runStart, runEnd - runStart).append(styles[2 * r + 1]);
+                            pos = runEnd;
                         }
-                        sb.append(plain.charAt(i));
+                        sb.append(plain, pos, end - pos);
+                        return sb.toString();
                     }
-                    if (current != null) { sb.append(current.endStyles); }
-                    return sb.toString();
-                }
-
-                private StyledSection findSectionContaining(int index) {
-                    for (StyledSection section : sections) {
-                        if (index >= section.startIndex && index < section.startIndex + section.length) {
-                            return section;
+                    int[] overlapping = new int[runCount];
+                    int overlapCount = 0;
+                    for (int r = 0; r < runCount; r++) {
+                        if (runs[2 * r] < end && runs[2 * r] + runs[2 * r + 1] > from) { overlapping[overlapCount++] = r; }
+                    }
+                    StringBuilder sb = new StringBuilder(length + 20 * overlapCount);
+                    // each character has the styles of the first run that contains it
+                    int current = -1;
+                    for (int i = from; i < end; i++) {
+                        int run = -1;
+                        for (int j = 0; j < overlapCount && run < 0; j++) {
+                            int r = overlapping[j];
+                            if (i >= runs[2 * r] && i < runs[2 * r] + runs[2 * r + 1]) { run = r; }
+                        }
+                        if (run != current) {
+                            if (current >= 0) { sb.append(styles[2 * current + 1]); }
+                            if (run >= 0) { sb.append(styles[2 * run]); }
+                            current = run;
                         }
+                        sb.append(plain[i]);
                     }
-                    return null;
+                    if (current >= 0) { sb.append(styles[2 * current + 1]); }
+                    return sb.toString();
                 }
             }
         }
@@ -11622,9 +14813,21 @@ public class CommandLine {
         private String prefix(String msg) { return "[picocli " + this + "] " + msg; }
         static TraceLevel lookup(String key) { return key == null ? WARN : empty(key) || "true".equalsIgnoreCase(key) ? INFO : valueOf(key); }
     }
+    /** Prints trace messages to {@code System.err}. The trace level is determined by the {@code picocli.trace} system property
+     * when the tracer is created. Callers on the parse path should guard calls whose parameters are not readily available
+     * with {@link #isDebug()} or {@link #isInfo()}, and pass objects rather than formatted strings as parameters,
+     * so that nothing is computed or allocated for tracing when the trace level is lower. */
     static class Tracer {
-        TraceLevel level = TraceLevel.lookup(System.getProperty("picocli.trace"));
+        private static volatile Object[] cache = {null, TraceLevel.WARN}; // the last picocli.trace value and its trace level
+        TraceLevel level = level(System.getProperty("picocli.trace"));
         PrintStream stream = System.err;
+        private static TraceLevel level(String key) {
+            Object[] cached = cache;
+            if (key == cached[0] || (key != null && key.equals(cached[0]))) { return (TraceLevel) cached[1]; }
+            TraceLevel result = TraceLevel.lookup(key);
+            cache = new Object[] {key, result};
+            return result;
+        }
         void warn (String msg, Object... params) { TraceLevel.WARN.print(this, msg, params); }
         void info (String msg, Object... params) { TraceLevel.INFO.print(this, msg, params); }
         void debug(String msg, Object... params) { TraceLevel.DEBUG.print(this, msg, params); }
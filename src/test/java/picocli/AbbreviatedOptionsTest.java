@@ -0,0 +1,140 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionNameTrie;
+import picocli.CommandLine.Model.OptionSpec;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AbbreviatedOptionsTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    static class App {
+        @Option(names = {"-v", "--verbose"}) boolean verbose;
+        @Option(names = "--version-file") String versionFile;
+        @Option(names = {"-c", "--count"}) int count;
+        @Option(names = "--colour") String colour;
+        @Option(names = "-x") boolean x;
+        @Parameters List<String> params;
+    }
+
+    @Test
+    public void testAbbreviationsAreNotAllowedByDefault() {
+        CommandLine cmd = new CommandLine(new App());
+        assertFalse(cmd.isAbbreviatedOptionsAllowed());
+        try {
+            cmd.parse("--verb");
+            fail("Expected exception");
+        } catch (UnmatchedArgumentException ex) {
+            assertEquals("Unknown option: --verb", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testUniqueAbbreviationIsExpanded() {
+        App app = new App();
+        new CommandLine(app).setAbbreviatedOptionsAllowed(true).parse("--verb", "--cou", "3", "--vers=file.txt", "--col=red");
+        assertTrue(app.verbose);
+        assertEquals(3, app.count);
+        assertEquals("file.txt", app.versionFile);
+        assertEquals("red", app.colour);
+    }
+
+    @Test
+    public void testExactMatchTakesPrecedenceOverAbbreviation() {
+        App app = new App();
+        new CommandLine(app).setAbbreviatedOptionsAllowed(true).parse("-v", "-x");
+        assertTrue(app.verbose);
+        assertTrue(app.x);
+    }
+
+    @Test
+    public void testAmbiguousAbbreviationIsRejected() {
+        CommandLine cmd = new CommandLine(new App()).setAbbreviatedOptionsAllowed(true);
+        try {
+            cmd.parse("--ver");
+            fail("Expected exception");
+        } catch (ParameterException ex) {
+            assertEquals("Error: '--ver' is not unique: it matches '--verbose', '--version-file'", ex.getMessage());
+        }
+        try {
+            cmd.parse("--co=1");
+            fail("Expected exception");
+        } catch (ParameterException ex) {
+            assertEquals("Error: '--co' is not unique: it matches '--count', '--colour'", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testPrefixCharactersAloneAreNotAnAbbreviation() {
+        App app = new App();
+        new CommandLine(app).setAbbreviatedOptionsAllowed(true).setUnmatchedArgumentsAllowed(true).parse("-", "---");
+        assertEquals(Arrays.asList("-"), app.params);
+    }
+
+    @Test
+    public void testAbbreviatedOptionEndsMultiValuePositionalParameter() {
+        App app = new App();
+        new CommandLine(app).setAbbreviatedOptionsAllowed(true).parse("a", "b", "--verb", "c");
+        assertEquals(Arrays.asList("a", "b", "c"), app.params);
+        assertTrue(app.verbose);
+    }
+
+    @Test
+    public void testSetAbbreviatedOptionsAllowedAppliesToSubcommands() {
+        CommandLine cmd = new CommandLine(new App()).addSubcommand("sub", new App()).setAbbreviatedOptionsAllowed(true);
+        List<CommandLine> parsed = cmd.parse("sub", "--verb");
+        assertTrue(((App) parsed.get(1).getCommand()).verbose);
+    }
+
+    @Test
+    public void testTrieFindsOptionsAndCommonPrefixes() {
+        CommandSpec spec = CommandSpec.forAnnotatedObject(new App());
+        OptionNameTrie trie = spec.optionNameTrie();
+        assertEquals(spec.optionsMap().size(), trie.size());
+        for (OptionSpec option : spec.options()) {
+            for (String name : option.names()) {
+                assertSame(name, option, spec.optionsMap().get(OptionNameTrie.name(trie.find(name, name.length()))));
+            }
+        }
+        assertNull(OptionNameTrie.name(trie.find("--verb", 6)));
+        assertNull(trie.find("--verbose-mode", 14));
+        assertEquals("-x", OptionNameTrie.name(trie.find("-x", 2)));
+        assertNull(trie.find("-q", 2));
+
+        for (String arg : new String[] {"-", "--", "--v", "--verbose", "-vx", "--count=1", "abc", ""}) {
+            assertEquals(arg, naiveCommonPrefixLength(spec, arg), trie.commonPrefixLength(arg));
+        }
+    }
+
+    @Test
+    public void testTrieIsRebuiltWhenOptionIsAdded() {
+        CommandSpec spec = CommandSpec.create();
+        spec.addOption(OptionSpec.builder("--alpha").build());
+        assertNull(trie(spec, "--beta"));
+        spec.addOption(OptionSpec.builder("--beta").build());
+        assertNotNull(trie(spec, "--beta"));
+    }
+
+    private static String trie(CommandSpec spec, String name) {
+        return OptionNameTrie.name(spec.optionNameTrie().find(name, name.length()));
+    }
+
+    private static int naiveCommonPrefixLength(CommandSpec spec, String arg) {
+        int count = 0;
+        for (String optionName : spec.optionsMap().keySet()) {
+            for (int i = 0; i < arg.length(); i++) {
+                if (optionName.length() > i && arg.charAt(i) == optionName.charAt(i)) { count++; } else { break; }
+            }
+        }
+        return count;
+    }
+}
@@ -426,6 +426,47 @@ public class ArgSplitTest {
 
         assertArrayEquals(new String[] {"\"abc\\\"", "def"}, values);
     }
+    @Test
+    public void testLiteralSeparator() {
+        assertEquals(',', ArgSpec.literalSeparator(","));
+        assertEquals('|', ArgSpec.literalSeparator("\\|"));
+        assertEquals('.', ArgSpec.literalSeparator("\\."));
+        assertEquals(-1, ArgSpec.literalSeparator("|"));
+        assertEquals(-1, ArgSpec.literalSeparator("\\d"));
+        assertEquals(-1, ArgSpec.literalSeparator("\\\\"));
+        assertEquals(-1, ArgSpec.literalSeparator("\""));
+        assertEquals(-1, ArgSpec.literalSeparator(",\\s*"));
+    }
+
+    @Test
+    public void testArgSpecSplitValue_LiteralSeparatorMatchesStringSplit() {
+        ArgSpec spec = PositionalParamSpec.builder().splitRegex("\\|").build();
+        for (String value : new String[] {"", "|", "||", "a", "a|b", "|a||b||", "a|b|c|"}) {
+            for (int max = 1; max <= 4; max++) {
+                ParserSpec parser = new ParserSpec().limitSplit(true);
+                assertArrayEquals(value + ":" + max, value.split("\\|", max), spec.splitValue(value, parser, Range.valueOf("0.." + max), 0));
+            }
+            assertArrayEquals(value, value.split("\\|"), spec.splitValue(value, new ParserSpec(), Range.valueOf("0..*"), 0));
+        }
+    }
+
+    @Test
+    public void testArgSpecSplitValue_RegexSeparatorRespectsQuotes() {
+        ArgSpec spec = PositionalParamSpec.builder().splitRegex("\\s*;\\s*").build();
+        String[] actual = spec.splitValue("a ; \"b ; c\";d", new ParserSpec(), Range.valueOf("0"), 0);
+        assertArrayEquals(new String[]{"a", "\"b ; c\"", "d"}, actual);
+        actual = spec.splitValue("a ; \"b ; c\";d", new ParserSpec().trimQuotes(true), Range.valueOf("0"), 0);
+        assertArrayEquals(new String[]{"a", "b ; c", "d"}, actual);
+    }
+
+    @Test
+    public void testArgSpecSplitValue_TrimsQuotesOfQuotedParts() {
+        ArgSpec spec = PositionalParamSpec.builder().splitRegex(",").build();
+        ParserSpec parser = new ParserSpec().trimQuotes(true);
+        String[] actual = spec.splitValue("\"a,b\",x\"c\"y,\\\"d\\\",\"\"", parser, Range.valueOf("0"), 0);
+        assertArrayEquals(new String[]{"a,b", "xcy", "\\\"d\\\"", ""}, actual);
+    }
+
     @Test
     public void testQuotedMapKeysDefault() {
         class App {
@@ -0,0 +1,237 @@
+package picocli;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.junit.contrib.java.lang.system.SystemErrRule;
+import org.junit.contrib.java.lang.system.SystemOutRule;
+import picocli.CommandLine.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CommandLineAsyncTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Rule
+    public final SystemErrRule systemErrRule = new SystemErrRule().enableLog().muteForSuccessfulTests();
+
+    @Rule
+    public final SystemOutRule systemOutRule = new SystemOutRule().enableLog().muteForSuccessfulTests();
+
+    @Command(name = "app", mixinStandardHelpOptions = true)
+    static class App implements Callable<Object> {
+        @Option(names = "-n") int count;
+        Object result;
+
+        public Object call() { return result; }
+    }
+
+    static class Recorder implements ICompletionListener<Object> {
+        final List<Object> events = Collections.synchronizedList(new ArrayList<Object>());
+        public void completed(Object result) { events.add("completed " + result + " in " + Thread.currentThread().getName()); }
+        public void failed(Throwable failure) { events.add("failed " + failure); }
+    }
+
+    @Test
+    public void testSynchronousResultCompletesImmediately() throws Exception {
+        App app = new App();
+        app.result = "done";
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync("-n", "3");
+        assertTrue(future.isDone());
+        assertEquals(Arrays.<Object>asList("done"), future.get());
+        assertEquals(3, app.count);
+    }
+
+    @Test
+    public void testCommandFutureCompletesLater() throws Exception {
+        App app = new App();
+        final CommandFuture<String> pending = new CommandFuture<String>();
+        app.result = pending;
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync();
+        Recorder recorder = new Recorder();
+        future.whenComplete(recorder);
+        assertFalse(future.isDone());
+        assertTrue(recorder.events.isEmpty());
+
+        Thread completer = new Thread("completer") {
+            public void run() { pending.complete("later"); }
+        };
+        completer.start();
+        completer.join();
+        assertTrue(future.isDone());
+        assertEquals(Arrays.<Object>asList("completed [later] in completer"), recorder.events);
+        assertEquals(Arrays.<Object>asList("later"), future.get(1, TimeUnit.SECONDS));
+    }
+
+    private static Object newCompletableFuture() throws Exception {
+        try {
+            return Class.forName("java.util.concurrent.CompletableFuture").newInstance();
+        } catch (ClassNotFoundException ex) {
+            Assume.assumeTrue("requires Java 8", false);
+            return null;
+        }
+    }
+
+    @Test
+    public void testCompletionStageCompletesLater() throws Exception {
+        App app = new App();
+        Object completableFuture = newCompletableFuture();
+        app.result = completableFuture;
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync();
+        assertFalse(future.isDone());
+        completableFuture.getClass().getMethod("complete", Object.class).invoke(completableFuture, 42);
+        assertTrue(future.isDone());
+        assertEquals(Arrays.<Object>asList(42), future.get());
+    }
+
+    @Test
+    public void testFailedCompletionStageIsHandledByExceptionHandler() throws Exception {
+        App app = new App();
+        Object completableFuture = newCompletableFuture();
+        app.result = completableFuture;
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync();
+        IllegalStateException failure = new IllegalStateException("boom");
+        completableFuture.getClass().getMethod("completeExceptionally", Throwable.class).invoke(completableFuture, failure);
+        try {
+            future.get();
+            fail("Expected exception");
+        } catch (java.util.concurrent.ExecutionException ex) {
+            ExecutionException cause = (ExecutionException) ex.getCause();
+            assertSame(failure, cause.getCause());
+            assertTrue(cause.getMessage(), cause.getMessage().startsWith("Error while calling command ("));
+        }
+    }
+
+    @Test
+    public void testCustomExceptionHandlerResultCompletesFuture() throws Exception {
+        App app = new App();
+        CommandFuture<String> pending = new CommandFuture<String>();
+        app.result = pending;
+        DefaultExceptionHandler<List<Object>> handler = new DefaultExceptionHandler<List<Object>>() {
+            @Override public List<Object> handleExecutionException(ExecutionException ex, ParseResult parseResult) {
+                return Arrays.<Object>asList("handled " + ex.getCause().getMessage() + " for " + parseResult.commandSpec().name());
+            }
+        };
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync(new RunLastAsync(), handler);
+        pending.fail(new IllegalArgumentException("bad"));
+        assertEquals(Arrays.<Object>asList("handled bad for app"), future.get());
+    }
+
+    @Test
+    public void testAsynchronousParameterExceptionIsHandledAsInvalidInput() throws Exception {
+        App app = new App();
+        CommandLine commandLine = new CommandLine(app);
+        CommandFuture<String> pending = new CommandFuture<String>();
+        app.result = pending;
+        CommandFuture<List<Object>> future = commandLine.executeAsync();
+        pending.fail(new ParameterException(commandLine, "Invalid input discovered later"));
+        assertNull(future.get());
+        assertTrue(systemErrRule.getLog(), systemErrRule.getLog().startsWith(String.format("Invalid input discovered later%nUsage: app")));
+    }
+
+    @Test
+    public void testPlainFutureIsAwaitedInBackground() throws Exception {
+        App app = new App();
+        FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+            public String call() { return "task result"; }
+        });
+        app.result = task;
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync();
+        assertFalse(future.isDone());
+        task.run();
+        assertEquals(Arrays.<Object>asList("task result"), future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPlainFutureIsAwaitedByExecutor() throws Exception {
+        App app = new App();
+        FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+            public String call() { return "task result"; }
+        });
+        app.result = task;
+        final List<Runnable> submitted = new ArrayList<Runnable>();
+        Executor executor = new Executor() {
+            public void execute(Runnable command) { submitted.add(command); }
+        };
+        CommandFuture<List<Object>> future = new CommandLine(app).executeAsync(new RunLastAsync().useExecutor(executor),
+                new DefaultExceptionHandler<List<Object>>(), new String[0]);
+        assertEquals(1, submitted.size());
+        task.run();
+        assertFalse("not completed until the executor runs the task", future.isDone());
+        submitted.get(0).run();
+        assertTrue(future.isDone());
+        assertEquals(Arrays.<Object>asList("task result"), future.get());
+    }
+
+    @Test
+    public void testInvalidInput() throws Exception {
+        CommandFuture<List<Object>> future = new CommandLine(new App()).executeAsync("-x");
+        assertTrue(future.isDone());
+        assertNull(future.get());
+        assertTrue(systemErrRule.getLog(), systemErrRule.getLog().startsWith(String.format("Unknown option: -x%nUsage: app")));
+    }
+
+    @Test
+    public void testHelpRequested() throws Exception {
+        CommandFuture<List<Object>> future = new CommandLine(new App()).executeAsync("--help");
+        assertTrue(future.isDone());
+        assertNull(future.get());
+        assertTrue(systemOutRule.getLog(), systemOutRule.getLog().startsWith("Usage: app"));
+    }
+
+    @Test
+    public void testExitCodeIsUsedWhenCommandCompletes() throws Exception {
+        final List<Integer> exitCodes = new ArrayList<Integer>();
+        RunLastAsync handler = new RunLastAsync() {
+            @Override protected void exit(int exitCode) { exitCodes.add(exitCode); }
+        };
+        handler.andExit(3);
+        App app = new App();
+        CommandFuture<String> pending = new CommandFuture<String>();
+        app.result = pending;
+        new CommandLine(app).parseWithHandler(handler, new String[0]);
+        assertTrue(exitCodes.isEmpty());
+        pending.complete("ok");
+        assertEquals(Arrays.asList(3), exitCodes);
+    }
+
+    @Test
+    public void testCommandFuture() throws Exception {
+        CommandFuture<String> future = CommandFuture.completed("value");
+        assertTrue(future.isDone());
+        assertFalse(future.complete("other"));
+        assertFalse(future.fail(new IllegalStateException()));
+        assertFalse(future.cancel(true));
+        Recorder recorder = new Recorder();
+        future.whenComplete(recorder);
+        assertEquals(Arrays.<Object>asList("completed value in " + Thread.currentThread().getName()), recorder.events);
+    }
+
+    @Test
+    public void testCommandFutureCancel() throws Exception {
+        CommandFuture<String> future = new CommandFuture<String>();
+        Recorder recorder = new Recorder();
+        future.whenComplete(recorder);
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        assertEquals(1, recorder.events.size());
+        assertTrue(recorder.events.get(0).toString().startsWith("failed java.util.concurrent.CancellationException"));
+        try {
+            future.get();
+            fail("Expected exception");
+        } catch (CancellationException expected) {
+        }
+    }
+}
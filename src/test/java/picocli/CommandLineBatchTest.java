@@ -0,0 +1,294 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.junit.contrib.java.lang.system.TextFromStandardInputStream;
+import picocli.CommandLine.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.*;
+import static org.junit.contrib.java.lang.system.TextFromStandardInputStream.emptyStandardInputStream;
+
+public class CommandLineBatchTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Rule
+    public final TextFromStandardInputStream systemIn = emptyStandardInputStream();
+
+    @Command(name = "echo", subcommands = {Add.class, BatchCommand.class})
+    static class Echo implements Callable<Integer> {
+        static final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+
+        @Option(names = "-x") int exitCode;
+        @Option(names = "--fail") boolean fail;
+        @Option(names = "--sleep") long sleep;
+        @Parameters List<String> words;
+
+        public Integer call() throws Exception {
+            threadNames.add(Thread.currentThread().getName());
+            if (fail) { throw new IllegalStateException("failed on purpose"); }
+            Thread.sleep(sleep);
+            System.out.println(words == null ? "" : words.toString());
+            return exitCode;
+        }
+    }
+
+    @Command(name = "add", aliases = "plus")
+    static class Add implements Runnable {
+        @Parameters int[] values;
+
+        public void run() {
+            int sum = 0;
+            for (int value : values) { sum += value; }
+            System.out.println("sum=" + sum);
+        }
+    }
+
+    @Command
+    static class Mul implements Runnable {
+        @Parameters int[] values;
+
+        public void run() {
+            int product = 1;
+            for (int value : values) { product *= value; }
+            System.out.println("product=" + product);
+        }
+    }
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    private List<Integer> executeBatch(CommandLine commandLine, String input, int threads) throws Exception {
+        PrintStream originalOut = System.out;
+        PrintStream stdout = new PrintStream(out, true);
+        System.setOut(stdout);
+        try {
+            return commandLine.executeBatch(new StringReader(input), stdout, new PrintStream(err, true), Help.Ansi.OFF, threads);
+        } finally {
+            System.setOut(originalOut);
+        }
+    }
+
+    @Test
+    public void testLinesAreTokenizedLikeArgumentFiles() throws Exception {
+        String input = String.format("a b%n  'single quoted' \"double \\\"quoted\\\"\"  # comment%n%n# only a comment%nadd 1 2 3%nplus 4%n");
+        List<Integer> exitCodes = executeBatch(new CommandLine(new Echo()), input, 1);
+        assertEquals(Arrays.asList(0, 0, 0, 0, 0, 0), exitCodes);
+        assertEquals(String.format("[a, b]%n[single quoted, double \"quoted\"]%nsum=6%nsum=4%n"), out.toString());
+        assertEquals("", err.toString());
+    }
+
+    @Test
+    public void testEachLineHasItsOwnExitCode() throws Exception {
+        String input = String.format("-x 3 a%n--unknown%n--fail%nb%n");
+        List<Integer> exitCodes = executeBatch(new CommandLine(new Echo()), input, 1);
+        assertEquals(Arrays.asList(3, 2, 1, 0), exitCodes);
+        assertEquals(String.format("[a]%n[b]%n"), out.toString());
+        String errors = err.toString();
+        assertTrue(errors, errors.startsWith(String.format("Unknown option: --unknown%nUsage: echo ")));
+        assertTrue(errors, errors.contains("java.lang.IllegalStateException: failed on purpose"));
+    }
+
+    @Test
+    public void testOptionsAreResetBetweenLines() throws Exception {
+        List<Integer> exitCodes = executeBatch(new CommandLine(new Echo()), String.format("-x 5 a b%nc%n"), 1);
+        assertEquals(Arrays.asList(5, 0), exitCodes);
+        assertEquals(String.format("[a, b]%n[c]%n"), out.toString());
+    }
+
+    @Test
+    public void testParallelExecutionUsesCopies() throws Exception {
+        Echo.threadNames.clear();
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 40; i++) { input.append(String.format("--sleep 5 -x %d w%d%n", i % 7, i)); }
+        Echo echo = new Echo();
+        CommandLine commandLine = new CommandLine(echo);
+        commandLine.addSubcommand("mul", new Mul());
+        List<Integer> exitCodes = executeBatch(commandLine, input.toString(), 4);
+        assertNull("the original command is not used by the workers", echo.words);
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 40; i++) { expected.add(i % 7); }
+        assertEquals(expected, exitCodes);
+        assertEquals(40, out.toString().split(String.format("%n")).length);
+        assertTrue(Echo.threadNames.toString(), new java.util.HashSet<String>(Echo.threadNames).size() > 1);
+    }
+
+    @Test
+    public void testParallelCopiesHaveSameConfiguration() throws Exception {
+        CommandLine commandLine = new CommandLine(new Echo());
+        commandLine.addSubcommand("mul", new Mul());
+        commandLine.setUnmatchedArgumentsAllowed(true);
+        List<Integer> exitCodes = executeBatch(commandLine, String.format("--unknown a%nmul 2 3%n--unknown b%nmul 4%n"), 2);
+        assertEquals(Arrays.asList(0, 0, 0, 0), exitCodes);
+        assertEquals("", err.toString());
+        List<String> lines = Arrays.asList(out.toString().split(String.format("%n")));
+        Collections.sort(lines);
+        assertEquals(Arrays.asList("[a]", "[b]", "product=4", "product=6"), lines);
+    }
+
+    @Test
+    public void testParallelRequiresAnnotatedClass() throws Exception {
+        CommandLine commandLine = new CommandLine(Model.CommandSpec.create());
+        try {
+            executeBatch(commandLine, "a", 2);
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertEquals("Cannot copy command '<main class>' to execute a batch with multiple threads: it was not created from an annotated class", ex.getMessage());
+        }
+    }
+
+    @Command(name = "greet", subcommands = BatchCommand.class)
+    static class Greet implements Runnable {
+        private final String greeting;
+        @Parameters(arity = "0..1") String name;
+
+        Greet(String greeting) { this.greeting = greeting; }
+        public void run() { System.out.println(greeting + " " + name); }
+    }
+
+    @Test
+    public void testParallelRequiresFactoryToCreateCommand() throws Exception {
+        try {
+            executeBatch(new CommandLine(new Greet("hi")), "a", 2);
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Cannot copy command 'greet' to execute a batch with multiple threads: "));
+        }
+        assertEquals("no line is executed", "", out.toString());
+    }
+
+    @Test
+    public void testParallelRequiresOptionsFromAnnotations() throws Exception {
+        CommandLine commandLine = new CommandLine(new Echo());
+        commandLine.getCommandSpec().addOption(Model.OptionSpec.builder("--extra").build());
+        try {
+            executeBatch(commandLine, "a", 2);
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertEquals("Cannot copy command 'echo' to execute a batch with multiple threads: options or positional parameters were added programmatically", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testSingleThreadUsesCommandThatCannotBeCopied() throws Exception {
+        CommandLine commandLine = new CommandLine(new Greet("hi"));
+        commandLine.getCommandSpec().addOption(Model.OptionSpec.builder("--extra").build());
+        List<Integer> exitCodes = executeBatch(commandLine, String.format("a%n--extra b%n"), 1);
+        assertEquals(Arrays.asList(0, 0), exitCodes);
+        assertEquals(String.format("hi a%nhi b%n"), out.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThreadsMustBePositive() throws Exception {
+        executeBatch(new CommandLine(new Echo()), "a", 0);
+    }
+
+    @Test
+    public void testBatchCommandReadsFile() throws Exception {
+        File file = File.createTempFile("picocli-batch", ".txt");
+        try {
+            FileOutputStream stream = new FileOutputStream(file);
+            stream.write(String.format("one%n-x 4 two%nadd 1 x%n").getBytes("UTF-8"));
+            stream.close();
+
+            ByteArrayOutputStream baosOut = new ByteArrayOutputStream();
+            ByteArrayOutputStream baosErr = new ByteArrayOutputStream();
+            PrintStream originalOut = System.out;
+            PrintStream originalErr = System.err;
+            System.setOut(new PrintStream(baosOut, true));
+            System.setErr(new PrintStream(baosErr, true));
+            try {
+                Echo echo = new Echo();
+                CommandLine commandLine = new CommandLine(echo);
+                List<Object> result = commandLine.parseWithHandler(new RunLast(), new String[] {"batch", file.getAbsolutePath()});
+                assertEquals("exit code of the first line that failed", Arrays.<Object>asList(4), result);
+                BatchCommand batch = commandLine.getSubcommands().get("batch").getCommand();
+                assertEquals(Arrays.asList(0, 4, 2), batch.getExitCodes());
+            } finally {
+                System.setOut(originalOut);
+                System.setErr(originalErr);
+            }
+            assertEquals(String.format("[one]%n[two]%n"), baosOut.toString());
+            String errors = baosErr.toString();
+            assertTrue(errors, errors.startsWith(String.format("Unmatched argument: x%nUsage: echo add ")));
+            assertTrue(errors, errors.endsWith(String.format("Line 2: exit code 4%nLine 3: exit code 2%n")));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testBatchCommandReadsStandardInput() throws Exception {
+        systemIn.provideLines("a", "b c");
+        ByteArrayOutputStream baosOut = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(baosOut, true));
+        try {
+            new CommandLine(new Echo()).parseWithHandler(new RunLast(), new String[] {"batch", "--threads=2", "-"});
+        } finally {
+            System.setOut(originalOut);
+        }
+        List<String> lines = Arrays.asList(baosOut.toString().split(String.format("%n")));
+        Collections.sort(lines);
+        assertEquals(Arrays.asList("[a]", "[b, c]"), lines);
+    }
+
+    @Command(name = "deploy", subcommands = BatchCommand.class)
+    static class Deploy implements Runnable {
+        @Option(names = "--target", required = true) String target;
+        public void run() { System.out.println("target=" + target); }
+    }
+
+    @Test
+    public void testBatchCommandExecutesSingleThreadWithParent() throws Exception {
+        systemIn.provideLines("a", "b");
+        ByteArrayOutputStream baosOut = new ByteArrayOutputStream();
+        PrintStream originalOut = System.out;
+        System.setOut(new PrintStream(baosOut, true));
+        try {
+            Object result = new CommandLine(new Greet("hello")).parseWithHandler(new RunLast(), new String[] {"batch", "-"});
+            assertEquals(Arrays.<Object>asList(0), result);
+        } finally {
+            System.setOut(originalOut);
+        }
+        assertEquals(String.format("hello a%nhello b%n"), baosOut.toString());
+    }
+
+    @Test
+    public void testBatchCommandValidatesRequiredOptionsOfParent() {
+        ByteArrayOutputStream baosErr = new ByteArrayOutputStream();
+        new CommandLine(new Deploy()).parseWithHandlers(new RunLast(),
+                CommandLine.defaultExceptionHandler().useErr(new PrintStream(baosErr, true)), "batch", "-");
+        assertTrue(baosErr.toString(), baosErr.toString().startsWith(String.format("Missing required option '--target=<target>'%n")));
+    }
+
+    @Test
+    public void testBatchCommandMissingFile() {
+        ByteArrayOutputStream baosErr = new ByteArrayOutputStream();
+        new CommandLine(new Echo()).parseWithHandlers(new RunLast(),
+                CommandLine.defaultExceptionHandler().useErr(new PrintStream(baosErr, true)), "batch", "/no/such/file");
+        assertTrue(baosErr.toString(), baosErr.toString().startsWith(String.format("Could not read batch file %s: ", new File("/no/such/file"))));
+        assertTrue(baosErr.toString(), baosErr.toString().contains("Usage: echo batch [-h] [-t=N] FILE"));
+    }
+
+    @Test
+    public void testBatchCommandRequiresFile() {
+        ByteArrayOutputStream baosErr = new ByteArrayOutputStream();
+        new CommandLine(new Echo()).parseWithHandlers(new RunLast(),
+                CommandLine.defaultExceptionHandler().useErr(new PrintStream(baosErr, true)), "batch");
+        assertTrue(baosErr.toString(), baosErr.toString().startsWith(String.format("Missing required parameter: FILE%n")));
+    }
+}
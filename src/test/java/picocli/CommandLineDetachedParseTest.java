@@ -0,0 +1,196 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.OptionSpec;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class CommandLineDetachedParseTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Command(name = "top", subcommands = Sub.class, argGroups = @ArgGroup(name = "mode"))
+    static class Top {
+        @Option(names = "-n") int count = 1;
+        @Option(names = "-q", groups = "mode") boolean quiet;
+        @Option(names = "-v", groups = "mode") boolean verbose;
+        @Option(names = "-D") List<String> defines = new ArrayList<String>();
+        @Parameters List<String> files;
+    }
+
+    @Command(name = "sub", aliases = "s")
+    static class Sub {
+        @Option(names = "-x", required = true) long x;
+    }
+
+    @Test
+    public void testUserObjectIsNotModified() {
+        Top top = new Top();
+        CommandLine cmd = new CommandLine(top);
+        ParseResult result = cmd.parseArgsDetached("-n", "5", "-v", "-D", "a=b", "f1", "f2");
+
+        assertEquals(Integer.valueOf(5), result.matchedOptionValue("-n", 0));
+        assertEquals(Boolean.TRUE, result.matchedOptionValue("-v", false));
+        assertEquals(Arrays.asList("a=b"), result.matchedOptionValue("-D", null));
+        assertEquals(Arrays.asList("f1", "f2"), result.matchedPositionalValue(0, null));
+
+        assertEquals(1, top.count);
+        assertFalse(top.verbose);
+        assertTrue(top.defines.isEmpty());
+        assertNull(top.files);
+        assertEquals(Integer.valueOf(1), cmd.getCommandSpec().findOption("-n").getValue());
+        assertTrue(cmd.getCommandSpec().findOption("-n").stringValues().isEmpty());
+        assertNull(cmd.getParseResult());
+    }
+
+    @Test
+    public void testInitialValuesAreApplied() {
+        ParseResult result = new CommandLine(new Top()).parseArgsDetached("-v");
+        assertEquals(Integer.valueOf(1), result.commandSpec().findOption("-n").getValue());
+        assertEquals(Collections.emptyList(), result.commandSpec().findOption("-D").getValue());
+    }
+
+    @Test
+    public void testEmptyInitialCollectionIsNotShared() {
+        Top top = new Top();
+        CommandLine cmd = new CommandLine(top);
+        ParseResult first = cmd.parseArgsDetached("-D", "a");
+        ParseResult second = cmd.parseArgsDetached("-D", "b");
+        assertEquals(Arrays.asList("a"), first.matchedOptionValue("-D", null));
+        assertEquals(Arrays.asList("b"), second.matchedOptionValue("-D", null));
+        assertTrue(top.defines.isEmpty());
+    }
+
+    static class Other {
+        @Option(names = "-x") long x;
+    }
+
+    @Test
+    public void testSubcommandIsParsedIntoCopy() {
+        Other sub = new Other();
+        CommandLine cmd = new CommandLine(new Top()).addSubcommand("other", sub);
+        ParseResult result = cmd.parseArgsDetached("-n", "2", "other", "-x", "7");
+        assertTrue(result.hasSubcommand());
+        ParseResult subResult = result.subcommand();
+        assertEquals(Long.valueOf(7), subResult.matchedOptionValue("-x", 0L));
+        assertSame(result.commandSpec(), subResult.commandSpec().parent());
+        assertEquals("top other", subResult.commandSpec().qualifiedName());
+        assertEquals(0, sub.x);
+        assertSame(cmd.getCommandSpec(), cmd.getSubcommands().get("other").getCommandSpec().parent());
+    }
+
+    @Test
+    public void testSubcommandAlias() {
+        ParseResult result = new CommandLine(new Top()).parseArgsDetached("s", "-x", "3");
+        assertEquals(Long.valueOf(3), result.subcommand().matchedOptionValue("-x", 0L));
+    }
+
+    @Test
+    public void testInvalidInputReportsDetachedCommand() {
+        CommandLine cmd = new CommandLine(new Top());
+        try {
+            cmd.parseArgsDetached("sub");
+            fail("Expected exception");
+        } catch (MissingParameterException ex) {
+            assertEquals("Missing required option '-x=<x>'", ex.getMessage());
+            assertNotSame(cmd.getSubcommands().get("sub"), ex.getCommandLine());
+            assertEquals("top sub", ex.getCommandLine().getCommandSpec().qualifiedName());
+        }
+        try {
+            cmd.parseArgsDetached("-q", "-v");
+            fail("Expected exception");
+        } catch (MutuallyExclusiveArgsException ex) {
+            assertEquals("Error: -q, -v are mutually exclusive (specify only one)", ex.getMessage());
+        }
+        assertTrue(cmd.parseArgsDetached("-q").hasMatchedOption("-q"));
+    }
+
+    @Test
+    public void testParsingFreezesCommandHierarchy() {
+        CommandLine cmd = new CommandLine(new Top());
+        assertFalse(cmd.getCommandSpec().isFrozen());
+        cmd.parseArgsDetached();
+        assertTrue(cmd.getCommandSpec().isFrozen());
+        assertTrue(cmd.getSubcommands().get("sub").getCommandSpec().isFrozen());
+        try {
+            cmd.getCommandSpec().addOption(OptionSpec.builder("-z").build());
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertEquals("Command 'top' is frozen and cannot be modified", ex.getMessage());
+        }
+        try {
+            cmd.addSubcommand("another", new Sub());
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertEquals("Command 'top' is frozen and cannot be modified", ex.getMessage());
+        }
+    }
+
+    @Command(name = "lazy", lazySubcommands = true, subcommands = Sub.class)
+    static class LazyTop { }
+
+    @Test
+    public void testDetachedCopySharesOptionNameTrie() {
+        Top top = new Top();
+        CommandLine cmd = new CommandLine(top);
+        ParseResult result = cmd.parseArgsDetached("-n=5", "-vD", "a=b");
+
+        CommandSpec copy = result.commandSpec();
+        assertSame(cmd.getCommandSpec().optionNameTrie(), copy.optionNameTrie());
+        assertNotSame(cmd.getCommandSpec().findOption("-n"), copy.findOption("-n"));
+        assertSame(copy.findOption("-n"), result.matchedOption("-n"));
+        assertSame(copy.findOption("-v"), result.matchedOption("-v"));
+        assertEquals(Integer.valueOf(5), result.matchedOptionValue("-n", 0));
+        assertEquals(Arrays.asList("a=b"), result.matchedOptionValue("-D", null));
+        assertEquals(1, top.count);
+    }
+
+    @Test
+    public void testFreezeInstantiatesLazySubcommands() {
+        CommandSpec spec = new CommandLine(new LazyTop()).getCommandSpec();
+        spec.freeze();
+        assertTrue(spec.subcommands().get("sub").getCommandSpec().isFrozen());
+        assertSame(spec, spec.freeze());
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        final CommandLine cmd = new CommandLine(new Top());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<Future<String>>();
+            for (int i = 0; i < 400; i++) {
+                final int n = i;
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() {
+                        ParseResult result = n % 2 == 0
+                                ? cmd.parseArgsDetached("-n", String.valueOf(n), "-D", "k" + n, "f" + n, "sub", "-x", String.valueOf(n))
+                                : cmd.parseArgsDetached("-n", String.valueOf(n), "-D", "k" + n, "f" + n);
+                        return result.matchedOptionValue("-n", 0) + " " + result.matchedOptionValue("-D", null)
+                                + " " + result.matchedPositionalValue(0, null)
+                                + (result.hasSubcommand() ? " " + result.subcommand().matchedOptionValue("-x", 0L) : "");
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                String expected = i + " [k" + i + "] [f" + i + "]" + (i % 2 == 0 ? " " + i : "");
+                assertEquals(expected, futures.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
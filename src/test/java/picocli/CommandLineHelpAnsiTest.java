@@ -627,6 +627,59 @@ public class CommandLineHelpAnsiTest {
         assertEquals(ansi.new Text("a").append(xyz), ansi.new Text("a").concat(xyz));
     }
 
+    @Test
+    public void testTextConcatSubstringsKeepsStylesOfWholeTexts() {
+        Ansi.Text text = Ansi.ON.new Text("@|bold abc|@def@|italic ghi|@");
+        assertEquals("\u001B[1mbc\u001B[21m\u001B[0md", text.substring(1, 4).toString());
+        assertEquals("\u001B[1mabg\u001B[21m\u001B[0m\u001B[3mh\u001B[23m\u001B[0m", text.substring(0, 2).concat(text.substring(6, 8)).toString());
+        Ansi.Text label = Ansi.ON.new Text("=@|italic <file>|@");
+        assertEquals("\u001B[3m<\u001B[23m\u001B[0m\u001B[3mfile>\u001B[23m\u001B[0m", label.substring(0, 0).concat(label.substring(1)).toString());
+    }
+
+    @Test
+    public void testTextSubstringDoesNotChangeWhenOriginalIsModified() {
+        Ansi.Text source = Ansi.ON.new Text("@|bold abc|@ def");
+        Ansi.Text destination = Ansi.ON.new Text(20);
+        source.getStyledChars(0, 4, destination, 2);
+        Ansi.Text copy = destination.substring(0);
+        Ansi.Text clone = (Ansi.Text) destination.clone();
+        source.getStyledChars(4, 3, destination, 0);
+        clone.getStyledChars(2, 3, source.substring(0, 1), 0); // appending to a shared buffer copies it first
+
+        assertEquals("  \u001B[1mabc\u001B[21m\u001B[0m def", destination.toString());
+        assertEquals("  \u001B[1mabc\u001B[21m\u001B[0m ", copy.toString());
+        assertEquals("  \u001B[1mabc\u001B[21m\u001B[0m ", clone.toString());
+        assertEquals("\u001B[1mabc\u001B[21m\u001B[0m def", source.toString());
+    }
+
+    @Test
+    public void testTextMarkupIsParsedOnceAndShared() throws Exception {
+        String markup = "@|bold,fg(5;0;0) shared|@ markup @|italic text|@";
+        Ansi.Text first = Ansi.ON.new Text(markup);
+        Ansi.Text second = Ansi.OFF.text(markup);
+        Field plain = Ansi.Text.class.getDeclaredField("plain");
+        plain.setAccessible(true);
+        assertSame(plain.get(first), plain.get(second));
+        assertEquals("shared markup text", second.toString());
+        assertEquals("\u001B[1m\u001B[38;5;196mshared\u001B[39m\u001B[21m\u001B[0m markup \u001B[3mtext\u001B[23m\u001B[0m", first.toString());
+
+        first.substring(0, 6).getStyledChars(0, 6, first, 0); // appending to a shared Text copies its buffers first
+        assertNotSame(plain.get(first), plain.get(second));
+        assertEquals("shared markup textshared", first.plainString());
+        assertEquals("shared markup text", second.toString());
+        assertEquals(Ansi.ON.new Text(markup).toString(), Ansi.ON.string(markup));
+    }
+
+    @Test
+    public void testTextCopiedInPiecesKeepsSingleStyledRun() {
+        Ansi.Text source = Ansi.ON.new Text("@|bold one two three|@");
+        Ansi.Text destination = Ansi.ON.new Text(20);
+        source.getStyledChars(0, 4, destination, 0);
+        source.getStyledChars(4, 4, destination, 0);
+        source.getStyledChars(8, 5, destination, 0);
+        assertEquals("\u001B[1mone two three\u001B[21m\u001B[0m", destination.toString());
+    }
+
     @Test
     public void testStyleParseAllowsMissingClosingBrackets() {
         Ansi.IStyle whiteBg = Ansi.Style.parse("bg(white")[0];
@@ -2065,6 +2065,46 @@ public class CommandLineHelpTest {
                 ,""), table.toString(new StringBuilder()).toString());
     }
 
+    @Test
+    public void testTextTableWrapsLongWordsAndKeepsStylesAcrossRows() {
+        TextTable table = TextTable.forColumns(Help.Ansi.ON, new Help.Column[] {new Help.Column(12, 2, Help.Column.Overflow.WRAP)});
+        table.indentWrappedLines = 1;
+        table.addRowValues("@|bold abc def-ghi|@ abcdefghijklmnop x");
+        assertEquals(Help.Ansi.ON.new Text(String.format("" +
+                "  @|bold abc |@%n" +
+                "@|bold    def-ghi|@%n" +
+                "@|bold   |@ abcdefghi%n" +
+                "   jklmnop x%n")).toString(), table.toString());
+    }
+
+    @Test
+    public void testTextTableWrapsManyWords() {
+        StringBuilder text = new StringBuilder();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            text.append("word").append(i % 10).append(' ');
+            expected.append(i % 8 == 0 ? "  " : " ").append("word").append(i % 10).append(i % 8 == 7 ? String.format("%n") : "");
+        }
+        TextTable table = TextTable.forColumns(Help.Ansi.OFF, new Help.Column[] {new Help.Column(50, 2, Help.Column.Overflow.WRAP)});
+        table.indentWrappedLines = 0;
+        table.addRowValues(text.toString());
+        assertEquals(1250, table.rowCount());
+        assertEquals(expected.toString(), table.toString());
+    }
+
+    @Test
+    public void testTextTableSpanWrapsInLastColumn() {
+        TextTable table = TextTable.forColumns(Help.Ansi.OFF, new Help.Column[] {
+                new Help.Column(4, 0, Help.Column.Overflow.SPAN), new Help.Column(10, 0, Help.Column.Overflow.SPAN)});
+        table.addEmptyRow();
+        TextTable.Cell last = table.putValue(0, 0, Help.Ansi.OFF.text("abcdef ghi jkl mno"));
+        assertEquals(1, last.row);
+        assertEquals(1, last.column);
+        assertEquals(String.format("" +
+                "abcdef ghi%n" +
+                "  jkl mno%n"), table.toString());
+    }
+
     @Test
     public void testCatUsageFormat() {
         @Command(name = "cat",
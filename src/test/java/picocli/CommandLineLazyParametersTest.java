@@ -0,0 +1,171 @@
+package picocli;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.PositionalParamSpec;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CommandLineLazyParametersTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    static class CountingConverter implements ITypeConverter<Integer> {
+        static int count;
+        public Integer convert(String value) { count++; return Integer.valueOf(value); }
+    }
+
+    static class IterableApp {
+        @Option(names = "-v") boolean verbose;
+        @Parameters(converter = CountingConverter.class) Iterable<Integer> numbers;
+    }
+
+    private static <T> List<T> toList(Iterator<T> iterator) {
+        List<T> result = new ArrayList<T>();
+        while (iterator.hasNext()) { result.add(iterator.next()); }
+        return result;
+    }
+
+    @Test
+    public void testIterableIsConvertedWhenIterated() {
+        CountingConverter.count = 0;
+        IterableApp app = new IterableApp();
+        new CommandLine(app).parse("1", "2", "-v", "3");
+        assertTrue(app.verbose);
+        assertEquals(0, CountingConverter.count);
+
+        assertEquals(Arrays.asList(1, 2, 3), toList(app.numbers.iterator()));
+        assertEquals(3, CountingConverter.count);
+        assertEquals(Arrays.asList(1, 2, 3), toList(app.numbers.iterator())); // can be iterated again
+    }
+
+    @Test
+    public void testIterableIsResetWhenReused() {
+        IterableApp app = new IterableApp();
+        CommandLine cmd = new CommandLine(app);
+        cmd.parse("1", "2");
+        cmd.parse("3");
+        assertEquals(Arrays.asList(3), toList(app.numbers.iterator()));
+        cmd.parse();
+        assertNull(app.numbers);
+    }
+
+    @Test
+    public void testLazyPositionalParameterIsMultiValue() {
+        CommandSpec spec = CommandSpec.forAnnotatedObject(new IterableApp());
+        PositionalParamSpec positional = spec.positionalParameters().get(0);
+        assertTrue(positional.isMultiValue());
+        assertEquals(Integer.class, positional.auxiliaryTypes()[0]);
+        assertEquals(CommandLine.Range.valueOf("0..1"), positional.arity());
+    }
+
+    static class IteratorApp {
+        @Parameters(index = "0") String first;
+        @Parameters(index = "1..*", split = ",") Iterator<TimeUnit> units;
+    }
+
+    @Test
+    public void testIteratorSplitsAndConvertsValues() {
+        IteratorApp app = new IteratorApp();
+        new CommandLine(app).parse("x", "SECONDS,MINUTES", "DAYS");
+        assertEquals("x", app.first);
+        assertEquals(Arrays.asList(TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.DAYS), toList(app.units));
+        try {
+            app.units.next();
+            fail("Expected exception");
+        } catch (NoSuchElementException expected) {
+        }
+    }
+
+    @Test
+    public void testInvalidValueFailsWhenIterated() {
+        IteratorApp app = new IteratorApp();
+        new CommandLine(app).parse("x", "SECONDS", "WEEKS");
+        assertEquals(TimeUnit.SECONDS, app.units.next());
+        try {
+            app.units.next();
+            fail("Expected exception");
+        } catch (ParameterException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Invalid value for positional parameter at index 1..* (<units>): "));
+        }
+    }
+
+    static class OptionApp {
+        @Option(names = "-f", arity = "1..*") Iterable<File> files;
+    }
+
+    @Test
+    public void testLazyOptionCollectsValuesOfAllOccurrences() {
+        OptionApp app = new OptionApp();
+        new CommandLine(app).parse("-f", "a", "b", "-f", "c");
+        assertEquals(Arrays.asList(new File("a"), new File("b"), new File("c")), toList(app.files.iterator()));
+    }
+
+    static class RequiredValueApp {
+        @Option(names = "-v") boolean verbose;
+        @Option(names = "--f", arity = "1..*") Iterable<Integer> lazy;
+        @Option(names = "--g", arity = "1..*") List<Integer> eager;
+    }
+
+    @Test
+    public void testOptionIsNotAcceptedAsRequiredValue() {
+        for (String name : new String[] {"--f", "--g"}) {
+            try {
+                new CommandLine(new RequiredValueApp()).parse(name, "-v");
+                fail("Expected exception");
+            } catch (MissingParameterException ex) {
+                assertEquals("Expected parameter for option '" + name + "' but found '-v'", ex.getMessage());
+            }
+        }
+        RequiredValueApp app = new RequiredValueApp();
+        new CommandLine(app).parse("--f", "1", "2", "-v");
+        assertTrue(app.verbose);
+        assertEquals(Arrays.asList(1, 2), toList(app.lazy.iterator()));
+    }
+
+    @Test
+    public void testManyValuesAreNotConvertedDuringParsing() {
+        CountingConverter.count = 0;
+        String[] args = new String[100000];
+        for (int i = 0; i < args.length; i++) { args[i] = String.valueOf(i); }
+        IterableApp app = new IterableApp();
+        new CommandLine(app).parse(args);
+        assertEquals(0, CountingConverter.count);
+        long sum = 0;
+        int count = 0;
+        for (Integer i : app.numbers) { sum += i; count++; }
+        assertEquals(args.length, count);
+        assertEquals((long) args.length * (args.length - 1) / 2, sum);
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        Class<?> streamClass;
+        try {
+            streamClass = Class.forName("java.util.stream.Stream");
+        } catch (ClassNotFoundException java7) {
+            Assume.assumeTrue(false);
+            return;
+        }
+        CommandSpec spec = CommandSpec.create();
+        spec.addPositional(PositionalParamSpec.builder().type(streamClass).auxiliaryTypes(Integer.class).build());
+        CommandLine cmd = new CommandLine(spec);
+        cmd.parse("1", "2", "3");
+        Object stream = spec.positionalParameters().get(0).getValue();
+        assertTrue(streamClass.isInstance(stream));
+        Iterator<?> iterator = (Iterator<?>) streamClass.getMethod("iterator").invoke(stream);
+        assertEquals(Arrays.asList(1, 2, 3), toList(iterator));
+    }
+}
@@ -0,0 +1,139 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import picocli.CommandLine.*;
+import picocli.CommandLine.IMetricsListener.Phase;
+import picocli.CommandLine.Model.CommandSpec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CommandLineMetricsTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    static class Recorder implements IMetricsListener {
+        final List<String> events = new ArrayList<String>();
+        final List<Long> nanos = new ArrayList<Long>();
+        public void phaseCompleted(Phase phase, CommandSpec command, long elapsedNanos, int count) {
+            events.add(command.qualifiedName() + " " + phase + " " + count);
+            nanos.add(elapsedNanos);
+        }
+    }
+
+    @Command(name = "top", subcommands = MetricsSub.class)
+    static class MetricsTop implements Runnable {
+        @Option(names = "-n", defaultValue = "3") int count;
+        @Option(names = "-v") boolean verbose;
+        @Parameters(arity = "0..*") List<Integer> numbers;
+        boolean ran;
+        public void run() { ran = true; }
+    }
+
+    @Command(name = "sub")
+    static class MetricsSub implements Runnable {
+        @Option(names = "-x", required = true) long x;
+        public void run() { }
+    }
+
+    @Test
+    public void testNoMetricsByDefault() {
+        assertNull(new CommandLine(new MetricsTop()).getMetricsListener());
+    }
+
+    @Test
+    public void testSetMetricsListenerAppliesToSubcommands() {
+        Recorder recorder = new Recorder();
+        CommandLine cmd = new CommandLine(new MetricsTop()).setMetricsListener(recorder);
+        assertSame(recorder, cmd.getMetricsListener());
+        assertSame(recorder, cmd.getSubcommands().get("sub").getMetricsListener());
+    }
+
+    @Test
+    public void testPhasesAreReportedPerCommand() {
+        Recorder recorder = new Recorder();
+        CommandLine cmd = new CommandLine(new MetricsTop()).setMetricsListener(recorder);
+        cmd.parse("-v", "1", "2", "sub", "-x", "5");
+
+        List<String> expected = new ArrayList<String>();
+        expected.add("top SPEC_CONSTRUCTION 3");
+        expected.add("top AT_FILE_EXPANSION 6");
+        expected.add("top sub DEFAULT_VALUES 0");
+        expected.add("top sub ARGUMENT_PROCESSING 2");
+        expected.add("top sub TYPE_CONVERSION 1");
+        expected.add("top sub VALIDATION 1");
+        expected.add("top DEFAULT_VALUES 1");
+        expected.add("top ARGUMENT_PROCESSING 4");
+        expected.add("top TYPE_CONVERSION 6"); // positional parameters are also converted to check if they can be consumed
+        expected.add("top VALIDATION 0");
+        assertEquals(expected, recorder.events);
+        for (Long elapsed : recorder.nanos) {
+            assertTrue("elapsed " + elapsed, elapsed >= 0);
+        }
+    }
+
+    @Test
+    public void testSpecConstructionIsReportedOnlyOnce() {
+        Recorder recorder = new Recorder();
+        CommandLine cmd = new CommandLine(new MetricsTop()).setMetricsListener(recorder);
+        cmd.parse("-v");
+        cmd.parse("-v");
+        int count = 0;
+        for (String event : recorder.events) {
+            if (event.contains(Phase.SPEC_CONSTRUCTION.name())) { count++; }
+        }
+        assertEquals(1, count);
+        assertEquals("top ARGUMENT_PROCESSING 1", recorder.events.get(recorder.events.size() - 3));
+    }
+
+    @Test
+    public void testExecutionIsReported() {
+        Recorder recorder = new Recorder();
+        MetricsTop top = new MetricsTop();
+        CommandLine cmd = new CommandLine(top).setMetricsListener(recorder);
+        cmd.parseWithHandler(new RunLast(), new String[] {"-v"});
+        assertTrue(top.ran);
+        assertEquals("top EXECUTION 1", recorder.events.get(recorder.events.size() - 1));
+    }
+
+    @Test
+    public void testPhasesAreReportedWhenParsingFails() {
+        Recorder recorder = new Recorder();
+        CommandLine cmd = new CommandLine(new MetricsTop()).setMetricsListener(recorder);
+        try {
+            cmd.parse("-n", "abc");
+            fail("Expected exception");
+        } catch (ParameterException expected) {
+        }
+        assertTrue(recorder.events.toString(), recorder.events.contains("top TYPE_CONVERSION 2"));
+        assertFalse(recorder.events.toString(), recorder.events.toString().contains("VALIDATION"));
+    }
+
+    @Test
+    public void testJsonLinesMetricsListener() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JsonLinesMetricsListener listener = new JsonLinesMetricsListener(new PrintStream(baos, true));
+        listener.phaseCompleted(Phase.VALIDATION, CommandSpec.create().name("a \"quoted\"\\name"), 1234L, 5);
+        String expected = String.format("{\"command\":\"a \\\"quoted\\\"\\\\name\",\"phase\":\"VALIDATION\",\"nanos\":1234,\"count\":5}%n");
+        assertEquals(expected, baos.toString());
+    }
+
+    @Test
+    public void testJsonLinesMetricsListenerPrintsOneLinePerPhase() {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new CommandLine(new MetricsTop())
+                .setMetricsListener(new JsonLinesMetricsListener(new PrintStream(baos, true)))
+                .parse("1");
+        String[] lines = baos.toString().split(System.getProperty("line.separator"));
+        assertEquals(6, lines.length);
+        for (String line : lines) {
+            assertTrue(line, line.matches("\\{\"command\":\"top\",\"phase\":\"[A-Z_]+\",\"nanos\":\\d+,\"count\":\\d+}"));
+        }
+    }
+}
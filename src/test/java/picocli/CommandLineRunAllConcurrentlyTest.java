@@ -0,0 +1,155 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.junit.contrib.java.lang.system.SystemOutRule;
+import picocli.CommandLine.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CommandLineRunAllConcurrentlyTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Rule
+    public final SystemOutRule systemOutRule = new SystemOutRule().enableLog().muteForSuccessfulTests();
+
+    static final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+    static abstract class Step implements Callable<String> {
+        @Option(names = "--sleep") long sleep;
+        @Option(names = "--fail") boolean fail;
+        @Option(names = "--await") boolean await;
+        static CyclicBarrier barrier;
+
+        public String call() throws Exception {
+            String name = getClass().getSimpleName();
+            events.add(name + " started");
+            if (await) { barrier.await(5, TimeUnit.SECONDS); }
+            Thread.sleep(sleep);
+            if (fail) { throw new IllegalStateException(name + " failed"); }
+            events.add(name + " completed");
+            return name + "@" + Thread.currentThread().getName();
+        }
+    }
+
+    @Command(name = "deploy", mixinStandardHelpOptions = true, subcommands = Database.class)
+    static class Deploy extends Step { }
+
+    @Command(name = "db", independent = true, subcommands = Web.class)
+    static class Database extends Step { }
+
+    @Command(name = "web", independent = true, subcommands = Verify.class)
+    static class Web extends Step { }
+
+    @Command(name = "verify")
+    static class Verify extends Step { }
+
+    private List<Object> run(RunAllConcurrently handler, String... args) {
+        events.clear();
+        return new CommandLine(new Deploy()).parseWithHandler(handler, args);
+    }
+
+    @Test
+    public void testIndependentAttribute() {
+        CommandLine commandLine = new CommandLine(new Deploy());
+        assertFalse(commandLine.getCommandSpec().independent());
+        assertTrue(commandLine.getSubcommands().get("db").getCommandSpec().independent());
+        assertTrue(Model.CommandSpec.create().independent(true).independent());
+    }
+
+    @Test
+    public void testIndependentCommandsRunConcurrently() {
+        Step.barrier = new CyclicBarrier(2);
+        List<Object> result = run(new RunAllConcurrently(), "db", "--await", "web", "--await");
+        assertEquals(3, result.size());
+        String thread = Thread.currentThread().getName();
+        assertEquals("Deploy@" + thread, result.get(0));
+        assertTrue(String.valueOf(result.get(1)), String.valueOf(result.get(1)).startsWith("Database@"));
+        assertTrue(String.valueOf(result.get(2)), String.valueOf(result.get(2)).startsWith("Web@"));
+        assertFalse(result.get(1).equals("Database@" + thread));
+    }
+
+    @Test
+    public void testDependentCommandsRunInOrderInCallingThread() {
+        List<Object> result = run(new RunAllConcurrently(), "db", "--sleep", "100", "web", "verify");
+        String thread = Thread.currentThread().getName();
+        assertEquals("Deploy@" + thread, result.get(0));
+        assertEquals("Verify@" + thread, result.get(3));
+        assertTrue(events.toString(), events.indexOf("Verify completed") < events.indexOf("Database completed"));
+        assertEquals(events.toString(), 0, events.indexOf("Deploy started"));
+        assertEquals(events.toString(), 1, events.indexOf("Deploy completed"));
+    }
+
+    @Test
+    public void testFirstFailureInCommandLineOrderIsThrown() {
+        try {
+            run(new RunAllConcurrently(), "db", "--sleep", "100", "--fail", "web", "--fail");
+            fail("Expected exception");
+        } catch (ExecutionException ex) {
+            assertEquals("Database failed", ex.getCause().getMessage());
+            assertEquals("db", ex.getCommandLine().getCommandName());
+        }
+        assertTrue(events.toString(), events.contains("Web started"));
+    }
+
+    @Test
+    public void testDependentFailureStopsLaterCommands() {
+        try {
+            run(new RunAllConcurrently(), "--fail", "db", "web");
+            fail("Expected exception");
+        } catch (ExecutionException ex) {
+            assertEquals("Deploy failed", ex.getCause().getMessage());
+        }
+        assertEquals(Arrays.asList("Deploy started"), events);
+    }
+
+    @Test
+    public void testWaitsForIndependentCommandsBeforeThrowing() {
+        try {
+            run(new RunAllConcurrently(), "db", "--sleep", "100", "web", "verify", "--fail");
+            fail("Expected exception");
+        } catch (ExecutionException ex) {
+            assertEquals("Verify failed", ex.getCause().getMessage());
+        }
+        assertTrue(events.toString(), events.contains("Database completed"));
+        assertTrue(events.toString(), events.contains("Web completed"));
+    }
+
+    @Test
+    public void testCustomExecutorIsUsedAndNotShutDown() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            int count;
+            public synchronized Thread newThread(Runnable r) { return new Thread(r, "custom-" + count++); }
+        });
+        try {
+            RunAllConcurrently handler = new RunAllConcurrently().useExecutor(executor);
+            assertSame(executor, handler.executor());
+            List<Object> result = run(handler, "db");
+            assertTrue(String.valueOf(result.get(1)), String.valueOf(result.get(1)).startsWith("Database@custom-"));
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testHelpRequested() {
+        List<Object> result = run(new RunAllConcurrently(), "--help");
+        assertNull(result);
+        assertTrue(systemOutRule.getLog(), systemOutRule.getLog().startsWith("Usage: deploy"));
+        assertTrue(events.isEmpty());
+    }
+}
@@ -28,6 +28,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.StreamTokenizer;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -842,7 +844,7 @@ public class CommandLineTest {
                         "[picocli DEBUG] Creating CommandSpec for object of class picocli.CommandLineTest$CompactFields with factory picocli.CommandLine$DefaultFactory%n" +
                         "[picocli INFO] Picocli version: %3$s%n" +
                         "[picocli INFO] Parsing 6 command line args [-oout, --, -r, -v, p1, p2]%n" +
-                        "[picocli DEBUG] Parser configuration: posixClusteredShortOptionsAllowed=true, stopAtPositional=false, stopAtUnmatched=false, separator=null, overwrittenOptionsAllowed=false, unmatchedArgumentsAllowed=false, expandAtFiles=true, atFileCommentChar=#, useSimplifiedAtFiles=false, endOfOptionsDelimiter=--, limitSplit=false, aritySatisfiedByAttachedOptionParam=false, toggleBooleanFlags=true, unmatchedOptionsArePositionalParams=false, collectErrors=false,caseInsensitiveEnumValuesAllowed=false, trimQuotes=false, splitQuotedStrings=false%n" +
+                        "[picocli DEBUG] Parser configuration: posixClusteredShortOptionsAllowed=true, stopAtPositional=false, stopAtUnmatched=false, separator=null, overwrittenOptionsAllowed=false, unmatchedArgumentsAllowed=false, expandAtFiles=true, atFileCommentChar=#, useSimplifiedAtFiles=false, endOfOptionsDelimiter=--, limitSplit=false, aritySatisfiedByAttachedOptionParam=false, toggleBooleanFlags=true, unmatchedOptionsArePositionalParams=false, collectErrors=false,caseInsensitiveEnumValuesAllowed=false, trimQuotes=false, splitQuotedStrings=false, abbreviatedOptionsAllowed=false, conversionCacheSize=0%n" +
                         "[picocli DEBUG] (ANSI is disabled by default: isatty=...)%n" +
                         "[picocli DEBUG] Set initial value for field boolean picocli.CommandLineTest$CompactFields.verbose of type boolean to false.%n" +
                         "[picocli DEBUG] Set initial value for field boolean picocli.CommandLineTest$CompactFields.recursive of type boolean to false.%n" +
@@ -887,6 +889,48 @@ public class CommandLineTest {
         assertEquals(stripAnsiTrace(expected), stripAnsiTrace(actual));
     }
 
+    @Test
+    public void testTracerLevelFollowsChangedSystemProperty() {
+        final String PROPERTY = "picocli.trace";
+        String old = System.getProperty(PROPERTY);
+
+        try {
+            System.setProperty(PROPERTY, "DEBUG");
+            assertTrue(new CommandLine.Tracer().isDebug());
+            assertTrue("same value again", new CommandLine.Tracer().isDebug());
+
+            System.setProperty(PROPERTY, "INFO");
+            assertFalse(new CommandLine.Tracer().isDebug());
+            assertTrue(new CommandLine.Tracer().isInfo());
+
+            System.setProperty(PROPERTY, new String("DEBUG")); // equal but not identical value
+            assertTrue(new CommandLine.Tracer().isDebug());
+
+            System.clearProperty(PROPERTY);
+            assertFalse(new CommandLine.Tracer().isInfo());
+            assertTrue(new CommandLine.Tracer().isWarn());
+        } finally {
+            if (old == null) {
+                System.clearProperty(PROPERTY);
+            } else {
+                System.setProperty(PROPERTY, old);
+            }
+        }
+    }
+
+    @Test
+    public void testTracingOffDoesNotInvokeGetterForTraceMessage() {
+        final int[] getterCalls = {0};
+        CommandSpec spec = CommandSpec.create();
+        spec.addOption(OptionSpec.builder("-x").type(int.class).getter(new IGetter() {
+            public <T> T get() { getterCalls[0]++; return null; }
+        }).setter(new ISetter() {
+            public <T> T set(T value) { return null; }
+        }).build());
+        new CommandLine(spec).parseArgs("-x", "1");
+        assertEquals("old value is only read for tracing", 0, getterCalls[0]);
+    }
+
     @Test
     public void testTracerIsWarn() {
         final String PROPERTY = "picocli.trace";
@@ -1761,7 +1805,7 @@ public class CommandLineTest {
                         "[picocli DEBUG] Adding subcommand 'tag' to 'git'%n" +
                         "[picocli INFO] Picocli version: %3$s%n" +
                         "[picocli INFO] Parsing 8 command line args [--git-dir=/home/rpopma/picocli, commit, -m, \"Fixed typos\", --, src1.java, src2.java, src3.java]%n" +
-                        "[picocli DEBUG] Parser configuration: posixClusteredShortOptionsAllowed=true, stopAtPositional=false, stopAtUnmatched=false, separator=null, overwrittenOptionsAllowed=false, unmatchedArgumentsAllowed=false, expandAtFiles=true, atFileCommentChar=#, useSimplifiedAtFiles=false, endOfOptionsDelimiter=--, limitSplit=false, aritySatisfiedByAttachedOptionParam=false, toggleBooleanFlags=true, unmatchedOptionsArePositionalParams=false, collectErrors=false,caseInsensitiveEnumValuesAllowed=false, trimQuotes=false, splitQuotedStrings=false%n" +
+                        "[picocli DEBUG] Parser configuration: posixClusteredShortOptionsAllowed=true, stopAtPositional=false, stopAtUnmatched=false, separator=null, overwrittenOptionsAllowed=false, unmatchedArgumentsAllowed=false, expandAtFiles=true, atFileCommentChar=#, useSimplifiedAtFiles=false, endOfOptionsDelimiter=--, limitSplit=false, aritySatisfiedByAttachedOptionParam=false, toggleBooleanFlags=true, unmatchedOptionsArePositionalParams=false, collectErrors=false,caseInsensitiveEnumValuesAllowed=false, trimQuotes=false, splitQuotedStrings=false, abbreviatedOptionsAllowed=false, conversionCacheSize=0%n" +
                         "[picocli DEBUG] (ANSI is disabled by default: isatty=...)%n" +
                         "[picocli DEBUG] Set initial value for field java.io.File picocli.Demo$Git.gitDir of type class java.io.File to null.%n" +
                         "[picocli DEBUG] Set initial value for field boolean picocli.CommandLine$AutoHelpMixin.helpRequested of type boolean to false.%n" +
@@ -3428,6 +3472,82 @@ public class CommandLineTest {
         }
     }
 
+    private static File writeAtFile(byte[] contents) throws IOException {
+        File file = File.createTempFile("picocli", "atfile");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testAtFileTokensMatchStreamTokenizer() throws Exception {
+        String contents = "a b\tc\r\nd# comment 'not quoted'\n" +
+                "\"quoted # not a comment\" 'single \"double\" inside'\n" +
+                "\"escapes \\t\\n\\101\\477\\x\" word\"attached\"more\n" +
+                "\"unterminated quote\nnext 'also unterminated\r\n\u00e9t\u00e9 \u20ac # trailing comment";
+        File file = writeAtFile(contents.getBytes("UTF-8"));
+
+        StreamTokenizer tok = new StreamTokenizer(new java.io.InputStreamReader(new FileInputStream(file), "UTF-8"));
+        tok.resetSyntax();
+        tok.wordChars(' ', 255);
+        tok.whitespaceChars(0, ' ');
+        tok.quoteChar('"');
+        tok.quoteChar('\'');
+        tok.commentChar('#');
+        List<String> expected = new ArrayList<String>();
+        while (tok.nextToken() != StreamTokenizer.TT_EOF) { expected.add(tok.sval); }
+
+        class App { @Parameters List<String> args; }
+        App app = new App();
+        new CommandLine(app).setAtFileCharset(java.nio.charset.Charset.forName("UTF-8")).parse("@" + file.getAbsolutePath());
+        assertEquals(expected, app.args);
+        assertTrue(app.args.contains("\u00e9t\u00e9"));
+    }
+
+    @Test
+    public void testAtFileCharset() throws Exception {
+        File file = writeAtFile("caf\u00e9".getBytes("ISO-8859-1"));
+        class App { @Parameters List<String> args; }
+        App app = new App();
+        CommandLine cmd = new CommandLine(app);
+        assertEquals(java.nio.charset.Charset.defaultCharset(), cmd.getAtFileCharset());
+        cmd.setAtFileCharset(java.nio.charset.Charset.forName("ISO-8859-1")).parse("@" + file.getAbsolutePath());
+        assertEquals(Arrays.asList("caf\u00e9"), app.args);
+
+        cmd.setAtFileCharset(java.nio.charset.Charset.forName("UTF-8")).parse("@" + file.getAbsolutePath());
+        assertEquals(Arrays.asList("caf\ufffd"), app.args);
+    }
+
+    @Test
+    public void testAtFileSimplifiedWithMixedLineTerminators() throws Exception {
+        File file = writeAtFile("one two\r\n\r\n# comment\rthree\nfour".getBytes("UTF-8"));
+        class App { @Parameters List<String> args; }
+        App app = new App();
+        new CommandLine(app).setUseSimplifiedAtFiles(true).parse("@" + file.getAbsolutePath());
+        assertEquals(Arrays.asList("one two", "three", "four"), app.args);
+    }
+
+    @Test
+    public void testLargeAtFileIsExpandedCompletely() throws Exception {
+        int count = 200000;
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        for (int i = 0; i < count; i++) { contents.write(("/some/path/to/file" + i + ".java\n").getBytes("UTF-8")); }
+        assertTrue(contents.size() > 1024 * 1024); // memory-mapped
+        File file = writeAtFile(contents.toByteArray());
+        class App { @Parameters List<String> args; }
+        App app = new App();
+        new CommandLine(app).parse("@" + file.getAbsolutePath(), "last");
+        assertEquals(count + 1, app.args.size());
+        assertEquals("/some/path/to/file0.java", app.args.get(0));
+        assertEquals("/some/path/to/file" + (count - 1) + ".java", app.args.get(count - 1));
+        assertEquals("last", app.args.get(count));
+    }
+
     @Test
     public void testUnmatchedAnnotationWithInstantiatedList() {
         setTraceLevel("OFF");
@@ -4022,16 +4142,40 @@ public class CommandLineTest {
         assertEquals("no quotes", "X", unquote.invoke(interpreter, "X"));
     }
 
+    @Test
+    public void testParseManyPositionalParametersMixedWithAttachedOptionParameters() {
+        class App {
+            @Option(names = "-x") List<String> x = new ArrayList<String>();
+            @Option(names = "-v") boolean verbose;
+            @Option(names = "-f") String file;
+            @Parameters List<String> positional;
+        }
+        List<String> args = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            args.add("file" + i);
+            if (i % 1000 == 0) { args.add("-x=" + i); }
+        }
+        args.add("-vfout.txt");
+        App app = CommandLine.populateCommand(new App(), args.toArray(new String[0]));
+        assertEquals(10000, app.positional.size());
+        assertEquals("file0", app.positional.get(0));
+        assertEquals("file9999", app.positional.get(9999));
+        assertEquals(Arrays.asList("0", "1000", "2000", "3000", "4000", "5000", "6000", "7000", "8000", "9000"), app.x);
+        assertTrue(app.verbose);
+        assertEquals("out.txt", app.file);
+    }
+
     @SuppressWarnings("unchecked")
     @Test
     public void testInterpreterApplyValueToSingleValuedField() throws Exception {
         Class c = Class.forName("picocli.CommandLine$Interpreter");
         Class lookBehindClass = Class.forName("picocli.CommandLine$LookBehind");
+        Class cursorClass = Class.forName("picocli.CommandLine$ArgumentCursor");
         Method applyValueToSingleValuedField = c.getDeclaredMethod("applyValueToSingleValuedField",
                 ArgSpec.class,
                 lookBehindClass,
                 Range.class,
-                Stack.class, Set.class, String.class);
+                cursorClass, Set.class, String.class);
         applyValueToSingleValuedField.setAccessible(true);
 
         CommandSpec spec = CommandSpec.create();
@@ -4045,8 +4189,11 @@ public class CommandLineTest {
         PositionalParamSpec arg = PositionalParamSpec.builder().arity("1").build();
         Object SEPARATE = lookBehindClass.getDeclaredField("SEPARATE").get(null);
 
+        Constructor<?> cursorConstructor = cursorClass.getDeclaredConstructor(String[].class);
+        cursorConstructor.setAccessible(true);
+        Object emptyCursor = cursorConstructor.newInstance((Object) new String[0]);
         int value = (Integer) applyValueToSingleValuedField.invoke(interpreter,
-                arg, SEPARATE, Range.valueOf("1"), new Stack<String>(), new HashSet<String>(), "");
+                arg, SEPARATE, Range.valueOf("1"), emptyCursor, new HashSet<String>(), "");
         assertEquals(0, value);
     }
 
@@ -617,6 +617,44 @@ public class CommandLineTypeConversionTest {
         assertEquals(args[0], app.globField.glob);
     }
 
+    @Test
+    public void testBuiltInConverterRegistryIsSharedBetweenCommandLines() throws Exception {
+        CommandLine first = new CommandLine(new EnumParams());
+        CommandLine second = new CommandLine(new EnumParams());
+        assertSame(extractRegistry(first), extractRegistry(second));
+    }
+
+    @Test
+    public void testBuiltInConverterRegistryIsSharedBetweenSubcommands() throws Exception {
+        @Command class Sub {}
+        CommandLine commandLine = new CommandLine(new EnumParams());
+        Map<Class<?>, ITypeConverter<?>> shared = extractRegistry(commandLine);
+        for (int i = 0; i < 300; i++) {
+            commandLine.addSubcommand("sub" + i, new Sub());
+        }
+        for (CommandLine sub : commandLine.getSubcommands().values()) {
+            assertSame("construction does not copy built-in converters", shared, extractRegistry(sub));
+        }
+    }
+
+    @Test
+    public void testRegisterConverterCopiesSharedRegistryOnWrite() throws Exception {
+        class GlobConverter implements ITypeConverter<MyGlob> {
+            public MyGlob convert(String value) { return new MyGlob(value); }
+        }
+        CommandLine unchanged = new CommandLine(new EnumParams());
+        CommandLine commandLine = new CommandLine(new EnumParams());
+        Map<Class<?>, ITypeConverter<?>> shared = extractRegistry(commandLine);
+
+        commandLine.registerConverter(MyGlob.class, new GlobConverter());
+        Map<Class<?>, ITypeConverter<?>> copy = extractRegistry(commandLine);
+        assertNotSame(shared, copy);
+        assertTrue(copy.containsKey(MyGlob.class));
+        assertTrue(copy.keySet().containsAll(shared.keySet()));
+        assertFalse(shared.containsKey(MyGlob.class));
+        assertSame(shared, extractRegistry(unchanged));
+    }
+
     static class MyGlobConverter implements ITypeConverter<MyGlob> {
         public MyGlob convert(String value) { return new MyGlob(value); }
     }
@@ -1011,6 +1049,59 @@ public class CommandLineTypeConversionTest {
         }
     }
 
+    @Test
+    public void testReflectionConverterGeneratesDirectConverterAfterThreshold() throws Exception {
+        Class<?> c = Class.forName("picocli.CommandLine$BuiltIn$ReflectionConverter");
+        Constructor<?> constructor = c.getDeclaredConstructor(Method.class, Class[].class);
+        Object converter = constructor.newInstance(Integer.class.getDeclaredMethod("valueOf", String.class), new Class[] {String.class});
+        Method convert = c.getDeclaredMethod("convert", String.class);
+        int threshold = c.getDeclaredField("INFLATION_THRESHOLD").getInt(null);
+        for (int i = 0; i < threshold * 2; i++) {
+            assertEquals(i, convert.invoke(converter, String.valueOf(i)));
+        }
+        Field generated = c.getDeclaredField("generated");
+        generated.setAccessible(true);
+        assertNotNull("runs on Java 8+", generated.get(converter));
+        try {
+            convert.invoke(converter, "abc");
+            fail("Expected exception");
+        } catch (InvocationTargetException ex) {
+            TypeConversionException actual = (TypeConversionException) ex.getTargetException();
+            assertEquals("cannot convert 'abc' to class java.lang.Integer (java.lang.NumberFormatException: For input string: \"abc\")", actual.getMessage());
+        }
+    }
+
+    @Test
+    public void testReflectionConverterGeneratesDirectConverterWhenCalledConcurrently() throws Exception {
+        Class<?> c = Class.forName("picocli.CommandLine$BuiltIn$ReflectionConverter");
+        Constructor<?> constructor = c.getDeclaredConstructor(Method.class, Class[].class);
+        final ITypeConverter<?> converter = (ITypeConverter<?>) constructor.newInstance(Integer.class.getDeclaredMethod("valueOf", String.class), new Class[] {String.class});
+        final int threshold = c.getDeclaredField("INFLATION_THRESHOLD").getInt(null);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                public void run() {
+                    for (int i = 0; i < threshold; i++) {
+                        try { converter.convert(String.valueOf(i)); } catch (Exception ex) { throw new IllegalStateException(ex); }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) { thread.join(); }
+        Field generated = c.getDeclaredField("generated");
+        generated.setAccessible(true);
+        assertNotNull("runs on Java 8+", generated.get(converter));
+    }
+
+    @Test
+    public void testReflectionConverterDoesNotGenerateConverterForInstanceMethod() throws Exception {
+        Class<?> c = Class.forName("picocli.CommandLine$BuiltIn$ReflectionConverter");
+        Method generate = c.getDeclaredMethod("generate", Method.class);
+        assertNull(generate.invoke(null, Object.class.getDeclaredMethod("toString")));
+        assertNotNull(generate.invoke(null, Integer.class.getDeclaredMethod("valueOf", String.class)));
+    }
+
     @Test
     public void testRegisterIfAvailableExceptionHandling() throws Exception {
         Class<?> c = Class.forName("picocli.CommandLine$BuiltIn");
@@ -1127,4 +1218,156 @@ public class CommandLineTypeConversionTest {
 
         assertEquals(EnumSet.of(PARTIAL, COMPLETE), app.resultTypes);
     }
+
+    static class CountingTagConverter implements ITypeConverter<StringBuilder> {
+        static List<String> converted = new ArrayList<String>();
+        public StringBuilder convert(String value) { converted.add(value); return new StringBuilder(value); }
+    }
+    @Command(subcommands = CachingSub.class)
+    static class CachingApp {
+        @Option(names = "--tags", split = ",", converter = CountingTagConverter.class) List<StringBuilder> tags;
+        @Option(names = "-D", split = ",") Map<TimeUnit, TimeUnit> units;
+    }
+    @Command(name = "sub")
+    static class CachingSub {
+        @Option(names = "--tags", split = ",", converter = CountingTagConverter.class) List<StringBuilder> tags;
+    }
+    @Test
+    public void testConversionCacheIsDisabledByDefault() {
+        CountingTagConverter.converted.clear();
+        CachingApp app = new CachingApp();
+        CommandLine cmd = new CommandLine(app);
+        assertEquals(0, cmd.getConversionCacheSize());
+        cmd.parseArgs("--tags=a,b,a");
+        assertEquals(Arrays.asList("a", "b", "a"), CountingTagConverter.converted);
+        assertNotSame(app.tags.get(0), app.tags.get(2));
+    }
+    @Test
+    public void testConversionCacheReusesConvertedValues() {
+        CountingTagConverter.converted.clear();
+        CachingApp app = new CachingApp();
+        new CommandLine(app).setConversionCacheSize(10).parseArgs("--tags=a,b,a", "--tags", "b,c,a");
+        assertEquals(Arrays.asList("a", "b", "c"), CountingTagConverter.converted);
+        assertEquals("[a, b, a, b, c, a]", app.tags.toString());
+        assertSame(app.tags.get(0), app.tags.get(2));
+        assertSame(app.tags.get(1), app.tags.get(3));
+    }
+    @Test
+    public void testConversionCacheEvictsLeastRecentlyUsedValues() {
+        CountingTagConverter.converted.clear();
+        new CommandLine(new CachingApp()).setConversionCacheSize(2).parseArgs("--tags=a,b,a,c,b,a");
+        assertEquals(Arrays.asList("a", "b", "c", "b", "a"), CountingTagConverter.converted);
+    }
+    @Test
+    public void testConversionCacheIsClearedBetweenParses() {
+        CountingTagConverter.converted.clear();
+        CommandLine cmd = new CommandLine(new CachingApp()).setConversionCacheSize(10);
+        cmd.parseArgs("--tags=a,a");
+        cmd.parseArgs("--tags=a,a");
+        assertEquals(Arrays.asList("a", "a"), CountingTagConverter.converted);
+    }
+    @Test
+    public void testConversionCacheDistinguishesMapKeysAndValues() {
+        CachingApp app = new CachingApp();
+        new CommandLine(app).setConversionCacheSize(10).setCaseInsensitiveEnumValuesAllowed(true)
+                .parseArgs("-D", "SECONDS=MINUTES,minutes=seconds,HOURS=SECONDS");
+        Map<TimeUnit, TimeUnit> expected = new HashMap<TimeUnit, TimeUnit>();
+        expected.put(SECONDS, MINUTES);
+        expected.put(MINUTES, SECONDS);
+        expected.put(HOURS, SECONDS);
+        assertEquals(expected, app.units);
+    }
+    @Test
+    public void testSetConversionCacheSizeAppliesToSubcommands() {
+        CountingTagConverter.converted.clear();
+        CommandLine cmd = new CommandLine(new CachingApp()).setConversionCacheSize(5);
+        assertEquals(5, cmd.getSubcommands().get("sub").getConversionCacheSize());
+        cmd.parseArgs("sub", "--tags=x,x,x");
+        assertEquals(Arrays.asList("x"), CountingTagConverter.converted);
+    }
+    @Test
+    public void testEnumConverterHonoursCaseInsensitivityChangedAfterFirstParse() {
+        class App {
+            @Option(names = "-e", split = ",") List<MyTestEnum> myEnums;
+        }
+        App app = new App();
+        CommandLine cmd = new CommandLine(app);
+        cmd.parseArgs("-e", "BIG,SMALL");
+        assertEquals(Arrays.asList(MyTestEnum.BIG, MyTestEnum.SMALL), app.myEnums);
+        try {
+            cmd.parseArgs("-e", "tiny");
+            fail("Expected exception");
+        } catch (ParameterException ex) {
+            assertEquals("Invalid value for option '-e' (<myEnums>): expected one of [BIG, SMALL, TINY] (case-sensitive) but was 'tiny'", ex.getMessage());
+        }
+        cmd.setCaseInsensitiveEnumValuesAllowed(true).parseArgs("-e", "tiny,Big,TINY");
+        assertEquals(Arrays.asList(MyTestEnum.TINY, MyTestEnum.BIG, MyTestEnum.TINY), app.myEnums);
+    }
+
+    static class PrimitiveArrays {
+        @Option(names = "-i", split = ",") int[] ints = {-1};
+        @Option(names = "-l", split = ",") long[] longs;
+        @Option(names = "-d", arity = "1..*") double[] doubles;
+        @Parameters String[] rest;
+    }
+    @Test
+    public void testPrimitiveArraysAccumulateValuesOfAllOccurrences() {
+        PrimitiveArrays app = new PrimitiveArrays();
+        new CommandLine(app).parseArgs("-i", "1,2", "-l=10,20", "-i=3", "-d", "1.5", "2", "x", "-l", "30");
+        assertArrayEquals(new int[] {1, 2, 3}, app.ints);
+        assertArrayEquals(new long[] {10, 20, 30}, app.longs);
+        assertArrayEquals(new double[] {1.5, 2}, app.doubles, 0);
+        assertArrayEquals(new String[] {"x"}, app.rest);
+    }
+    @Test
+    public void testPrimitiveArrayKeepsDefaultValueIfNotMatched() {
+        PrimitiveArrays app = new PrimitiveArrays();
+        new CommandLine(app).parseArgs("-l", "1");
+        assertArrayEquals(new int[] {-1}, app.ints);
+    }
+    @Test
+    public void testPrimitiveArrayWithManyValues() {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < 10000; i++) { values.append(i).append(','); }
+        PrimitiveArrays app = new PrimitiveArrays();
+        new CommandLine(app).parseArgs("-i", values.toString());
+        assertEquals(10000, app.ints.length);
+        assertEquals(9999, app.ints[9999]);
+    }
+    @Test
+    public void testPrimitiveArrayTypedValuesAreBoxedPerPosition() {
+        ParseResult result = new CommandLine(new PrimitiveArrays()).parseArgs("-i", "1,2", "-i", "3");
+        assertEquals(Arrays.<Object>asList(Arrays.asList(1, 2), Arrays.asList(3)), result.matchedOption('i').typedValues());
+        assertEquals(Arrays.asList("1", "2", "3"), result.matchedOption('i').stringValues());
+    }
+    @Test
+    public void testPrimitiveArrayInvalidValueErrorMessage() {
+        try {
+            new CommandLine(new PrimitiveArrays()).parseArgs("-i", "1,two");
+            fail("Expected exception");
+        } catch (ParameterException ex) {
+            assertEquals("Invalid value for option '-i' (<ints>): 'two' is not an int", ex.getMessage());
+        }
+        try {
+            new CommandLine(new PrimitiveArrays()).parseArgs("-d", "abc");
+            fail("Expected exception");
+        } catch (ParameterException ex) {
+            assertEquals("Invalid value for option '-d' at index 0 (<doubles>): 'abc' is not a double", ex.getMessage());
+        }
+    }
+    @Test
+    public void testPrimitiveVarargsStopAtValueThatIsNotANumber() {
+        PrimitiveArrays app = new PrimitiveArrays();
+        new CommandLine(app).parseArgs("-d", "1", "2e3", "three", "4");
+        assertArrayEquals(new double[] {1, 2000}, app.doubles, 0);
+        assertArrayEquals(new String[] {"three", "4"}, app.rest);
+    }
+    @Test
+    public void testPrimitiveArrayUsesRegisteredConverter() {
+        PrimitiveArrays app = new PrimitiveArrays();
+        new CommandLine(app).registerConverter(Integer.TYPE, new ITypeConverter<Integer>() {
+            public Integer convert(String value) { return Integer.parseInt(value, 16); }
+        }).parseArgs("-i", "a,ff");
+        assertArrayEquals(new int[] {10, 255}, app.ints);
+    }
 }
@@ -0,0 +1,185 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.junit.contrib.java.lang.system.RestoreSystemProperties;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class CommandLineUsageCacheTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Rule
+    public final RestoreSystemProperties restoreSystemProperties = new RestoreSystemProperties();
+
+    @Command(name = "app", mixinStandardHelpOptions = true, subcommands = Sub.class,
+            description = "An application with a long description that needs to be wrapped when the usage help width is small.")
+    static class App {
+        @Option(names = "--file", description = "The file to process. This description is long enough to be wrapped.") String file;
+    }
+
+    @Command(name = "sub", header = "The subcommand.")
+    static class Sub {
+        @Parameters(paramLabel = "FILE") String file;
+    }
+
+    @Test
+    public void testSectionsAreRenderedOnce() {
+        String[] description = {"original description"};
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.getCommandSpec().usageMessage().description(description);
+        String expected = commandLine.getUsageMessage(Help.Ansi.OFF);
+        assertTrue(expected, expected.contains("original description"));
+
+        description[0] = "modified without notifying the spec";
+        assertEquals(expected, commandLine.getUsageMessage(Help.Ansi.OFF));
+    }
+
+    @Test
+    public void testCacheIsInvalidatedWhenOptionIsAdded() {
+        CommandLine commandLine = new CommandLine(new App());
+        String before = commandLine.getUsageMessage(Help.Ansi.OFF);
+        commandLine.getCommandSpec().addOption(OptionSpec.builder("--verbose").description("Be verbose.").build());
+        String after = commandLine.getUsageMessage(Help.Ansi.OFF);
+        assertFalse(before.contains("--verbose"));
+        assertTrue(after, after.contains("--verbose"));
+        assertTrue(after, after.contains("Be verbose."));
+    }
+
+    @Test
+    public void testCacheIsInvalidatedWhenUsageMessageChanges() {
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.getUsageMessage(Help.Ansi.OFF);
+        commandLine.getCommandSpec().usageMessage().footer("The footer.").synopsisHeading("Synopsis: ");
+        String after = commandLine.getUsageMessage(Help.Ansi.OFF);
+        assertTrue(after, after.startsWith("Synopsis: app"));
+        assertTrue(after, after.endsWith("The footer." + String.format("%n")));
+    }
+
+    @Test
+    public void testCacheIsInvalidatedWhenSubcommandChanges() {
+        CommandLine commandLine = new CommandLine(new App());
+        CommandLine sub = commandLine.getSubcommands().get("sub");
+        assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).contains("The subcommand."));
+        assertTrue(sub.getUsageMessage(Help.Ansi.OFF).contains("Usage: app sub"));
+
+        sub.getCommandSpec().usageMessage().header("The renamed subcommand.");
+        commandLine.getCommandSpec().name("tool");
+        assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).contains("The renamed subcommand."));
+        assertTrue(sub.getUsageMessage(Help.Ansi.OFF).contains("Usage: tool sub"));
+    }
+
+    @Test
+    public void testCacheIsInvalidatedWhenSeparatorChanges() {
+        CommandLine commandLine = new CommandLine(new App());
+        assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).contains("--file=<file>"));
+        commandLine.setSeparator(":");
+        assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).contains("--file:<file>"));
+    }
+
+    @Test
+    public void testSectionsAreCachedPerWidthAnsiAndLocale() {
+        CommandLine commandLine = new CommandLine(new App());
+        String plain = commandLine.getUsageMessage(Help.Ansi.OFF);
+        String colored = commandLine.getUsageMessage(Help.Ansi.ON);
+        assertNotEquals(plain, colored);
+        assertEquals(plain, commandLine.getUsageMessage(Help.Ansi.OFF));
+        assertEquals(colored, commandLine.getUsageMessage(Help.Ansi.ON));
+
+        System.setProperty("picocli.usage.width", "60");
+        String narrow = commandLine.getUsageMessage(Help.Ansi.OFF);
+        assertNotEquals(plain, narrow);
+        System.setProperty("picocli.usage.width", "80");
+        assertEquals(plain, commandLine.getUsageMessage(Help.Ansi.OFF));
+
+        Locale original = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            assertEquals(plain, commandLine.getUsageMessage(Help.Ansi.OFF));
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    @Test
+    public void testCustomColorSchemeIsPartOfTheCacheKey() {
+        CommandLine commandLine = new CommandLine(new App());
+        String defaultColors = commandLine.getUsageMessage(Help.Ansi.ON);
+        Help.ColorScheme scheme = new Help.ColorScheme(Help.Ansi.ON).commands(Help.Ansi.Style.fg_red);
+        String red = commandLine.getUsageMessage(scheme);
+        assertNotEquals(defaultColors, red);
+        assertTrue(red, red.contains(Help.Ansi.Style.fg_red.on()));
+    }
+
+    @Test
+    public void testCustomSectionRenderersAreRenderedEachTime() {
+        final int[] count = {0};
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.getHelpSectionMap().put(UsageMessageSpec.SECTION_KEY_FOOTER, new IHelpSectionRenderer() {
+            public String render(Help help) { return "rendered " + ++count[0]; }
+        });
+        assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).endsWith("rendered 1"));
+        assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).endsWith("rendered 2"));
+    }
+
+    static class Hosts implements Iterable<String> {
+        static final List<String> HOSTS = new ArrayList<String>(Arrays.asList("alpha", "beta"));
+        public Iterator<String> iterator() { return new ArrayList<String>(HOSTS).iterator(); }
+    }
+
+    @Command(name = "connect")
+    static class Connect {
+        @Option(names = "--host", completionCandidates = Hosts.class, description = "One of: ${COMPLETION-CANDIDATES}.") String host;
+    }
+
+    @Test
+    public void testDynamicCompletionCandidatesArePartOfTheCacheKey() {
+        CommandLine commandLine = new CommandLine(new Connect());
+        try {
+            assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).contains("One of: alpha, beta."));
+            Hosts.HOSTS.add("gamma");
+            assertTrue(commandLine.getUsageMessage(Help.Ansi.OFF).contains("One of: alpha, beta, gamma."));
+        } finally {
+            Hosts.HOSTS.remove("gamma");
+        }
+    }
+
+    @Test
+    public void testNotCachedWithDefaultValueProvider() {
+        final int[] count = {0};
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.getCommandSpec().usageMessage().showDefaultValues(true);
+        commandLine.setDefaultValueProvider(new IDefaultValueProvider() {
+            public String defaultValue(ArgSpec argSpec) { return argSpec.isOption() ? "file" + ++count[0] : null; }
+        });
+        String first = commandLine.getUsageMessage(Help.Ansi.OFF);
+        String second = commandLine.getUsageMessage(Help.Ansi.OFF);
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void testNotCachedWithCustomHelpFactory() {
+        final int[] count = {0};
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.setHelpFactory(new IHelpFactory() {
+            public Help create(CommandSpec commandSpec, Help.ColorScheme colorScheme) {
+                count[0]++;
+                return new Help(commandSpec, colorScheme);
+            }
+        });
+        commandLine.getUsageMessage(Help.Ansi.OFF);
+        int created = count[0];
+        commandLine.getUsageMessage(Help.Ansi.OFF);
+        assertEquals(2 * created, count[0]);
+    }
+}
@@ -0,0 +1,179 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CommandLineUsageStreamingTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Command(name = "app", mixinStandardHelpOptions = true, subcommands = {Sub.class, Other.class},
+            description = "An application.", footer = "The footer.",
+            argGroups = @ArgGroup(name = "group", heading = "Grouped options:%n", exclusive = false, validate = false))
+    static class App {
+        @Option(names = {"-f", "--file"}, description = "The file to process. This description is long enough to be wrapped over several lines.") String file;
+        @Option(names = "--count", description = "The count.") int count;
+        @Option(names = "--hidden", hidden = true) boolean hidden;
+        @Parameters(paramLabel = "WORD", description = "The words.") List<String> words;
+        @Option(names = "--alpha", groups = "group", description = "Alpha.") boolean alpha;
+        @Option(names = "--beta", groups = "group", description = "Beta.") boolean beta;
+    }
+
+    @Command(name = "sub", aliases = "s", header = "The subcommand.")
+    static class Sub { }
+
+    @Command(name = "other", description = {"Other command.", "More details."})
+    static class Other { }
+
+    /** Records every value appended, to verify that output is written incrementally. */
+    static class RecordingAppendable implements Appendable {
+        final StringBuilder text = new StringBuilder();
+        final List<String> appends = new ArrayList<String>();
+        public Appendable append(CharSequence csq) { appends.add(String.valueOf(csq)); text.append(csq); return this; }
+        public Appendable append(CharSequence csq, int start, int end) { return append(String.valueOf(csq).subSequence(start, end)); }
+        public Appendable append(char c) { return append(String.valueOf(c)); }
+    }
+
+    private static CommandLine withoutCache(CommandLine commandLine) {
+        // a default value provider disables the usage help cache
+        commandLine.setDefaultValueProvider(new IDefaultValueProvider() {
+            public String defaultValue(ArgSpec argSpec) { return null; }
+        });
+        return commandLine;
+    }
+
+    @Test
+    public void testStreamedUsageIsSameAsUsageMessage() throws IOException {
+        CommandLine commandLine = withoutCache(new CommandLine(new App()));
+        String expected = commandLine.getUsageMessage(Help.Ansi.OFF);
+        RecordingAppendable out = new RecordingAppendable();
+        commandLine.usage(out, Help.defaultColorScheme(Help.Ansi.OFF));
+        assertEquals(expected, out.text.toString());
+        assertTrue(expected, expected.contains("Grouped options:"));
+        assertTrue(expected, expected.contains("sub, s"));
+    }
+
+    @Test
+    public void testStreamedSectionsAreWrittenPerRow() throws IOException {
+        CommandLine commandLine = withoutCache(new CommandLine(new App()));
+        RecordingAppendable out = new RecordingAppendable();
+        commandLine.usage(out, Help.defaultColorScheme(Help.Ansi.OFF));
+        assertTrue(out.appends.contains("  -f, --file=<file>     The file to process. This description is long enough to be"));
+        assertTrue(out.appends.contains("      --alpha           Alpha."));
+        assertTrue(out.appends.contains("  other   Other command."));
+        for (String value : out.appends) {
+            assertFalse(value, value.contains("The count.") && value.contains("Show this help message"));
+        }
+    }
+
+    @Test
+    public void testStreamedOutputIsCached() throws IOException {
+        CommandLine commandLine = new CommandLine(new App());
+        RecordingAppendable first = new RecordingAppendable();
+        commandLine.usage(first, Help.defaultColorScheme(Help.Ansi.OFF));
+        RecordingAppendable second = new RecordingAppendable();
+        commandLine.usage(second, Help.defaultColorScheme(Help.Ansi.OFF));
+        assertEquals(first.text.toString(), second.text.toString());
+        assertEquals(first.text.toString(), commandLine.getUsageMessage(Help.Ansi.OFF));
+        assertTrue(first.appends.size() > second.appends.size());
+    }
+
+    @Test
+    public void testWriterAndPrintWriter() {
+        CommandLine commandLine = new CommandLine(new App());
+        StringWriter sw = new StringWriter();
+        commandLine.usage(new java.io.PrintWriter(sw), Help.Ansi.OFF);
+        assertEquals(commandLine.getUsageMessage(Help.Ansi.OFF), sw.toString());
+    }
+
+    @Test
+    public void testCustomStreamingRendererReceivesDestination() throws IOException {
+        final List<String> calls = new ArrayList<String>();
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.setHelpSectionKeys(java.util.Arrays.asList("custom"));
+        commandLine.getHelpSectionMap().put("custom", new IStreamingHelpSectionRenderer() {
+            public String render(Help help) { calls.add("string"); return "custom"; }
+            public void render(Help help, Appendable out) throws IOException { calls.add("stream"); out.append("streamed"); }
+        });
+        RecordingAppendable out = new RecordingAppendable();
+        commandLine.usage(out, Help.defaultColorScheme(Help.Ansi.OFF));
+        assertEquals("streamed", out.text.toString());
+        assertEquals(java.util.Arrays.asList("stream"), calls);
+    }
+
+    @Test
+    public void testHelpSubclassOverridesAreUsed() throws IOException {
+        CommandLine commandLine = new CommandLine(new App());
+        commandLine.setHelpFactory(new IHelpFactory() {
+            public Help create(CommandSpec commandSpec, Help.ColorScheme colorScheme) {
+                return new Help(commandSpec, colorScheme) {
+                    @Override public String optionList() { return "custom option list" + String.format("%n"); }
+                };
+            }
+        });
+        RecordingAppendable out = new RecordingAppendable();
+        commandLine.usage(out, Help.defaultColorScheme(Help.Ansi.OFF));
+        assertTrue(out.text.toString(), out.text.toString().contains("custom option list"));
+        assertFalse(out.text.toString(), out.text.toString().contains("The count."));
+    }
+
+    @Test
+    public void testIOExceptionIsPropagated() {
+        Appendable failing = new Appendable() {
+            public Appendable append(CharSequence csq) throws IOException { throw new IOException("disk full"); }
+            public Appendable append(CharSequence csq, int start, int end) throws IOException { throw new IOException("disk full"); }
+            public Appendable append(char c) throws IOException { throw new IOException("disk full"); }
+        };
+        try {
+            new CommandLine(new App()).usage(failing, Help.defaultColorScheme(Help.Ansi.OFF));
+            fail("Expected exception");
+        } catch (IOException ex) {
+            assertEquals("disk full", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testHelpWriteMethodsMatchStringMethods() throws IOException {
+        Help help = new Help(new CommandLine(new App()).getCommandSpec(), Help.defaultColorScheme(Help.Ansi.OFF));
+        StringBuilder options = new StringBuilder();
+        help.writeOptionList(options);
+        assertEquals(help.optionList(), options.toString());
+        StringBuilder parameters = new StringBuilder();
+        help.writeParameterList(parameters);
+        assertEquals(help.parameterList(), parameters.toString());
+        StringBuilder commands = new StringBuilder();
+        help.writeCommandList(commands);
+        assertEquals(help.commandList(), commands.toString());
+    }
+
+    @Test
+    public void testTextTableFlushTo() throws IOException {
+        Help.TextTable table = Help.TextTable.forColumnWidths(Help.Ansi.OFF, 5, 20);
+        table.addRowValues("a", "first row");
+        table.addRowValues("b", "second row");
+        String expected = table.toString();
+        StringBuilder written = new StringBuilder();
+        table.writeTo(written);
+        assertEquals(expected, written.toString());
+        assertEquals(2, table.rowCount());
+
+        StringBuilder flushed = new StringBuilder();
+        table.flushTo(flushed);
+        assertEquals(expected, flushed.toString());
+        assertEquals(0, table.rowCount());
+
+        table.addRowValues("c", "third row");
+        table.flushTo(flushed);
+        assertEquals(expected + String.format("c    third row%n"), flushed.toString());
+    }
+}
@@ -5,13 +5,18 @@ import org.junit.Test;
 import picocli.CommandLine.*;
 import picocli.CommandLine.Model.CommandSpec;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class ModelCommandReflectionTest {
@@ -331,4 +336,51 @@ public class ModelCommandReflectionTest {
     public void testBuildUnmatchedForField_valid() {
         CommandSpec.forAnnotatedObject(new MyUnmatched2());
     }
+
+    @Command(name = "generated", subcommands = GeneratedFactorySubcommand.class)
+    static class GeneratedFactoryCommand {
+        @Option(names = "-x") int x; // ignored: the generated factory defines the model
+    }
+    @Command(name = "sub")
+    static class GeneratedFactorySubcommand {
+        @ParentCommand GeneratedFactoryCommand parent;
+    }
+    @Test
+    public void testGeneratedCommandSpecFactoryIsPreferredOverReflection() {
+        GeneratedFactoryCommand command = new GeneratedFactoryCommand();
+        CommandLine commandLine = new CommandLine(command);
+        CommandSpec spec = commandLine.getCommandSpec();
+        assertEquals("from-factory", spec.name());
+        assertNotNull(spec.findOption("-y"));
+        assertEquals(null, spec.findOption("-x"));
+
+        commandLine.parseArgs("-y", "123");
+        assertEquals(123, command.x);
+    }
+
+    @Test
+    public void testGeneratedCommandSpecFactorySubcommandsGetParentCommand() {
+        GeneratedFactoryCommand command = new GeneratedFactoryCommand();
+        CommandLine commandLine = new CommandLine(command);
+        CommandLine sub = commandLine.getSubcommands().get("sub");
+        assertNotNull(sub);
+        assertSame(command, ((GeneratedFactorySubcommand) sub.getCommand()).parent);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testMissingGeneratedCommandSpecFactoryIsOnlyLookedUpOnce() throws Exception {
+        Class<?> reflection = Class.forName("picocli.CommandLine$Model$CommandReflection");
+        Field field = reflection.getDeclaredField("WITHOUT_GENERATED_FACTORY");
+        field.setAccessible(true);
+        Map<Class<?>, Boolean> withoutFactory = (Map<Class<?>, Boolean>) field.get(null);
+
+        new CommandLine(new GeneratedFactoryCommand());
+        new CommandLine(new MyUnmatched2());
+        synchronized (withoutFactory) {
+            assertTrue(withoutFactory.containsKey(MyUnmatched2.class));
+            assertTrue(withoutFactory.containsKey(GeneratedFactorySubcommand.class));
+            assertFalse(withoutFactory.containsKey(GeneratedFactoryCommand.class));
+        }
+    }
 }
@@ -0,0 +1,31 @@
+package picocli;
+
+import picocli.CommandLine.IFactory;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.IGetter;
+import picocli.CommandLine.Model.ISetter;
+import picocli.CommandLine.Model.OptionSpec;
+
+/** Hand-written equivalent of a factory generated by picocli-codegen, used by {@link ModelCommandReflectionTest}. */
+public final class ModelCommandReflectionTest_GeneratedFactoryCommand_CommandSpecFactory implements CommandLine.ICommandSpecFactory {
+    public CommandSpec create(Object command, IFactory factory) {
+        final ModelCommandReflectionTest.GeneratedFactoryCommand cmd = (ModelCommandReflectionTest.GeneratedFactoryCommand) command;
+        CommandSpec spec = CommandSpec.wrapWithoutInspection(cmd);
+        spec.name("from-factory");
+        spec.addOption(OptionSpec.builder("-y")
+                .type(int.class)
+                .initialValue(cmd.x)
+                .getter(new IGetter() {
+                    @SuppressWarnings("unchecked") public <T> T get() { return (T) (Object) cmd.x; }
+                })
+                .setter(new ISetter() {
+                    @SuppressWarnings("unchecked") public <T> T set(T value) {
+                        T old = (T) (Object) cmd.x;
+                        cmd.x = (Integer) value;
+                        return old;
+                    }
+                })
+                .build());
+        return spec;
+    }
+}
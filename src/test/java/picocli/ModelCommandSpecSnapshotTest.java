@@ -0,0 +1,203 @@
+package picocli;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.contrib.java.lang.system.ProvideSystemProperty;
+import org.junit.rules.TemporaryFolder;
+import picocli.CommandLine.*;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Model.CommandSpecSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ModelCommandSpecSnapshotTest {
+    @Rule
+    public final ProvideSystemProperty ansiOFF = new ProvideSystemProperty("picocli.ansi", "false");
+
+    @Rule
+    public final TemporaryFolder temp = new TemporaryFolder();
+
+    @Command(name = "top", version = "top 1.0", mixinStandardHelpOptions = true,
+            description = "Top-level command.", footer = "footer", sortOptions = false,
+            subcommands = {SnapshotSub.class, HelpCommand.class})
+    static class SnapshotTop {
+        @Option(names = {"-v", "--verbose"}, description = "Verbose output.") boolean verbose;
+        @Option(names = "-n", defaultValue = "3", description = "Count (default: ${DEFAULT-VALUE}).") int count;
+        @Option(names = "-D", split = ",", description = "Properties.") java.util.Map<String, Integer> props;
+        @Option(names = "--unit", description = "One of ${COMPLETION-CANDIDATES}.") java.util.concurrent.TimeUnit unit;
+        @Parameters(index = "0..*", arity = "0..*", paramLabel = "FILE") List<File> files = new ArrayList<File>();
+        @Unmatched List<String> unmatched;
+        @Spec CommandSpec spec;
+    }
+
+    @Command(name = "sub", aliases = "s", description = "A subcommand.")
+    static class SnapshotSub {
+        @ParentCommand SnapshotTop parent;
+        @Option(names = "-x", required = true) private long x;
+        @Parameters char[] chars;
+    }
+
+    private static byte[] snapshot(Object command) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CommandSpecSnapshot.write(CommandSpec.forAnnotatedObject(command), out);
+        return out.toByteArray();
+    }
+
+    private static CommandSpec read(byte[] bytes, Object command) throws IOException {
+        return CommandSpecSnapshot.read(new ByteArrayInputStream(bytes), command, CommandLine.defaultFactory());
+    }
+
+    @Test
+    public void testSnapshotRoundTripHasSameUsageHelp() throws Exception {
+        CommandSpec spec = read(snapshot(new SnapshotTop()), new SnapshotTop());
+        assertNotNull(spec);
+        CommandLine expected = new CommandLine(new SnapshotTop());
+        CommandLine actual = new CommandLine(spec);
+        assertEquals(expected.getUsageMessage(), actual.getUsageMessage());
+        assertEquals(expected.getSubcommands().keySet(), actual.getSubcommands().keySet());
+        assertEquals(expected.getSubcommands().get("sub").getUsageMessage(), actual.getSubcommands().get("sub").getUsageMessage());
+        assertEquals(expected.getCommandSpec().toString(), actual.getCommandSpec().toString());
+        assertEquals(expected.getCommandSpec().optionsMap().keySet(), actual.getCommandSpec().optionsMap().keySet());
+    }
+
+    @Test
+    public void testSnapshotBindsFieldsOfCommandObject() throws Exception {
+        SnapshotTop top = new SnapshotTop();
+        CommandLine cmd = new CommandLine(read(snapshot(new SnapshotTop()), top));
+        List<CommandLine> parsed = cmd.parse("-v", "-Da=1,b=2", "--unit", "SECONDS", "a.txt", "b.txt", "sub", "-x", "5", "q");
+        assertEquals(2, parsed.size());
+        assertTrue(top.verbose);
+        assertEquals(3, top.count);
+        assertEquals(Integer.valueOf(2), top.props.get("b"));
+        assertEquals(java.util.concurrent.TimeUnit.SECONDS, top.unit);
+        assertEquals(2, top.files.size());
+        assertSame(cmd.getCommandSpec(), top.spec);
+
+        SnapshotSub sub = parsed.get(1).getCommand();
+        assertSame(top, sub.parent);
+        assertEquals(5L, sub.x);
+        assertArrayEquals(new char[] {'q'}, sub.chars);
+    }
+
+    @Test
+    public void testSnapshotResetsFieldsToInitialValueWhenReused() throws Exception {
+        SnapshotTop top = new SnapshotTop();
+        CommandLine cmd = new CommandLine(read(snapshot(new SnapshotTop()), top));
+        cmd.parse("-v", "-n", "7", "x", "y");
+        cmd.parse();
+        assertFalse(top.verbose);
+        assertEquals(3, top.count);
+
+        SnapshotTop reflected = new SnapshotTop();
+        CommandLine reflectedCmd = new CommandLine(reflected);
+        reflectedCmd.parse("-v", "-n", "7", "x", "y");
+        reflectedCmd.parse();
+        assertEquals(reflected.files, top.files);
+    }
+
+    @Test
+    public void testSnapshotForOtherCommandIsIgnored() throws Exception {
+        assertNull(read(snapshot(new SnapshotTop()), new SnapshotSub()));
+    }
+
+    @Test
+    public void testSnapshotOfOtherVersionIsIgnored() throws Exception {
+        byte[] bytes = snapshot(new SnapshotTop());
+        bytes[9]++; // first character of the picocli version
+        assertNull(read(bytes, new SnapshotTop()));
+    }
+
+    @Test
+    public void testSnapshotWithStaleClassHashIsIgnored() throws Exception {
+        byte[] bytes = snapshot(new SnapshotTop());
+        int hashOffset = 4 + 4 + 2 + CommandLine.VERSION.length() + 4;
+        for (String name : new String[] {SnapshotTop.class.getName(), SnapshotSub.class.getName(), HelpCommand.class.getName()}) {
+            hashOffset += 2 + name.length();
+        }
+        bytes[hashOffset + 7]++;
+        assertNull(read(bytes, new SnapshotTop()));
+    }
+
+    @Test
+    public void testReadRejectsInvalidInput() {
+        try {
+            read(new byte[] {1, 2, 3, 4}, new SnapshotTop());
+            fail("Expected exception");
+        } catch (IOException ex) {
+            assertEquals("Not a CommandSpec snapshot", ex.getMessage());
+        }
+    }
+
+    static class SnapshotMixin {
+        @Option(names = "-m") int m;
+    }
+
+    @Command(name = "mixee")
+    static class SnapshotMixee {
+        @Mixin SnapshotMixin mixin;
+    }
+
+    @Test
+    public void testWriteRejectsCommandWithMixin() throws Exception {
+        try {
+            snapshot(new SnapshotMixee());
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Cannot write snapshot: "));
+        }
+    }
+
+    @Test
+    public void testLoadWritesSnapshotAndReusesIt() throws Exception {
+        File file = new File(temp.getRoot(), "top.spec");
+        CommandSpec first = CommandSpecSnapshot.load(file, new SnapshotTop(), CommandLine.defaultFactory());
+        assertTrue(file.isFile());
+        long length = file.length();
+
+        SnapshotTop top = new SnapshotTop();
+        CommandSpec second = CommandSpecSnapshot.load(file, top, CommandLine.defaultFactory());
+        assertSame(top, second.userObject());
+        assertEquals(new CommandLine(first).getUsageMessage(), new CommandLine(second).getUsageMessage());
+        assertEquals(length, file.length());
+    }
+
+    @Test
+    public void testLoadReplacesCorruptSnapshot() throws Exception {
+        File file = new File(temp.getRoot(), "corrupt.spec");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[] {1, 2, 3});
+        out.close();
+        CommandSpec spec = CommandSpecSnapshot.load(file, SnapshotTop.class);
+        assertTrue(spec.userObject() instanceof SnapshotTop);
+        assertTrue(file.length() > 3);
+        assertNotNull(read(readAll(file), new SnapshotTop()));
+    }
+
+    @Test
+    public void testLoadDoesNotWriteSnapshotForUnsupportedCommand() throws Exception {
+        File file = new File(temp.getRoot(), "mixee.spec");
+        CommandSpec spec = CommandSpecSnapshot.load(file, new SnapshotMixee(), CommandLine.defaultFactory());
+        assertTrue(spec.optionsMap().containsKey("-m"));
+        assertFalse(file.exists());
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        java.io.FileInputStream in = new java.io.FileInputStream(file);
+        try {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) { result.write(buffer, 0, count); }
+            return result.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+}
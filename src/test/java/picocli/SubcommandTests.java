@@ -1316,4 +1316,99 @@ public class SubcommandTests {
         assertTrue(grandChildCount > 0);
     }
 
+    static int lazyInstances;
+    @Command(name = "lazy1", aliases = {"l1", "first"})
+    static class LazySub1 {
+        @Option(names = "-x") String x;
+        @CommandLine.ParentCommand LazyTop parent;
+        public LazySub1() { lazyInstances++; }
+    }
+    @Command(name = "lazy21")
+    static class LazySub21 {
+        @Option(names = "-y") boolean y;
+        public LazySub21() { lazyInstances++; }
+    }
+    @Command(name = "lazy2", subcommands = LazySub21.class)
+    static class LazySub2 {
+        public LazySub2() { lazyInstances++; }
+    }
+    @Command(name = "top", lazySubcommands = true, subcommands = {LazySub1.class, LazySub2.class})
+    static class LazyTop {
+        @Option(names = "-v") boolean verbose;
+    }
+
+    @Test
+    public void testLazySubcommandsNotInstantiatedAtConstruction() {
+        lazyInstances = 0;
+        CommandLine commandLine = new CommandLine(new LazyTop());
+        assertEquals(0, lazyInstances);
+        assertEquals(setOf("lazy1", "l1", "first", "lazy2"), commandLine.getCommandSpec().subcommands().keySet());
+        assertTrue(commandLine.getCommandSpec().isLazySubcommands());
+        assertEquals(0, lazyInstances);
+    }
+
+    @Test
+    public void testLazySubcommandInstantiatedOnlyWhenMatched() {
+        lazyInstances = 0;
+        CommandLine commandLine = new CommandLine(new LazyTop());
+        List<CommandLine> parsed = commandLine.parse("-v", "first", "-x", "abc");
+        assertEquals(1, lazyInstances);
+        assertEquals(2, parsed.size());
+        LazySub1 sub = parsed.get(1).getCommand();
+        assertEquals("abc", sub.x);
+        assertSame("@ParentCommand injected", commandLine.getCommand(), sub.parent);
+        assertSame(commandLine, parsed.get(1).getParent());
+        assertEquals("lazy1", parsed.get(1).getCommandName());
+    }
+
+    @Test
+    public void testLazySubcommandsAreInheritedByLazilyInstantiatedSubcommands() {
+        lazyInstances = 0;
+        CommandLine commandLine = new CommandLine(new LazyTop());
+        commandLine.parse("lazy2");
+        assertEquals("only lazy2 is instantiated", 1, lazyInstances);
+        assertTrue(commandLine.getSubcommands().get("lazy2").getCommandSpec().isLazySubcommands());
+
+        lazyInstances = 0;
+        List<CommandLine> parsed = new CommandLine(new LazyTop()).parse("lazy2", "lazy21", "-y");
+        assertEquals(2, lazyInstances);
+        assertTrue(((LazySub21) parsed.get(2).getCommand()).y);
+    }
+
+    @Test
+    public void testLazySubcommandAppliesSettingsRecordedBeforeInstantiation() {
+        lazyInstances = 0;
+        CommandLine commandLine = new CommandLine(new LazyTop());
+        commandLine.setSeparator(":");
+        commandLine.setUsageHelpWidth(100);
+        assertEquals(0, lazyInstances);
+
+        List<CommandLine> parsed = commandLine.parse("lazy2", "lazy21");
+        assertEquals(":", parsed.get(1).getSeparator());
+        assertEquals(100, parsed.get(1).getUsageHelpWidth());
+        assertEquals(":", parsed.get(2).getSeparator());
+        assertEquals(100, parsed.get(2).getUsageHelpWidth());
+    }
+
+    @Test
+    public void testLazySubcommandsInstantiatedForUsageHelp() {
+        lazyInstances = 0;
+        CommandLine commandLine = new CommandLine(new LazyTop());
+        String usage = commandLine.getUsageMessage(CommandLine.Help.Ansi.OFF);
+        assertTrue(usage, usage.contains("lazy1, l1, first"));
+        assertTrue(usage, usage.contains("lazy2"));
+        assertEquals(3, lazyInstances);
+    }
+
+    @Test
+    public void testLazySubcommandDuplicateNameRejected() {
+        @Command(name = "top", lazySubcommands = true, subcommands = {LazySub1.class, LazySub1.class})
+        class Duplicate {}
+        try {
+            new CommandLine(new Duplicate());
+            fail("Expected exception");
+        } catch (InitializationException ex) {
+            assertEquals("Another subcommand named 'lazy1' already exists for command 'top'", ex.getMessage());
+        }
+    }
 }